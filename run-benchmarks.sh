@@ -0,0 +1,6 @@
+#!/bin/bash
+set -euo pipefail
+
+echo 'Run JMH benchmarks'
+mvn install -B -e -V -Pbenchmarks -DskipTests -pl sonar-benchmarks -am
+java -jar sonar-benchmarks/target/sonar-benchmarks.jar "$@"
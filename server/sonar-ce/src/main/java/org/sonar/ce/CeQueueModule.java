@@ -20,9 +20,11 @@
 package org.sonar.ce;
 
 import org.sonar.ce.monitoring.CEQueueStatusImpl;
+import org.sonar.ce.monitoring.CeProcessMetrics;
 import org.sonar.ce.monitoring.CeTasksMBeanImpl;
 import org.sonar.ce.queue.CeQueueInitializer;
 import org.sonar.ce.queue.InternalCeQueueImpl;
+import org.sonar.ce.queue.ReportStorageProvider;
 import org.sonar.core.platform.Module;
 
 public class CeQueueModule extends Module {
@@ -30,11 +32,13 @@ public class CeQueueModule extends Module {
   protected void configureModule() {
     add(
       // queue state
+      new ReportStorageProvider(),
       InternalCeQueueImpl.class,
 
       // queue monitoring
       CEQueueStatusImpl.class,
       CeTasksMBeanImpl.class,
+      CeProcessMetrics.class,
       
       // init queue state and queue processing
       CeQueueInitializer.class);
@@ -19,6 +19,8 @@
  */
 package org.sonar.ce.monitoring;
 
+import org.sonar.ce.taskprocessor.ResourceUsage;
+
 public interface CEQueueStatus {
 
   /**
@@ -61,6 +63,12 @@ public interface CEQueueStatus {
    */
   long addError(long processingTime);
 
+  /**
+   * Adds the CPU time and the allocated bytes of a processed task to the related counters. Values which are not
+   * available are ignored.
+   */
+  void addResourceUsage(ResourceUsage resourceUsage);
+
   /**
    * Count of batch reports waiting for processing since startup, including reports received before instance startup.
    */
@@ -85,4 +93,14 @@ public interface CEQueueStatus {
    * Time spent processing batch reports since startup, in milliseconds.
    */
   long getProcessingTime();
+
+  /**
+   * CPU time spent by workers processing tasks since startup, in milliseconds.
+   */
+  long getCpuTime();
+
+  /**
+   * Bytes allocated in heap by workers processing tasks since startup.
+   */
+  long getAllocatedBytes();
 }
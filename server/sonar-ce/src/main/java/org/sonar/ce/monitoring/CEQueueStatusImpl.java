@@ -20,6 +20,7 @@
 package org.sonar.ce.monitoring;
 
 import java.util.concurrent.atomic.AtomicLong;
+import org.sonar.ce.taskprocessor.ResourceUsage;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeQueueDto;
@@ -33,6 +34,8 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   private final AtomicLong error = new AtomicLong(0);
   private final AtomicLong success = new AtomicLong(0);
   private final AtomicLong processingTime = new AtomicLong(0);
+  private final AtomicLong cpuTime = new AtomicLong(0);
+  private final AtomicLong allocatedBytes = new AtomicLong(0);
 
   public CEQueueStatusImpl(DbClient dbClient) {
     this.dbClient = dbClient;
@@ -62,6 +65,18 @@ public class CEQueueStatusImpl implements CEQueueStatus {
     processingTime.addAndGet(ms);
   }
 
+  @Override
+  public void addResourceUsage(ResourceUsage resourceUsage) {
+    Long taskCpuTime = resourceUsage.getCpuTimeMs();
+    if (taskCpuTime != null) {
+      cpuTime.addAndGet(taskCpuTime);
+    }
+    Long taskAllocatedBytes = resourceUsage.getAllocatedBytes();
+    if (taskAllocatedBytes != null) {
+      allocatedBytes.addAndGet(taskAllocatedBytes);
+    }
+  }
+
   @Override
   public long getPendingCount() {
     try (DbSession dbSession = dbClient.openSession(false)) {
@@ -88,4 +103,14 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   public long getProcessingTime() {
     return processingTime.get();
   }
+
+  @Override
+  public long getCpuTime() {
+    return cpuTime.get();
+  }
+
+  @Override
+  public long getAllocatedBytes() {
+    return allocatedBytes.get();
+  }
 }
@@ -0,0 +1,87 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.picocontainer.Startable;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.process.sharedmemoryfile.AllProcessesMetrics;
+import org.sonar.process.sharedmemoryfile.ProcessMetric;
+
+import static java.lang.Integer.parseInt;
+import static org.sonar.process.ProcessEntryPoint.PROPERTY_PROCESS_INDEX;
+import static org.sonar.process.ProcessEntryPoint.PROPERTY_SHARED_PATH;
+
+/**
+ * Periodically publishes the state of the queue of tasks in {@link AllProcessesMetrics}, so that it can be
+ * read by the main process without JMX.
+ */
+public class CeProcessMetrics implements Startable {
+
+  private static final long DELAY_IN_SECONDS = 10L;
+
+  private final Properties processProps;
+  private final CEQueueStatus queueStatus;
+  private AllProcessesMetrics metrics;
+  private ScheduledExecutorService executorService;
+
+  public CeProcessMetrics(Properties processProps, CEQueueStatus queueStatus) {
+    this.processProps = processProps;
+    this.queueStatus = queueStatus;
+  }
+
+  @Override
+  public void start() {
+    int processNumber = parseInt(processProps.getProperty(PROPERTY_PROCESS_INDEX));
+    metrics = new AllProcessesMetrics(new File(processProps.getProperty(PROPERTY_SHARED_PATH)));
+    executorService = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat("CE_metrics-%d")
+        .build());
+    executorService.scheduleWithFixedDelay(() -> publish(processNumber), 0L, DELAY_IN_SECONDS, TimeUnit.SECONDS);
+  }
+
+  // visible for testing
+  void publish(int processNumber) {
+    try {
+      metrics.set(processNumber, ProcessMetric.CE_PENDING, queueStatus.getPendingCount());
+      metrics.set(processNumber, ProcessMetric.CE_IN_PROGRESS, queueStatus.getInProgressCount());
+      metrics.set(processNumber, ProcessMetric.CE_SUCCEEDED, queueStatus.getSuccessCount());
+      metrics.set(processNumber, ProcessMetric.CE_FAILED, queueStatus.getErrorCount());
+    } catch (Exception e) {
+      // do not cancel next executions
+      Loggers.get(CeProcessMetrics.class).warn("Failed to publish metrics of Compute Engine queue", e);
+    }
+  }
+
+  @Override
+  public void stop() {
+    if (executorService != null) {
+      executorService.shutdownNow();
+      metrics.close();
+    }
+  }
+}
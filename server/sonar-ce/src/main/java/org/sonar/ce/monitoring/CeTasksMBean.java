@@ -48,6 +48,16 @@ public interface CeTasksMBean {
    */
   long getProcessingTime();
 
+  /**
+   * CPU time spent by workers processing reports since startup, in milliseconds.
+   */
+  long getCpuTime();
+
+  /**
+   * Bytes allocated in heap by workers processing reports since startup.
+   */
+  long getAllocatedBytes();
+
   /**
    * Configured maximum number of workers.
    */
@@ -0,0 +1,141 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeActivityDto;
+import org.sonar.db.ce.CeTaskCharacteristicDto;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.ce.EligibleTaskDto;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Order in which the eligible pending tasks are peeked by the workers. Each task gets a score, expressed in
+ * milliseconds, and the task with the highest score is peeked first:
+ * <ul>
+ *   <li>aging: the time the task has been waiting in the queue is added, so that any task is eventually peeked</li>
+ *   <li>priority: full analyses get a bonus over incremental analyses, which get a bonus over other types of tasks</li>
+ *   <li>short job first: the duration of the last execution of the same type of task on the same component is
+ *   subtracted</li>
+ *   <li>fairness: components which had a task executed recently get a penalty, so that a component which receives many
+ *   tasks does not get consecutive slots while other components are waiting</li>
+ * </ul>
+ * Bonus and penalties are bounded, so that a task waiting for more than
+ * {@link #FULL_REPORT_BONUS} + {@link #MAX_DURATION_PENALTY} + {@link #FAIRNESS_PENALTY} longer than another one is
+ * always peeked first.
+ * <p>
+ * Only the oldest eligible task of each component is ranked, so tasks of a same component are always peeked in the
+ * order of their submission. The component of a task is the project or the view it was submitted for.
+ * </p>
+ */
+class EligibleTasksRanking {
+
+  static final long FULL_REPORT_BONUS = MINUTES.toMillis(10);
+  static final long INCREMENTAL_REPORT_BONUS = MINUTES.toMillis(5);
+  static final long MAX_DURATION_PENALTY = MINUTES.toMillis(10);
+  static final long FAIRNESS_PENALTY = MINUTES.toMillis(5);
+
+  private final DbClient dbClient;
+  private final System2 system2;
+
+  EligibleTasksRanking(DbClient dbClient, System2 system2) {
+    this.dbClient = dbClient;
+    this.system2 = system2;
+  }
+
+  /**
+   * @param candidates oldest eligible task of each component, see
+   * {@link org.sonar.db.ce.CeQueueDao#selectOldestEligibleOfEachComponent(DbSession, int)}
+   */
+  List<EligibleTaskDto> rank(DbSession dbSession, List<EligibleTaskDto> candidates) {
+    if (candidates.size() <= 1) {
+      return candidates;
+    }
+
+    Set<String> incrementalTaskUuids = selectIncrementalTaskUuids(dbSession, candidates);
+    Map<String, CeActivityDto> lastActivityByKey = dbClient.ceActivityDao()
+      .selectLastByIsLastKeys(dbSession, candidates.stream().map(EligibleTasksRanking::isLastKey).collect(toList()))
+      .stream()
+      .collect(toMap(CeActivityDto::getIsLastKey, Function.identity(), (a, b) -> a));
+
+    long now = system2.now();
+    List<EligibleTaskDto> ranked = new ArrayList<>(candidates);
+    ranked.sort(Comparator.comparingLong(
+      (EligibleTaskDto task) -> score(task, incrementalTaskUuids.contains(task.getUuid()), lastActivityByKey.get(isLastKey(task)), now))
+      .reversed());
+    return ranked;
+  }
+
+  static long score(EligibleTaskDto task, boolean incremental, @Nullable CeActivityDto lastActivity, long now) {
+    long score = max(0L, now - task.getCreatedAt()) + priorityBonus(task, incremental);
+    if (lastActivity != null) {
+      Long lastDuration = lastActivity.getExecutionTimeMs();
+      if (lastDuration != null) {
+        score -= min(lastDuration, MAX_DURATION_PENALTY);
+      }
+      Long lastExecutedAt = lastActivity.getExecutedAt();
+      if (lastExecutedAt != null) {
+        score -= max(0L, FAIRNESS_PENALTY - (now - lastExecutedAt));
+      }
+    }
+    return score;
+  }
+
+  private static long priorityBonus(EligibleTaskDto task, boolean incremental) {
+    if (!CeTaskTypes.REPORT.equals(task.getTaskType())) {
+      return 0L;
+    }
+    return incremental ? INCREMENTAL_REPORT_BONUS : FULL_REPORT_BONUS;
+  }
+
+  private Set<String> selectIncrementalTaskUuids(DbSession dbSession, Collection<EligibleTaskDto> tasks) {
+    return dbClient.ceTaskCharacteristicsDao()
+      .selectByTaskUuids(dbSession, tasks.stream().map(EligibleTaskDto::getUuid).collect(toList()))
+      .stream()
+      .filter(c -> CeTaskCharacteristicDto.INCREMENTAL_KEY.equals(c.getKey()) && Boolean.parseBoolean(c.getValue()))
+      .map(CeTaskCharacteristicDto::getTaskUuid)
+      .collect(toSet());
+  }
+
+  /**
+   * Same as {@link CeActivityDto#getIsLastKey()}
+   */
+  private static String isLastKey(EligibleTaskDto task) {
+    String componentUuid = task.getComponentUuid();
+    return format("%s%s", task.getTaskType(), componentUuid == null ? "" : componentUuid);
+  }
+}
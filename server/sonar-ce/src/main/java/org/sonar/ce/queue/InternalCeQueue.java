@@ -22,6 +22,7 @@ package org.sonar.ce.queue;
 import java.util.Optional;
 import java.util.Set;
 import javax.annotation.Nullable;
+import org.sonar.ce.taskprocessor.ResourceUsage;
 import org.sonar.db.ce.CeActivityDto.Status;
 
 /**
@@ -59,12 +60,13 @@ public interface InternalCeQueue extends CeQueue {
 
   /**
    * Removes a task from the queue and registers it to past activities. This method
-   * is called by Compute Engine workers when task is processed and can include an option {@link CeTaskResult} object.
+   * is called by Compute Engine workers when task is processed and can include an option {@link CeTaskResult} object
+   * and the {@link ResourceUsage} of the worker thread during the processing of the task.
    *
    * @throws IllegalStateException if the task does not exist in the queue
    * @throws IllegalArgumentException if {@code error} is non {@code null} but {@code status} is not {@link Status#FAILED}
    */
-  void remove(CeTask task, Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error);
+  void remove(CeTask task, Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error, @Nullable ResourceUsage resourceUsage);
 
   void cancelWornOuts();
 
@@ -30,16 +30,21 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.log4j.Logger;
 import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Configuration;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.ce.container.ComputeEngineStatus;
 import org.sonar.ce.monitoring.CEQueueStatus;
+import org.sonar.ce.taskprocessor.ResourceUsage;
 import org.sonar.core.util.UuidFactory;
+import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDao;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.ce.EligibleTaskDto;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -50,19 +55,29 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
   private static final org.sonar.api.utils.log.Logger LOG = Loggers.get(InternalCeQueueImpl.class);
 
   private static final int MAX_EXECUTION_COUNT = 2;
+  /**
+   * When enabled, a worker which peeks a report processes the most recent pending report of the same component
+   * instead, and the older ones are canceled as they are superseded by the most recent one.
+   */
+  static final String PROPERTY_COALESCE_REPORTS = "sonar.ce.coalesceReports";
 
   private final System2 system2;
   private final DbClient dbClient;
   private final CEQueueStatus queueStatus;
   private final ComputeEngineStatus computeEngineStatus;
+  private final EligibleTasksRanking ranking;
+  private final boolean coalesceReports;
 
   public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
-    DefaultOrganizationProvider defaultOrganizationProvider, ComputeEngineStatus computeEngineStatus) {
-    super(dbClient, uuidFactory, defaultOrganizationProvider);
+    DefaultOrganizationProvider defaultOrganizationProvider, ComputeEngineStatus computeEngineStatus, ReportStorage reportStorage,
+    Configuration configuration) {
+    super(dbClient, uuidFactory, defaultOrganizationProvider, reportStorage);
     this.system2 = system2;
     this.dbClient = dbClient;
     this.queueStatus = queueStatus;
     this.computeEngineStatus = computeEngineStatus;
+    this.ranking = new EligibleTasksRanking(dbClient, system2);
+    this.coalesceReports = configuration.getBoolean(PROPERTY_COALESCE_REPORTS).orElse(false);
   }
 
   @Override
@@ -78,23 +93,74 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       if (i > 0) {
         LOG.debug("{} in progress tasks reset for worker uuid {}", i, workerUuid);
       }
-      Optional<CeQueueDto> dto = ceQueueDao.peek(dbSession, workerUuid, MAX_EXECUTION_COUNT);
-      CeTask task = null;
-      if (dto.isPresent()) {
-        task = loadTask(dbSession, dto.get());
-        queueStatus.addInProgress();
+      List<EligibleTaskDto> eligibles = ceQueueDao.selectOldestEligibleOfEachComponent(dbSession, MAX_EXECUTION_COUNT);
+      for (EligibleTaskDto eligible : ranking.rank(dbSession, eligibles)) {
+        Optional<CeQueueDto> dto = ceQueueDao.peek(dbSession, eligible, workerUuid);
+        if (dto.isPresent()) {
+          CeQueueDto peeked = coalesceReports ? coalesce(dbSession, dto.get(), workerUuid) : dto.get();
+          CeTask task = loadTask(dbSession, peeked);
+          queueStatus.addInProgress();
+          return Optional.of(task);
+        }
       }
-      return Optional.ofNullable(task);
+      return Optional.empty();
     }
   }
 
+  /**
+   * Replaces the specified peeked report by the most recent pending report of the same component, if any. The
+   * peeked report and the pending reports between the two are canceled. Pending tasks are claimed by the worker
+   * before being canceled, so that a task peeked concurrently by another worker is left untouched.
+   */
+  private CeQueueDto coalesce(DbSession dbSession, CeQueueDto peeked, String workerUuid) {
+    String componentUuid = peeked.getComponentUuid();
+    if (componentUuid == null || !CeTaskTypes.REPORT.equals(peeked.getTaskType())) {
+      return peeked;
+    }
+    CeQueueDao ceQueueDao = dbClient.ceQueueDao();
+    List<CeQueueDto> newerPendings = ceQueueDao.selectByComponentUuid(dbSession, componentUuid).stream()
+      .filter(dto -> dto.getStatus() == CeQueueDto.Status.PENDING)
+      .filter(dto -> CeTaskTypes.REPORT.equals(dto.getTaskType()))
+      .filter(dto -> dto.getCreatedAt() >= peeked.getCreatedAt())
+      .collect(MoreCollectors.toList());
+    if (newerPendings.isEmpty()) {
+      return peeked;
+    }
+
+    Optional<CeQueueDto> mostRecent = ceQueueDao.peek(dbSession, toEligible(newerPendings.get(newerPendings.size() - 1)), workerUuid);
+    if (!mostRecent.isPresent()) {
+      return peeked;
+    }
+    cancelImpl(dbSession, peeked);
+    int canceled = 1;
+    for (CeQueueDto superseded : newerPendings.subList(0, newerPendings.size() - 1)) {
+      Optional<CeQueueDto> claimed = ceQueueDao.peek(dbSession, toEligible(superseded), workerUuid);
+      if (claimed.isPresent()) {
+        cancelImpl(dbSession, claimed.get());
+        canceled++;
+      }
+    }
+    LOG.info("{} reports of component {} canceled as superseded by report {}", canceled, componentUuid, mostRecent.get().getUuid());
+    return mostRecent.get();
+  }
+
+  private static EligibleTaskDto toEligible(CeQueueDto dto) {
+    return new EligibleTaskDto()
+      .setUuid(dto.getUuid())
+      .setExecutionCount(dto.getExecutionCount())
+      .setTaskType(dto.getTaskType())
+      .setComponentUuid(dto.getComponentUuid())
+      .setCreatedAt(dto.getCreatedAt());
+  }
+
   @Override
   public int clear() {
     return cancelAll(true);
   }
 
   @Override
-  public void remove(CeTask task, CeActivityDto.Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error) {
+  public void remove(CeTask task, CeActivityDto.Status status, @Nullable CeTaskResult taskResult, @Nullable Throwable error,
+    @Nullable ResourceUsage resourceUsage) {
     checkArgument(error == null || status == CeActivityDto.Status.FAILED, "Error can be provided only when status is FAILED");
     try (DbSession dbSession = dbClient.openSession(false)) {
       CeQueueDto queueDto = dbClient.ceQueueDao().selectByUuid(dbSession, task.getUuid())
@@ -104,10 +170,20 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       updateQueueStatus(status, activityDto);
       updateTaskResult(activityDto, taskResult);
       updateError(activityDto, error);
+      updateResourceUsage(activityDto, resourceUsage);
       remove(dbSession, queueDto, activityDto);
     }
   }
 
+  private void updateResourceUsage(CeActivityDto activityDto, @Nullable ResourceUsage resourceUsage) {
+    if (resourceUsage == null) {
+      return;
+    }
+    activityDto.setCpuTimeMs(resourceUsage.getCpuTimeMs());
+    activityDto.setAllocatedBytes(resourceUsage.getAllocatedBytes());
+    queueStatus.addResourceUsage(resourceUsage);
+  }
+
   private static void updateTaskResult(CeActivityDto activityDto, @Nullable CeTaskResult taskResult) {
     if (taskResult != null) {
       Optional<String> analysisUuid = taskResult.getAnalysisUuid();
@@ -0,0 +1,86 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.taskprocessor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.function.IntSupplier;
+import org.sonar.api.config.Configuration;
+
+/**
+ * Admission control of tasks based on the heap used by the Compute Engine. When a percentage of the maximum heap
+ * is configured with {@link #PROPERTY_HEAP_BUDGET}, workers do not start a new task while another worker is
+ * processing a task and the heap used after the last garbage collection exceeds this percentage.
+ * <p>
+ * A worker is always allowed to start a task when no other task is being processed, so that tasks
+ * can't be delayed forever.
+ * </p>
+ */
+public class CeHeapBudget {
+
+  static final String PROPERTY_HEAP_BUDGET = "sonar.ce.heapBudgetPercent";
+
+  private final int budgetPercent;
+  private final IntSupplier usedHeapPercent;
+
+  public CeHeapBudget(Configuration configuration) {
+    this(configuration, CeHeapBudget::usedHeapPercentAfterLastGc);
+  }
+
+  CeHeapBudget(Configuration configuration, IntSupplier usedHeapPercent) {
+    this.budgetPercent = configuration.getInt(PROPERTY_HEAP_BUDGET).orElse(0);
+    this.usedHeapPercent = usedHeapPercent;
+  }
+
+  public boolean isEnabled() {
+    return budgetPercent > 0 && budgetPercent < 100;
+  }
+
+  /**
+   * @param otherTasksInProgress whether tasks are being processed by other workers of this Compute Engine
+   */
+  public boolean allowsNewTask(boolean otherTasksInProgress) {
+    if (!isEnabled() || !otherTasksInProgress) {
+      return true;
+    }
+    return usedHeapPercent.getAsInt() < budgetPercent;
+  }
+
+  /**
+   * Heap used after the last garbage collection gives a more stable measure than the current usage, which
+   * includes garbage not collected yet.
+   */
+  private static int usedHeapPercentAfterLastGc() {
+    long max = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+    if (max <= 0) {
+      return 0;
+    }
+    long used = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+        MemoryUsage usage = pool.isCollectionUsageThresholdSupported() ? pool.getCollectionUsage() : null;
+        used += usage == null ? pool.getUsage().getUsed() : usage.getUsed();
+      }
+    }
+    return (int) (used * 100 / max);
+  }
+}
@@ -35,21 +35,23 @@ public class CeWorkerFactoryImpl implements CeWorkerFactory {
   private final CeLogging ceLogging;
   private final CeTaskProcessorRepository taskProcessorRepository;
   private final EnabledCeWorkerController enabledCeWorkerController;
+  private final CeHeapBudget heapBudget;
 
   public CeWorkerFactoryImpl(InternalCeQueue queue, CeLogging ceLogging, CeTaskProcessorRepository taskProcessorRepository,
-    UuidFactory uuidFactory, EnabledCeWorkerController enabledCeWorkerController) {
+    UuidFactory uuidFactory, EnabledCeWorkerController enabledCeWorkerController, CeHeapBudget heapBudget) {
     this.queue = queue;
     this.ceLogging = ceLogging;
     this.taskProcessorRepository = taskProcessorRepository;
     this.uuidFactory = uuidFactory;
     this.enabledCeWorkerController = enabledCeWorkerController;
+    this.heapBudget = heapBudget;
   }
 
   @Override
   public CeWorker create(int ordinal) {
     String uuid = uuidFactory.create();
     ceWorkerUUIDs.add(uuid);
-    return new CeWorkerImpl(ordinal, uuid, queue, ceLogging, taskProcessorRepository, enabledCeWorkerController);
+    return new CeWorkerImpl(ordinal, uuid, queue, ceLogging, taskProcessorRepository, enabledCeWorkerController, heapBudget);
   }
 
   @Override
@@ -48,16 +48,18 @@ public class CeWorkerImpl implements CeWorker {
   private final CeLogging ceLogging;
   private final CeTaskProcessorRepository taskProcessorRepository;
   private final EnabledCeWorkerController enabledCeWorkerController;
+  private final CeHeapBudget heapBudget;
 
   public CeWorkerImpl(int ordinal, String uuid,
     InternalCeQueue queue, CeLogging ceLogging, CeTaskProcessorRepository taskProcessorRepository,
-    EnabledCeWorkerController enabledCeWorkerController) {
+    EnabledCeWorkerController enabledCeWorkerController, CeHeapBudget heapBudget) {
     this.ordinal = checkOrdinal(ordinal);
     this.uuid = uuid;
     this.queue = queue;
     this.ceLogging = ceLogging;
     this.taskProcessorRepository = taskProcessorRepository;
     this.enabledCeWorkerController = enabledCeWorkerController;
+    this.heapBudget = heapBudget;
   }
 
   private static int checkOrdinal(int ordinal) {
@@ -74,6 +76,10 @@ public class CeWorkerImpl implements CeWorker {
     if (!enabledCeWorkerController.isEnabled(this)) {
       return DISABLED;
     }
+    if (!heapBudget.allowsNewTask(enabledCeWorkerController.hasAtLeastOneProcessingWorker())) {
+      LOG.debug("Heap budget of Compute Engine is exceeded, worker {} does not start a new task", getOrdinal());
+      return NO_TASK;
+    }
     Optional<CeTask> ceTask = tryAndFindTaskToExecute();
     if (!ceTask.isPresent()) {
       return NO_TASK;
@@ -120,6 +126,7 @@ public class CeWorkerImpl implements CeWorker {
   private void executeTask(CeTask task) {
     ceLogging.initForTask(task);
     Profiler ceProfiler = startActivityProfiler(task);
+    ResourceUsage startResourceUsage = ResourceUsage.ofCurrentThread();
 
     CeActivityDto.Status status = CeActivityDto.Status.FAILED;
     CeTaskResult taskResult = null;
@@ -140,14 +147,14 @@ public class CeWorkerImpl implements CeWorker {
       LOG.error(format("Failed to execute task %s", task.getUuid()), e);
       error = e;
     } finally {
-      finalizeTask(task, ceProfiler, status, taskResult, error);
+      finalizeTask(task, ceProfiler, status, taskResult, error, ResourceUsage.since(startResourceUsage));
     }
   }
 
   private void finalizeTask(CeTask task, Profiler ceProfiler, CeActivityDto.Status status,
-    @Nullable CeTaskResult taskResult, @Nullable Throwable error) {
+    @Nullable CeTaskResult taskResult, @Nullable Throwable error, ResourceUsage resourceUsage) {
     try {
-      queue.remove(task, status, taskResult, error);
+      queue.remove(task, status, taskResult, error, resourceUsage);
     } catch (Exception e) {
       String errorMessage = format("Failed to finalize task with uuid '%s' and persist its state to db", task.getUuid());
       if (error instanceof MessageException) {
@@ -40,18 +40,17 @@ public class CePluginJarExploderTest {
   CePluginJarExploder underTest = new CePluginJarExploder(fs);
 
   @Test
-  public void explode_jar_to_temp_directory() throws Exception {
+  public void explode_jar_to_directory_of_exploded_plugins() throws Exception {
     PluginInfo info = PluginInfo.create(plugin1Jar());
 
     ExplodedPlugin exploded = underTest.explode(info);
 
-    // all the files loaded by classloaders (JAR + META-INF/libs/*.jar) are copied to a dedicated temp directory
+    // all the files loaded by classloaders (JAR + META-INF/libs/*.jar) are copied to the directory of exploded plugins
     File copiedJar = exploded.getMain();
 
     assertThat(exploded.getKey()).isEqualTo("test");
     assertThat(copiedJar).isFile().exists();
-    assertThat(copiedJar.getParentFile()).isDirectory().hasName("test");
-    assertThat(copiedJar.getParentFile().getParentFile()).isDirectory().hasName("ce-exploded-plugins");
+    assertThat(copiedJar.getParentFile().getParentFile()).isEqualTo(fs.getExplodedPluginsDir());
   }
 
   @Test
@@ -129,6 +128,11 @@ public class CePluginJarExploderTest {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public File getExplodedPluginsDir() {
+      return new File(getTempDir(), "exploded-plugins");
+    }
+
     @Override
     public File getDownloadedPluginsDir() {
       throw new UnsupportedOperationException();
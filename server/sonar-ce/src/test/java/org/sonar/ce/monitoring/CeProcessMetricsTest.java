@@ -0,0 +1,90 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.monitoring;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.process.ProcessId;
+import org.sonar.process.sharedmemoryfile.AllProcessesMetrics;
+import org.sonar.process.sharedmemoryfile.ProcessMetric;
+
+import static java.lang.String.valueOf;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.process.ProcessEntryPoint.PROPERTY_PROCESS_INDEX;
+import static org.sonar.process.ProcessEntryPoint.PROPERTY_SHARED_PATH;
+
+public class CeProcessMetricsTest {
+
+  private static final int PROCESS_NUMBER = ProcessId.COMPUTE_ENGINE.getIpcIndex();
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private CEQueueStatus queueStatus = mock(CEQueueStatus.class);
+
+  @Test
+  public void publish_state_of_queue() throws IOException {
+    File sharedDir = temp.newFolder();
+    when(queueStatus.getPendingCount()).thenReturn(5L);
+    when(queueStatus.getInProgressCount()).thenReturn(2L);
+    when(queueStatus.getSuccessCount()).thenReturn(10L);
+    when(queueStatus.getErrorCount()).thenReturn(1L);
+    CeProcessMetrics underTest = new CeProcessMetrics(processProps(sharedDir), queueStatus);
+
+    underTest.start();
+    underTest.publish(PROCESS_NUMBER);
+    underTest.stop();
+
+    try (AllProcessesMetrics metrics = new AllProcessesMetrics(sharedDir)) {
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.CE_PENDING)).isEqualTo(5L);
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.CE_IN_PROGRESS)).isEqualTo(2L);
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.CE_SUCCEEDED)).isEqualTo(10L);
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.CE_FAILED)).isEqualTo(1L);
+    }
+  }
+
+  @Test
+  public void failure_to_read_queue_does_not_propagate() throws IOException {
+    when(queueStatus.getPendingCount()).thenThrow(new IllegalStateException("db is down"));
+    CeProcessMetrics underTest = new CeProcessMetrics(processProps(temp.newFolder()), queueStatus);
+
+    underTest.start();
+    underTest.publish(PROCESS_NUMBER);
+    underTest.stop();
+  }
+
+  @Test
+  public void stop_does_nothing_if_not_started() {
+    new CeProcessMetrics(new Properties(), queueStatus).stop();
+  }
+
+  private static Properties processProps(File sharedDir) {
+    Properties props = new Properties();
+    props.setProperty(PROPERTY_PROCESS_INDEX, valueOf(PROCESS_NUMBER));
+    props.setProperty(PROPERTY_SHARED_PATH, sharedDir.getAbsolutePath());
+    return props;
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeActivityDto;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskCharacteristicDto;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.ce.EligibleTaskDto;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.ce.queue.EligibleTasksRanking.FAIRNESS_PENALTY;
+import static org.sonar.ce.queue.EligibleTasksRanking.FULL_REPORT_BONUS;
+import static org.sonar.ce.queue.EligibleTasksRanking.INCREMENTAL_REPORT_BONUS;
+import static org.sonar.ce.queue.EligibleTasksRanking.MAX_DURATION_PENALTY;
+
+public class EligibleTasksRankingTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+
+  private System2 system2 = mock(System2.class);
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private EligibleTasksRanking underTest = new EligibleTasksRanking(db.getDbClient(), system2);
+
+  @Test
+  public void full_analyses_are_peeked_before_incremental_analyses_and_other_tasks() {
+    when(system2.now()).thenReturn(NOW);
+    EligibleTaskDto other = newTask("T1", "OTHER", "P1", NOW - 3);
+    EligibleTaskDto incremental = newTask("T2", CeTaskTypes.REPORT, "P2", NOW - 2);
+    EligibleTaskDto full = newTask("T3", CeTaskTypes.REPORT, "P3", NOW - 1);
+    db.getDbClient().ceTaskCharacteristicsDao().insert(db.getSession(), singletonList(new CeTaskCharacteristicDto()
+      .setUuid("C1")
+      .setTaskUuid("T2")
+      .setKey(CeTaskCharacteristicDto.INCREMENTAL_KEY)
+      .setValue("true")));
+    db.commit();
+
+    List<EligibleTaskDto> ranked = underTest.rank(db.getSession(), asList(other, incremental, full));
+
+    assertThat(ranked).extracting(EligibleTaskDto::getUuid).containsExactly("T3", "T2", "T1");
+  }
+
+  @Test
+  public void tasks_waiting_for_long_are_peeked_first_whatever_their_priority() {
+    when(system2.now()).thenReturn(NOW);
+    EligibleTaskDto other = newTask("T1", "OTHER", "P1", NOW - FULL_REPORT_BONUS - MINUTES.toMillis(1));
+    EligibleTaskDto full = newTask("T2", CeTaskTypes.REPORT, "P2", NOW);
+
+    List<EligibleTaskDto> ranked = underTest.rank(db.getSession(), asList(other, full));
+
+    assertThat(ranked).extracting(EligibleTaskDto::getUuid).containsExactly("T1", "T2");
+  }
+
+  @Test
+  public void short_tasks_are_peeked_first() {
+    when(system2.now()).thenReturn(NOW);
+    insertActivity("A1", CeTaskTypes.REPORT, "P1", MINUTES.toMillis(8), NOW - MINUTES.toMillis(60));
+    insertActivity("A2", CeTaskTypes.REPORT, "P2", 1_000L, NOW - MINUTES.toMillis(60));
+    EligibleTaskDto longTask = newTask("T1", CeTaskTypes.REPORT, "P1", NOW - MINUTES.toMillis(2));
+    EligibleTaskDto shortTask = newTask("T2", CeTaskTypes.REPORT, "P2", NOW - MINUTES.toMillis(1));
+
+    List<EligibleTaskDto> ranked = underTest.rank(db.getSession(), asList(longTask, shortTask));
+
+    assertThat(ranked).extracting(EligibleTaskDto::getUuid).containsExactly("T2", "T1");
+  }
+
+  @Test
+  public void components_which_had_a_task_executed_recently_get_a_penalty() {
+    when(system2.now()).thenReturn(NOW);
+    insertActivity("A1", CeTaskTypes.REPORT, "P1", 0L, NOW - 1_000L);
+    EligibleTaskDto recentlyServed = newTask("T1", CeTaskTypes.REPORT, "P1", NOW - MINUTES.toMillis(2));
+    EligibleTaskDto waiting = newTask("T2", CeTaskTypes.REPORT, "P2", NOW - MINUTES.toMillis(1));
+
+    List<EligibleTaskDto> ranked = underTest.rank(db.getSession(), asList(recentlyServed, waiting));
+
+    assertThat(ranked).extracting(EligibleTaskDto::getUuid).containsExactly("T2", "T1");
+  }
+
+  @Test
+  public void score_is_bounded() {
+    EligibleTaskDto task = newTask("T1", CeTaskTypes.REPORT, "P1", NOW);
+    CeActivityDto lastActivity = new CeActivityDto(new CeQueueDto().setUuid("A1").setTaskType(CeTaskTypes.REPORT).setComponentUuid("P1"))
+      .setExecutionTimeMs(MINUTES.toMillis(60))
+      .setExecutedAt(NOW);
+
+    assertThat(EligibleTasksRanking.score(task, false, null, NOW)).isEqualTo(FULL_REPORT_BONUS);
+    assertThat(EligibleTasksRanking.score(task, true, null, NOW)).isEqualTo(INCREMENTAL_REPORT_BONUS);
+    assertThat(EligibleTasksRanking.score(task, false, lastActivity, NOW)).isEqualTo(FULL_REPORT_BONUS - MAX_DURATION_PENALTY - FAIRNESS_PENALTY);
+  }
+
+  private static EligibleTaskDto newTask(String uuid, String type, String componentUuid, long createdAt) {
+    return new EligibleTaskDto()
+      .setUuid(uuid)
+      .setTaskType(type)
+      .setComponentUuid(componentUuid)
+      .setCreatedAt(createdAt);
+  }
+
+  private void insertActivity(String uuid, String type, String componentUuid, long executionTimeMs, long executedAt) {
+    CeQueueDto queueDto = new CeQueueDto()
+      .setUuid(uuid)
+      .setTaskType(type)
+      .setComponentUuid(componentUuid);
+    CeActivityDto dto = new CeActivityDto(queueDto)
+      .setStatus(CeActivityDto.Status.SUCCESS)
+      .setExecutionTimeMs(executionTimeMs)
+      .setExecutedAt(executedAt);
+    db.getDbClient().ceActivityDao().insert(db.getSession(), dto);
+    db.commit();
+  }
+}
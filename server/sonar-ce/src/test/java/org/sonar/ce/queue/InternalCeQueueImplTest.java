@@ -22,6 +22,7 @@ package org.sonar.ce.queue;
 import com.google.common.collect.ImmutableSet;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
@@ -31,11 +32,13 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.internal.AlwaysIncreasingSystem2;
 import org.sonar.ce.container.ComputeEngineStatus;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.ce.monitoring.CEQueueStatusImpl;
+import org.sonar.ce.taskprocessor.ResourceUsage;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.core.util.UuidFactoryImpl;
 import org.sonar.db.DbSession;
@@ -76,7 +79,8 @@ public class InternalCeQueueImplTest {
   private CEQueueStatus queueStatus = new CEQueueStatusImpl(dbTester.getDbClient());
   private DefaultOrganizationProvider defaultOrganizationProvider = mock(DefaultOrganizationProvider.class);
   private ComputeEngineStatus computeEngineStatus = mock(ComputeEngineStatus.class);
-  private InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider, computeEngineStatus);
+  private MapSettings settings = new MapSettings();
+  private InternalCeQueue underTest = newInternalCeQueue();
 
   @Before
   public void setUp() throws Exception {
@@ -168,7 +172,7 @@ public class InternalCeQueueImplTest {
   public void test_remove() {
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
     Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
-    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null);
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null, null);
 
     // queue is empty
     assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(dbTester.getSession(), task.getUuid()).isPresent()).isFalse();
@@ -182,12 +186,25 @@ public class InternalCeQueueImplTest {
     assertThat(history.get().getAnalysisUuid()).isNull();
   }
 
+  @Test
+  public void remove_persists_resource_usage_of_task() {
+    CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
+    ResourceUsage resourceUsage = ResourceUsage.since(ResourceUsage.ofCurrentThread());
+
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null, resourceUsage);
+
+    CeActivityDto history = dbTester.getDbClient().ceActivityDao().selectByUuid(dbTester.getSession(), task.getUuid()).get();
+    assertThat(history.getCpuTimeMs()).isEqualTo(resourceUsage.getCpuTimeMs());
+    assertThat(history.getAllocatedBytes()).isEqualTo(resourceUsage.getAllocatedBytes());
+  }
+
   @Test
   public void remove_throws_IAE_if_exception_is_provided_but_status_is_SUCCESS() {
     expectedException.expect(IllegalArgumentException.class);
     expectedException.expectMessage("Error can be provided only when status is FAILED");
 
-    underTest.remove(mock(CeTask.class), CeActivityDto.Status.SUCCESS, null, new RuntimeException("Some error"));
+    underTest.remove(mock(CeTask.class), CeActivityDto.Status.SUCCESS, null, new RuntimeException("Some error"), null);
   }
 
   @Test
@@ -195,14 +212,14 @@ public class InternalCeQueueImplTest {
     expectedException.expect(IllegalArgumentException.class);
     expectedException.expectMessage("Error can be provided only when status is FAILED");
 
-    underTest.remove(mock(CeTask.class), CeActivityDto.Status.CANCELED, null, new RuntimeException("Some error"));
+    underTest.remove(mock(CeTask.class), CeActivityDto.Status.CANCELED, null, new RuntimeException("Some error"), null);
   }
 
   @Test
   public void remove_does_not_set_analysisUuid_in_CeActivity_when_CeTaskResult_has_no_analysis_uuid() {
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
     Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
-    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, newTaskResult(null), null);
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, newTaskResult(null), null, null);
 
     // available in history
     Optional<CeActivityDto> history = dbTester.getDbClient().ceActivityDao().selectByUuid(dbTester.getSession(), task.getUuid());
@@ -215,7 +232,7 @@ public class InternalCeQueueImplTest {
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
 
     Optional<CeTask> peek = underTest.peek(WORKER_UUID_2);
-    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, newTaskResult(AN_ANALYSIS_UUID), null);
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, newTaskResult(AN_ANALYSIS_UUID), null, null);
 
     // available in history
     Optional<CeActivityDto> history = dbTester.getDbClient().ceActivityDao().selectByUuid(dbTester.getSession(), task.getUuid());
@@ -229,7 +246,7 @@ public class InternalCeQueueImplTest {
 
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
     Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
-    underTest.remove(peek.get(), CeActivityDto.Status.FAILED, null, error);
+    underTest.remove(peek.get(), CeActivityDto.Status.FAILED, null, error, null);
 
     Optional<CeActivityDto> activityDto = dbTester.getDbClient().ceActivityDao().selectByUuid(session, task.getUuid());
     assertThat(activityDto).isPresent();
@@ -252,7 +269,7 @@ public class InternalCeQueueImplTest {
       .setOrganizationUuid("foo")
       .setUuid("uuid")
       .setType("bar")
-      .build(), CeActivityDto.Status.SUCCESS, null, null);
+      .build(), CeActivityDto.Status.SUCCESS, null, null, null);
 
     CeActivityDto dto = dbTester.getDbClient().ceActivityDao().selectByUuid(dbTester.getSession(), "uuid").get();
     assertThat(dto.getExecutionCount()).isEqualTo(2);
@@ -262,11 +279,11 @@ public class InternalCeQueueImplTest {
   @Test
   public void fail_to_remove_if_not_in_queue() throws Exception {
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
-    underTest.remove(task, CeActivityDto.Status.SUCCESS, null, null);
+    underTest.remove(task, CeActivityDto.Status.SUCCESS, null, null, null);
 
     expectedException.expect(IllegalStateException.class);
 
-    underTest.remove(task, CeActivityDto.Status.SUCCESS, null, null);
+    underTest.remove(task, CeActivityDto.Status.SUCCESS, null, null, null);
   }
 
   @Test
@@ -284,6 +301,22 @@ public class InternalCeQueueImplTest {
     assertThat(peek.isPresent()).isFalse();
   }
 
+  @Test
+  public void peek_does_not_starve_a_project_behind_a_burst_of_tasks_of_another_project() {
+    List<CeTask> burst = new ArrayList<>();
+    for (int i = 0; i < 150; i++) {
+      burst.add(submit(CeTaskTypes.REPORT, "PROJECT_1"));
+    }
+    CeTask other = submit(CeTaskTypes.REPORT, "PROJECT_2");
+
+    CeTask first = underTest.peek(WORKER_UUID_1).get();
+    assertThat(first.getUuid()).isEqualTo(burst.get(0).getUuid());
+    underTest.remove(first, CeActivityDto.Status.SUCCESS, null, null, null);
+
+    // PROJECT_1 just had a task executed and PROJECT_2 is no longer hidden by the 150 older tasks of PROJECT_1
+    assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo(other.getUuid());
+  }
+
   @Test
   public void peek_overrides_workerUuid_to_argument() {
     dbTester.getDbClient().ceQueueDao().insert(session, new CeQueueDto()
@@ -299,6 +332,49 @@ public class InternalCeQueueImplTest {
     assertThat(ceQueueDto.getWorkerUuid()).isEqualTo(WORKER_UUID_1);
   }
 
+  @Test
+  public void peek_does_not_coalesce_reports_by_default() {
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+
+    assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo(task1.getUuid());
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task2.getUuid()).get().getStatus()).isEqualTo(CeQueueDto.Status.PENDING);
+    assertThat(dbTester.getDbClient().ceActivityDao().selectByUuid(session, task1.getUuid()).isPresent()).isFalse();
+  }
+
+  @Test
+  public void peek_coalesces_pending_reports_of_same_component_if_enabled() {
+    settings.setProperty("sonar.ce.coalesceReports", true);
+    underTest = newInternalCeQueue();
+    CeTask task1 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask task2 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask otherComponent = submit(CeTaskTypes.REPORT, "PROJECT_2");
+    CeTask task3 = submit(CeTaskTypes.REPORT, "PROJECT_1");
+
+    Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
+
+    assertThat(peek.get().getUuid()).isEqualTo(task3.getUuid());
+    CeQueueDto peeked = dbTester.getDbClient().ceQueueDao().selectByUuid(session, task3.getUuid()).get();
+    assertThat(peeked.getStatus()).isEqualTo(CeQueueDto.Status.IN_PROGRESS);
+    assertThat(peeked.getWorkerUuid()).isEqualTo(WORKER_UUID_1);
+    for (CeTask superseded : asList(task1, task2)) {
+      assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, superseded.getUuid()).isPresent()).isFalse();
+      assertThat(dbTester.getDbClient().ceActivityDao().selectByUuid(session, superseded.getUuid()).get().getStatus()).isEqualTo(CeActivityDto.Status.CANCELED);
+    }
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, otherComponent.getUuid()).get().getStatus()).isEqualTo(CeQueueDto.Status.PENDING);
+  }
+
+  @Test
+  public void peek_does_not_coalesce_tasks_which_are_not_reports() {
+    settings.setProperty("sonar.ce.coalesceReports", true);
+    underTest = newInternalCeQueue();
+    CeTask task1 = submit("foo", "PROJECT_1");
+    CeTask task2 = submit("foo", "PROJECT_1");
+
+    assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo(task1.getUuid());
+    assertThat(dbTester.getDbClient().ceQueueDao().selectByUuid(session, task2.getUuid()).get().getStatus()).isEqualTo(CeQueueDto.Status.PENDING);
+  }
+
   @Test
   public void peek_nothing_if_application_status_stopping() throws Exception {
     submit(CeTaskTypes.REPORT, "PROJECT_1");
@@ -401,7 +477,7 @@ public class InternalCeQueueImplTest {
     assertThat(ceTask.get().getUuid()).isEqualTo("u3");
 
     // remove first task and do another peek: will pick the reset task since it's now the oldest one
-    underTest.remove(ceTask.get(), CeActivityDto.Status.SUCCESS, null, null);
+    underTest.remove(ceTask.get(), CeActivityDto.Status.SUCCESS, null, null, null);
     assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo("u4");
   }
 
@@ -416,7 +492,7 @@ public class InternalCeQueueImplTest {
     assertThat(ceTask.get().getUuid()).isEqualTo("u3");
 
     // remove first task and do another peek: will pick the reset task since it's now the oldest one
-    underTest.remove(ceTask.get(), CeActivityDto.Status.SUCCESS, null, null);
+    underTest.remove(ceTask.get(), CeActivityDto.Status.SUCCESS, null, null, null);
     assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo("u4");
   }
 
@@ -708,6 +784,11 @@ public class InternalCeQueueImplTest {
     assertThat(dto.getCreatedAt()).isEqualTo(dto.getUpdatedAt()).isNotNull();
   }
 
+  private InternalCeQueueImpl newInternalCeQueue() {
+    return new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider, computeEngineStatus,
+      new DatabaseReportStorage(dbTester.getDbClient()), settings.asConfig());
+  }
+
   private ComponentDto newComponentDto(String uuid) {
     return ComponentTesting.newPublicProjectDto(dbTester.getDefaultOrganization(), uuid).setName("name_" + uuid).setDbKey("key_" + uuid);
   }
@@ -0,0 +1,73 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.taskprocessor;
+
+import org.junit.Test;
+import org.sonar.api.config.internal.MapSettings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CeHeapBudgetTest {
+
+  private MapSettings settings = new MapSettings();
+
+  @Test
+  public void budget_is_disabled_by_default() {
+    CeHeapBudget underTest = new CeHeapBudget(settings.asConfig(), () -> 99);
+
+    assertThat(underTest.isEnabled()).isFalse();
+    assertThat(underTest.allowsNewTask(true)).isTrue();
+  }
+
+  @Test
+  public void budget_is_disabled_if_percentage_is_not_lower_than_100() {
+    settings.setProperty(CeHeapBudget.PROPERTY_HEAP_BUDGET, 100);
+    CeHeapBudget underTest = new CeHeapBudget(settings.asConfig(), () -> 99);
+
+    assertThat(underTest.isEnabled()).isFalse();
+    assertThat(underTest.allowsNewTask(true)).isTrue();
+  }
+
+  @Test
+  public void do_not_allow_new_task_when_heap_exceeds_budget_and_other_tasks_are_in_progress() {
+    settings.setProperty(CeHeapBudget.PROPERTY_HEAP_BUDGET, 70);
+
+    assertThat(new CeHeapBudget(settings.asConfig(), () -> 69).allowsNewTask(true)).isTrue();
+    assertThat(new CeHeapBudget(settings.asConfig(), () -> 70).allowsNewTask(true)).isFalse();
+  }
+
+  @Test
+  public void always_allow_new_task_when_no_other_task_is_in_progress() {
+    settings.setProperty(CeHeapBudget.PROPERTY_HEAP_BUDGET, 70);
+    CeHeapBudget underTest = new CeHeapBudget(settings.asConfig(), () -> 99);
+
+    assertThat(underTest.allowsNewTask(false)).isTrue();
+  }
+
+  @Test
+  public void measure_heap_of_jvm() {
+    settings.setProperty(CeHeapBudget.PROPERTY_HEAP_BUDGET, 99);
+    CeHeapBudget underTest = new CeHeapBudget(settings.asConfig());
+
+    assertThat(underTest.isEnabled()).isTrue();
+    // heap of unit tests is far from being full
+    assertThat(underTest.allowsNewTask(true)).isTrue();
+  }
+}
@@ -37,6 +37,7 @@ import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.ce.log.CeLogging;
 import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.CeTaskResult;
 import org.sonar.ce.queue.InternalCeQueue;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeTaskTypes;
@@ -44,7 +45,10 @@ import org.sonar.server.computation.task.projectanalysis.taskprocessor.ReportTas
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
@@ -69,15 +73,17 @@ public class CeWorkerImplTest {
   private ReportTaskProcessor taskProcessor = mock(ReportTaskProcessor.class);
   private CeLogging ceLogging = spy(CeLogging.class);
   private EnabledCeWorkerController enabledCeWorkerController = mock(EnabledCeWorkerController.class);
+  private CeHeapBudget heapBudget = mock(CeHeapBudget.class);
   private ArgumentCaptor<String> workerUuidCaptor = ArgumentCaptor.forClass(String.class);
   private int randomOrdinal = new Random().nextInt(50);
   private String workerUuid = UUID.randomUUID().toString();
-  private CeWorker underTest = new CeWorkerImpl(randomOrdinal, workerUuid, queue, ceLogging, taskProcessorRepository, enabledCeWorkerController);
+  private CeWorker underTest = new CeWorkerImpl(randomOrdinal, workerUuid, queue, ceLogging, taskProcessorRepository, enabledCeWorkerController, heapBudget);
   private InOrder inOrder = Mockito.inOrder(ceLogging, taskProcessor, queue);
 
   @Before
   public void setUp() throws Exception {
     when(enabledCeWorkerController.isEnabled(any(CeWorker.class))).thenReturn(true);
+    when(heapBudget.allowsNewTask(anyBoolean())).thenReturn(true);
   }
 
   @Test
@@ -85,13 +91,13 @@ public class CeWorkerImplTest {
     expectedException.expect(IllegalArgumentException.class);
     expectedException.expectMessage("Ordinal must be >= 0");
 
-    new CeWorkerImpl(-1 - new Random().nextInt(20), workerUuid, queue, ceLogging, taskProcessorRepository, enabledCeWorkerController);
+    new CeWorkerImpl(-1 - new Random().nextInt(20), workerUuid, queue, ceLogging, taskProcessorRepository, enabledCeWorkerController, heapBudget);
   }
 
   @Test
   public void getUUID_must_return_the_uuid_of_constructor() {
     String uuid = UUID.randomUUID().toString();
-    CeWorker underTest = new CeWorkerImpl(randomOrdinal, uuid, queue, ceLogging, taskProcessorRepository, enabledCeWorkerController);
+    CeWorker underTest = new CeWorkerImpl(randomOrdinal, uuid, queue, ceLogging, taskProcessorRepository, enabledCeWorkerController, heapBudget);
     assertThat(underTest.getUUID()).isEqualTo(uuid);
   }
 
@@ -105,6 +111,16 @@ public class CeWorkerImplTest {
     verifyZeroInteractions(taskProcessor, ceLogging);
   }
 
+  @Test
+  public void do_not_peek_task_when_heap_budget_is_exceeded() throws Exception {
+    when(enabledCeWorkerController.hasAtLeastOneProcessingWorker()).thenReturn(true);
+    when(heapBudget.allowsNewTask(true)).thenReturn(false);
+
+    assertThat(underTest.call()).isEqualTo(NO_TASK);
+
+    verifyZeroInteractions(queue, taskProcessor, ceLogging);
+  }
+
   @Test
   public void no_pending_tasks_in_queue() throws Exception {
     when(queue.peek(anyString())).thenReturn(Optional.empty());
@@ -124,7 +140,7 @@ public class CeWorkerImplTest {
 
     verifyWorkerUuid();
     inOrder.verify(ceLogging).initForTask(task);
-    inOrder.verify(queue).remove(task, CeActivityDto.Status.FAILED, null, null);
+    inOrder.verify(queue).remove(eq(task), eq(CeActivityDto.Status.FAILED), isNull(CeTaskResult.class), isNull(Throwable.class), any(ResourceUsage.class));
     inOrder.verify(ceLogging).clearForTask();
   }
 
@@ -139,7 +155,7 @@ public class CeWorkerImplTest {
     verifyWorkerUuid();
     inOrder.verify(ceLogging).initForTask(task);
     inOrder.verify(taskProcessor).process(task);
-    inOrder.verify(queue).remove(task, CeActivityDto.Status.SUCCESS, null, null);
+    inOrder.verify(queue).remove(eq(task), eq(CeActivityDto.Status.SUCCESS), isNull(CeTaskResult.class), isNull(Throwable.class), any(ResourceUsage.class));
     inOrder.verify(ceLogging).clearForTask();
   }
 
@@ -155,7 +171,7 @@ public class CeWorkerImplTest {
     verifyWorkerUuid();
     inOrder.verify(ceLogging).initForTask(task);
     inOrder.verify(taskProcessor).process(task);
-    inOrder.verify(queue).remove(task, CeActivityDto.Status.FAILED, null, error);
+    inOrder.verify(queue).remove(eq(task), eq(CeActivityDto.Status.FAILED), isNull(CeTaskResult.class), eq(error), any(ResourceUsage.class));
     inOrder.verify(ceLogging).clearForTask();
   }
 
@@ -362,7 +378,7 @@ public class CeWorkerImplTest {
     CeTask ceTask = createCeTask("FooBar");
     when(queue.peek(anyString())).thenReturn(Optional.of(ceTask));
     taskProcessorRepository.setProcessorForTask(CeTaskTypes.REPORT, taskProcessor);
-    doThrow(new RuntimeException("Simulate queue#remove failing")).when(queue).remove(ceTask, CeActivityDto.Status.SUCCESS, null, null);
+    doThrow(new RuntimeException("Simulate queue#remove failing")).when(queue).remove(eq(ceTask), eq(CeActivityDto.Status.SUCCESS), isNull(CeTaskResult.class), isNull(Throwable.class), any(ResourceUsage.class));
 
     underTest.call();
 
@@ -375,7 +391,7 @@ public class CeWorkerImplTest {
     when(queue.peek(anyString())).thenReturn(Optional.of(ceTask));
     taskProcessorRepository.setProcessorForTask(CeTaskTypes.REPORT, taskProcessor);
     IllegalStateException ex = makeTaskProcessorFail(ceTask);
-    doThrow(new RuntimeException("Simulate queue#remove failing")).when(queue).remove(ceTask, CeActivityDto.Status.FAILED, null, ex);
+    doThrow(new RuntimeException("Simulate queue#remove failing")).when(queue).remove(eq(ceTask), eq(CeActivityDto.Status.FAILED), isNull(CeTaskResult.class), eq(ex), any(ResourceUsage.class));
 
     underTest.call();
 
@@ -392,7 +408,7 @@ public class CeWorkerImplTest {
     when(queue.peek(anyString())).thenReturn(Optional.of(ceTask));
     taskProcessorRepository.setProcessorForTask(CeTaskTypes.REPORT, taskProcessor);
     MessageException ex = makeTaskProcessorFail(ceTask, MessageException.of("simulate MessageException thrown by TaskProcessor#process"));
-    doThrow(new RuntimeException("Simulate queue#remove failing")).when(queue).remove(ceTask, CeActivityDto.Status.FAILED, null, ex);
+    doThrow(new RuntimeException("Simulate queue#remove failing")).when(queue).remove(eq(ceTask), eq(CeActivityDto.Status.FAILED), isNull(CeTaskResult.class), eq(ex), any(ResourceUsage.class));
 
     underTest.call();
 
@@ -38,4 +38,10 @@ public interface Database extends Startable {
   Dialect getDialect();
 
   void enableSqlLogging(boolean enable);
+
+  /**
+   * Records the time spent in SQL requests in the {@link org.sonar.core.util.logs.RequestProfile}
+   * of the calling thread, even when SQL logging is disabled.
+   */
+  void enableSqlTiming(boolean enable);
 }
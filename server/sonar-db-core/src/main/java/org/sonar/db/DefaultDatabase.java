@@ -61,6 +61,8 @@ public class DefaultDatabase implements Database {
   private ProfiledDataSource datasource;
   private Dialect dialect;
   private Properties properties;
+  private boolean sqlLogging = false;
+  private boolean sqlTiming = false;
 
   public DefaultDatabase(LogbackHelper logbackHelper, Settings settings) {
     this.logbackHelper = logbackHelper;
@@ -97,7 +99,8 @@ public class DefaultDatabase implements Database {
     datasource = new ProfiledDataSource(basicDataSource, NullConnectionInterceptor.INSTANCE);
     datasource.setConnectionInitSqls(dialect.getConnectionInitStatements());
     datasource.setValidationQuery(dialect.getValidationQuery());
-    enableSqlLogging(datasource, logbackHelper.getLoggerLevel("sql") == Level.TRACE);
+    sqlLogging = logbackHelper.getLoggerLevel("sql") == Level.TRACE;
+    updateConnectionInterceptor();
   }
 
   private void checkConnection() {
@@ -138,11 +141,20 @@ public class DefaultDatabase implements Database {
 
   @Override
   public void enableSqlLogging(boolean enable) {
-    enableSqlLogging(datasource, enable);
+    this.sqlLogging = enable;
+    updateConnectionInterceptor();
   }
 
-  private static void enableSqlLogging(ProfiledDataSource ds, boolean enable) {
-    ds.setConnectionInterceptor(enable ? ProfiledConnectionInterceptor.INSTANCE : NullConnectionInterceptor.INSTANCE);
+  @Override
+  public void enableSqlTiming(boolean enable) {
+    this.sqlTiming = enable;
+    updateConnectionInterceptor();
+  }
+
+  private void updateConnectionInterceptor() {
+    if (datasource != null) {
+      datasource.setConnectionInterceptor(sqlLogging || sqlTiming ? ProfiledConnectionInterceptor.INSTANCE : NullConnectionInterceptor.INSTANCE);
+    }
   }
 
   /**
@@ -0,0 +1,113 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the time spent by threads to borrow a connection from the pool. Updates
+ * are lock-free, so they do not add contention to the pool. The time spent by each web request is
+ * recorded in {@link org.sonar.core.util.logs.RequestProfile}.
+ * <p>
+ * The commons-dbcp pool built by {@link org.sonar.db.DefaultDatabase} is kept on purpose: the properties
+ * sonar.jdbc.* are already mapped onto it, the monitoring of the pool relies on its API (see
+ * {@link ProfiledDataSource#getDelegate()}) and no other pool implementation is shipped. These statistics
+ * tell whether contention on the pool justifies replacing it.
+ * </p>
+ */
+public class ConnectionPoolStatistics {
+
+  /**
+   * Upper bounds, in milliseconds, of the buckets of the wait time distribution. The last
+   * bucket counts the waits greater than the last bound.
+   */
+  static final long[] WAIT_BUCKET_BOUNDS_MS = {1, 5, 10, 50, 100, 500, 1_000, 5_000};
+
+  private final AtomicInteger borrowsInProgress = new AtomicInteger();
+  private final LongAdder borrowCount = new LongAdder();
+  private final LongAdder totalWaitNanos = new LongAdder();
+  private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0L);
+  private final LongAdder[] waitBuckets = new LongAdder[WAIT_BUCKET_BOUNDS_MS.length + 1];
+
+  public ConnectionPoolStatistics() {
+    for (int i = 0; i < waitBuckets.length; i++) {
+      waitBuckets[i] = new LongAdder();
+    }
+  }
+
+  void onBorrowStart() {
+    borrowsInProgress.incrementAndGet();
+  }
+
+  void onBorrowEnd(long waitNanos) {
+    borrowsInProgress.decrementAndGet();
+    borrowCount.increment();
+    totalWaitNanos.add(waitNanos);
+    maxWaitNanos.accumulate(waitNanos);
+    waitBuckets[bucketIndex(TimeUnit.NANOSECONDS.toMillis(waitNanos))].increment();
+  }
+
+  private static int bucketIndex(long waitMs) {
+    for (int i = 0; i < WAIT_BUCKET_BOUNDS_MS.length; i++) {
+      if (waitMs <= WAIT_BUCKET_BOUNDS_MS[i]) {
+        return i;
+      }
+    }
+    return WAIT_BUCKET_BOUNDS_MS.length;
+  }
+
+  /**
+   * Number of threads currently borrowing a connection. It includes the threads which get an idle
+   * connection immediately, so only sustained non-zero values reveal an exhausted pool.
+   */
+  public int getBorrowsInProgress() {
+    return borrowsInProgress.get();
+  }
+
+  /**
+   * Number of connections borrowed since startup, including the failed attempts
+   */
+  public long getBorrowCount() {
+    return borrowCount.sum();
+  }
+
+  public long getTotalWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum());
+  }
+
+  public long getMaxWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+  }
+
+  /**
+   * Distribution of wait times, for example "<=1ms: 120, <=5ms: 4, ..., >5000ms: 0"
+   */
+  public String getWaitDistribution() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < WAIT_BUCKET_BOUNDS_MS.length; i++) {
+      sb.append("<=").append(WAIT_BUCKET_BOUNDS_MS[i]).append("ms: ").append(waitBuckets[i].sum()).append(", ");
+    }
+    sb.append('>').append(WAIT_BUCKET_BOUNDS_MS[WAIT_BUCKET_BOUNDS_MS.length - 1]).append("ms: ").append(waitBuckets[WAIT_BUCKET_BOUNDS_MS.length].sum());
+    return sb.toString();
+  }
+}
@@ -27,12 +27,14 @@ import java.util.Collection;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.logs.RequestProfile;
 
 public class ProfiledDataSource extends BasicDataSource {
 
   static final Logger SQL_LOGGER = Loggers.get("sql");
 
   private final BasicDataSource delegate;
+  private final ConnectionPoolStatistics statistics = new ConnectionPoolStatistics();
   private ConnectionInterceptor connectionInterceptor;
 
   public ProfiledDataSource(BasicDataSource delegate, ConnectionInterceptor connectionInterceptor) {
@@ -44,6 +46,10 @@ public class ProfiledDataSource extends BasicDataSource {
     return delegate;
   }
 
+  public ConnectionPoolStatistics getStatistics() {
+    return statistics;
+  }
+
   public synchronized void setConnectionInterceptor(ConnectionInterceptor ci) {
     this.connectionInterceptor = ci;
   }
@@ -320,7 +326,15 @@ public class ProfiledDataSource extends BasicDataSource {
 
   @Override
   public Connection getConnection() throws SQLException {
-    return connectionInterceptor.getConnection(delegate);
+    statistics.onBorrowStart();
+    long start = System.nanoTime();
+    try {
+      return connectionInterceptor.getConnection(delegate);
+    } finally {
+      long waitNanos = System.nanoTime() - start;
+      statistics.onBorrowEnd(waitNanos);
+      RequestProfile.addConnectionWaitTime(waitNanos);
+    }
   }
 
   @Override
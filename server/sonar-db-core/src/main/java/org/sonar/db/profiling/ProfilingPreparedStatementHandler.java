@@ -23,6 +23,7 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.sql.PreparedStatement;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.core.util.logs.RequestProfile;
 
 class ProfilingPreparedStatementHandler implements InvocationHandler {
 
@@ -40,15 +41,19 @@ class ProfilingPreparedStatementHandler implements InvocationHandler {
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
     if (method.getName().startsWith("execute")) {
       Profiler profiler = Profiler.create(ProfiledDataSource.SQL_LOGGER).start();
+      long start = System.nanoTime();
       Object result = null;
       try {
         result = InvocationUtils.invokeQuietly(statement, method, args);
       } finally {
-        profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
-        if (sqlParams.length > 0) {
-          profiler.addContext("params", SqlLogFormatter.formatParams(sqlParams));
+        RequestProfile.addDbTime(System.nanoTime() - start);
+        if (profiler.isTraceEnabled()) {
+          profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
+          if (sqlParams.length > 0) {
+            profiler.addContext("params", SqlLogFormatter.formatParams(sqlParams));
+          }
+          profiler.stopTrace("");
         }
-        profiler.stopTrace("");
       }
       return result;
     } else if (method.getName().startsWith("set") && args.length > 1) {
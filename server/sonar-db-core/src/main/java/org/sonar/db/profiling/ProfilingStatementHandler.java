@@ -23,6 +23,7 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.sql.Statement;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.core.util.logs.RequestProfile;
 
 class ProfilingStatementHandler implements InvocationHandler {
 
@@ -36,13 +37,17 @@ class ProfilingStatementHandler implements InvocationHandler {
   public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
     if (method.getName().startsWith("execute")) {
       Profiler profiler = Profiler.create(ProfiledDataSource.SQL_LOGGER).start();
+      long start = System.nanoTime();
       Object result = null;
       try {
         result = InvocationUtils.invokeQuietly(statement, method, args);
       } finally {
-        String sql = (String) args[0];
-        profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
-        profiler.stopTrace("");
+        RequestProfile.addDbTime(System.nanoTime() - start);
+        if (profiler.isTraceEnabled()) {
+          String sql = (String) args[0];
+          profiler.addContext("sql", SqlLogFormatter.formatSql(sql));
+          profiler.stopTrace("");
+        }
       }
       return result;
     } else {
@@ -115,6 +115,11 @@ public class H2Database implements Database {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public void enableSqlTiming(boolean enable) {
+    throw new UnsupportedOperationException();
+  }
+
   @Override
   public String toString() {
     return format("H2 Database[%s]", name);
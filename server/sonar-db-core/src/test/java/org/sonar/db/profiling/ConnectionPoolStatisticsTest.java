@@ -0,0 +1,69 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectionPoolStatisticsTest {
+
+  private ConnectionPoolStatistics underTest = new ConnectionPoolStatistics();
+
+  @Test
+  public void statistics_are_empty_at_startup() {
+    assertThat(underTest.getBorrowsInProgress()).isZero();
+    assertThat(underTest.getBorrowCount()).isZero();
+    assertThat(underTest.getTotalWaitMillis()).isZero();
+    assertThat(underTest.getMaxWaitMillis()).isZero();
+    assertThat(underTest.getWaitDistribution())
+      .isEqualTo("<=1ms: 0, <=5ms: 0, <=10ms: 0, <=50ms: 0, <=100ms: 0, <=500ms: 0, <=1000ms: 0, <=5000ms: 0, >5000ms: 0");
+  }
+
+  @Test
+  public void count_borrows_in_progress() {
+    underTest.onBorrowStart();
+    underTest.onBorrowStart();
+    assertThat(underTest.getBorrowsInProgress()).isEqualTo(2);
+
+    underTest.onBorrowEnd(10L);
+    assertThat(underTest.getBorrowsInProgress()).isEqualTo(1);
+  }
+
+  @Test
+  public void aggregate_wait_times() {
+    borrow(0L);
+    borrow(3L);
+    borrow(200L);
+    borrow(6_000L);
+
+    assertThat(underTest.getBorrowCount()).isEqualTo(4);
+    assertThat(underTest.getTotalWaitMillis()).isEqualTo(6_203L);
+    assertThat(underTest.getMaxWaitMillis()).isEqualTo(6_000L);
+    assertThat(underTest.getWaitDistribution())
+      .isEqualTo("<=1ms: 1, <=5ms: 1, <=10ms: 0, <=50ms: 0, <=100ms: 0, <=500ms: 1, <=1000ms: 0, <=5000ms: 0, >5000ms: 1");
+  }
+
+  private void borrow(long waitMs) {
+    underTest.onBorrowStart();
+    underTest.onBorrowEnd(TimeUnit.MILLISECONDS.toNanos(waitMs));
+  }
+}
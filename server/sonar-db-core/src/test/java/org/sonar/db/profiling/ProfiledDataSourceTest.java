@@ -27,11 +27,13 @@ import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.core.util.logs.RequestProfile;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -132,6 +134,63 @@ public class ProfiledDataSourceTest {
       .doesNotContain("params=");
   }
 
+  @Test
+  public void record_execution_time_in_request_profile_without_logging() throws Exception {
+    logTester.setLevel(LoggerLevel.DEBUG);
+
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    String sql = "select from dual";
+    Statement stmt = mock(Statement.class);
+    when(connection.createStatement()).thenReturn(stmt);
+    PreparedStatement preparedStatement = mock(PreparedStatement.class);
+    when(connection.prepareStatement(sql)).thenReturn(preparedStatement);
+    ProfiledDataSource ds = new ProfiledDataSource(originDataSource, ProfiledConnectionInterceptor.INSTANCE);
+
+    RequestProfile profile = RequestProfile.start();
+    try {
+      ds.getConnection().createStatement().execute(sql);
+      ds.getConnection().prepareStatement(sql).executeQuery();
+    } finally {
+      RequestProfile.stop();
+    }
+
+    assertThat(profile.getDbCalls()).isEqualTo(2);
+    assertThat(profile.getDbNanos()).isGreaterThanOrEqualTo(0L);
+    assertThat(logTester.logs(LoggerLevel.TRACE)).isEmpty();
+  }
+
+  @Test
+  public void record_statistics_of_borrowed_connections() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+
+    underTest.getConnection();
+    underTest.getConnection();
+
+    assertThat(underTest.getStatistics().getBorrowCount()).isEqualTo(2);
+    assertThat(underTest.getStatistics().getBorrowsInProgress()).isZero();
+  }
+
+  @Test
+  public void record_borrow_time_in_profile_of_current_request() throws Exception {
+    when(originDataSource.getConnection()).thenAnswer(invocation -> {
+      Thread.sleep(5L);
+      return mock(Connection.class);
+    });
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+    RequestProfile profile = RequestProfile.start();
+    try {
+      underTest.getConnection();
+
+      assertThat(profile.getConnectionWaitNanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(5L));
+      assertThat(profile.getDbCalls()).isZero();
+    } finally {
+      RequestProfile.stop();
+    }
+  }
+
   @Test
   public void delegate_to_underlying_data_source() throws Exception {
     ProfiledDataSource proxy = new ProfiledDataSource(originDataSource, ProfiledConnectionInterceptor.INSTANCE);
@@ -19,6 +19,7 @@
  */
 package org.sonar.db.ce;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -29,6 +30,7 @@ import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.Pagination;
 
+import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 import static org.sonar.db.DatabaseUtils.executeLargeUpdates;
 
 public class CeActivityDao implements Dao {
@@ -55,6 +57,14 @@ public class CeActivityDao implements Dao {
     ceActivityMapper.insert(dto);
   }
 
+  /**
+   * Last activities, ie. with {@link CeActivityDto#getIsLast()} true, of the specified
+   * {@link CeActivityDto#getIsLastKey() keys}.
+   */
+  public List<CeActivityDto> selectLastByIsLastKeys(DbSession dbSession, Collection<String> isLastKeys) {
+    return executeLargeInputs(isLastKeys, mapper(dbSession)::selectLastByIsLastKeys);
+  }
+
   public List<CeActivityDto> selectOlderThan(DbSession dbSession, long beforeDate) {
     return mapper(dbSession).selectOlderThan(beforeDate);
   }
@@ -51,6 +51,16 @@ public class CeActivityDto {
   private long createdAt;
   private long updatedAt;
   private Long executionTimeMs;
+  /**
+   * CPU time consumed by the worker thread which executed the task. Can be null if the JVM does not support
+   * measurement of thread CPU time or for activity created before the column has been introduced.
+   */
+  private Long cpuTimeMs;
+  /**
+   * Bytes allocated in heap by the worker thread which executed the task. Can be null if the JVM does not support
+   * measurement of thread allocations or for activity created before the column has been introduced.
+   */
+  private Long allocatedBytes;
   /**
    * The error message of the activity. Shall be non null only when status is FAILED. When status is FAILED, can be null
    * (eg. for activity created before the column has been introduced).
@@ -208,6 +218,28 @@ public class CeActivityDto {
     return this;
   }
 
+  @CheckForNull
+  public Long getCpuTimeMs() {
+    return cpuTimeMs;
+  }
+
+  public CeActivityDto setCpuTimeMs(@Nullable Long l) {
+    checkArgument(l == null || l >= 0, "CPU time must be positive: %s", l);
+    this.cpuTimeMs = l;
+    return this;
+  }
+
+  @CheckForNull
+  public Long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public CeActivityDto setAllocatedBytes(@Nullable Long l) {
+    checkArgument(l == null || l >= 0, "Allocated bytes must be positive: %s", l);
+    this.allocatedBytes = l;
+    return this;
+  }
+
   @CheckForNull
   public String getAnalysisUuid() {
     return analysisUuid;
@@ -296,6 +328,8 @@ public class CeActivityDto {
       ", createdAt=" + createdAt +
       ", updatedAt=" + updatedAt +
       ", executionTimeMs=" + executionTimeMs +
+      ", cpuTimeMs=" + cpuTimeMs +
+      ", allocatedBytes=" + allocatedBytes +
       ", errorMessage='" + errorMessage + '\'' +
       ", errorStacktrace='" + errorStacktrace + '\'' +
       ", hasScannerContext=" + hasScannerContext +
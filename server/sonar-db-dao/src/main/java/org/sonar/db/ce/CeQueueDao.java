@@ -142,10 +142,24 @@ public class CeQueueDao implements Dao {
     }
 
     EligibleTaskDto eligible = eligibles.get(0);
-    return tryToPeek(session, eligible, workerUuid);
+    return peek(session, eligible, workerUuid);
   }
 
-  private Optional<CeQueueDto> tryToPeek(DbSession session, EligibleTaskDto eligible, String workerUuid) {
+  /**
+   * The oldest pending task of each component which can be peeked, ie. which has not been executed
+   * {@code maxExecutionCount} times yet and whose component has no task in progress. The component of a task is the
+   * project or the view it was submitted for, so the result holds at most one task per project, whatever the number
+   * of tasks queued for each of them. Tasks without component are all returned. Ordered by creation date.
+   */
+  public List<EligibleTaskDto> selectOldestEligibleOfEachComponent(DbSession session, int maxExecutionCount) {
+    return mapper(session).selectOldestEligibleOfEachComponent(maxExecutionCount);
+  }
+
+  /**
+   * Sets the specified task in progress for the specified worker, unless it has been modified since it
+   * was selected by {@link #selectOldestEligibleOfEachComponent(DbSession, int)}, for example when peeked by another worker.
+   */
+  public Optional<CeQueueDto> peek(DbSession session, EligibleTaskDto eligible, String workerUuid) {
     long now = system2.now();
     int touchedRows = mapper(session).updateIf(eligible.getUuid(),
       new UpdateIf.NewProperties(IN_PROGRESS, workerUuid, eligible.getExecutionCount() + 1, now, now),
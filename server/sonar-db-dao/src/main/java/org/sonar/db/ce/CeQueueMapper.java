@@ -38,6 +38,8 @@ public interface CeQueueMapper {
 
   List<EligibleTaskDto> selectEligibleForPeek(@Param("maxExecutionCount") int maxExecutionCount, @Param("pagination") Pagination pagination);
 
+  List<EligibleTaskDto> selectOldestEligibleOfEachComponent(@Param("maxExecutionCount") int maxExecutionCount);
+
   @CheckForNull
   CeQueueDto selectByUuid(@Param("uuid") String uuid);
 
@@ -19,9 +19,15 @@
  */
 package org.sonar.db.ce;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
 public class EligibleTaskDto {
   private String uuid;
   private int executionCount;
+  private String taskType;
+  private String componentUuid;
+  private long createdAt;
 
   public String getUuid() {
     return uuid;
@@ -41,11 +47,42 @@ public class EligibleTaskDto {
     return this;
   }
 
+  public String getTaskType() {
+    return taskType;
+  }
+
+  public EligibleTaskDto setTaskType(String taskType) {
+    this.taskType = taskType;
+    return this;
+  }
+
+  @CheckForNull
+  public String getComponentUuid() {
+    return componentUuid;
+  }
+
+  public EligibleTaskDto setComponentUuid(@Nullable String componentUuid) {
+    this.componentUuid = componentUuid;
+    return this;
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public EligibleTaskDto setCreatedAt(long createdAt) {
+    this.createdAt = createdAt;
+    return this;
+  }
+
   @Override
   public String toString() {
     return "EligibleTaskDto{" +
         "uuid='" + uuid + '\'' +
         ", executionCount=" + executionCount +
+        ", taskType='" + taskType + '\'' +
+        ", componentUuid='" + componentUuid + '\'' +
+        ", createdAt=" + createdAt +
         '}';
   }
 }
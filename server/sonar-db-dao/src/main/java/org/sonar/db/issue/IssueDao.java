@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.ibatis.session.ResultHandler;
@@ -94,6 +95,15 @@ public class IssueDao implements Dao {
     return mapper(session).selectComponentUuidsOfOpenIssuesForProjectUuid(projectUuid);
   }
 
+  /**
+   * Most recent technical update date of the issues of the given project, including
+   * closed issues. Returns {@code null} if the project has no issues.
+   */
+  @CheckForNull
+  public Long selectMaxUpdatedAtByProjectUuid(DbSession session, String projectUuid) {
+    return mapper(session).selectMaxUpdatedAtByProjectUuid(projectUuid);
+  }
+
   public void scrollNonClosedByComponentUuid(DbSession dbSession, String componentUuid, ResultHandler<IssueDto> handler) {
     mapper(dbSession).scrollNonClosedByComponentUuid(componentUuid, handler);
   }
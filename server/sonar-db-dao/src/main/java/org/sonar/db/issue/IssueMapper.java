@@ -30,6 +30,8 @@ public interface IssueMapper {
 
   Set<String> selectComponentUuidsOfOpenIssuesForProjectUuid(String projectUuid);
 
+  Long selectMaxUpdatedAtByProjectUuid(String projectUuid);
+
   List<IssueDto> selectByKeys(List<String> keys);
 
   void insert(IssueDto issue);
@@ -32,5 +32,7 @@ public interface InternalPropertiesMapper {
 
   void insertAsClob(@Param("key") String key, @Param("value") String value, @Param("createdAt") long createdAt);
 
+  int updateTextValue(@Param("key") String key, @Param("oldValue") String oldValue, @Param("value") String value);
+
   void deleteByKey(@Param("key") String key);
 }
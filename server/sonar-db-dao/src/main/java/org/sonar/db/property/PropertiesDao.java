@@ -48,6 +48,11 @@ public class PropertiesDao implements Dao {
   private static final String NOTIFICATION_PREFIX = "notification.";
   private static final int VARCHAR_MAXSIZE = 4000;
 
+  /**
+   * Key of the internal property holding the version of global properties
+   */
+  static final String GLOBAL_PROPERTIES_VERSION = "settings.version";
+
   private final MyBatis mybatis;
   private final System2 system2;
 
@@ -110,6 +115,45 @@ public class PropertiesDao implements Dao {
     return getMapper(session).selectGlobalProperties();
   }
 
+  /**
+   * Version of the global properties. It is incremented, in the same transaction, each time this DAO
+   * inserts, updates, renames or deletes global properties. It never decreases, whatever the clocks of
+   * the nodes that change the properties.
+   */
+  public long selectGlobalPropertiesVersion(DbSession session) {
+    InternalPropertyDto version = getInternalMapper(session).selectAsText(GLOBAL_PROPERTIES_VERSION);
+    if (version == null || version.getValue() == null) {
+      return 0L;
+    }
+    return Long.parseLong(version.getValue());
+  }
+
+  /**
+   * Optimistic increment, as a counter stored as text can't be incremented in SQL in a portable way.
+   * Concurrent transactions are serialized by the lock of the updated row. The row is created by a
+   * database migration, so that concurrent writers never race to insert it. It is re-created only if
+   * it was deleted.
+   */
+  private static void incrementGlobalPropertiesVersion(DbSession session, long now) {
+    InternalPropertiesMapper mapper = getInternalMapper(session);
+    while (true) {
+      InternalPropertyDto current = mapper.selectAsText(GLOBAL_PROPERTIES_VERSION);
+      if (current == null || current.getValue() == null) {
+        mapper.deleteByKey(GLOBAL_PROPERTIES_VERSION);
+        mapper.insertAsText(GLOBAL_PROPERTIES_VERSION, "1", now);
+        return;
+      }
+      String next = String.valueOf(Long.parseLong(current.getValue()) + 1L);
+      if (mapper.updateTextValue(GLOBAL_PROPERTIES_VERSION, current.getValue(), next) > 0) {
+        return;
+      }
+    }
+  }
+
+  private void incrementGlobalPropertiesVersion(DbSession session) {
+    incrementGlobalPropertiesVersion(session, system2.now());
+  }
+
   @CheckForNull
   public PropertyDto selectGlobalProperty(DbSession session, String propertyKey) {
     return getMapper(session).selectByKey(new PropertyDto().setKey(propertyKey));
@@ -186,14 +230,15 @@ public class PropertiesDao implements Dao {
    * @throws IllegalArgumentException if {@link PropertyDto#getKey()} is {@code null} or empty
    */
   public void saveProperty(DbSession session, PropertyDto property) {
-    save(getMapper(session), property.getKey(), property.getUserId(), property.getResourceId(), property.getValue());
+    save(session, property.getKey(), property.getUserId(), property.getResourceId(), property.getValue());
   }
 
-  private void save(PropertiesMapper mapper,
+  private void save(DbSession session,
     String key, @Nullable Integer userId, @Nullable Long componentId,
     @Nullable String value) {
     checkKey(key);
 
+    PropertiesMapper mapper = getMapper(session);
     long now = system2.now();
     mapper.delete(key, userId, componentId);
     if (isEmpty(value)) {
@@ -203,6 +248,9 @@ public class PropertiesDao implements Dao {
     } else {
       mapper.insertAsText(key, userId, componentId, value, now);
     }
+    if (userId == null && componentId == null) {
+      incrementGlobalPropertiesVersion(session, now);
+    }
   }
 
   private static boolean mustBeStoredInClob(String value) {
@@ -232,11 +280,19 @@ public class PropertiesDao implements Dao {
    * Used by Governance.
    */
   public int deleteByQuery(DbSession dbSession, PropertyQuery query) {
-    return getMapper(dbSession).deleteByQuery(query);
+    int deleted = getMapper(dbSession).deleteByQuery(query);
+    if (deleted > 0 && query.componentId() == null && query.userId() == null) {
+      incrementGlobalPropertiesVersion(dbSession);
+    }
+    return deleted;
   }
 
   public int delete(DbSession dbSession, PropertyDto dto) {
-    return getMapper(dbSession).delete(dto.getKey(), dto.getUserId(), dto.getResourceId());
+    int deleted = getMapper(dbSession).delete(dto.getKey(), dto.getUserId(), dto.getResourceId());
+    if (deleted > 0 && dto.getUserId() == null && dto.getResourceId() == null) {
+      incrementGlobalPropertiesVersion(dbSession);
+    }
+    return deleted;
   }
 
   public void deleteProjectProperty(String key, Long projectId) {
@@ -262,7 +318,9 @@ public class PropertiesDao implements Dao {
   }
 
   public void deleteGlobalProperty(String key, DbSession session) {
-    getMapper(session).deleteGlobalProperty(key);
+    if (getMapper(session).deleteGlobalProperty(key) > 0) {
+      incrementGlobalPropertiesVersion(session);
+    }
   }
 
   public void deleteGlobalProperty(String key) {
@@ -283,7 +341,10 @@ public class PropertiesDao implements Dao {
   }
 
   public void deleteByKeyAndValue(DbSession dbSession, String key, String value) {
-    getMapper(dbSession).deleteByKeyAndValue(key, value);
+    // may delete global properties
+    if (getMapper(dbSession).deleteByKeyAndValue(key, value) > 0) {
+      incrementGlobalPropertiesVersion(dbSession);
+    }
   }
 
   public void saveGlobalProperties(Map<String, String> properties) {
@@ -291,7 +352,7 @@ public class PropertiesDao implements Dao {
       PropertiesMapper mapper = getMapper(session);
       properties.entrySet().forEach(entry -> {
         mapper.deleteGlobalProperty(entry.getKey());
-        save(mapper, entry.getKey(), null, null, entry.getValue());
+        save(session, entry.getKey(), null, null, entry.getValue());
       });
       session.commit();
     }
@@ -303,7 +364,9 @@ public class PropertiesDao implements Dao {
 
     if (!newKey.equals(oldKey)) {
       try (DbSession session = mybatis.openSession(false)) {
-        getMapper(session).renamePropertyKey(oldKey, newKey);
+        if (getMapper(session).renamePropertyKey(oldKey, newKey) > 0) {
+          incrementGlobalPropertiesVersion(session);
+        }
         session.commit();
       }
     }
@@ -313,4 +376,8 @@ public class PropertiesDao implements Dao {
     return session.getMapper(PropertiesMapper.class);
   }
 
+  private static InternalPropertiesMapper getInternalMapper(DbSession session) {
+    return session.getMapper(InternalPropertiesMapper.class);
+  }
+
 }
@@ -57,6 +57,10 @@ public class ActiveRuleDao implements Dao {
     return mapper(dbSession).selectByRuleIdOfAllOrganizations(ruleId);
   }
 
+  public List<ActiveRuleDto> selectByRuleIdsOfAllOrganizations(DbSession dbSession, Collection<Integer> ruleIds) {
+    return executeLargeInputs(ruleIds, mapper(dbSession)::selectByRuleIdsOfAllOrganizations);
+  }
+
   public List<OrgActiveRuleDto> selectByRuleIds(DbSession dbSession, OrganizationDto organization, List<Integer> ids) {
     return executeLargeInputs(ids, chunk -> mapper(dbSession).selectByRuleIds(organization.getUuid(), chunk));
   }
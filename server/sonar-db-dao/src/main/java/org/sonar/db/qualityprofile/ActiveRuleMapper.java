@@ -49,6 +49,8 @@ public interface ActiveRuleMapper {
 
   List<ActiveRuleDto> selectByRuleIdOfAllOrganizations(int ruleId);
 
+  List<ActiveRuleDto> selectByRuleIdsOfAllOrganizations(@Param("ruleIds") List<Integer> partitionOfRuleIds);
+
   List<OrgActiveRuleDto> selectByRuleIds(@Param("organizationUuid") String organizationUuid, @Param("ruleIds") List<Integer> partitionOfRuleIds);
 
   List<OrgActiveRuleDto> selectByProfileUuid(String uuid);
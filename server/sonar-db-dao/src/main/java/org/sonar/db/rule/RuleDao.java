@@ -192,6 +192,10 @@ public class RuleDao implements Dao {
    * RuleParams
    */
 
+  public List<RuleParamDto> selectAllRuleParams(DbSession session) {
+    return mapper(session).selectAllParams();
+  }
+
   public List<RuleParamDto> selectRuleParamsByRuleKey(DbSession session, RuleKey key) {
     return mapper(session).selectParamsByRuleKey(key);
   }
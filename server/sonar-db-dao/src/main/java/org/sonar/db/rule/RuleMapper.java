@@ -72,6 +72,8 @@ public interface RuleMapper {
 
   void updateMetadata(RuleMetadataDto ruleMetadataDto);
 
+  List<RuleParamDto> selectAllParams();
+
   List<RuleParamDto> selectParamsByRuleIds(@Param("ruleIds") List<Integer> ruleIds);
 
   List<RuleParamDto> selectParamsByRuleKey(RuleKey ruleKey);
@@ -35,6 +35,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.Pagination;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -73,6 +74,8 @@ public class CeActivityDaoTest {
     assertThat(dto.getStartedAt()).isEqualTo(1_500_000_000_000L);
     assertThat(dto.getExecutedAt()).isEqualTo(1_500_000_000_500L);
     assertThat(dto.getExecutionTimeMs()).isEqualTo(500L);
+    assertThat(dto.getCpuTimeMs()).isEqualTo(300L);
+    assertThat(dto.getAllocatedBytes()).isEqualTo(1_000_000L);
     assertThat(dto.getAnalysisUuid()).isEqualTo(inserted.getAnalysisUuid());
     assertThat(dto.toString()).isNotEmpty();
     assertThat(dto.getErrorMessage()).isNull();
@@ -124,6 +127,18 @@ public class CeActivityDaoTest {
     assertThat(read.getErrorStacktrace()).isNull();
   }
 
+  @Test
+  public void selectLastByIsLastKeys() {
+    insert("TASK_1", REPORT, "PROJECT_1", CeActivityDto.Status.SUCCESS);
+    insert("TASK_2", REPORT, "PROJECT_1", FAILED);
+    insert("TASK_3", REPORT, "PROJECT_2", CeActivityDto.Status.SUCCESS);
+    insert("TASK_4", REPORT, "PROJECT_3", CeActivityDto.Status.SUCCESS);
+
+    List<CeActivityDto> dtos = underTest.selectLastByIsLastKeys(db.getSession(), asList(REPORT + "PROJECT_1", REPORT + "PROJECT_2", REPORT + "UNKNOWN"));
+
+    assertThat(dtos).extracting(CeActivityDto::getUuid).containsOnly("TASK_2", "TASK_3");
+  }
+
   @Test
   public void insert_must_set_relevant_is_last_field() {
     // only a single task on PROJECT_1 -> is_last=true
@@ -357,6 +372,8 @@ public class CeActivityDaoTest {
     dto.setStartedAt(1_500_000_000_000L);
     dto.setExecutedAt(1_500_000_000_500L);
     dto.setExecutionTimeMs(500L);
+    dto.setCpuTimeMs(300L);
+    dto.setAllocatedBytes(1_000_000L);
     dto.setAnalysisUuid(uuid + "_2");
     if (status == FAILED) {
       dto.setErrorMessage("error msg for " + uuid);
@@ -226,6 +226,58 @@ public class CeQueueDaoTest {
     assertThat(underTest.selectByUuid(db.getSession(), TASK_UUID_2).get().getUpdatedAt()).isEqualTo(now);
   }
 
+  @Test
+  public void selectOldestEligibleOfEachComponent_returns_oldest_pending_task_of_components_without_task_in_progress() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    insert(TASK_UUID_2, COMPONENT_UUID_2, IN_PROGRESS);
+    insert(TASK_UUID_3, COMPONENT_UUID_2, PENDING);
+    insert("TASK_4", "PROJECT_3", PENDING);
+    insert("TASK_5", COMPONENT_UUID_1, PENDING);
+    insert("TASK_6", "PROJECT_3", PENDING);
+
+    List<EligibleTaskDto> eligibles = underTest.selectOldestEligibleOfEachComponent(db.getSession(), MAX_EXECUTION_COUNT);
+
+    assertThat(eligibles).extracting(EligibleTaskDto::getUuid).containsExactly(TASK_UUID_1, "TASK_4");
+    assertThat(eligibles.get(0).getComponentUuid()).isEqualTo(COMPONENT_UUID_1);
+    assertThat(eligibles.get(0).getTaskType()).isEqualTo(CeTaskTypes.REPORT);
+    assertThat(eligibles.get(0).getCreatedAt()).isEqualTo(INIT_TIME);
+  }
+
+  @Test
+  public void selectOldestEligibleOfEachComponent_is_not_limited_by_the_number_of_tasks_of_a_component() {
+    for (int i = 0; i < 150; i++) {
+      insert("TASK_P1_" + i, COMPONENT_UUID_1, PENDING);
+    }
+    insert("TASK_P2", COMPONENT_UUID_2, PENDING);
+
+    List<EligibleTaskDto> eligibles = underTest.selectOldestEligibleOfEachComponent(db.getSession(), MAX_EXECUTION_COUNT);
+
+    assertThat(eligibles).extracting(EligibleTaskDto::getUuid).containsExactly("TASK_P1_0", "TASK_P2");
+  }
+
+  @Test
+  public void selectOldestEligibleOfEachComponent_ignores_tasks_executed_too_many_times() {
+    insert(newCeQueueDto(TASK_UUID_1).setComponentUuid(COMPONENT_UUID_1).setStatus(PENDING).setExecutionCount(MAX_EXECUTION_COUNT)
+      .setCreatedAt(INIT_TIME - 1_000L).setUpdatedAt(INIT_TIME - 1_000L));
+    insert(TASK_UUID_2, COMPONENT_UUID_1, PENDING);
+
+    List<EligibleTaskDto> eligibles = underTest.selectOldestEligibleOfEachComponent(db.getSession(), MAX_EXECUTION_COUNT);
+
+    assertThat(eligibles).extracting(EligibleTaskDto::getUuid).containsExactly(TASK_UUID_2);
+  }
+
+  @Test
+  public void peek_eligible_task_sets_it_in_progress_unless_it_has_been_peeked_already() {
+    insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING);
+    EligibleTaskDto eligible = underTest.selectOldestEligibleOfEachComponent(db.getSession(), MAX_EXECUTION_COUNT).get(0);
+
+    Optional<CeQueueDto> peeked = underTest.peek(db.getSession(), eligible, WORKER_UUID_1);
+    assertThat(peeked.get().getStatus()).isEqualTo(IN_PROGRESS);
+    assertThat(peeked.get().getWorkerUuid()).isEqualTo(WORKER_UUID_1);
+
+    assertThat(underTest.peek(db.getSession(), eligible, WORKER_UUID_2)).isEmpty();
+  }
+
   @Test
   public void resetAllToPendingStatus_resets_startedAt() {
     assertThat(insert(TASK_UUID_1, COMPONENT_UUID_1, PENDING).getStartedAt()).isNull();
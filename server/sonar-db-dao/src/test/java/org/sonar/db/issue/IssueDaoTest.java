@@ -129,6 +129,23 @@ public class IssueDaoTest {
     assertThat(issues).extracting("key").containsExactly("I2", "I1");
   }
 
+  @Test
+  public void selectMaxUpdatedAtByProjectUuid() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto anotherProject = db.components().insertPrivateProject();
+    ComponentDto projectWithoutIssues = db.components().insertPrivateProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setUpdatedAt(1_000L));
+    db.issues().insert(rule, project, file, i -> i.setStatus("CLOSED").setUpdatedAt(3_000L));
+    db.issues().insert(rule, project, project, i -> i.setStatus("OPEN").setUpdatedAt(2_000L));
+    db.issues().insert(rule, anotherProject, anotherProject, i -> i.setStatus("OPEN").setUpdatedAt(5_000L));
+
+    assertThat(underTest.selectMaxUpdatedAtByProjectUuid(db.getSession(), project.uuid())).isEqualTo(3_000L);
+    assertThat(underTest.selectMaxUpdatedAtByProjectUuid(db.getSession(), anotherProject.uuid())).isEqualTo(5_000L);
+    assertThat(underTest.selectMaxUpdatedAtByProjectUuid(db.getSession(), projectWithoutIssues.uuid())).isNull();
+  }
+
   @Test
   public void scrollNonClosedByComponentUuid() {
     RuleDefinitionDto rule = db.rules().insert();
@@ -252,6 +252,65 @@ public class PropertiesDaoTest {
       .hasValue(expected);
   }
 
+  @Test
+  public void selectGlobalPropertiesVersion_is_zero_when_no_global_property_was_ever_changed() {
+    assertThat(underTest.selectGlobalPropertiesVersion(session)).isEqualTo(0L);
+  }
+
+  @Test
+  public void selectGlobalPropertiesVersion_increases_when_global_properties_change() throws SQLException {
+    insertProperty("global.one", "one", null, null, DATE_1);
+    insertProperty("global.two", "two", null, null, DATE_2);
+    long version = underTest.selectGlobalPropertiesVersion(session);
+    assertThat(version).isEqualTo(2L);
+
+    // project and user properties are ignored
+    insertProperty("project.one", "one", 10L, null, DATE_3);
+    insertProperty("user.one", "one", null, 100, DATE_4);
+    assertThat(underTest.selectGlobalPropertiesVersion(session)).isEqualTo(version);
+
+    // update of a property which is not the newest one
+    insertProperty("global.one", "other", null, null, DATE_5);
+    assertThat(underTest.selectGlobalPropertiesVersion(session)).isEqualTo(version + 1);
+
+    underTest.deleteGlobalProperty("global.two", session);
+    assertThat(underTest.selectGlobalPropertiesVersion(session)).isEqualTo(version + 2);
+
+    underTest.renamePropertyKey("global.one", "global.three");
+    assertThat(underTest.selectGlobalPropertiesVersion(session)).isEqualTo(version + 3);
+  }
+
+  @Test
+  public void selectGlobalPropertiesVersion_increases_on_delete_and_insert_done_at_the_same_time() throws SQLException {
+    insertProperty("global.one", "one", null, null, DATE_1);
+    insertProperty("global.two", "two", null, null, DATE_1);
+    long version = underTest.selectGlobalPropertiesVersion(session);
+
+    // same number of rows and same timestamp as before
+    underTest.deleteGlobalProperty("global.two", session);
+    insertProperty("global.three", "three", null, null, DATE_1);
+
+    assertThat(underTest.selectGlobalPropertiesVersion(session)).isEqualTo(version + 2);
+  }
+
+  @Test
+  public void selectGlobalPropertiesVersion_does_not_change_when_nothing_is_renamed() {
+    long version = underTest.selectGlobalPropertiesVersion(session);
+
+    underTest.renamePropertyKey("missing", "other");
+
+    assertThat(underTest.selectGlobalPropertiesVersion(session)).isEqualTo(version);
+  }
+
+  @Test
+  public void selectGlobalPropertiesVersion_does_not_change_when_nothing_is_deleted() {
+    long version = underTest.selectGlobalPropertiesVersion(session);
+
+    underTest.deleteGlobalProperty("missing", session);
+
+    assertThat(underTest.selectGlobalPropertiesVersion(session)).isEqualTo(version);
+  }
+
   @Test
   public void selectProjectProperties() throws SQLException {
     ComponentDto projectDto = insertProject("A");
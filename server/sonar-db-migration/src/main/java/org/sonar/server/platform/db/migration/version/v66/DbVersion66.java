@@ -31,6 +31,9 @@ public class DbVersion66 implements DbVersion {
       .add(1801, "Create table CE task characteristics", CreateTableCeTaskCharacteristics.class)
       .add(1802, "Delete leak settings on views", DeleteLeakSettingsOnViews.class)
       .add(1803, "Fix empty USERS.EXTERNAL_IDENTITY and USERS.EXTERNAL_IDENTITY_PROVIDER", FixEmptyIdentityProviderInUsers.class)
+      .add(1804, "Add resource usage columns to CE_ACTIVITY", AddResourceUsageColumnsToCeActivity.class)
+      .add(1805, "Add index on CE_QUEUE (STATUS, CREATED_AT)", AddIndexOnCeQueueStatusAndCreatedAt.class)
+      .add(1806, "Insert version of global settings in INTERNAL_PROPERTIES", InsertGlobalSettingsVersion.class)
     ;
   }
 }
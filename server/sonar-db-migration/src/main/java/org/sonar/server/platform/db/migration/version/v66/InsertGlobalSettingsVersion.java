@@ -0,0 +1,60 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.version.v66;
+
+import java.sql.SQLException;
+import org.sonar.api.utils.System2;
+import org.sonar.db.Database;
+import org.sonar.server.platform.db.migration.step.DataChange;
+import org.sonar.server.platform.db.migration.step.Select;
+
+/**
+ * Creates the version of global settings, so that concurrent changes of settings only
+ * have to update it and never race to insert it.
+ */
+public class InsertGlobalSettingsVersion extends DataChange {
+
+  private static final String INTERNAL_PROPERTY_SETTINGS_VERSION = "settings.version";
+
+  private final System2 system2;
+
+  public InsertGlobalSettingsVersion(Database db, System2 system2) {
+    super(db);
+    this.system2 = system2;
+  }
+
+  @Override
+  protected void execute(Context context) throws SQLException {
+    Select select = context.prepareSelect("select kee from internal_properties where kee=?");
+    select.setString(1, INTERNAL_PROPERTY_SETTINGS_VERSION);
+    if (select.get(row -> row.getNullableString(1)) == null) {
+      context.prepareUpsert("insert into internal_properties" +
+        " (kee, is_empty, text_value, created_at)" +
+        " values" +
+        " (?, ?, ?, ?)")
+        .setString(1, INTERNAL_PROPERTY_SETTINGS_VERSION)
+        .setBoolean(2, false)
+        .setString(3, "0")
+        .setLong(4, system2.now())
+        .execute()
+        .commit();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.version.v66;
+
+import java.sql.SQLException;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.db.CoreDbTester;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InsertGlobalSettingsVersionTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+
+  @Rule
+  public CoreDbTester db = CoreDbTester.createForSchema(InsertGlobalSettingsVersionTest.class, "internal_properties.sql");
+
+  private InsertGlobalSettingsVersion underTest = new InsertGlobalSettingsVersion(db.database(), new TestSystem2().setNow(NOW));
+
+  @Test
+  public void insert_version_zero() throws SQLException {
+    underTest.execute();
+
+    assertVersion("0", NOW);
+  }
+
+  @Test
+  public void keep_existing_version() throws SQLException {
+    db.executeInsert(
+      "INTERNAL_PROPERTIES",
+      "KEE", "settings.version",
+      "IS_EMPTY", "false",
+      "TEXT_VALUE", "12",
+      "CREATED_AT", "1000");
+
+    underTest.execute();
+
+    assertVersion("12", 1000L);
+  }
+
+  @Test
+  public void migration_is_reentrant() throws SQLException {
+    underTest.execute();
+    underTest.execute();
+
+    assertVersion("0", NOW);
+  }
+
+  private void assertVersion(String expectedValue, long expectedCreatedAt) {
+    assertThat(db.countRowsOfTable("internal_properties")).isEqualTo(1);
+    Map<String, Object> row = db.selectFirst("select text_value as \"value\", created_at as \"createdAt\" from internal_properties where kee='settings.version'");
+    assertThat(row.get("value")).isEqualTo(expectedValue);
+    assertThat(row.get("createdAt")).isEqualTo(expectedCreatedAt);
+  }
+}
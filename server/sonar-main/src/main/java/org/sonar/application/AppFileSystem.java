@@ -33,6 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.application.config.AppSettings;
 import org.sonar.process.sharedmemoryfile.AllProcessesCommands;
+import org.sonar.process.sharedmemoryfile.AllProcessesMetrics;
 
 import static java.lang.String.format;
 import static java.nio.file.FileVisitResult.CONTINUE;
@@ -60,8 +61,10 @@ public class AppFileSystem implements FileSystem {
     createDirectory(PATH_WEB);
     createDirectory(PATH_LOGS);
     File tempDir = createOrCleanTempDirectory(PATH_TEMP);
-    try (AllProcessesCommands allProcessesCommands = new AllProcessesCommands(tempDir)) {
+    try (AllProcessesCommands allProcessesCommands = new AllProcessesCommands(tempDir);
+      AllProcessesMetrics allProcessesMetrics = new AllProcessesMetrics(tempDir)) {
       allProcessesCommands.clean();
+      allProcessesMetrics.clean();
     }
   }
 
@@ -100,6 +103,7 @@ public class AppFileSystem implements FileSystem {
 
   private static class CleanTempDirFileVisitor extends SimpleFileVisitor<Path> {
     private static final Path SHAREDMEMORY_FILE = Paths.get("sharedmemory");
+    private static final Path SHAREDMETRICS_FILE = Paths.get("sharedmetrics");
     static final int VISIT_MAX_DEPTH = 1;
 
     private final Path path;
@@ -115,7 +119,7 @@ public class AppFileSystem implements FileSystem {
       File file = filePath.toFile();
       if (file.isDirectory()) {
         deleteDirectory(file);
-      } else if (filePath.getFileName().equals(SHAREDMEMORY_FILE)) {
+      } else if (filePath.getFileName().equals(SHAREDMEMORY_FILE) || filePath.getFileName().equals(SHAREDMETRICS_FILE)) {
         return CONTINUE;
       } else if (!symLink || !filePath.equals(path)) {
         Files.delete(filePath);
@@ -0,0 +1,108 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.application.process;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.application.FileSystem;
+import org.sonar.application.config.AppSettings;
+import org.sonar.process.ProcessId;
+import org.sonar.process.sharedmemoryfile.AllProcessesMetrics;
+import org.sonar.process.sharedmemoryfile.ProcessMetric;
+
+import static org.sonar.process.ProcessProperties.PROCESS_METRICS_LOG_INTERVAL;
+
+/**
+ * Periodically logs in a single line the metrics published by child processes in {@link AllProcessesMetrics}.
+ * Disabled if property {@link org.sonar.process.ProcessProperties#PROCESS_METRICS_LOG_INTERVAL} is zero.
+ */
+public class ProcessMetricsLogger extends Thread {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ProcessMetricsLogger.class);
+
+  private final AllProcessesMetrics metrics;
+  private final long delayMs;
+
+  ProcessMetricsLogger(AllProcessesMetrics metrics, long delayMs) {
+    super("ProcessMetricsLogger");
+    this.metrics = metrics;
+    this.delayMs = delayMs;
+
+    // safeguard, do not block the JVM if thread is not interrupted
+    // (method stopLogging() never called).
+    setDaemon(true);
+  }
+
+  public static ProcessMetricsLogger create(AppSettings settings, FileSystem fs) {
+    long delayMs = settings.getProps().valueAsInt(PROCESS_METRICS_LOG_INTERVAL, 0) * 1_000L;
+    return new ProcessMetricsLogger(new AllProcessesMetrics(fs.getTempDir()), delayMs);
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (true) {
+        Thread.sleep(delayMs);
+        log();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      // stop logging
+    } finally {
+      metrics.close();
+    }
+  }
+
+  void log() {
+    long now = System.currentTimeMillis();
+    List<String> processes = new ArrayList<>();
+    for (ProcessId processId : ProcessId.values()) {
+      long updatedAt = metrics.getUpdatedAt(processId.getIpcIndex());
+      if (updatedAt > 0L) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(processId.getKey()).append("={age.ms=").append(now - updatedAt);
+        for (ProcessMetric metric : ProcessMetric.values()) {
+          if (metric.isPublishedBy(processId)) {
+            sb.append(", ").append(metric.getKey()).append('=').append(metrics.get(processId.getIpcIndex(), metric));
+          }
+        }
+        processes.add(sb.append('}').toString());
+      }
+    }
+    if (!processes.isEmpty()) {
+      LOG.info("Process metrics: {}", String.join(" ", processes));
+    }
+  }
+
+  public void startLogging() {
+    if (delayMs > 0L) {
+      start();
+    } else {
+      metrics.close();
+    }
+  }
+
+  public void stopLogging() {
+    // does nothing if not started
+    interrupt();
+  }
+}
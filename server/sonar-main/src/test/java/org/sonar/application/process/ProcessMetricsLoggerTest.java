@@ -0,0 +1,115 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.application.process;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+import org.slf4j.LoggerFactory;
+import org.sonar.process.ProcessId;
+import org.sonar.process.sharedmemoryfile.AllProcessesMetrics;
+import org.sonar.process.sharedmemoryfile.ProcessMetric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProcessMetricsLoggerTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public TestRule safeguardTimeout = new DisableOnDebug(Timeout.seconds(60));
+
+  private ListAppender<ILoggingEvent> appender = new ListAppender<>();
+  private AllProcessesMetrics metrics;
+
+  @Before
+  public void setUp() throws IOException {
+    metrics = new AllProcessesMetrics(temp.newFolder());
+    appender.start();
+    ((Logger) LoggerFactory.getLogger(ProcessMetricsLogger.class)).addAppender(appender);
+  }
+
+  @After
+  public void tearDown() {
+    ((Logger) LoggerFactory.getLogger(ProcessMetricsLogger.class)).detachAppender(appender);
+    metrics.close();
+  }
+
+  @Test
+  public void log_metrics_of_processes_in_a_single_line() {
+    int ceIndex = ProcessId.COMPUTE_ENGINE.getIpcIndex();
+    metrics.set(ceIndex, ProcessMetric.HEAP_USED, 100L);
+    metrics.set(ceIndex, ProcessMetric.CE_PENDING, 3L);
+    metrics.setUpdatedAt(ceIndex, System.currentTimeMillis());
+    int webIndex = ProcessId.WEB_SERVER.getIpcIndex();
+    metrics.set(webIndex, ProcessMetric.THREADS, 42L);
+    metrics.setUpdatedAt(webIndex, System.currentTimeMillis());
+
+    new ProcessMetricsLogger(metrics, 1L).log();
+
+    assertThat(appender.list).hasSize(1);
+    String log = appender.list.get(0).getFormattedMessage();
+    assertThat(log)
+      .startsWith("Process metrics: web={age.ms=")
+      .contains("threads=42")
+      .contains(" ce={age.ms=")
+      .contains("heap.used=100")
+      .contains("ce.pending=3");
+    // metrics of Compute Engine are not logged for web server
+    assertThat(log.indexOf("ce.pending")).isEqualTo(log.lastIndexOf("ce.pending"));
+  }
+
+  @Test
+  public void do_not_log_processes_which_did_not_publish_metrics() {
+    new ProcessMetricsLogger(metrics, 1L).log();
+
+    assertThat(appender.list).isEmpty();
+  }
+
+  @Test
+  public void do_not_start_if_disabled() {
+    ProcessMetricsLogger underTest = new ProcessMetricsLogger(metrics, 0L);
+
+    underTest.startLogging();
+
+    assertThat(underTest.isAlive()).isFalse();
+  }
+
+  @Test
+  public void stop_logging() throws Exception {
+    ProcessMetricsLogger underTest = new ProcessMetricsLogger(metrics, 1L);
+
+    underTest.startLogging();
+    assertThat(underTest.isAlive()).isTrue();
+
+    underTest.stopLogging();
+    underTest.join();
+    assertThat(underTest.isAlive()).isFalse();
+  }
+}
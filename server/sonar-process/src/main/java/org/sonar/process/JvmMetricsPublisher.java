@@ -0,0 +1,95 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.process;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import org.slf4j.LoggerFactory;
+import org.sonar.process.sharedmemoryfile.AllProcessesMetrics;
+import org.sonar.process.sharedmemoryfile.ProcessMetric;
+
+/**
+ * Periodically publishes the memory, thread and garbage collection metrics of the current JVM
+ * into {@link AllProcessesMetrics}, so that they can be read by the main process.
+ */
+public class JvmMetricsPublisher extends Thread {
+
+  private final AllProcessesMetrics metrics;
+  private final int processNumber;
+  private final long delayMs;
+  private volatile boolean publishing = true;
+
+  public JvmMetricsPublisher(AllProcessesMetrics metrics, int processNumber) {
+    this(metrics, processNumber, 10_000L);
+  }
+
+  JvmMetricsPublisher(AllProcessesMetrics metrics, int processNumber, long delayMs) {
+    super("JVM Metrics Publisher");
+    this.metrics = metrics;
+    this.processNumber = processNumber;
+    this.delayMs = delayMs;
+    // remove the values of the previous execution of the process
+    metrics.clean(processNumber);
+    // do not block the JVM if stopPublishing() is never called
+    setDaemon(true);
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (publishing) {
+        publish();
+        Thread.sleep(delayMs);
+      }
+    } catch (InterruptedException ignored) {
+      // restore interrupted flag
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      LoggerFactory.getLogger(getClass()).warn("Failed to publish JVM metrics", e);
+    } finally {
+      metrics.close();
+    }
+  }
+
+  void publish() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    metrics.set(processNumber, ProcessMetric.HEAP_USED, memory.getHeapMemoryUsage().getUsed());
+    metrics.set(processNumber, ProcessMetric.HEAP_MAX, memory.getHeapMemoryUsage().getMax());
+    metrics.set(processNumber, ProcessMetric.NON_HEAP_USED, memory.getNonHeapMemoryUsage().getUsed());
+    metrics.set(processNumber, ProcessMetric.THREADS, ManagementFactory.getThreadMXBean().getThreadCount());
+
+    long gcCount = 0L;
+    long gcTime = 0L;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      // -1 if not supported by the collector
+      gcCount += Math.max(0L, gc.getCollectionCount());
+      gcTime += Math.max(0L, gc.getCollectionTime());
+    }
+    metrics.set(processNumber, ProcessMetric.GC_COUNT, gcCount);
+    metrics.set(processNumber, ProcessMetric.GC_TIME_MS, gcTime);
+    metrics.setUpdatedAt(processNumber, System.currentTimeMillis());
+  }
+
+  public void stopPublishing() {
+    publishing = false;
+    interrupt();
+  }
+}
@@ -22,6 +22,7 @@ package org.sonar.process;
 import java.io.File;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sonar.process.sharedmemoryfile.AllProcessesMetrics;
 import org.sonar.process.sharedmemoryfile.DefaultProcessCommands;
 import org.sonar.process.sharedmemoryfile.ProcessCommands;
 
@@ -42,6 +43,7 @@ public class ProcessEntryPoint implements Stoppable {
   private volatile Monitored monitored;
   private volatile StopperThread stopperThread;
   private final StopWatcher stopWatcher;
+  private volatile JvmMetricsPublisher jvmMetricsPublisher;
 
   // new Runnable() is important to avoid conflict of call to ProcessEntryPoint#stop() with Thread#stop()
   private Thread shutdownHook = new Thread(new Runnable() {
@@ -109,6 +111,8 @@ public class ProcessEntryPoint implements Stoppable {
     logger.info("Starting " + getKey());
     Runtime.getRuntime().addShutdownHook(shutdownHook);
     stopWatcher.start();
+    jvmMetricsPublisher = new JvmMetricsPublisher(new AllProcessesMetrics(sharedDir), processNumber);
+    jvmMetricsPublisher.start();
 
     monitored.start();
     Monitored.Status status = waitForNotDownStatus();
@@ -174,6 +178,9 @@ public class ProcessEntryPoint implements Stoppable {
       stopperThread = new StopperThread(monitored, commands, Long.parseLong(props.nonNullValue(PROPERTY_TERMINATION_TIMEOUT_MS)));
       stopperThread.start();
       stopWatcher.stopWatching();
+      if (jvmMetricsPublisher != null) {
+        jvmMetricsPublisher.stopPublishing();
+      }
     }
   }
 
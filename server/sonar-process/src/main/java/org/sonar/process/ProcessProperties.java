@@ -74,6 +74,12 @@ public class ProcessProperties {
   public static final String WEB_JAVA_ADDITIONAL_OPTS = "sonar.web.javaAdditionalOpts";
   public static final String WEB_PORT = "sonar.web.port";
 
+  /**
+   * Duration in milliseconds above which requests to web services are logged, with the time
+   * spent in database and Elasticsearch. Zero disables the log.
+   */
+  public static final String WEB_SLOW_REQUEST_THRESHOLD = "sonar.web.slowRequestThreshold";
+
   public static final String CE_JAVA_OPTS = "sonar.ce.javaOpts";
   public static final String CE_JAVA_ADDITIONAL_OPTS = "sonar.ce.javaAdditionalOpts";
 
@@ -82,6 +88,11 @@ public class ProcessProperties {
    */
   public static final String ENABLE_STOP_COMMAND = "sonar.enableStopCommand";
 
+  /**
+   * Delay in seconds between logs of the metrics published by processes in shared memory. Zero disables the logs.
+   */
+  public static final String PROCESS_METRICS_LOG_INTERVAL = "sonar.log.processMetricsInterval";
+
   public static final String HTTP_PROXY_HOST = "http.proxyHost";
   public static final String HTTPS_PROXY_HOST = "https.proxyHost";
   public static final String HTTP_PROXY_PORT = "http.proxyPort";
@@ -128,6 +139,7 @@ public class ProcessProperties {
 
     defaults.put(WEB_JAVA_OPTS, "-Xmx512m -Xms128m -XX:+HeapDumpOnOutOfMemoryError");
     defaults.put(WEB_JAVA_ADDITIONAL_OPTS, "");
+    defaults.put(WEB_SLOW_REQUEST_THRESHOLD, "0");
     defaults.put(CE_JAVA_OPTS, "-Xmx512m -Xms128m -XX:+HeapDumpOnOutOfMemoryError");
     defaults.put(CE_JAVA_ADDITIONAL_OPTS, "");
     defaults.put(JDBC_MAX_ACTIVE, "60");
@@ -136,6 +148,7 @@ public class ProcessProperties {
     defaults.put(JDBC_MAX_WAIT, "5000");
     defaults.put(JDBC_MIN_EVICTABLE_IDLE_TIME_MILLIS, "600000");
     defaults.put(JDBC_TIME_BETWEEN_EVICTION_RUNS_MILLIS, "30000");
+    defaults.put(PROCESS_METRICS_LOG_INTERVAL, "0");
 
     defaults.put(CLUSTER_ENABLED, "false");
     defaults.put(CLUSTER_NAME, "sonarqube");
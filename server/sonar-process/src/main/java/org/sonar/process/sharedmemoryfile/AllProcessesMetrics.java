@@ -0,0 +1,139 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.process.sharedmemoryfile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import org.apache.commons.io.IOUtils;
+
+import static java.lang.String.format;
+import static org.sonar.process.sharedmemoryfile.ProcessCommands.MAX_PROCESSES;
+
+/**
+ * Operational metrics of processes (memory, garbage collections, Compute Engine queue...), shared
+ * with the main process through a single file accessed by all processes through a {@link MappedByteBuffer}.
+ * It's the same approach as {@link AllProcessesCommands}, but in a distinct file so that the layout of
+ * commands is not impacted.
+ *
+ * <p>
+ * The file contains {@link ProcessCommands#MAX_PROCESSES} groups of {@link #BYTE_LENGTH_FOR_ONE_PROCESS} bytes.
+ * Each group of bytes is used as follow:
+ * <ul>
+ *   <li>The first 8 bytes contain a long (value of {@link System#currentTimeMillis()}) which represents the date
+ *   of the last publication of metrics, or 0 if metrics have never been published</li>
+ *   <li>The next {@link #MAX_METRICS} groups of 8 bytes contain the values of the metrics, ordered by
+ *   {@link ProcessMetric#ordinal()}</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * There is no lock. A value is written by a single thread of the process owning the group. Values are
+ * aligned longs, so they are never read partially written, but the values of a group are not guaranteed
+ * to be read as a consistent snapshot.
+ * </p>
+ */
+public class AllProcessesMetrics implements AutoCloseable {
+  static final int MAX_METRICS = 32;
+  private static final int UPDATED_AT_BYTE_OFFSET = 0;
+  private static final int METRICS_BYTE_OFFSET = 8;
+  private static final int BYTE_LENGTH_FOR_ONE_PROCESS = 8 + 8 * MAX_METRICS;
+
+  // With this shared memory we can handle up to MAX_PROCESSES processes
+  private static final int MAX_SHARED_MEMORY = BYTE_LENGTH_FOR_ONE_PROCESS * MAX_PROCESSES;
+
+  // VisibleForTesting
+  final MappedByteBuffer mappedByteBuffer;
+  private final RandomAccessFile sharedMemory;
+
+  public AllProcessesMetrics(File directory) {
+    if (!directory.isDirectory() || !directory.exists()) {
+      throw new IllegalArgumentException("Not a valid directory: " + directory);
+    }
+
+    try {
+      sharedMemory = new RandomAccessFile(new File(directory, "sharedmetrics"), "rw");
+      mappedByteBuffer = sharedMemory.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, MAX_SHARED_MEMORY);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Unable to create shared memory : ", e);
+    }
+  }
+
+  public void clean() {
+    for (int i = 0; i < MAX_PROCESSES; i++) {
+      clean(i);
+    }
+  }
+
+  public void clean(int processNumber) {
+    checkProcessNumber(processNumber);
+    for (int i = 0; i < BYTE_LENGTH_FOR_ONE_PROCESS; i += 8) {
+      mappedByteBuffer.putLong(offset(processNumber) + i, 0L);
+    }
+  }
+
+  public void set(int processNumber, ProcessMetric metric, long value) {
+    checkProcessNumber(processNumber);
+    mappedByteBuffer.putLong(offset(processNumber, metric), value);
+  }
+
+  public long get(int processNumber, ProcessMetric metric) {
+    checkProcessNumber(processNumber);
+    return mappedByteBuffer.getLong(offset(processNumber, metric));
+  }
+
+  /**
+   * To be executed by child process once its metrics are published
+   */
+  public void setUpdatedAt(int processNumber, long date) {
+    checkProcessNumber(processNumber);
+    mappedByteBuffer.putLong(offset(processNumber) + UPDATED_AT_BYTE_OFFSET, date);
+  }
+
+  /**
+   * @return the date of the last publication, or 0 if the process never published its metrics
+   */
+  public long getUpdatedAt(int processNumber) {
+    checkProcessNumber(processNumber);
+    return mappedByteBuffer.getLong(offset(processNumber) + UPDATED_AT_BYTE_OFFSET);
+  }
+
+  @Override
+  public void close() {
+    IOUtils.closeQuietly(sharedMemory);
+  }
+
+  private static void checkProcessNumber(int processNumber) {
+    if (processNumber < 0 || processNumber >= MAX_PROCESSES) {
+      throw new IllegalArgumentException(format("Process number %s is not valid", processNumber));
+    }
+  }
+
+  private static int offset(int processNumber, ProcessMetric metric) {
+    return offset(processNumber) + METRICS_BYTE_OFFSET + 8 * metric.ordinal();
+  }
+
+  // VisibleForTesting
+  static int offset(int processNumber) {
+    return BYTE_LENGTH_FOR_ONE_PROCESS * processNumber;
+  }
+}
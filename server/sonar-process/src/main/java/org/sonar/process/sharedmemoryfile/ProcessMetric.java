@@ -0,0 +1,69 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.process.sharedmemoryfile;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.process.ProcessId;
+
+/**
+ * Metrics published by child processes in {@link AllProcessesMetrics}.
+ * <p>
+ * Ordinal of constants defines the location of values in the shared memory file, so new metrics must be
+ * added at the end.
+ * </p>
+ */
+public enum ProcessMetric {
+
+  HEAP_USED("heap.used", null),
+  HEAP_MAX("heap.max", null),
+  NON_HEAP_USED("nonHeap.used", null),
+  THREADS("threads", null),
+  GC_COUNT("gc.count", null),
+  GC_TIME_MS("gc.timeMs", null),
+  CE_PENDING("ce.pending", ProcessId.COMPUTE_ENGINE),
+  CE_IN_PROGRESS("ce.inProgress", ProcessId.COMPUTE_ENGINE),
+  CE_SUCCEEDED("ce.succeeded", ProcessId.COMPUTE_ENGINE),
+  CE_FAILED("ce.failed", ProcessId.COMPUTE_ENGINE);
+
+  private final String key;
+  private final ProcessId processId;
+
+  ProcessMetric(String key, @Nullable ProcessId processId) {
+    this.key = key;
+    this.processId = processId;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * The process which publishes the metric, or {@code null} if the metric is published by all the Java processes
+   */
+  @CheckForNull
+  public ProcessId getProcessId() {
+    return processId;
+  }
+
+  public boolean isPublishedBy(ProcessId processId) {
+    return this.processId == null || this.processId == processId;
+  }
+}
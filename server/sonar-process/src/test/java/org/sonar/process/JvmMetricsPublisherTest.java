@@ -0,0 +1,86 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.process;
+
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+import org.sonar.process.sharedmemoryfile.AllProcessesMetrics;
+import org.sonar.process.sharedmemoryfile.ProcessMetric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JvmMetricsPublisherTest {
+
+  private static final int PROCESS_NUMBER = 2;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public TestRule safeguardTimeout = new DisableOnDebug(Timeout.seconds(60));
+
+  @Test
+  public void publish_jvm_metrics() throws IOException {
+    try (AllProcessesMetrics metrics = new AllProcessesMetrics(temp.newFolder())) {
+      JvmMetricsPublisher underTest = new JvmMetricsPublisher(metrics, PROCESS_NUMBER, 1L);
+
+      underTest.publish();
+
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.HEAP_USED)).isGreaterThan(0L);
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.NON_HEAP_USED)).isGreaterThan(0L);
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.THREADS)).isGreaterThan(0L);
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.GC_COUNT)).isGreaterThanOrEqualTo(0L);
+      assertThat(metrics.getUpdatedAt(PROCESS_NUMBER)).isGreaterThan(0L);
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.CE_PENDING)).isEqualTo(0L);
+    }
+  }
+
+  @Test
+  public void clean_metrics_of_previous_execution() throws IOException {
+    try (AllProcessesMetrics metrics = new AllProcessesMetrics(temp.newFolder())) {
+      metrics.set(PROCESS_NUMBER, ProcessMetric.CE_PENDING, 10L);
+      metrics.setUpdatedAt(PROCESS_NUMBER, 1L);
+
+      new JvmMetricsPublisher(metrics, PROCESS_NUMBER, 1L);
+
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.CE_PENDING)).isEqualTo(0L);
+      assertThat(metrics.getUpdatedAt(PROCESS_NUMBER)).isEqualTo(0L);
+    }
+  }
+
+  @Test
+  public void stop_publishing() throws Exception {
+    try (AllProcessesMetrics metrics = new AllProcessesMetrics(temp.newFolder())) {
+      JvmMetricsPublisher underTest = new JvmMetricsPublisher(metrics, PROCESS_NUMBER, 1L);
+      underTest.start();
+      while (metrics.getUpdatedAt(PROCESS_NUMBER) == 0L) {
+        Thread.sleep(1L);
+      }
+
+      underTest.stopPublishing();
+      underTest.join();
+      assertThat(underTest.isAlive()).isFalse();
+    }
+  }
+}
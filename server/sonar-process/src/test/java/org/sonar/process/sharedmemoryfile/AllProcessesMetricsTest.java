@@ -0,0 +1,118 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.process.sharedmemoryfile;
+
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.process.sharedmemoryfile.ProcessCommands.MAX_PROCESSES;
+
+public class AllProcessesMetricsTest {
+
+  private static final int PROCESS_NUMBER = 1;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void fail_to_init_if_dir_does_not_exist() throws Exception {
+    File dir = temp.newFolder();
+    FileUtils.deleteQuietly(dir);
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Not a valid directory: " + dir.getAbsolutePath());
+
+    new AllProcessesMetrics(dir);
+  }
+
+  @Test
+  public void layout_has_room_for_all_metrics() {
+    assertThat(ProcessMetric.values().length).isLessThanOrEqualTo(AllProcessesMetrics.MAX_METRICS);
+  }
+
+  @Test
+  public void write_and_read_metrics() throws IOException {
+    try (AllProcessesMetrics metrics = new AllProcessesMetrics(temp.newFolder())) {
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.HEAP_USED)).isEqualTo(0L);
+      assertThat(metrics.getUpdatedAt(PROCESS_NUMBER)).isEqualTo(0L);
+
+      metrics.set(PROCESS_NUMBER, ProcessMetric.HEAP_USED, 1_000L);
+      metrics.set(PROCESS_NUMBER, ProcessMetric.CE_PENDING, 12L);
+      metrics.setUpdatedAt(PROCESS_NUMBER, 123_456L);
+
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.HEAP_USED)).isEqualTo(1_000L);
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.CE_PENDING)).isEqualTo(12L);
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.HEAP_MAX)).isEqualTo(0L);
+      assertThat(metrics.getUpdatedAt(PROCESS_NUMBER)).isEqualTo(123_456L);
+      assertThat(metrics.mappedByteBuffer.getLong(AllProcessesMetrics.offset(PROCESS_NUMBER))).isEqualTo(123_456L);
+
+      // other processes are not impacted
+      assertThat(metrics.get(PROCESS_NUMBER + 1, ProcessMetric.HEAP_USED)).isEqualTo(0L);
+    }
+  }
+
+  @Test
+  public void metrics_are_shared_between_instances() throws IOException {
+    File dir = temp.newFolder();
+    try (AllProcessesMetrics writer = new AllProcessesMetrics(dir); AllProcessesMetrics reader = new AllProcessesMetrics(dir)) {
+      writer.set(PROCESS_NUMBER, ProcessMetric.THREADS, 42L);
+      writer.setUpdatedAt(PROCESS_NUMBER, 10L);
+
+      assertThat(reader.get(PROCESS_NUMBER, ProcessMetric.THREADS)).isEqualTo(42L);
+      assertThat(reader.getUpdatedAt(PROCESS_NUMBER)).isEqualTo(10L);
+    }
+  }
+
+  @Test
+  public void clean_process_resets_only_its_metrics() throws IOException {
+    try (AllProcessesMetrics metrics = new AllProcessesMetrics(temp.newFolder())) {
+      metrics.set(PROCESS_NUMBER, ProcessMetric.GC_COUNT, 5L);
+      metrics.setUpdatedAt(PROCESS_NUMBER, 10L);
+      metrics.set(PROCESS_NUMBER + 1, ProcessMetric.GC_COUNT, 7L);
+
+      metrics.clean(PROCESS_NUMBER);
+
+      assertThat(metrics.get(PROCESS_NUMBER, ProcessMetric.GC_COUNT)).isEqualTo(0L);
+      assertThat(metrics.getUpdatedAt(PROCESS_NUMBER)).isEqualTo(0L);
+      assertThat(metrics.get(PROCESS_NUMBER + 1, ProcessMetric.GC_COUNT)).isEqualTo(7L);
+
+      metrics.clean();
+      assertThat(metrics.get(PROCESS_NUMBER + 1, ProcessMetric.GC_COUNT)).isEqualTo(0L);
+    }
+  }
+
+  @Test
+  public void fail_if_process_number_is_invalid() throws IOException {
+    try (AllProcessesMetrics metrics = new AllProcessesMetrics(temp.newFolder())) {
+      expectedException.expect(IllegalArgumentException.class);
+      expectedException.expectMessage("Process number " + MAX_PROCESSES + " is not valid");
+
+      metrics.set(MAX_PROCESSES, ProcessMetric.HEAP_USED, 1L);
+    }
+  }
+}
@@ -22,6 +22,7 @@ package org.sonar.ce;
 import org.sonar.ce.http.CeHttpClientImpl;
 import org.sonar.ce.log.CeLogging;
 import org.sonar.ce.queue.CeQueueImpl;
+import org.sonar.ce.queue.ReportStorageProvider;
 import org.sonar.ce.taskprocessor.ReportTaskProcessorDeclaration;
 import org.sonar.core.platform.Module;
 import org.sonar.server.computation.queue.ReportSubmitter;
@@ -33,6 +34,7 @@ public class CeModule extends Module {
       CeHttpClientImpl.class,
 
       // Queue
+      new ReportStorageProvider(),
       CeQueueImpl.class,
       ReportSubmitter.class,
 
@@ -51,14 +51,16 @@ public class CeQueueImpl implements CeQueue {
   private final DbClient dbClient;
   private final UuidFactory uuidFactory;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  private final ReportStorage reportStorage;
 
   // state
   private AtomicBoolean submitPaused = new AtomicBoolean(false);
 
-  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider) {
+  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider, ReportStorage reportStorage) {
     this.dbClient = dbClient;
     this.uuidFactory = uuidFactory;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
+    this.reportStorage = reportStorage;
   }
 
   @Override
@@ -133,7 +135,7 @@ public class CeQueueImpl implements CeQueue {
     }
   }
 
-  private void cancelImpl(DbSession dbSession, CeQueueDto q) {
+  protected void cancelImpl(DbSession dbSession, CeQueueDto q) {
     CeActivityDto activityDto = new CeActivityDto(q);
     activityDto.setStatus(CeActivityDto.Status.CANCELED);
     remove(dbSession, q, activityDto);
@@ -160,7 +162,10 @@ public class CeQueueImpl implements CeQueue {
   protected void remove(DbSession dbSession, CeQueueDto queueDto, CeActivityDto activityDto) {
     dbClient.ceActivityDao().insert(dbSession, activityDto);
     dbClient.ceQueueDao().deleteByUuid(dbSession, queueDto.getUuid());
-    dbClient.ceTaskInputDao().deleteByUuids(dbSession, singleton(queueDto.getUuid()));
+    dbSession.commit();
+    // deletion of files can't be rolled back, so the report is deleted only once the task is out of queue.
+    // If it fails, the report is deleted later as an orphan.
+    reportStorage.delete(dbSession, singleton(queueDto.getUuid()));
     dbSession.commit();
   }
 
@@ -0,0 +1,77 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Optional;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeTaskInputDao;
+
+/**
+ * Reports are stored in the db table CE_TASK_INPUT. This is the default storage.
+ */
+public class DatabaseReportStorage implements ReportStorage {
+
+  private final DbClient dbClient;
+
+  public DatabaseReportStorage(DbClient dbClient) {
+    this.dbClient = dbClient;
+  }
+
+  @Override
+  public void save(DbSession dbSession, String taskUuid, InputStream report) {
+    dbClient.ceTaskInputDao().insert(dbSession, taskUuid, report);
+  }
+
+  @Override
+  public Optional<InputStream> open(DbSession dbSession, String taskUuid) {
+    return dbClient.ceTaskInputDao().selectData(dbSession, taskUuid).map(ReportInputStream::new);
+  }
+
+  @Override
+  public void delete(DbSession dbSession, Collection<String> taskUuids) {
+    dbClient.ceTaskInputDao().deleteByUuids(dbSession, taskUuids);
+  }
+
+  @Override
+  public void deleteOrphans(DbSession dbSession) {
+    delete(dbSession, dbClient.ceTaskInputDao().selectUuidsNotInQueue(dbSession));
+  }
+
+  /**
+   * Releases the JDBC resources when stream is closed
+   */
+  private static class ReportInputStream extends FilterInputStream {
+    private final CeTaskInputDao.DataStream data;
+
+    private ReportInputStream(CeTaskInputDao.DataStream data) {
+      super(data.getInputStream());
+      this.data = data;
+    }
+
+    @Override
+    public void close() {
+      data.close();
+    }
+  }
+}
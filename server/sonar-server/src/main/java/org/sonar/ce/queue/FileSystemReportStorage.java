@@ -0,0 +1,175 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.apache.commons.io.FileUtils;
+import org.sonar.api.utils.MessageException;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
+import static org.sonar.core.util.stream.MoreCollectors.toSet;
+
+/**
+ * Reports are stored as zip files in a directory, which must be shared by all the nodes (for example
+ * NFS) when cluster mode is enabled. It prevents the db, its backups and its replicas from containing
+ * reports which are dropped after processing.
+ * <p>
+ * Reports are not moved when the directory is changed. Tasks which are pending at that time fail, unless their
+ * reports are moved manually to the new directory.
+ * </p>
+ */
+public class FileSystemReportStorage implements ReportStorage {
+
+  private static final String EXTENSION = ".zip";
+  private static final String TEMP_EXTENSION = ".tmp";
+  /**
+   * Reports are written before the related tasks are committed in queue. Files younger than this
+   * period are never considered as orphans.
+   */
+  static final long ORPHAN_GRACE_PERIOD_MS = HOURS.toMillis(1);
+
+  private final DbClient dbClient;
+  private final System2 system2;
+  private final Path dir;
+
+  public FileSystemReportStorage(DbClient dbClient, System2 system2, File dir) {
+    this.dbClient = dbClient;
+    this.system2 = system2;
+    try {
+      FileUtils.forceMkdir(dir);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to create directory of analysis reports " + dir, e);
+    }
+    this.dir = dir.toPath();
+  }
+
+  @Override
+  public void save(DbSession dbSession, String taskUuid, InputStream report) {
+    Path target = fileOf(taskUuid);
+    Path temp = dir.resolve(taskUuid + TEMP_EXTENSION);
+    try {
+      // report is not visible before being completely written
+      Files.copy(report, temp, StandardCopyOption.REPLACE_EXISTING);
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      FileUtils.deleteQuietly(temp.toFile());
+      throw new IllegalStateException("Fail to store report of CE task " + taskUuid + " in " + target, e);
+    }
+  }
+
+  /**
+   * @throws MessageException if the report is missing, for example when the directory has been changed while the task
+   * was pending
+   */
+  @Override
+  public Optional<InputStream> open(DbSession dbSession, String taskUuid) {
+    Path file = fileOf(taskUuid);
+    if (!Files.isRegularFile(file)) {
+      throw MessageException.of(format("Analysis report %s is missing from directory %s. If property %s has been changed " +
+        "while the task was pending, the report must be moved from the previous directory.", taskUuid, dir, ReportStorageProvider.PATH_PROPERTY));
+    }
+    try {
+      return Optional.of(Files.newInputStream(file));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read report of CE task " + taskUuid + " from " + file, e);
+    }
+  }
+
+  @Override
+  public void delete(DbSession dbSession, Collection<String> taskUuids) {
+    taskUuids.forEach(uuid -> FileUtils.deleteQuietly(fileOf(uuid).toFile()));
+  }
+
+  /**
+   * Deletes the reports and the temporary files which are not related to a task in queue, unless they
+   * have been modified during the last {@link #ORPHAN_GRACE_PERIOD_MS} milliseconds.
+   */
+  @Override
+  public void deleteOrphans(DbSession dbSession) {
+    List<CeQueueDto> queue = dbClient.ceQueueDao().selectAllInAscOrder(dbSession);
+    Set<String> uuidsInQueue = queue.stream()
+      .map(CeQueueDto::getUuid)
+      .collect(toSet());
+    long olderThan = system2.now() - ORPHAN_GRACE_PERIOD_MS;
+    try (Stream<Path> files = Files.list(dir)) {
+      files
+        .filter(file -> isOrphan(file, uuidsInQueue))
+        .filter(file -> lastModified(file) < olderThan)
+        .forEach(file -> FileUtils.deleteQuietly(file.toFile()));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to list reports in " + dir, e);
+    }
+
+    List<String> missing = queue.stream()
+      .filter(task -> CeTaskTypes.REPORT.equals(task.getTaskType()))
+      .map(CeQueueDto::getUuid)
+      .filter(uuid -> !Files.isRegularFile(fileOf(uuid)))
+      .collect(toList());
+    if (!missing.isEmpty()) {
+      Loggers.get(FileSystemReportStorage.class).warn("Reports of {} pending tasks are missing from directory {}. If property {} has been changed, " +
+        "reports must be moved from the previous directory.", missing.size(), dir, ReportStorageProvider.PATH_PROPERTY);
+    }
+  }
+
+  private static boolean isOrphan(Path file, Set<String> uuidsInQueue) {
+    String name = file.getFileName().toString();
+    if (name.endsWith(TEMP_EXTENSION)) {
+      // temporary files of submissions which failed before the report was completely written
+      return true;
+    }
+    return name.endsWith(EXTENSION) && !uuidsInQueue.contains(uuidOf(file));
+  }
+
+  private static long lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file).toMillis();
+    } catch (IOException e) {
+      // file has been deleted in the meantime
+      return Long.MAX_VALUE;
+    }
+  }
+
+  private Path fileOf(String taskUuid) {
+    return dir.resolve(taskUuid + EXTENSION);
+  }
+
+  private static String uuidOf(Path file) {
+    String name = file.getFileName().toString();
+    return name.substring(0, name.length() - EXTENSION.length());
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Optional;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.server.ServerSide;
+import org.sonar.db.DbSession;
+
+/**
+ * Storage of the analysis reports, from their submission to the end of the processing of the
+ * related tasks by Compute Engine.
+ *
+ * @see ReportStorageProvider
+ */
+@ServerSide
+@ComputeEngineSide
+public interface ReportStorage {
+
+  /**
+   * Stores the zipped report of task. The stream is not closed.
+   */
+  void save(DbSession dbSession, String taskUuid, InputStream report);
+
+  /**
+   * Stream of the zipped report of task, if it exists. The stream must be closed by caller.
+   */
+  Optional<InputStream> open(DbSession dbSession, String taskUuid);
+
+  /**
+   * Deletes the reports of tasks. As deletions may not be rolled back, it must be called only once the
+   * removal of the tasks from queue is committed.
+   */
+  void delete(DbSession dbSession, Collection<String> taskUuids);
+
+  /**
+   * Deletes the reports of the tasks which are not in queue anymore
+   */
+  void deleteOrphans(DbSession dbSession);
+
+}
@@ -0,0 +1,57 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.io.File;
+import java.util.Optional;
+import org.picocontainer.injectors.ProviderAdapter;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.server.platform.ServerFileSystem;
+
+/**
+ * Analysis reports are stored in db, unless the property {@link #PATH_PROPERTY} defines the directory
+ * to be used. A relative path is resolved against the data directory.
+ */
+public class ReportStorageProvider extends ProviderAdapter {
+
+  public static final String PATH_PROPERTY = "sonar.ce.reportStorage.path";
+
+  private ReportStorage storage;
+
+  public ReportStorage provide(Configuration config, DbClient dbClient, System2 system2, ServerFileSystem fs) {
+    if (storage == null) {
+      Optional<String> path = config.get(PATH_PROPERTY);
+      if (path.isPresent()) {
+        File dir = new File(path.get());
+        if (!dir.isAbsolute()) {
+          dir = new File(fs.getDataDir(), path.get());
+        }
+        Loggers.get(ReportStorageProvider.class).info("Analysis reports are stored in {}", dir);
+        storage = new FileSystemReportStorage(dbClient, system2, dir);
+      } else {
+        storage = new DatabaseReportStorage(dbClient);
+      }
+    }
+    return storage;
+  }
+}
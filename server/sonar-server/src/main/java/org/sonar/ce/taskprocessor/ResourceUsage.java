@@ -0,0 +1,103 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.taskprocessor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.Immutable;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * CPU time and heap allocations of a thread, as reported by the JVM. Values are not available when the JVM does
+ * not support or has disabled the related measurement.
+ */
+@Immutable
+public final class ResourceUsage {
+
+  private static final long UNAVAILABLE = -1L;
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+  private final long cpuTimeNanos;
+  private final long allocatedBytes;
+
+  private ResourceUsage(long cpuTimeNanos, long allocatedBytes) {
+    this.cpuTimeNanos = cpuTimeNanos;
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  /**
+   * Cumulative usage of the current thread since it started.
+   */
+  public static ResourceUsage ofCurrentThread() {
+    return new ResourceUsage(currentThreadCpuTime(), currentThreadAllocatedBytes());
+  }
+
+  /**
+   * Usage of the current thread since {@code start} was measured, on the same thread.
+   */
+  public static ResourceUsage since(ResourceUsage start) {
+    ResourceUsage now = ofCurrentThread();
+    return new ResourceUsage(delta(start.cpuTimeNanos, now.cpuTimeNanos), delta(start.allocatedBytes, now.allocatedBytes));
+  }
+
+  private static long currentThreadCpuTime() {
+    if (THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled()) {
+      return THREAD_MX_BEAN.getCurrentThreadCpuTime();
+    }
+    return UNAVAILABLE;
+  }
+
+  private static long currentThreadAllocatedBytes() {
+    if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+      if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return UNAVAILABLE;
+  }
+
+  private static long delta(long start, long end) {
+    if (start < 0 || end < start) {
+      return UNAVAILABLE;
+    }
+    return end - start;
+  }
+
+  @CheckForNull
+  public Long getCpuTimeMs() {
+    return cpuTimeNanos < 0 ? null : NANOSECONDS.toMillis(cpuTimeNanos);
+  }
+
+  @CheckForNull
+  public Long getAllocatedBytes() {
+    return allocatedBytes < 0 ? null : allocatedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "ResourceUsage{" +
+      "cpuTimeMs=" + getCpuTimeMs() +
+      ", allocatedBytes=" + getAllocatedBytes() +
+      '}';
+  }
+}
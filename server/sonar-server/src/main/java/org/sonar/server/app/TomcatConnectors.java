@@ -29,8 +29,10 @@ import static java.lang.String.format;
 /**
  * Configuration of Tomcat connectors
  */
-class TomcatConnectors {
+public class TomcatConnectors {
 
+  public static final String PROPERTY_MAX_THREADS = "sonar.web.http.maxThreads";
+  public static final int DEFAULT_MAX_THREADS = 50;
   static final String HTTP_PROTOCOL = "HTTP/1.1";
   static final int MAX_HTTP_HEADER_SIZE_BYTES = 48 * 1024;
   private static final int MAX_POST_SIZE = -1;
@@ -74,7 +76,7 @@ class TomcatConnectors {
   private static void configurePool(Props props, Connector connector) {
     connector.setProperty("acceptorThreadCount", String.valueOf(2));
     connector.setProperty("minSpareThreads", String.valueOf(props.valueAsInt("sonar.web.http.minThreads", 5)));
-    connector.setProperty("maxThreads", String.valueOf(props.valueAsInt("sonar.web.http.maxThreads", 50)));
+    connector.setProperty("maxThreads", String.valueOf(props.valueAsInt(PROPERTY_MAX_THREADS, DEFAULT_MAX_THREADS)));
     connector.setProperty("acceptCount", String.valueOf(props.valueAsInt("sonar.web.http.acceptCount", 25)));
   }
 
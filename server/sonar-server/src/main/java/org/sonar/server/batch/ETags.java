@@ -0,0 +1,67 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import com.google.common.base.Splitter;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+
+import static com.google.common.net.HttpHeaders.ETAG;
+import static com.google.common.net.HttpHeaders.IF_NONE_MATCH;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+
+/**
+ * Support of conditional requests (header If-None-Match) by web services of scanners
+ */
+class ETags {
+
+  private static final Splitter ETAG_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+  private ETags() {
+    // only statics
+  }
+
+  static String of(byte[] content) {
+    return '"' + DigestUtils.md5Hex(content) + '"';
+  }
+
+  static String of(String content) {
+    return '"' + DigestUtils.md5Hex(content) + '"';
+  }
+
+  /**
+   * Sets the header ETag of response. If the client already has the same version, then the status
+   * 304 (Not Modified) is returned and the response must not have content.
+   *
+   * @return true if the client already has the same version
+   */
+  static boolean handleNotModified(Request request, Response response, String etag) {
+    response.setHeader(ETAG, etag);
+    boolean notModified = request.header(IF_NONE_MATCH)
+      .map(ETAG_SPLITTER::splitToList)
+      .filter(etags -> etags.contains(etag) || etags.contains("*"))
+      .isPresent();
+    if (notModified) {
+      response.stream().setStatus(HTTP_NOT_MODIFIED);
+    }
+    return notModified;
+  }
+}
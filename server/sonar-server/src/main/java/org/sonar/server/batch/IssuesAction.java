@@ -20,10 +20,14 @@
 package org.sonar.server.batch;
 
 import com.google.common.base.Splitter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import org.apache.commons.io.output.TeeOutputStream;
 import org.apache.ibatis.session.ResultHandler;
 import org.sonar.api.resources.Scopes;
 import org.sonar.api.rules.RuleType;
@@ -33,6 +37,7 @@ import org.sonar.api.server.ws.WebService;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.scanner.protocol.input.ScannerInput;
 import org.sonar.server.component.ComponentFinder;
@@ -53,17 +58,21 @@ public class IssuesAction implements BatchWsAction {
   private final DbClient dbClient;
   private final UserSession userSession;
   private final ComponentFinder componentFinder;
+  private final IssuesResponseCache responseCache;
 
-  public IssuesAction(DbClient dbClient, UserSession userSession, ComponentFinder componentFinder) {
+  public IssuesAction(DbClient dbClient, UserSession userSession, ComponentFinder componentFinder, IssuesResponseCache responseCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
     this.componentFinder = componentFinder;
+    this.responseCache = responseCache;
   }
 
   @Override
   public void define(WebService.NewController controller) {
     WebService.NewAction action = controller.createAction("issues")
-      .setDescription("Return open issues")
+      .setDescription("Return open issues.<br/>" +
+        "The response has an ETag header. When the request header If-None-Match has the same value, " +
+        "then issues did not change since the previous call and the response is empty with status 304 (Not Modified).")
       .setResponseExample(getClass().getResource("issues-example.proto"))
       .setSince("5.1")
       .setInternal(true)
@@ -82,31 +91,62 @@ public class IssuesAction implements BatchWsAction {
       String componentKey = request.mandatoryParam(PARAM_KEY);
       ComponentDto component = componentFinder.getByKey(dbSession, componentKey);
       userSession.checkComponentPermission(USER, component);
+      checkScope(component);
 
       Map<String, String> keysByUUid = keysByUUid(dbSession, component);
+      String etag = computeETag(dbSession, component, keysByUUid);
+      if (ETags.handleNotModified(request, response, etag)) {
+        return;
+      }
 
-      ScannerInput.ServerIssue.Builder responseBuilder = ScannerInput.ServerIssue.newBuilder();
       response.stream().setMediaType(MediaTypes.PROTOBUF);
       OutputStream output = response.stream().output();
-
-      ResultHandler<IssueDto> handler = resultContext -> {
-        IssueDto issue = resultContext.getResultObject();
-        handleIssue(issue, responseBuilder, keysByUUid, output);
-      };
-      switch (component.scope()) {
-        case Scopes.PROJECT:
-          dbClient.issueDao().scrollNonClosedByModuleOrProject(dbSession, component, handler);
-          break;
-        case Scopes.FILE:
-          dbClient.issueDao().scrollNonClosedByComponentUuid(dbSession, component.uuid(), handler);
-          break;
-        default:
-          // only projects, modules and files are supported. Other types of components are not allowed.
-          throw new IllegalArgumentException(format("Component of scope '%s' is not allowed", component.scope()));
+      Optional<byte[]> cachedResponse = responseCache.get(component.uuid(), etag);
+      if (cachedResponse.isPresent()) {
+        output.write(cachedResponse.get());
+        return;
       }
+
+      ResponseRecorder recorder = new ResponseRecorder();
+      writeIssues(dbSession, component, keysByUUid, new TeeOutputStream(output, recorder));
+      recorder.toByteArray().ifPresent(bytes -> responseCache.put(component.uuid(), etag, bytes));
     }
   }
 
+  private static void checkScope(ComponentDto component) {
+    if (!Scopes.PROJECT.equals(component.scope()) && !Scopes.FILE.equals(component.scope())) {
+      // only projects, modules and files are supported. Other types of components are not allowed.
+      throw new IllegalArgumentException(format("Component of scope '%s' is not allowed", component.scope()));
+    }
+  }
+
+  private void writeIssues(DbSession dbSession, ComponentDto component, Map<String, String> keysByUUid, OutputStream output) {
+    ScannerInput.ServerIssue.Builder responseBuilder = ScannerInput.ServerIssue.newBuilder();
+    ResultHandler<IssueDto> handler = resultContext -> {
+      IssueDto issue = resultContext.getResultObject();
+      handleIssue(issue, responseBuilder, keysByUUid, output);
+    };
+    if (Scopes.PROJECT.equals(component.scope())) {
+      dbClient.issueDao().scrollNonClosedByModuleOrProject(dbSession, component, handler);
+    } else {
+      dbClient.issueDao().scrollNonClosedByComponentUuid(dbSession, component.uuid(), handler);
+    }
+  }
+
+  /**
+   * The response changes when issues of the project are updated, when the project is analyzed
+   * (paths of files can change) or when modules are renamed.
+   */
+  private String computeETag(DbSession dbSession, ComponentDto component, Map<String, String> keysByUUid) {
+    String projectUuid = component.projectUuid();
+    Long lastAnalysisDate = dbClient.snapshotDao().selectLastAnalysisByRootComponentUuid(dbSession, projectUuid)
+      .map(SnapshotDto::getCreatedAt)
+      .orElse(null);
+    Long lastIssueUpdate = dbClient.issueDao().selectMaxUpdatedAtByProjectUuid(dbSession, projectUuid);
+    String version = component.uuid() + '|' + lastAnalysisDate + '|' + lastIssueUpdate + '|' + new TreeMap<>(keysByUUid);
+    return ETags.of(version);
+  }
+
   private static void handleIssue(IssueDto issue, ScannerInput.ServerIssue.Builder issueBuilder,
                                   Map<String, String> keysByUUid, OutputStream out) {
     issueBuilder.setKey(issue.getKey());
@@ -155,4 +195,37 @@ public class IssuesAction implements BatchWsAction {
     }
     return keysByUUid;
   }
+
+  /**
+   * Copy of the bytes written to the response, dropped as soon as it exceeds the
+   * maximum size of the entries of {@link IssuesResponseCache}.
+   */
+  private static class ResponseRecorder extends OutputStream {
+    private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    @Override
+    public void write(int b) {
+      if (hasCapacity(1)) {
+        bytes.write(b);
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      if (hasCapacity(len)) {
+        bytes.write(b, off, len);
+      }
+    }
+
+    private boolean hasCapacity(int len) {
+      if (bytes != null && bytes.size() + len > IssuesResponseCache.MAX_ENTRY_SIZE_IN_BYTES) {
+        bytes = null;
+      }
+      return bytes != null;
+    }
+
+    Optional<byte[]> toByteArray() {
+      return Optional.ofNullable(bytes).map(ByteArrayOutputStream::toByteArray);
+    }
+  }
 }
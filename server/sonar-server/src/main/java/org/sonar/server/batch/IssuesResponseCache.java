@@ -0,0 +1,77 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Optional;
+import org.sonar.api.server.ServerSide;
+
+/**
+ * In-memory cache of the serialized responses of api/batch/issues. Entries are
+ * identified by component and are valid as long as the version of the component
+ * issues did not change. See {@link IssuesAction}.
+ */
+@ServerSide
+public class IssuesResponseCache {
+
+  /**
+   * Total size of cached responses
+   */
+  static final long MAX_WEIGHT_IN_BYTES = 64L * 1024 * 1024;
+
+  /**
+   * Responses bigger than this limit are not cached
+   */
+  static final int MAX_ENTRY_SIZE_IN_BYTES = 8 * 1024 * 1024;
+
+  private final Cache<String, Entry> cache = CacheBuilder.newBuilder()
+    .maximumWeight(MAX_WEIGHT_IN_BYTES)
+    .weigher((String key, Entry entry) -> entry.data.length)
+    .build();
+
+  /**
+   * Serialized response of the given component, if the cached response is still
+   * at the given version.
+   */
+  public Optional<byte[]> get(String componentUuid, String version) {
+    Entry entry = cache.getIfPresent(componentUuid);
+    if (entry == null || !entry.version.equals(version)) {
+      return Optional.empty();
+    }
+    return Optional.of(entry.data);
+  }
+
+  public void put(String componentUuid, String version, byte[] data) {
+    if (data.length <= MAX_ENTRY_SIZE_IN_BYTES) {
+      cache.put(componentUuid, new Entry(version, data));
+    }
+  }
+
+  private static class Entry {
+    private final String version;
+    private final byte[] data;
+
+    private Entry(String version, byte[] data) {
+      this.version = version;
+      this.data = data;
+    }
+  }
+}
@@ -30,6 +30,7 @@ import org.sonar.scanner.protocol.input.ProjectRepositories;
 import org.sonarqube.ws.WsBatch.WsProjectResponse;
 import org.sonarqube.ws.WsBatch.WsProjectResponse.FileData.Builder;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.sonar.core.util.Protobuf.setNullable;
 import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
 import static org.sonar.server.ws.WsUtils.writeProtobuf;
@@ -49,7 +50,9 @@ public class ProjectAction implements BatchWsAction {
   @Override
   public void define(WebService.NewController controller) {
     WebService.NewAction action = controller.createAction("project")
-      .setDescription("Return project repository")
+      .setDescription("Return project repository.<br/>" +
+        "The response has an ETag header. When the request header If-None-Match has the same value, " +
+        "then the response is empty with status 304 (Not Modified).")
       .setResponseExample(getClass().getResource("project-example.json"))
       .setSince("4.5")
       .setInternal(true)
@@ -81,7 +84,21 @@ public class ProjectAction implements BatchWsAction {
       .setIssuesMode(wsRequest.mandatoryParamAsBoolean(PARAM_ISSUES_MODE)));
 
     WsProjectResponse projectResponse = buildResponse(data);
-    writeProtobuf(projectResponse, wsRequest, wsResponse);
+    if (!ETags.handleNotModified(wsRequest, wsResponse, computeETag(projectResponse, wsRequest))) {
+      writeProtobuf(projectResponse, wsRequest, wsResponse);
+    }
+  }
+
+  /**
+   * The response is not cached, but scanners can skip its download when it did not change
+   */
+  private static String computeETag(WsProjectResponse projectResponse, Request wsRequest) {
+    byte[] mediaType = wsRequest.getMediaType().getBytes(UTF_8);
+    byte[] content = projectResponse.toByteArray();
+    byte[] bytes = new byte[mediaType.length + content.length];
+    System.arraycopy(mediaType, 0, bytes, 0, mediaType.length);
+    System.arraycopy(content, 0, bytes, mediaType.length, content.length);
+    return ETags.of(bytes);
   }
 
   private static WsProjectResponse buildResponse(ProjectRepositories data) {
@@ -37,6 +37,7 @@ import org.apache.commons.lang.StringUtils;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.server.ServerSide;
 import org.sonar.ce.queue.CeQueue;
+import org.sonar.ce.queue.ReportStorage;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.ce.queue.CeTaskSubmit;
 import org.sonar.core.component.ComponentKeys;
@@ -65,15 +66,17 @@ public class ReportSubmitter {
   private final PermissionTemplateService permissionTemplateService;
   private final DbClient dbClient;
   private final UuidFactory uuidFactory;
+  private final ReportStorage reportStorage;
 
   public ReportSubmitter(CeQueue queue, UserSession userSession, ComponentUpdater componentUpdater,
-    PermissionTemplateService permissionTemplateService, UuidFactory uuidFactory, DbClient dbClient) {
+    PermissionTemplateService permissionTemplateService, UuidFactory uuidFactory, DbClient dbClient, ReportStorage reportStorage) {
     this.queue = queue;
     this.userSession = userSession;
     this.componentUpdater = componentUpdater;
     this.permissionTemplateService = permissionTemplateService;
     this.uuidFactory = uuidFactory;
     this.dbClient = dbClient;
+    this.reportStorage = reportStorage;
   }
 
   public CeTask submit(String organizationKey, String projectKey, @Nullable String projectBranch, @Nullable String projectName, InputStream reportInput) {
@@ -151,7 +154,7 @@ public class ReportSubmitter {
       .map(e -> toDto(submit.getUuid(), e.getKey(), e.getValue())).collect(Collectors.toList());
 
     // the report file must be saved before submitting the task
-    dbClient.ceTaskInputDao().insert(dbSession, submit.getUuid(), reportInput);
+    reportStorage.save(dbSession, submit.getUuid(), reportInput);
     if (!characteristics.isEmpty()) {
       dbClient.ceTaskCharacteristicsDao().insert(dbSession, characteristics);
     }
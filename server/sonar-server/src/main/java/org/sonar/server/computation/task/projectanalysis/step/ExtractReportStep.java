@@ -28,26 +28,29 @@ import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.api.utils.ZipUtils;
 import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.ReportStorage;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
-import org.sonar.db.ce.CeTaskInputDao;
 import org.sonar.server.computation.task.projectanalysis.batch.MutableBatchReportDirectoryHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 /**
  * Extracts the content zip file of the {@link CeTask} to a temp directory and adds a {@link File}
  * representing that temp directory to the {@link MutableBatchReportDirectoryHolder}.
+ * The zip file is streamed from {@link ReportStorage}, it is never fully loaded in memory.
  */
 public class ExtractReportStep implements ComputationStep {
 
   private final DbClient dbClient;
+  private final ReportStorage reportStorage;
   private final CeTask task;
   private final TempFolder tempFolder;
   private final MutableBatchReportDirectoryHolder reportDirectoryHolder;
 
-  public ExtractReportStep(DbClient dbClient, CeTask task, TempFolder tempFolder,
+  public ExtractReportStep(DbClient dbClient, ReportStorage reportStorage, CeTask task, TempFolder tempFolder,
     MutableBatchReportDirectoryHolder reportDirectoryHolder) {
     this.dbClient = dbClient;
+    this.reportStorage = reportStorage;
     this.task = task;
     this.tempFolder = tempFolder;
     this.reportDirectoryHolder = reportDirectoryHolder;
@@ -56,18 +59,17 @@ public class ExtractReportStep implements ComputationStep {
   @Override
   public void execute() {
     try (DbSession dbSession = dbClient.openSession(false)) {
-      Optional<CeTaskInputDao.DataStream> opt = dbClient.ceTaskInputDao().selectData(dbSession, task.getUuid());
+      Optional<InputStream> opt = reportStorage.open(dbSession, task.getUuid());
       if (opt.isPresent()) {
         File unzippedDir = tempFolder.newDir();
-        try (CeTaskInputDao.DataStream reportStream = opt.get();
-             InputStream zipStream = new BufferedInputStream(reportStream.getInputStream())) {
+        try (InputStream zipStream = new BufferedInputStream(opt.get())) {
           ZipUtils.unzip(zipStream, unzippedDir);
         } catch (IOException e) {
-          throw new IllegalStateException("Fail to extract report " + task.getUuid() + " from database", e);
+          throw new IllegalStateException("Fail to extract report " + task.getUuid(), e);
         }
         reportDirectoryHolder.setDirectory(unzippedDir);
       } else {
-        throw MessageException.of("Analysis report " + task.getUuid() + " is missing in database");
+        throw MessageException.of("Analysis report " + task.getUuid() + " is missing");
       }
     }
   }
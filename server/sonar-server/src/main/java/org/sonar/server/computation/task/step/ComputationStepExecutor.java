@@ -23,6 +23,7 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.taskprocessor.ResourceUsage;
 import org.sonar.core.util.logs.Profiler;
 
 public final class ComputationStepExecutor {
@@ -60,9 +61,14 @@ public final class ComputationStepExecutor {
 
   private void executeSteps(Profiler stepProfiler) {
     for (ComputationStep step : steps.instances()) {
+      ResourceUsage start = ResourceUsage.ofCurrentThread();
       stepProfiler.start();
       step.execute();
-      stepProfiler.stopDebug(step.getDescription());
+      ResourceUsage usage = ResourceUsage.since(start);
+      stepProfiler
+        .addContext("cpuTimeMs", usage.getCpuTimeMs())
+        .addContext("allocatedBytes", usage.getAllocatedBytes())
+        .stopDebug(step.getDescription());
     }
   }
 
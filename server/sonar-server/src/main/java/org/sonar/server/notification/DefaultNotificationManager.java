@@ -26,8 +26,13 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.io.IOException;
 import java.io.InvalidClassException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
@@ -52,6 +57,8 @@ public class DefaultNotificationManager implements NotificationManager {
 
   private boolean alreadyLoggedDeserializationIssue = false;
 
+  private final ThreadLocal<Map<String, SetMultimap<String, NotificationChannel>>> subscribersCache = new ThreadLocal<>();
+
   /**
    * Default constructor used by Pico
    */
@@ -79,21 +86,48 @@ public class DefaultNotificationManager implements NotificationManager {
   /**
    * Give the notification queue so that it can be processed
    */
+  @CheckForNull
   public Notification getFromQueue() {
-    int batchSize = 1;
-    List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldest(batchSize);
+    List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldest(1);
     if (notificationDtos.isEmpty()) {
       return null;
     }
     notificationQueueDao.delete(notificationDtos);
+    return convertToNotification(notificationDtos.get(0));
+  }
 
-    return convertToNotification(notificationDtos);
+  /**
+   * Processes at most {@code batchSize} of the oldest notifications of the queue. Notifications which can't be
+   * deserialized are ignored.
+   * <p>
+   * Notifications are removed from the queue only once processed, so that they are not lost if the server stops
+   * during processing. If the processor throws an exception, for example because delivery is aborted, they are kept
+   * in queue and processed again later.
+   * </p>
+   *
+   * @return the number of notifications removed from the queue, 0 if the queue is empty
+   */
+  public int processQueue(int batchSize, Consumer<List<Notification>> processor) {
+    List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldest(batchSize);
+    if (notificationDtos.isEmpty()) {
+      return 0;
+    }
+    List<Notification> notifications = new ArrayList<>(notificationDtos.size());
+    for (NotificationQueueDto notificationDto : notificationDtos) {
+      Notification notification = convertToNotification(notificationDto);
+      if (notification != null) {
+        notifications.add(notification);
+      }
+    }
+    processor.accept(notifications);
+    notificationQueueDao.delete(notificationDtos);
+    return notificationDtos.size();
   }
 
-  private Notification convertToNotification(List<NotificationQueueDto> notifications) {
+  @CheckForNull
+  private Notification convertToNotification(NotificationQueueDto notification) {
     try {
-      // If batchSize is increased then we should return a list instead of a single element
-      return notifications.get(0).toNotification();
+      return notification.toNotification();
     } catch (InvalidClassException e) {
       // SONAR-4739
       if (!alreadyLoggedDeserializationIssue) {
@@ -115,12 +149,36 @@ public class DefaultNotificationManager implements NotificationManager {
     return notificationQueueDao.count();
   }
 
+  /**
+   * Subscribers returned by {@link #findSubscribedRecipientsForDispatcher(NotificationDispatcher, String)} are cached by
+   * the current thread until {@link #disableSubscribersCache()} is called. Used when a batch of notifications is
+   * dispatched, as these notifications often relate to the same projects.
+   */
+  public void enableSubscribersCache() {
+    subscribersCache.set(new HashMap<>());
+  }
+
+  public void disableSubscribersCache() {
+    subscribersCache.remove();
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public Multimap<String, NotificationChannel> findSubscribedRecipientsForDispatcher(NotificationDispatcher dispatcher,
     @Nullable String projectUuid) {
+    Map<String, SetMultimap<String, NotificationChannel>> cache = subscribersCache.get();
+    if (cache == null) {
+      return loadSubscribedRecipientsForDispatcher(dispatcher, projectUuid);
+    }
+    SetMultimap<String, NotificationChannel> recipients = cache.computeIfAbsent(dispatcher.getKey() + "|" + projectUuid,
+      k -> loadSubscribedRecipientsForDispatcher(dispatcher, projectUuid));
+    // dispatchers are free to modify the returned multimap
+    return HashMultimap.create(recipients);
+  }
+
+  private SetMultimap<String, NotificationChannel> loadSubscribedRecipientsForDispatcher(NotificationDispatcher dispatcher, @Nullable String projectUuid) {
     String dispatcherKey = dispatcher.getKey();
 
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
@@ -21,9 +21,12 @@ package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.picocontainer.Startable;
 import org.sonar.api.Properties;
 import org.sonar.api.Property;
@@ -43,28 +46,47 @@ import org.sonar.api.utils.log.Loggers;
     key = NotificationDaemon.PROPERTY_DELAY_BEFORE_REPORTING_STATUS,
     defaultValue = "600",
     name = "Delay before reporting notification status, in seconds",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_BATCH_SIZE,
+    defaultValue = "100",
+    name = "Maximum number of notifications dequeued and dispatched together",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_DELIVERY_THREADS,
+    defaultValue = "1",
+    name = "Number of threads delivering notifications",
     global = false)
 })
 @ServerSide
 public class NotificationDaemon implements Startable {
   private static final String THREAD_NAME_PREFIX = "sq-notification-service-";
+  private static final String DELIVERY_THREAD_NAME_PREFIX = "sq-notification-delivery-";
 
   private static final Logger LOG = Loggers.get(NotificationDaemon.class);
 
   public static final String PROPERTY_DELAY = "sonar.notifications.delay";
   public static final String PROPERTY_DELAY_BEFORE_REPORTING_STATUS = "sonar.notifications.runningDelayBeforeReportingStatus";
+  public static final String PROPERTY_BATCH_SIZE = "sonar.notifications.batchSize";
+  public static final String PROPERTY_DELIVERY_THREADS = "sonar.notifications.deliveryThreads";
 
   private final long delayInSeconds;
   private final long delayBeforeReportingStatusInSeconds;
+  private final int batchSize;
+  private final int deliveryThreads;
   private final DefaultNotificationManager manager;
   private final NotificationService service;
+  private final AtomicLong processedCount = new AtomicLong();
 
   private ScheduledExecutorService executorService;
-  private boolean stopping = false;
+  private ExecutorService deliveryExecutorService;
+  private volatile boolean stopping = false;
 
   public NotificationDaemon(Configuration config, DefaultNotificationManager manager, NotificationService service) {
     this.delayInSeconds = config.getLong(PROPERTY_DELAY).get();
     this.delayBeforeReportingStatusInSeconds = config.getLong(PROPERTY_DELAY_BEFORE_REPORTING_STATUS).get();
+    this.batchSize = config.getInt(PROPERTY_BATCH_SIZE).orElse(100);
+    this.deliveryThreads = config.getInt(PROPERTY_DELIVERY_THREADS).orElse(1);
     this.manager = manager;
     this.service = service;
   }
@@ -76,11 +98,20 @@ public class NotificationDaemon implements Startable {
         .setNameFormat(THREAD_NAME_PREFIX + "%d")
         .setPriority(Thread.MIN_PRIORITY)
         .build());
+    deliveryExecutorService = Executors.newFixedThreadPool(deliveryThreads,
+      new ThreadFactoryBuilder()
+        .setNameFormat(DELIVERY_THREAD_NAME_PREFIX + "%d")
+        .setPriority(Thread.MIN_PRIORITY)
+        .build());
     executorService.scheduleWithFixedDelay(() -> {
       try {
         processQueue();
       } catch (Exception e) {
-        LOG.error("Error in NotificationService", e);
+        if (stopping) {
+          LOG.info("Delivery of notifications is aborted by stop. Undelivered notifications are kept in queue.");
+        } else {
+          LOG.error("Error in NotificationService", e);
+        }
       }
     }, 0, delayInSeconds, TimeUnit.SECONDS);
     LOG.info("Notification service started (delay {} sec.)", delayInSeconds);
@@ -92,6 +123,8 @@ public class NotificationDaemon implements Startable {
       stopping = true;
       executorService.shutdown();
       executorService.awaitTermination(5, TimeUnit.SECONDS);
+      deliveryExecutorService.shutdown();
+      deliveryExecutorService.awaitTermination(5, TimeUnit.SECONDS);
     } catch (InterruptedException e) {
       LOG.error("Error during stop of notification service", e);
       Thread.currentThread().interrupt();
@@ -104,10 +137,9 @@ public class NotificationDaemon implements Startable {
     long lastLog = start;
     long notifSentCount = 0;
 
-    Notification notifToSend = manager.getFromQueue();
-    while (notifToSend != null) {
-      service.deliver(notifToSend);
-      notifSentCount++;
+    int processed = manager.processQueue(batchSize, this::deliver);
+    while (processed > 0) {
+      notifSentCount += processed;
       if (stopping) {
         break;
       }
@@ -118,10 +150,38 @@ public class NotificationDaemon implements Startable {
         long spentTimeInMinutes = (now - start) / (60 * 1000);
         log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
       }
-      notifToSend = manager.getFromQueue();
+      processed = manager.processQueue(batchSize, this::deliver);
     }
   }
 
+  private void deliver(List<Notification> notifications) {
+    manager.enableSubscribersCache();
+    try {
+      service.deliver(notifications, deliveryExecutorService);
+      processedCount.addAndGet(notifications.size());
+    } finally {
+      manager.disableSubscribersCache();
+    }
+  }
+
+  /**
+   * Number of notifications processed since startup
+   */
+  public long getProcessedCount() {
+    return processedCount.get();
+  }
+
+  /**
+   * Number of notifications waiting in queue
+   */
+  public long getPendingCount() {
+    return manager.count();
+  }
+
+  public int getDeliveryThreads() {
+    return deliveryThreads;
+  }
+
   @VisibleForTesting
   void log(long notifSentCount, long remainingNotifCount, long spentTimeInMinutes) {
     LOG.info("{} notifications sent during the past {} minutes and {} still waiting to be sent",
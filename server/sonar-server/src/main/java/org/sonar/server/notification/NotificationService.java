@@ -26,9 +26,13 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import javax.annotation.Nullable;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.notifications.Notification;
@@ -60,6 +64,45 @@ public class NotificationService {
   }
 
   public void deliver(Notification notification) {
+    dispatch(notification, findRecipients(notification));
+  }
+
+  /**
+   * Delivers a batch of notifications. Recipients of all the notifications are found first. Then the notifications
+   * of each recipient are delivered by a task of the specified executor. This method returns when all the tasks
+   * are completed. Failures of channels are logged and do not stop the delivery of the other notifications.
+   *
+   * @throws java.util.concurrent.RejectedExecutionException if the executor does not accept tasks anymore, for example when it is shut down
+   * @throws IllegalStateException if the thread is interrupted while waiting for the tasks. Some of the notifications
+   * may have been delivered already.
+   */
+  public void deliver(Collection<Notification> notifications, ExecutorService executor) {
+    Map<String, List<Delivery>> deliveriesByRecipient = new LinkedHashMap<>();
+    for (Notification notification : notifications) {
+      for (Map.Entry<String, Collection<NotificationChannel>> recipient : findRecipients(notification).asMap().entrySet()) {
+        deliveriesByRecipient.computeIfAbsent(recipient.getKey(), k -> new ArrayList<>()).add(new Delivery(notification, recipient.getValue()));
+      }
+    }
+
+    List<Future<?>> tasks = new ArrayList<>(deliveriesByRecipient.size());
+    deliveriesByRecipient.forEach((username, deliveries) -> tasks.add(executor.submit(() -> {
+      for (Delivery delivery : deliveries) {
+        dispatch(delivery.notification, username, delivery.channels);
+      }
+    })));
+    for (Future<?> task : tasks) {
+      try {
+        task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while delivering notifications", e);
+      } catch (ExecutionException e) {
+        LOG.warn("Unable to deliver notifications", e);
+      }
+    }
+  }
+
+  private SetMultimap<String, NotificationChannel> findRecipients(Notification notification) {
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationDispatcher dispatcher : dispatchers) {
       NotificationDispatcher.Context context = new ContextImpl(recipients);
@@ -70,21 +113,23 @@ public class NotificationService {
         LOG.warn(String.format("Unable to dispatch notification %s using %s", notification, dispatcher), e);
       }
     }
-    dispatch(notification, recipients);
+    return recipients;
   }
 
   private static void dispatch(Notification notification, SetMultimap<String, NotificationChannel> recipients) {
     for (Map.Entry<String, Collection<NotificationChannel>> entry : recipients.asMap().entrySet()) {
-      String username = entry.getKey();
-      Collection<NotificationChannel> userChannels = entry.getValue();
-      LOG.debug("For user {} via {}", username, userChannels);
-      for (NotificationChannel channel : userChannels) {
-        try {
-          channel.deliver(notification, username);
-        } catch (Exception e) {
-          // catch all exceptions in order to deliver via other channels
-          LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
-        }
+      dispatch(notification, entry.getKey(), entry.getValue());
+    }
+  }
+
+  private static void dispatch(Notification notification, String username, Collection<NotificationChannel> userChannels) {
+    LOG.debug("For user {} via {}", username, userChannels);
+    for (NotificationChannel channel : userChannels) {
+      try {
+        channel.deliver(notification, username);
+      } catch (Exception e) {
+        // catch all exceptions in order to deliver via other channels
+        LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
       }
     }
   }
@@ -109,6 +154,16 @@ public class NotificationService {
     return dbClient.propertiesDao().hasProjectNotificationSubscribersForDispatchers(projectUuid, dispatcherKeys);
   }
 
+  private static class Delivery {
+    private final Notification notification;
+    private final Collection<NotificationChannel> channels;
+
+    Delivery(Notification notification, Collection<NotificationChannel> channels) {
+      this.notification = notification;
+      this.channels = channels;
+    }
+  }
+
   private static class ContextImpl implements NotificationDispatcher.Context {
     private final Multimap<String, NotificationChannel> recipients;
 
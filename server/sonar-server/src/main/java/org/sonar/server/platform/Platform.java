@@ -48,11 +48,13 @@ public class Platform {
   private static final Logger LOGGER = Loggers.get(Platform.class);
 
   private static final Platform INSTANCE = new Platform();
+  private static final int SLOWEST_STARTS_LOGGED = 10;
 
   private final Supplier<AutoStarter> autoStarterSupplier;
   private AutoStarter autoStarter = null;
   private Properties properties;
   private ServletContext servletContext;
+
   private PlatformLevel level1;
   private PlatformLevel level2;
   private PlatformLevel levelSafeMode;
@@ -123,6 +125,7 @@ public class Platform {
           runIfNotAborted(() -> {
             currentLevel = level4;
             LOGGER.info("WebServer is operational");
+            logSlowestStarts();
           });
 
           // stop safemode container if it existed
@@ -209,6 +212,13 @@ public class Platform {
     executeStartupTasks(Startup.ALL);
   }
 
+  private void logSlowestStarts() {
+    if (LOGGER.isDebugEnabled()) {
+      level1.getContainer().getStartupTimeline().getLongest(SLOWEST_STARTS_LOGGED)
+        .forEach(entry -> LOGGER.debug("Started {}", entry));
+    }
+  }
+
   private void executeStartupTasks(Startup startup) {
     if (startup.ordinal() >= Startup.ALL.ordinal()) {
       new PlatformLevelStartup(level4)
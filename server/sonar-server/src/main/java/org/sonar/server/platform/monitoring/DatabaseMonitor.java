@@ -24,9 +24,14 @@ import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import javax.sql.DataSource;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.profiling.ConnectionPoolStatistics;
+import org.sonar.db.profiling.ProfiledDataSource;
 import org.sonar.server.platform.db.migration.version.DatabaseVersion;
 
 /**
@@ -97,6 +102,31 @@ public class DatabaseMonitor extends BaseMonitorMBean implements DatabaseMonitor
     return commonsDbcp().getRemoveAbandonedTimeout();
   }
 
+  @Override
+  public int getPoolBorrowsInProgress() {
+    return fromStatistics(ConnectionPoolStatistics::getBorrowsInProgress, 0);
+  }
+
+  @Override
+  public long getPoolBorrowCount() {
+    return fromStatistics(ConnectionPoolStatistics::getBorrowCount, 0L);
+  }
+
+  @Override
+  public long getPoolTotalBorrowWaitMillis() {
+    return fromStatistics(ConnectionPoolStatistics::getTotalWaitMillis, 0L);
+  }
+
+  @Override
+  public long getPoolMaxBorrowWaitMillis() {
+    return fromStatistics(ConnectionPoolStatistics::getMaxWaitMillis, 0L);
+  }
+
+  @Override
+  public String getPoolBorrowWaitDistribution() {
+    return fromStatistics(ConnectionPoolStatistics::getWaitDistribution, "");
+  }
+
   @Override
   public Map<String, Object> attributes() {
     Map<String, Object> attributes = new LinkedHashMap<>();
@@ -115,12 +145,29 @@ public class DatabaseMonitor extends BaseMonitorMBean implements DatabaseMonitor
     attributes.put("Pool Max Wait (ms)", getPoolMaxWaitMillis());
     attributes.put("Pool Remove Abandoned", getPoolRemoveAbandoned());
     attributes.put("Pool Remove Abandoned Timeout (seconds)", getPoolRemoveAbandonedTimeoutSeconds());
+    attributes.put("Pool Borrows In Progress", getPoolBorrowsInProgress());
+    attributes.put("Pool Borrow Count", getPoolBorrowCount());
+    attributes.put("Pool Total Borrow Wait (ms)", getPoolTotalBorrowWaitMillis());
+    attributes.put("Pool Max Borrow Wait (ms)", getPoolMaxBorrowWaitMillis());
+    attributes.put("Pool Borrow Wait Distribution", getPoolBorrowWaitDistribution());
   }
 
   private BasicDataSource commonsDbcp() {
     return (BasicDataSource) dbClient.getDatabase().getDataSource();
   }
 
+  /**
+   * Statistics are available only when data source is profiled, which is always
+   * the case in production
+   */
+  private <T> T fromStatistics(Function<ConnectionPoolStatistics, T> getter, T defaultValue) {
+    DataSource dataSource = dbClient.getDatabase().getDataSource();
+    return Optional.of(dataSource)
+      .filter(ProfiledDataSource.class::isInstance)
+      .map(ds -> getter.apply(((ProfiledDataSource) ds).getStatistics()))
+      .orElse(defaultValue);
+  }
+
   private void completeDbAttributes(Map<String, Object> attributes) {
     try (DbSession dbSession = dbClient.openSession(false);
       Connection connection = dbSession.getConnection()) {
@@ -68,4 +68,29 @@ public interface DatabaseMonitorMBean {
    * Timeout in seconds before an abandoned connection can be removed.
    */
   int getPoolRemoveAbandonedTimeoutSeconds();
+
+  /**
+   * Number of threads currently borrowing a connection from the pool, including the ones which are not blocked
+   */
+  int getPoolBorrowsInProgress();
+
+  /**
+   * Number of connections borrowed from the pool since startup
+   */
+  long getPoolBorrowCount();
+
+  /**
+   * Total time spent by threads to wait for a connection from the pool, since startup
+   */
+  long getPoolTotalBorrowWaitMillis();
+
+  /**
+   * Longest time spent by a thread to wait for a connection from the pool, since startup
+   */
+  long getPoolMaxBorrowWaitMillis();
+
+  /**
+   * Distribution of the times spent by threads to wait for a connection from the pool, since startup
+   */
+  String getPoolBorrowWaitDistribution();
 }
@@ -0,0 +1,65 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.server.notification.NotificationDaemon;
+
+/**
+ * Throughput and backlog of the delivery of notifications
+ */
+public class NotificationsMonitor extends BaseMonitorMBean implements NotificationsMonitorMBean {
+
+  private final NotificationDaemon daemon;
+
+  public NotificationsMonitor(NotificationDaemon daemon) {
+    this.daemon = daemon;
+  }
+
+  @Override
+  public String name() {
+    return "Notifications";
+  }
+
+  @Override
+  public long getProcessedCount() {
+    return daemon.getProcessedCount();
+  }
+
+  @Override
+  public long getPendingCount() {
+    return daemon.getPendingCount();
+  }
+
+  @Override
+  public int getDeliveryThreads() {
+    return daemon.getDeliveryThreads();
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Processed Notifications", getProcessedCount());
+    attributes.put("Pending Notifications", getPendingCount());
+    attributes.put("Delivery Threads", getDeliveryThreads());
+    return attributes;
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.core.platform.ComponentContainer;
+import org.sonar.core.platform.StartupTimeline;
+
+/**
+ * Slowest starts of components, including startup tasks
+ */
+public class StartupMonitor implements Monitor {
+  static final int MAX_ENTRIES = 20;
+
+  private final ComponentContainer container;
+
+  public StartupMonitor(ComponentContainer container) {
+    this.container = container;
+  }
+
+  @Override
+  public String name() {
+    return "Startup";
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    for (StartupTimeline.Entry entry : container.getStartupTimeline().getLongest(MAX_ENTRIES)) {
+      Map<String, Object> entryAttributes = new LinkedHashMap<>();
+      entryAttributes.put("Duration (ms)", entry.getDuration());
+      entryAttributes.put("Started At (ms)", entry.getStartedAt());
+      entryAttributes.put("Thread", entry.getThread());
+      attributes.put(entry.getComponent(), entryAttributes);
+    }
+    return attributes;
+  }
+}
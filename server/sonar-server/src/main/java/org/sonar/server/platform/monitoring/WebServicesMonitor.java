@@ -0,0 +1,123 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.sonar.server.ws.LatencyHistogram;
+import org.sonar.server.ws.WsActionMetrics;
+import org.sonar.server.ws.WsActionMetrics.ActionMetrics;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Latencies of the web service actions that take the most time since startup
+ */
+public class WebServicesMonitor extends BaseMonitorMBean implements WebServicesMonitorMBean {
+  static final int MAX_ACTIONS = 20;
+
+  private final WsActionMetrics metrics;
+
+  public WebServicesMonitor(WsActionMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public String name() {
+    return "Web Services";
+  }
+
+  @Override
+  public long getRequestCount() {
+    return metrics.getMetricsByAction().values().stream().mapToLong(m -> m.getLatency().getCount()).sum();
+  }
+
+  @Override
+  public long getSlowRequestCount() {
+    return metrics.getSlowRequestCount();
+  }
+
+  @Override
+  public long getSlowRequestThreshold() {
+    return metrics.getSlowRequestThresholdMs();
+  }
+
+  @Override
+  public String[] getActionLatencies() {
+    return slowestActions().stream()
+      .map(e -> {
+        LatencyHistogram latency = e.getValue().getLatency();
+        return format("%s count=%d p50=%dms p95=%dms p99=%dms max=%dms", e.getKey(), latency.getCount(),
+          percentileMs(latency, 50.0), percentileMs(latency, 95.0), percentileMs(latency, 99.0), toMillis(latency.getMaxMicros()));
+      })
+      .toArray(String[]::new);
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Requests", getRequestCount());
+    attributes.put("Slow Request Threshold (ms)", getSlowRequestThreshold());
+    attributes.put("Slow Requests", getSlowRequestCount());
+    for (Map.Entry<String, ActionMetrics> entry : slowestActions()) {
+      ActionMetrics action = entry.getValue();
+      LatencyHistogram latency = action.getLatency();
+      Map<String, Object> actionAttributes = new LinkedHashMap<>();
+      actionAttributes.put("Requests", latency.getCount());
+      actionAttributes.put("Total Time (ms)", toMillis(latency.getTotalMicros()));
+      actionAttributes.put("p50 (ms)", percentileMs(latency, 50.0));
+      actionAttributes.put("p95 (ms)", percentileMs(latency, 95.0));
+      actionAttributes.put("p99 (ms)", percentileMs(latency, 99.0));
+      actionAttributes.put("Max (ms)", toMillis(latency.getMaxMicros()));
+      long dbTimed = action.getDbTimedRequestCount();
+      if (dbTimed > 0) {
+        actionAttributes.put("Mean DB Time (ms)", TimeUnit.NANOSECONDS.toMillis(action.getDbNanos() / dbTimed));
+      }
+      long profiled = action.getProfiledRequestCount();
+      if (profiled > 0) {
+        actionAttributes.put("Mean DB Pool Wait (ms)", TimeUnit.NANOSECONDS.toMillis(action.getConnectionWaitNanos() / profiled));
+        actionAttributes.put("Mean ES Time (ms)", TimeUnit.NANOSECONDS.toMillis(action.getEsNanos() / profiled));
+        actionAttributes.put("Mean Serialization Time (ms)", TimeUnit.NANOSECONDS.toMillis(action.getSerializationNanos() / profiled));
+      }
+      attributes.put(entry.getKey(), actionAttributes);
+    }
+    return attributes;
+  }
+
+  private List<Map.Entry<String, ActionMetrics>> slowestActions() {
+    return metrics.getMetricsByAction().entrySet().stream()
+      .sorted(Comparator.comparingLong((Map.Entry<String, ActionMetrics> e) -> e.getValue().getLatency().getTotalMicros()).reversed()
+        .thenComparing(Map.Entry::getKey))
+      .limit(MAX_ACTIONS)
+      .collect(toList());
+  }
+
+  private static long percentileMs(LatencyHistogram latency, double percentile) {
+    return toMillis(latency.getValueAtPercentile(percentile));
+  }
+
+  private static long toMillis(long micros) {
+    return TimeUnit.MICROSECONDS.toMillis(micros);
+  }
+}
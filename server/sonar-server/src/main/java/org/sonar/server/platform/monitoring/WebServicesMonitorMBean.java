@@ -0,0 +1,44 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+public interface WebServicesMonitorMBean {
+
+  /**
+   * Number of requests to web services since startup
+   */
+  long getRequestCount();
+
+  /**
+   * Number of requests to web services slower than {@link #getSlowRequestThreshold()}
+   */
+  long getSlowRequestCount();
+
+  /**
+   * Threshold in milliseconds of the log of slow requests. Zero if log is disabled.
+   */
+  long getSlowRequestThreshold();
+
+  /**
+   * Latencies of the actions that take the most time, for example
+   * "api/issues/search count=12 p50=35ms p95=120ms p99=240ms max=251ms"
+   */
+  String[] getActionLatencies();
+}
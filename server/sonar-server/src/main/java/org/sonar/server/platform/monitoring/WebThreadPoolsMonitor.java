@@ -0,0 +1,125 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import org.sonar.server.ws.WsConcurrencyLimiter;
+
+/**
+ * Saturation of the thread pools of the web server: the pools of Tomcat connectors, as exported
+ * by Tomcat in JMX, and the threads reserved to heavy web services.
+ */
+public class WebThreadPoolsMonitor extends BaseMonitorMBean implements WebThreadPoolsMonitorMBean {
+
+  private static final String TOMCAT_POOLS = "*:type=ThreadPool,*";
+
+  private final WsConcurrencyLimiter limiter;
+
+  public WebThreadPoolsMonitor(WsConcurrencyLimiter limiter) {
+    this.limiter = limiter;
+  }
+
+  @Override
+  public String name() {
+    return "Web Thread Pools";
+  }
+
+  @Override
+  public int getHeavyActionsMaxThreads() {
+    return limiter.getMaxThreads();
+  }
+
+  @Override
+  public int getHeavyActionsActiveThreads() {
+    return limiter.getActiveThreads();
+  }
+
+  @Override
+  public long getHeavyActionsPeakActiveThreads() {
+    return limiter.getPeakActiveThreads();
+  }
+
+  @Override
+  public int getHeavyActionsWaitingRequests() {
+    return limiter.getWaitingRequests();
+  }
+
+  @Override
+  public long getHeavyActionsRejectedRequests() {
+    return limiter.getRejectedRequests();
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    addTomcatPools(attributes);
+    if (limiter.isEnabled()) {
+      Map<String, Object> heavy = new LinkedHashMap<>();
+      heavy.put("Actions", String.join(",", new TreeSet<>(limiter.getActions())));
+      heavy.put("Max Threads", getHeavyActionsMaxThreads());
+      heavy.put("Accept Count", limiter.getAcceptCount());
+      heavy.put("Active Threads", getHeavyActionsActiveThreads());
+      heavy.put("Peak Active Threads", getHeavyActionsPeakActiveThreads());
+      heavy.put("Waiting Requests", getHeavyActionsWaitingRequests());
+      heavy.put("Executed Requests", limiter.getExecutedRequests());
+      heavy.put("Rejected Requests", getHeavyActionsRejectedRequests());
+      attributes.put("Heavy Web Services", heavy);
+    }
+    return attributes;
+  }
+
+  private static void addTomcatPools(Map<String, Object> attributes) {
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    for (ObjectName pool : new TreeSet<>(mBeanServer.queryNames(tomcatPoolsPattern(), null))) {
+      try {
+        Map<String, Object> poolAttributes = new LinkedHashMap<>();
+        poolAttributes.put("Max Threads", mBeanServer.getAttribute(pool, "maxThreads"));
+        poolAttributes.put("Threads", mBeanServer.getAttribute(pool, "currentThreadCount"));
+        poolAttributes.put("Busy Threads", mBeanServer.getAttribute(pool, "currentThreadsBusy"));
+        attributes.put("Connector " + poolName(pool), poolAttributes);
+      } catch (JMException e) {
+        // connector is being stopped or is not a Tomcat connector, ignore it
+      }
+    }
+  }
+
+  private static ObjectName tomcatPoolsPattern() {
+    try {
+      return new ObjectName(TOMCAT_POOLS);
+    } catch (MalformedObjectNameException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String poolName(ObjectName pool) {
+    String name = pool.getKeyProperty("name");
+    if (name == null) {
+      return pool.getCanonicalName();
+    }
+    return name.startsWith("\"") ? ObjectName.unquote(name) : name;
+  }
+}
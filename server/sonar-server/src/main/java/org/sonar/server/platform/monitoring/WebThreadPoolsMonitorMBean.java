@@ -0,0 +1,48 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+public interface WebThreadPoolsMonitorMBean {
+
+  /**
+   * Maximum number of web threads used concurrently by heavy web services. Zero if not limited.
+   */
+  int getHeavyActionsMaxThreads();
+
+  /**
+   * Number of web threads currently executing heavy web services
+   */
+  int getHeavyActionsActiveThreads();
+
+  /**
+   * Maximum number of web threads used concurrently by heavy web services since startup
+   */
+  long getHeavyActionsPeakActiveThreads();
+
+  /**
+   * Number of requests to heavy web services waiting for a thread
+   */
+  int getHeavyActionsWaitingRequests();
+
+  /**
+   * Number of requests to heavy web services rejected since startup because too many were waiting
+   */
+  long getHeavyActionsRejectedRequests();
+}
@@ -107,10 +107,14 @@ import org.sonar.server.platform.SettingsChangeNotifier;
 import org.sonar.server.platform.monitoring.DatabaseMonitor;
 import org.sonar.server.platform.monitoring.EsMonitor;
 import org.sonar.server.platform.monitoring.JvmPropsMonitor;
+import org.sonar.server.platform.monitoring.NotificationsMonitor;
 import org.sonar.server.platform.monitoring.PluginsMonitor;
 import org.sonar.server.platform.monitoring.SettingsMonitor;
 import org.sonar.server.platform.monitoring.SonarQubeMonitor;
+import org.sonar.server.platform.monitoring.StartupMonitor;
 import org.sonar.server.platform.monitoring.SystemMonitor;
+import org.sonar.server.platform.monitoring.WebServicesMonitor;
+import org.sonar.server.platform.monitoring.WebThreadPoolsMonitor;
 import org.sonar.server.platform.web.WebPagesFilter;
 import org.sonar.server.platform.web.requestid.HttpRequestIdModule;
 import org.sonar.server.platform.ws.ChangeLogLevelAction;
@@ -220,6 +224,8 @@ import org.sonar.server.ws.DeprecatedPropertiesWsFilter;
 import org.sonar.server.ws.WebServiceEngine;
 import org.sonar.server.ws.WebServiceFilter;
 import org.sonar.server.ws.WebServiceReroutingFilter;
+import org.sonar.server.ws.WsActionMetrics;
+import org.sonar.server.ws.WsConcurrencyLimiter;
 import org.sonar.server.ws.ws.WebServicesWsModule;
 
 public class PlatformLevel4 extends PlatformLevel {
@@ -325,6 +331,8 @@ public class PlatformLevel4 extends PlatformLevel {
       QualityGateModule.class,
 
       // web services
+      WsActionMetrics.class,
+      WsConcurrencyLimiter.class,
       WebServiceEngine.class,
       WebServicesWsModule.class,
       WebServiceFilter.class,
@@ -484,6 +492,10 @@ public class PlatformLevel4 extends PlatformLevel {
       PluginsMonitor.class,
       JvmPropsMonitor.class,
       DatabaseMonitor.class,
+      NotificationsMonitor.class,
+      StartupMonitor.class,
+      WebServicesMonitor.class,
+      WebThreadPoolsMonitor.class,
       MigrateDbAction.class,
       LogsAction.class,
       ChangeLogLevelAction.class,
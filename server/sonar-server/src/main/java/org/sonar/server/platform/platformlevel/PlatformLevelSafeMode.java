@@ -34,6 +34,8 @@ import org.sonar.server.platform.ws.StatusAction;
 import org.sonar.server.platform.ws.SystemWs;
 import org.sonar.server.ws.WebServiceEngine;
 import org.sonar.server.ws.WebServiceFilter;
+import org.sonar.server.ws.WsActionMetrics;
+import org.sonar.server.ws.WsConcurrencyLimiter;
 import org.sonar.server.ws.ws.WebServicesWsModule;
 
 public class PlatformLevelSafeMode extends PlatformLevel {
@@ -61,6 +63,8 @@ public class PlatformLevelSafeMode extends PlatformLevel {
       WebServicesWsModule.class,
 
       // WS engine
+      WsActionMetrics.class,
+      WsConcurrencyLimiter.class,
       WebServiceEngine.class,
       WebServiceFilter.class,
 
@@ -19,6 +19,11 @@
  */
 package org.sonar.server.platform.platformlevel;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.sonar.api.config.Configuration;
+import org.sonar.core.platform.ConcurrentStart;
 import org.sonar.server.app.ProcessCommandWrapper;
 import org.sonar.server.es.IndexerStartupTask;
 import org.sonar.server.notification.NotificationModule;
@@ -45,6 +50,14 @@ import org.sonar.server.user.DoPrivileged;
 import org.sonar.server.user.ThreadLocalUserSession;
 
 public class PlatformLevelStartup extends PlatformLevel {
+
+  /**
+   * Number of threads executing the startup tasks annotated with {@link ConcurrentStart}. Value 1 disables
+   * concurrent starts.
+   */
+  public static final String PROPERTY_STARTUP_THREADS = "sonar.web.startup.threads";
+  private static final int DEFAULT_STARTUP_THREADS = 4;
+
   public PlatformLevelStartup(PlatformLevel parent) {
     super("startup tasks", parent);
   }
@@ -82,10 +95,11 @@ public class PlatformLevelStartup extends PlatformLevel {
 
   @Override
   public PlatformLevel start() {
-    DoPrivileged.execute(new DoPrivileged.Task(get(ThreadLocalUserSession.class)) {
+    ThreadLocalUserSession userSession = get(ThreadLocalUserSession.class);
+    DoPrivileged.execute(new DoPrivileged.Task(userSession) {
       @Override
       protected void doPrivileged() {
-        PlatformLevelStartup.super.start();
+        startTasks(userSession);
         getOptional(IndexerStartupTask.class).ifPresent(IndexerStartupTask::execute);
         get(ServerLifecycleNotifier.class).notifyStart();
         get(ProcessCommandWrapper.class).notifyOperational();
@@ -95,4 +109,28 @@ public class PlatformLevelStartup extends PlatformLevel {
 
     return this;
   }
+
+  private void startTasks(ThreadLocalUserSession userSession) {
+    int threads = get(Configuration.class).getInt(PROPERTY_STARTUP_THREADS).orElse(DEFAULT_STARTUP_THREADS);
+    if (threads <= 1) {
+      getContainer().startComponents();
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder()
+        .setNameFormat("sq-startup-%d")
+        .setDaemon(true)
+        .build());
+    try {
+      // background starts are privileged too
+      getContainer().startComponents(command -> executor.execute(() -> DoPrivileged.execute(new DoPrivileged.Task(userSession) {
+        @Override
+        protected void doPrivileged() {
+          command.run();
+        }
+      })));
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
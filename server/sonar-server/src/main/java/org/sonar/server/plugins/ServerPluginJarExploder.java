@@ -20,10 +20,13 @@
 package org.sonar.server.plugins;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
 import org.apache.commons.io.FileUtils;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.server.ServerSide;
-import org.sonar.api.utils.ZipUtils;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.platform.ExplodedPlugin;
 import org.sonar.core.platform.PluginInfo;
 import org.sonar.core.platform.PluginJarExploder;
@@ -35,6 +38,8 @@ import static org.apache.commons.io.FileUtils.forceMkdir;
 @ComputeEngineSide
 public class ServerPluginJarExploder extends PluginJarExploder {
 
+  private static final Logger LOG = Loggers.get(ServerPluginJarExploder.class);
+
   private final ServerFileSystem fs;
 
   public ServerPluginJarExploder(ServerFileSystem fs) {
@@ -43,8 +48,10 @@ public class ServerPluginJarExploder extends PluginJarExploder {
 
   /**
    * JAR files of directory extensions/plugins can be moved when server is up and plugins are uninstalled.
-   * For this reason these files must not be locked by classloaders. They are copied to the directory
-   * web/deploy/plugins in order to be loaded by {@link org.sonar.core.platform.PluginLoader}.
+   * For this reason these files must not be locked by classloaders. They are exploded into the directory
+   * {@link ServerFileSystem#getExplodedPluginsDir()}, which is kept on restarts and shared with Compute Engine,
+   * in order to be loaded by {@link org.sonar.core.platform.PluginLoader}. JAR files are also copied to the
+   * directory web/deploy/plugins in order to be downloaded by scanners.
    */
   @Override
   public ExplodedPlugin explode(PluginInfo pluginInfo) {
@@ -54,13 +61,25 @@ public class ServerPluginJarExploder extends PluginJarExploder {
       org.sonar.core.util.FileUtils.cleanDirectory(toDir);
 
       File jarSource = pluginInfo.getNonNullJarFile();
-      File jarTarget = new File(toDir, jarSource.getName());
-      FileUtils.copyFile(jarSource, jarTarget);
-      ZipUtils.unzip(jarSource, toDir, newLibFilter());
-      return explodeFromUnzippedDir(pluginInfo.getKey(), jarTarget, toDir);
+      FileUtils.copyFile(jarSource, new File(toDir, jarSource.getName()));
+      return explodeToCache(pluginInfo, fs.getExplodedPluginsDir());
     } catch (Exception e) {
       throw new IllegalStateException(String.format(
         "Fail to unzip plugin [%s] %s to %s", pluginInfo.getKey(), pluginInfo.getNonNullJarFile().getAbsolutePath(), toDir.getAbsolutePath()), e);
     }
   }
+
+  /**
+   * Deletes the exploded files of the plugins which have been uninstalled or upgraded. Must be called once the
+   * installed plugins are loaded at startup. Compute Engine is started after web server, so it does not use
+   * the directory of exploded plugins at that time.
+   */
+  public void cleanExplodedPlugins(Collection<String> installedPluginKeys) {
+    File dir = fs.getExplodedPluginsDir();
+    try {
+      cleanCache(dir, installedPluginKeys);
+    } catch (IOException e) {
+      LOG.warn("Fail to clean directory of exploded plugins " + dir, e);
+    }
+  }
 }
@@ -36,6 +36,16 @@ public interface InternalProperties {
 
   String ES_INDEX_INITIALIZING_PREFIX = "es.initializing.";
 
+  /**
+   * Hash of the rule definitions registered at the last startup
+   */
+  String RULES_DEFINITIONS_FINGERPRINT = "rules.fingerprint";
+
+  /**
+   * Hashes of the definitions of the built-in quality profiles registered at the last startup
+   */
+  String BUILT_IN_QPROFILES_FINGERPRINTS = "qprofiles.hashes";
+
   /**
    * Read the value of the specified property.
    *
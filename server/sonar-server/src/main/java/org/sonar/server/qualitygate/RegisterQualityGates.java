@@ -20,12 +20,14 @@
 package org.sonar.server.qualitygate;
 
 import org.picocontainer.Startable;
+import org.sonar.core.platform.ConcurrentStart;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.loadedtemplate.LoadedTemplateDao;
 import org.sonar.db.loadedtemplate.LoadedTemplateDto;
 import org.sonar.db.qualitygate.QualityGateDto;
 import org.sonar.server.computation.task.projectanalysis.qualitymodel.RatingGrid;
+import org.sonar.server.startup.RegisterMetrics;
 
 import static org.sonar.api.measures.CoreMetrics.NEW_COVERAGE_KEY;
 import static org.sonar.api.measures.CoreMetrics.NEW_MAINTAINABILITY_RATING_KEY;
@@ -34,6 +36,7 @@ import static org.sonar.api.measures.CoreMetrics.NEW_SECURITY_RATING_KEY;
 import static org.sonar.db.qualitygate.QualityGateConditionDto.OPERATOR_GREATER_THAN;
 import static org.sonar.db.qualitygate.QualityGateConditionDto.OPERATOR_LESS_THAN;
 
+@ConcurrentStart(after = RegisterMetrics.class)
 public class RegisterQualityGates implements Startable {
 
   private static final String BUILTIN_QUALITY_GATE = "SonarQube way";
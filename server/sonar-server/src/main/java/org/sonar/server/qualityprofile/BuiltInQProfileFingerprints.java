@@ -0,0 +1,86 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.qualityprofile;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+import org.sonar.api.rules.ActiveRule;
+import org.sonar.api.rules.ActiveRuleParam;
+import org.sonar.api.utils.Version;
+import org.sonar.core.util.stream.MoreCollectors;
+
+/**
+ * Hashes of the definitions of built-in profiles, as persisted in the internal property
+ * {@link org.sonar.server.property.InternalProperties#BUILT_IN_QPROFILES_FINGERPRINTS}: one line per profile,
+ * with format "&lt;hash&gt; &lt;language&gt; &lt;name&gt;".
+ */
+class BuiltInQProfileFingerprints {
+
+  private static final char DELIMITER = ',';
+
+  private BuiltInQProfileFingerprints() {
+    // only static stuff
+  }
+
+  /**
+   * @param rulesFingerprint fingerprint of rule definitions, as activation depends on rules (default severities
+   *                         and parameters, status, ...)
+   * @param serverVersion version of SonarQube, as the way profiles are persisted may change between versions
+   */
+  static String of(BuiltInQProfile builtIn, String rulesFingerprint, Version serverVersion) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(serverVersion).append('\n');
+    sb.append(rulesFingerprint).append('\n');
+    sb.append(builtIn.getLanguage()).append(DELIMITER).append(builtIn.getName()).append(DELIMITER).append(builtIn.isDefault()).append('\n');
+    List<ActiveRule> activeRules = builtIn.getActiveRules().stream()
+      .sorted(Comparator.comparing(ar -> ar.getRule().ruleKey().toString()))
+      .collect(MoreCollectors.toList());
+    for (ActiveRule activeRule : activeRules) {
+      sb.append(activeRule.getRule().ruleKey()).append(DELIMITER).append(activeRule.getSeverity());
+      activeRule.getActiveRuleParams().stream()
+        .sorted(Comparator.comparing(ActiveRuleParam::getKey))
+        .forEach(param -> sb.append(DELIMITER).append(param.getKey()).append('=').append(param.getValue()));
+      sb.append('\n');
+    }
+    return DigestUtils.sha256Hex(sb.toString());
+  }
+
+  static Map<QProfileName, String> parse(String value) {
+    Map<QProfileName, String> fingerprints = new LinkedHashMap<>();
+    for (String line : StringUtils.split(value, '\n')) {
+      String[] fields = StringUtils.split(line, " ", 3);
+      if (fields.length == 3) {
+        fingerprints.put(new QProfileName(fields[1], fields[2]), fields[0]);
+      }
+    }
+    return fingerprints;
+  }
+
+  static String format(Map<QProfileName, String> fingerprints) {
+    return fingerprints.entrySet().stream()
+      .map(entry -> entry.getValue() + " " + entry.getKey().getLanguage() + " " + entry.getKey().getName())
+      .collect(Collectors.joining("\n"));
+  }
+}
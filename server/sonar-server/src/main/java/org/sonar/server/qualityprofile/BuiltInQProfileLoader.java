@@ -20,11 +20,13 @@
 package org.sonar.server.qualityprofile;
 
 import org.picocontainer.Startable;
+import org.sonar.core.platform.ConcurrentStart;
 
 /**
  * Startable added to {@link org.sonar.server.platform.platformlevel.PlatformLevelStartup} responsible for initializing
  * {@link BuiltInQProfileRepository}.
  */
+@ConcurrentStart
 public class BuiltInQProfileLoader implements Startable {
   private final BuiltInQProfileRepository builtInQProfileRepository;
 
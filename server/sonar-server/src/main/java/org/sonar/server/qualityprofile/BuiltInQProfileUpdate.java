@@ -26,7 +26,8 @@ import org.sonar.db.qualityprofile.RulesProfileDto;
 public interface BuiltInQProfileUpdate {
   /**
    * Persist a built-in profile and associate it to all existing organizations.
-   * Db sessions are committed.
+   * Db session is not committed and changes are not indexed. Caller is responsible for committing and indexing
+   * the returned changes, for example with {@link org.sonar.server.qualityprofile.index.ActiveRuleIndexer#commitAndIndex}.
    */
   List<ActiveRuleChange> update(DbSession dbSession, BuiltInQProfile builtInQProfile, RulesProfileDto ruleProfile);
 }
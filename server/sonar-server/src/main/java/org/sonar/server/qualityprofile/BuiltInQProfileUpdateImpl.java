@@ -30,18 +30,15 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.qualityprofile.ActiveRuleDto;
 import org.sonar.db.qualityprofile.RulesProfileDto;
-import org.sonar.server.qualityprofile.index.ActiveRuleIndexer;
 
 public class BuiltInQProfileUpdateImpl implements BuiltInQProfileUpdate {
 
   private final DbClient dbClient;
   private final RuleActivator ruleActivator;
-  private final ActiveRuleIndexer activeRuleIndexer;
 
-  public BuiltInQProfileUpdateImpl(DbClient dbClient, RuleActivator ruleActivator, ActiveRuleIndexer activeRuleIndexer) {
+  public BuiltInQProfileUpdateImpl(DbClient dbClient, RuleActivator ruleActivator) {
     this.dbClient = dbClient;
     this.ruleActivator = ruleActivator;
-    this.activeRuleIndexer = activeRuleIndexer;
   }
 
   public List<ActiveRuleChange> update(DbSession dbSession, BuiltInQProfile builtIn, RulesProfileDto ruleProfile) {
@@ -62,7 +59,6 @@ public class BuiltInQProfileUpdateImpl implements BuiltInQProfileUpdate {
     toBeDeactivated.forEach(ruleKey ->
       changes.addAll(ruleActivator.deactivateOnBuiltInRulesProfile(dbSession, ruleProfile, ruleKey, false)));
 
-    activeRuleIndexer.commitAndIndex(dbSession, changes);
     return changes;
   }
 
@@ -21,26 +21,36 @@ package org.sonar.server.qualityprofile;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import org.sonar.api.SonarRuntime;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.core.platform.ConcurrentStart;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.qualityprofile.RulesProfileDto;
+import org.sonar.server.qualityprofile.index.ActiveRuleIndexer;
+import org.sonar.server.rule.RegisterRules;
 
 import static java.lang.String.format;
+import static org.sonar.server.property.InternalProperties.BUILT_IN_QPROFILES_FINGERPRINTS;
+import static org.sonar.server.property.InternalProperties.RULES_DEFINITIONS_FINGERPRINT;
 import static org.sonar.server.qualityprofile.ActiveRule.Inheritance.NONE;
 
 /**
  * Synchronize Quality profiles during server startup
  */
 @ServerSide
+@ConcurrentStart(after = {RegisterRules.class, BuiltInQProfileLoader.class})
 public class RegisterQualityProfiles {
 
   private static final Logger LOGGER = Loggers.get(RegisterQualityProfiles.class);
@@ -50,17 +60,22 @@ public class RegisterQualityProfiles {
   private final BuiltInQProfileInsert builtInQProfileInsert;
   private final BuiltInQProfileUpdate builtInQProfileUpdate;
   private final BuiltInQualityProfilesUpdateListener builtInQualityProfilesNotification;
+  private final ActiveRuleIndexer activeRuleIndexer;
   private final System2 system2;
+  private final SonarRuntime runtime;
 
   public RegisterQualityProfiles(BuiltInQProfileRepository builtInQProfileRepository,
     DbClient dbClient, BuiltInQProfileInsert builtInQProfileInsert, BuiltInQProfileUpdate builtInQProfileUpdate,
-    BuiltInQualityProfilesUpdateListener builtInQualityProfilesNotification, System2 system2) {
+    BuiltInQualityProfilesUpdateListener builtInQualityProfilesNotification, ActiveRuleIndexer activeRuleIndexer, System2 system2,
+    SonarRuntime runtime) {
     this.builtInQProfileRepository = builtInQProfileRepository;
     this.dbClient = dbClient;
     this.builtInQProfileInsert = builtInQProfileInsert;
     this.builtInQProfileUpdate = builtInQProfileUpdate;
     this.builtInQualityProfilesNotification = builtInQualityProfilesNotification;
+    this.activeRuleIndexer = activeRuleIndexer;
     this.system2 = system2;
+    this.runtime = runtime;
   }
 
   public void start() {
@@ -75,14 +90,23 @@ public class RegisterQualityProfiles {
       long startDate = system2.now();
 
       Map<QProfileName, RulesProfileDto> persistedRuleProfiles = loadPersistedProfiles(dbSession);
+      Map<QProfileName, String> persistedFingerprints = loadPersistedFingerprints(dbSession);
+      String rulesFingerprint = dbClient.internalPropertiesDao().selectByKey(dbSession, RULES_DEFINITIONS_FINGERPRINT).orElse("");
 
+      Map<QProfileName, String> fingerprints = new LinkedHashMap<>();
+      List<ActiveRuleChange> changesToIndex = new ArrayList<>();
       Multimap<QProfileName, ActiveRuleChange> changedProfiles = ArrayListMultimap.create();
       builtInQProfiles.forEach(builtIn -> {
+        String fingerprint = BuiltInQProfileFingerprints.of(builtIn, rulesFingerprint, runtime.getApiVersion());
+        fingerprints.put(builtIn.getQProfileName(), fingerprint);
         RulesProfileDto ruleProfile = persistedRuleProfiles.get(builtIn.getQProfileName());
         if (ruleProfile == null) {
           register(dbSession, batchDbSession, builtIn);
+        } else if (fingerprint.equals(persistedFingerprints.get(builtIn.getQProfileName()))) {
+          LOGGER.debug("Profile {} is unchanged", builtIn.getQProfileName());
         } else {
           List<ActiveRuleChange> changes = update(dbSession, builtIn, ruleProfile);
+          changesToIndex.addAll(changes);
           changedProfiles.putAll(builtIn.getQProfileName(), changes.stream()
             .filter(change -> {
               String inheritance = change.getActiveRule().getInheritance();
@@ -91,6 +115,12 @@ public class RegisterQualityProfiles {
             .collect(MoreCollectors.toList()));
         }
       });
+      // active rules of all the updated profiles are indexed at once
+      activeRuleIndexer.commitAndIndex(dbSession, changesToIndex);
+      // saved last, so that profiles are updated again at next startup if the update failed
+      dbClient.internalPropertiesDao().save(dbSession, BUILT_IN_QPROFILES_FINGERPRINTS, BuiltInQProfileFingerprints.format(fingerprints));
+      dbSession.commit();
+
       if (!changedProfiles.isEmpty()) {
         long endDate = system2.now();
         builtInQualityProfilesNotification.onChange(changedProfiles, startDate, endDate);
@@ -104,6 +134,12 @@ public class RegisterQualityProfiles {
       .collect(MoreCollectors.uniqueIndex(rp -> new QProfileName(rp.getLanguage(), rp.getName())));
   }
 
+  private Map<QProfileName, String> loadPersistedFingerprints(DbSession dbSession) {
+    return dbClient.internalPropertiesDao().selectByKey(dbSession, BUILT_IN_QPROFILES_FINGERPRINTS)
+      .map(BuiltInQProfileFingerprints::parse)
+      .orElse(Collections.emptyMap());
+  }
+
   private void register(DbSession dbSession, DbSession batchDbSession, BuiltInQProfile builtIn) {
     LOGGER.info("Register profile {}", builtIn.getQProfileName());
 
@@ -22,9 +22,12 @@ package org.sonar.server.qualityprofile;
 import com.google.common.base.Splitter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.rule.RuleKey;
@@ -49,6 +52,7 @@ import org.sonar.server.user.UserSession;
 import org.sonar.server.util.TypeValidations;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
 import static org.sonar.server.ws.WsUtils.checkRequest;
 
 /**
@@ -95,8 +99,24 @@ public class RuleActivator {
   }
 
   private List<ActiveRuleChange> doActivate(DbSession dbSession, RuleActivation activation, RuleActivatorContext context) {
-    context.verifyForActivation();
     List<ActiveRuleChange> changes = new ArrayList<>();
+    if (activateOnProfile(dbSession, activation, context, changes)) {
+      changes.addAll(cascadeActivation(dbSession, activation, context));
+    }
+
+    if (!changes.isEmpty()) {
+      updateProfileDates(dbSession, context);
+    }
+    return changes;
+  }
+
+  /**
+   * Activates the rule on the profile of the context, without cascading to descendants.
+   *
+   * @return false if the activation must not be propagated to the descendant profiles
+   */
+  private boolean activateOnProfile(DbSession dbSession, RuleActivation activation, RuleActivatorContext context, List<ActiveRuleChange> changes) {
+    context.verifyForActivation();
     ActiveRuleChange change;
     boolean stopPropagation = false;
 
@@ -104,7 +124,7 @@ public class RuleActivator {
     if (activeRule == null) {
       if (activation.isReset()) {
         // ignore reset when rule is not activated
-        return changes;
+        return false;
       }
       // new activation
       change = new ActiveRuleChange(ActiveRuleChange.Type.ACTIVATED, context.activeRuleKey());
@@ -116,7 +136,7 @@ public class RuleActivator {
       // already activated
       if (context.isCascade() && activeRule.doesOverride()) {
         // propagating to descendants, but child profile already overrides rule -> stop propagation
-        return changes;
+        return false;
       }
       change = new ActiveRuleChange(ActiveRuleChange.Type.UPDATED, context.activeRuleKey());
       if (context.isCascade() && activeRule.getInheritance() == null) {
@@ -141,25 +161,13 @@ public class RuleActivator {
       changes.add(change);
       persist(change, context, dbSession);
     }
-
-    if (!stopPropagation) {
-      changes.addAll(cascadeActivation(dbSession, activation, context));
-    }
-
-    if (!changes.isEmpty()) {
-      updateProfileDates(dbSession, context);
-    }
-    return changes;
+    return !stopPropagation;
   }
 
   private void updateProfileDates(DbSession dbSession, RuleActivatorContext context) {
     QProfileDto profile = context.getProfile();
     if (profile != null) {
-      profile.setRulesUpdatedAtAsDate(context.getInitDate());
-      if (userSession.isLoggedIn()) {
-        profile.setUserUpdatedAt(context.getInitDate().getTime());
-      }
-      db.qualityProfileDao().update(dbSession, profile);
+      updateProfileDates(dbSession, profile, context.getInitDate());
     } else {
       // built-in profile, change rules_profiles.rules_updated_at
       RulesProfileDto rulesProfile = context.getRulesProfile();
@@ -168,6 +176,14 @@ public class RuleActivator {
     }
   }
 
+  private void updateProfileDates(DbSession dbSession, QProfileDto profile, Date date) {
+    profile.setRulesUpdatedAtAsDate(date);
+    if (userSession.isLoggedIn()) {
+      profile.setUserUpdatedAt(date.getTime());
+    }
+    db.qualityProfileDao().update(dbSession, profile);
+  }
+
   /**
    * Severity and parameter values are :
    * 1. defined by end-user
@@ -263,6 +279,7 @@ public class RuleActivator {
     } else if (change.getType() == ActiveRuleChange.Type.DEACTIVATED) {
       ActiveRuleDao dao = db.activeRuleDao();
       activeRule = dao.delete(dbSession, change.getKey()).orElse(null);
+      context.setActiveRule(null).setActiveRuleParams(null);
 
     } else if (change.getType() == ActiveRuleChange.Type.UPDATED) {
       activeRule = doUpdate(change, context, dbSession);
@@ -288,13 +305,15 @@ public class RuleActivator {
     activeRule.setUpdatedAt(system2.now());
     activeRule.setCreatedAt(system2.now());
     dao.insert(dbSession, activeRule);
+    List<ActiveRuleParamDto> params = new ArrayList<>();
     for (Map.Entry<String, String> param : change.getParameters().entrySet()) {
       if (param.getValue() != null) {
         ActiveRuleParamDto paramDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
         paramDto.setValue(param.getValue());
-        dao.insertParam(dbSession, activeRule, paramDto);
+        params.add(dao.insertParam(dbSession, activeRule, paramDto));
       }
     }
+    context.setActiveRule(activeRule).setActiveRuleParams(params);
     return activeRule;
   }
 
@@ -321,6 +340,7 @@ public class RuleActivator {
             activeRuleParamDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
             activeRuleParamDto.setValue(param.getValue());
             dao.insertParam(dbSession, activeRule, activeRuleParamDto);
+            context.activeRuleParamsAsMap().put(param.getKey(), activeRuleParamDto);
           }
         } else {
           if (param.getValue() != null) {
@@ -328,6 +348,7 @@ public class RuleActivator {
             dao.updateParam(dbSession, activeRuleParamDto);
           } else {
             dao.deleteParam(dbSession, activeRuleParamDto);
+            context.activeRuleParamsAsMap().remove(param.getKey());
           }
         }
       }
@@ -424,26 +445,61 @@ public class RuleActivator {
   }
 
   public BulkChangeResult bulkActivateAndCommit(DbSession dbSession, RuleQuery ruleQuery, QProfileDto profile, @Nullable String severity) {
-    BulkChangeResult result = new BulkChangeResult();
-    Iterator<RuleKey> rules = ruleIndex.searchAll(ruleQuery);
-    while (rules.hasNext()) {
-      RuleKey ruleKey = rules.next();
+    List<RuleActivation> activations = new ArrayList<>();
+    ruleIndex.searchAll(ruleQuery).forEachRemaining(ruleKey -> activations.add(RuleActivation.create(ruleKey, severity, null)));
+    BulkChangeResult result = bulkActivate(dbSession, activations, profile);
+    activeRuleIndexer.commitAndIndex(dbSession, result.getChanges());
+    return result;
+  }
+
+  /**
+   * Activates a set of rules on a profile, then cascades at once to each child profile
+   * the activations that are not stopped by an override. Rules and active rules are loaded
+   * by {@link RuleActivatorContextCache}, so the number of requests does not grow with the
+   * number of rules. Does not commit.
+   */
+  private BulkChangeResult bulkActivate(DbSession dbSession, List<RuleActivation> activations, QProfileDto profile) {
+    List<RuleKey> ruleKeys = activations.stream().map(RuleActivation::getRuleKey).collect(toList(activations.size()));
+    RuleActivatorContextCache cache = contextFactory.createCache(dbSession, ruleKeys);
+    QProfileDto parent = profile.getParentKee() == null ? null : db.qualityProfileDao().selectByUuid(dbSession, profile.getParentKee());
+    BulkActivation bulk = new BulkActivation();
+    bulkActivate(dbSession, cache, activations, profile, parent, false, bulk);
+    return bulk.toResult();
+  }
+
+  /**
+   * @return true if the profile or one of its descendants has been changed
+   */
+  private boolean bulkActivate(DbSession dbSession, RuleActivatorContextCache cache, List<RuleActivation> activations,
+    QProfileDto profile, @Nullable QProfileDto parent, boolean cascade, BulkActivation bulk) {
+    boolean changed = false;
+    List<RuleActivation> propagated = new ArrayList<>();
+    for (RuleActivation activation : activations) {
       try {
-        RuleActivation activation = RuleActivation.create(ruleKey, severity, null);
-        List<ActiveRuleChange> changes = activate(dbSession, activation, profile);
-        result.addChanges(changes);
-        if (!changes.isEmpty()) {
-          result.incrementSucceeded();
+        RuleActivatorContext context = cache.create(dbSession, activation.getRuleKey(), profile, parent, cascade);
+        List<ActiveRuleChange> changes = new ArrayList<>();
+        if (activateOnProfile(dbSession, activation, context, changes)) {
+          propagated.add(activation);
         }
-
+        cache.update(context);
+        bulk.addChanges(activation.getRuleKey(), changes);
+        changed |= !changes.isEmpty();
       } catch (BadRequestException e) {
         // other exceptions stop the bulk activation
-        result.incrementFailed();
-        result.getErrors().addAll(e.errors());
+        bulk.addFailure(activation.getRuleKey(), e.errors());
       }
     }
-    activeRuleIndexer.commitAndIndex(dbSession, result.getChanges());
-    return result;
+
+    if (!propagated.isEmpty()) {
+      for (QProfileDto child : db.qualityProfileDao().selectChildren(dbSession, profile)) {
+        changed |= bulkActivate(dbSession, cache, propagated, child, profile, true, bulk);
+      }
+    }
+
+    if (changed) {
+      updateProfileDates(dbSession, profile, cache.getInitDate());
+    }
+    return changed;
   }
 
   public BulkChangeResult bulkDeactivateAndCommit(DbSession dbSession, RuleQuery ruleQuery, QProfileDto profile) {
@@ -485,15 +541,12 @@ public class RuleActivator {
       // set new parent
       profile.setParentKee(parent.getKee());
       db.qualityProfileDao().update(dbSession, profile);
-      for (ActiveRuleDto parentActiveRule : db.activeRuleDao().selectByProfile(dbSession, parent)) {
-        try {
-          RuleActivation activation = RuleActivation.create(parentActiveRule.getRuleKey(), null, null);
-          changes.addAll(activate(dbSession, activation, profile));
-        } catch (BadRequestException e) {
-          // for example because rule status is REMOVED
-          // TODO return errors
-        }
-      }
+      List<RuleActivation> activations = db.activeRuleDao().selectByProfile(dbSession, parent).stream()
+        .map(parentActiveRule -> RuleActivation.create(parentActiveRule.getRuleKey(), null, null))
+        .collect(toList());
+      // errors are ignored, for example when rule status is REMOVED
+      // TODO return errors
+      changes.addAll(bulkActivate(dbSession, activations, profile).getChanges());
     }
     activeRuleIndexer.commitAndIndex(dbSession, changes);
     return changes;
@@ -537,4 +590,34 @@ public class RuleActivator {
     }
     return false;
   }
+
+  private static class BulkActivation {
+    private final Set<RuleKey> changedRules = new HashSet<>();
+    private final Set<RuleKey> failedRules = new HashSet<>();
+    private final List<ActiveRuleChange> changes = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+
+    void addChanges(RuleKey ruleKey, List<ActiveRuleChange> ruleChanges) {
+      if (!ruleChanges.isEmpty()) {
+        changes.addAll(ruleChanges);
+        changedRules.add(ruleKey);
+      }
+    }
+
+    void addFailure(RuleKey ruleKey, List<String> ruleErrors) {
+      failedRules.add(ruleKey);
+      errors.addAll(ruleErrors);
+    }
+
+    BulkChangeResult toResult() {
+      BulkChangeResult result = new BulkChangeResult();
+      result.addChanges(changes);
+      result.getErrors().addAll(errors);
+      failedRules.forEach(ruleKey -> result.incrementFailed());
+      changedRules.stream()
+        .filter(ruleKey -> !failedRules.contains(ruleKey))
+        .forEach(ruleKey -> result.incrementSucceeded());
+      return result;
+    }
+  }
 }
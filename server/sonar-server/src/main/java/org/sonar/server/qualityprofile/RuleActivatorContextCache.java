@@ -0,0 +1,127 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.qualityprofile;
+
+import com.google.common.collect.ListMultimap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.qualityprofile.ActiveRuleDto;
+import org.sonar.db.qualityprofile.ActiveRuleParamDto;
+import org.sonar.db.qualityprofile.QProfileDto;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.db.rule.RuleParamDto;
+
+import static org.sonar.core.util.stream.MoreCollectors.index;
+import static org.sonar.core.util.stream.MoreCollectors.uniqueIndex;
+import static org.sonar.server.ws.WsUtils.checkRequest;
+
+/**
+ * Contexts of activation of a set of rules on a profile and on its descendants.
+ * Rules are loaded once, and the active rules of a profile are loaded the first
+ * time the profile is requested, so that the number of requests depends on the
+ * number of profiles but not on the number of rules.
+ */
+class RuleActivatorContextCache {
+
+  private final DbClient db;
+  private final Date initDate = new Date();
+  private final Map<RuleKey, RuleDefinitionDto> rulesByKey;
+  private final ListMultimap<Integer, RuleParamDto> ruleParamsByRuleId;
+  private final Map<String, ProfileActiveRules> activeRulesByProfileUuid = new HashMap<>();
+
+  RuleActivatorContextCache(DbClient db, DbSession dbSession, Collection<RuleKey> ruleKeys) {
+    this.db = db;
+    this.rulesByKey = db.ruleDao().selectDefinitionByKeys(dbSession, ruleKeys).stream()
+      .collect(uniqueIndex(RuleDefinitionDto::getKey));
+    this.ruleParamsByRuleId = db.ruleDao().selectRuleParamsByRuleKeys(dbSession, ruleKeys).stream()
+      .collect(index(RuleParamDto::getRuleId));
+  }
+
+  Date getInitDate() {
+    return initDate;
+  }
+
+  RuleActivatorContext create(DbSession dbSession, RuleKey ruleKey, QProfileDto profile, @Nullable QProfileDto parent, boolean cascade) {
+    RuleDefinitionDto rule = rulesByKey.get(ruleKey);
+    checkRequest(rule != null, "Rule not found: %s", ruleKey);
+    RuleActivatorContext context = new RuleActivatorContext(profile, cascade);
+    context.setRule(rule);
+    context.setRuleParams(ruleParamsByRuleId.get(rule.getId()));
+
+    ProfileActiveRules activeRules = load(dbSession, profile);
+    context.setActiveRule(activeRules.activeRules.get(ruleKey));
+    context.setActiveRuleParams(activeRules.params.get(ruleKey));
+
+    if (parent != null) {
+      ProfileActiveRules parentActiveRules = load(dbSession, parent);
+      context.setParentActiveRule(parentActiveRules.activeRules.get(ruleKey));
+      context.setParentActiveRuleParams(parentActiveRules.params.get(ruleKey));
+    }
+    return context;
+  }
+
+  /**
+   * Records the state of the active rule once the changes of the context are persisted,
+   * so that the contexts of the descendant profiles are created with the new values.
+   */
+  void update(RuleActivatorContext context) {
+    QProfileDto profile = context.getProfile();
+    ProfileActiveRules activeRules = activeRulesByProfileUuid.get(profile.getKee());
+    RuleKey ruleKey = context.getRule().getKey();
+    ActiveRuleDto activeRule = context.activeRule();
+    if (activeRule == null) {
+      activeRules.activeRules.remove(ruleKey);
+      activeRules.params.remove(ruleKey);
+    } else {
+      activeRules.activeRules.put(ruleKey, activeRule);
+      activeRules.params.put(ruleKey, new ArrayList<>(context.activeRuleParamsAsMap().values()));
+    }
+  }
+
+  private ProfileActiveRules load(DbSession dbSession, QProfileDto profile) {
+    return activeRulesByProfileUuid.computeIfAbsent(profile.getKee(), uuid -> {
+      ProfileActiveRules result = new ProfileActiveRules();
+      Map<Integer, RuleKey> ruleKeysByActiveRuleId = new HashMap<>();
+      db.activeRuleDao().selectByProfile(dbSession, profile).stream()
+        .filter(activeRule -> rulesByKey.containsKey(activeRule.getRuleKey()))
+        .forEach(activeRule -> {
+          result.activeRules.put(activeRule.getRuleKey(), activeRule);
+          ruleKeysByActiveRuleId.put(activeRule.getId(), activeRule.getRuleKey());
+        });
+      List<Integer> activeRuleIds = new ArrayList<>(ruleKeysByActiveRuleId.keySet());
+      db.activeRuleDao().selectParamsByActiveRuleIds(dbSession, activeRuleIds)
+        .forEach(param -> result.params.computeIfAbsent(ruleKeysByActiveRuleId.get(param.getActiveRuleId()), k -> new ArrayList<>()).add(param));
+      return result;
+    });
+  }
+
+  private static class ProfileActiveRules {
+    private final Map<RuleKey, ActiveRuleDto> activeRules = new HashMap<>();
+    private final Map<RuleKey, List<ActiveRuleParamDto>> params = new HashMap<>();
+  }
+}
@@ -55,6 +55,13 @@ public class RuleActivatorContextFactory {
     return init(dbSession, ruleKey, context);
   }
 
+  /**
+   * Prepares the activation of a set of rules, see {@link RuleActivatorContextCache}
+   */
+  RuleActivatorContextCache createCache(DbSession dbSession, Collection<RuleKey> ruleKeys) {
+    return new RuleActivatorContextCache(db, dbSession, ruleKeys);
+  }
+
   private RuleActivatorContext init(DbSession dbSession, RuleKey ruleKey, RuleActivatorContext context) {
     initRule(ruleKey, context, dbSession);
     initActiveRules(context.getRulesProfile(), ruleKey, context, dbSession, false);
@@ -19,7 +19,9 @@
  */
 package org.sonar.server.rule;
 
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -27,12 +29,13 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.picocontainer.Startable;
+import org.sonar.api.SonarRuntime;
 import org.sonar.api.resources.Languages;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.RuleStatus;
@@ -43,6 +46,7 @@ import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
+import org.sonar.core.platform.ConcurrentStart;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -61,10 +65,12 @@ import org.sonar.server.rule.index.RuleIndexer;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.lang.String.format;
+import static org.sonar.server.property.InternalProperties.RULES_DEFINITIONS_FINGERPRINT;
 
 /**
  * Register rules at server startup
  */
+@ConcurrentStart
 public class RegisterRules implements Startable {
 
   private static final Logger LOG = Loggers.get(RegisterRules.class);
@@ -78,10 +84,11 @@ public class RegisterRules implements Startable {
   private final System2 system2;
   private final OrganizationFlags organizationFlags;
   private final WebServerRuleFinder webServerRuleFinder;
+  private final SonarRuntime runtime;
 
   public RegisterRules(RuleDefinitionsLoader defLoader, RuleActivator ruleActivator, DbClient dbClient, RuleIndexer ruleIndexer,
     ActiveRuleIndexer activeRuleIndexer, Languages languages, System2 system2, OrganizationFlags organizationFlags,
-    WebServerRuleFinder webServerRuleFinder) {
+    WebServerRuleFinder webServerRuleFinder, SonarRuntime runtime) {
     this.defLoader = defLoader;
     this.ruleActivator = ruleActivator;
     this.dbClient = dbClient;
@@ -91,53 +98,75 @@ public class RegisterRules implements Startable {
     this.system2 = system2;
     this.organizationFlags = organizationFlags;
     this.webServerRuleFinder = webServerRuleFinder;
+    this.runtime = runtime;
   }
 
   @Override
   public void start() {
     Profiler profiler = Profiler.create(LOG).startInfo("Register rules");
-    try (DbSession dbSession = dbClient.openSession(false)) {
-      Map<RuleKey, RuleDefinitionDto> allRules = loadRules(dbSession);
-      List<RuleKey> keysToIndex = new ArrayList<>();
-
+    try (DbSession dbSession = dbClient.openSession(false);
+      DbSession batchDbSession = dbClient.openSession(true)) {
       RulesDefinition.Context context = defLoader.load();
+      List<RulesDefinition.ExtendedRepository> repositories = getRepositories(context);
       boolean orgsEnabled = organizationFlags.isEnabled(dbSession);
-      for (RulesDefinition.ExtendedRepository repoDef : getRepositories(context)) {
-        if (languages.get(repoDef.language()) != null) {
-          for (RulesDefinition.Rule ruleDef : repoDef.rules()) {
-            RuleKey ruleKey = RuleKey.of(ruleDef.repository().key(), ruleDef.key());
-            if (ruleDef.template() && orgsEnabled) {
-              RuleDefinitionDto ruleDefinition = allRules.get(ruleKey);
-              if (ruleDefinition != null && ruleDefinition.getStatus() == RuleStatus.REMOVED) {
-                LOG.debug("Template rule {} kept removed, because organizations are enabled.", ruleKey);
-                allRules.remove(ruleKey);
-              } else {
-                LOG.info("Template rule {} will not be imported, because organizations are enabled.", ruleKey);
-              }
-              continue;
-            }
-            boolean relevantForIndex = registerRule(ruleDef, allRules, dbSession);
-            if (relevantForIndex) {
-              keysToIndex.add(ruleKey);
-            }
-          }
-          dbSession.commit();
-        }
+      String fingerprint = RulesDefinitionFingerprint.of(repositories, languages, orgsEnabled, runtime.getApiVersion());
+      if (fingerprint.equals(dbClient.internalPropertiesDao().selectByKey(dbSession, RULES_DEFINITIONS_FINGERPRINT).orElse(null))) {
+        LOG.info("Rule definitions are unchanged");
+      } else {
+        register(dbSession, batchDbSession, context, repositories, orgsEnabled);
+        // saved last, so that registration is executed again at next startup if it failed
+        dbClient.internalPropertiesDao().save(dbSession, RULES_DEFINITIONS_FINGERPRINT, fingerprint);
+        dbSession.commit();
       }
-      List<RuleDefinitionDto> removedRules = processRemainingDbRules(allRules.values(), dbSession);
-      List<ActiveRuleChange> changes = removeActiveRulesOnStillExistingRepositories(dbSession, removedRules, context);
-      dbSession.commit();
-      keysToIndex.addAll(removedRules.stream().map(RuleDefinitionDto::getKey).collect(Collectors.toList()));
-
-      persistRepositories(dbSession, context.repositories());
-      ruleIndexer.commitAndIndex(dbSession, keysToIndex);
-      activeRuleIndexer.commitAndIndex(dbSession, changes);
       profiler.stopDebug();
 
       webServerRuleFinder.startCaching();
     }
   }
 
+  /**
+   * Rules and their parameters are loaded at once and compared in memory to definitions. Inserts, which require
+   * generated ids, are executed on the fly in the standard session, whereas updates are executed at the end
+   * in the batch session. Both sessions never write concurrently.
+   */
+  private void register(DbSession dbSession, DbSession batchDbSession, RulesDefinition.Context context,
+    List<RulesDefinition.ExtendedRepository> repositories, boolean orgsEnabled) {
+    RegisterRulesContext registerRulesContext = new RegisterRulesContext(loadRules(dbSession), loadRuleParams(dbSession));
+
+    for (RulesDefinition.ExtendedRepository repoDef : repositories) {
+      if (languages.get(repoDef.language()) != null) {
+        for (RulesDefinition.Rule ruleDef : repoDef.rules()) {
+          RuleKey ruleKey = RuleKey.of(ruleDef.repository().key(), ruleDef.key());
+          if (ruleDef.template() && orgsEnabled) {
+            RuleDefinitionDto ruleDefinition = registerRulesContext.dbRules.get(ruleKey);
+            if (ruleDefinition != null && ruleDefinition.getStatus() == RuleStatus.REMOVED) {
+              LOG.debug("Template rule {} kept removed, because organizations are enabled.", ruleKey);
+              registerRulesContext.dbRules.remove(ruleKey);
+            } else {
+              LOG.info("Template rule {} will not be imported, because organizations are enabled.", ruleKey);
+            }
+            continue;
+          }
+          registerRule(ruleDef, registerRulesContext, dbSession);
+        }
+        dbSession.commit();
+      }
+    }
+    propagateNewParamsToActiveRules(dbSession, registerRulesContext);
+    dbSession.commit();
+
+    List<RuleDefinitionDto> removedRules = processRemainingDbRules(registerRulesContext);
+    persistUpdates(batchDbSession, registerRulesContext);
+
+    List<ActiveRuleChange> changes = removeActiveRulesOnStillExistingRepositories(dbSession, removedRules, context);
+    dbSession.commit();
+    registerRulesContext.keysToIndex.addAll(removedRules.stream().map(RuleDefinitionDto::getKey).collect(Collectors.toList()));
+
+    persistRepositories(dbSession, context.repositories());
+    ruleIndexer.commitAndIndex(dbSession, registerRulesContext.keysToIndex);
+    activeRuleIndexer.commitAndIndex(dbSession, changes);
+  }
+
   private void persistRepositories(DbSession dbSession, List<RulesDefinition.Repository> repositories) {
     dbClient.ruleRepositoryDao().truncate(dbSession);
     List<RuleRepositoryDto> dtos = repositories
@@ -153,39 +182,38 @@ public class RegisterRules implements Startable {
     // nothing
   }
 
-  private boolean registerRule(RulesDefinition.Rule ruleDef, Map<RuleKey, RuleDefinitionDto> allRules, DbSession session) {
+  private void registerRule(RulesDefinition.Rule ruleDef, RegisterRulesContext context, DbSession session) {
     RuleKey ruleKey = RuleKey.of(ruleDef.repository().key(), ruleDef.key());
 
-    RuleDefinitionDto existingRule = allRules.remove(ruleKey);
-    boolean newRule;
-    RuleDefinitionDto rule;
+    RuleDefinitionDto existingRule = context.dbRules.remove(ruleKey);
     if (existingRule == null) {
-      rule = createRuleDto(ruleDef, session);
-      newRule = true;
-    } else {
-      rule = existingRule;
-      newRule = false;
+      RuleDefinitionDto rule = createRuleDto(ruleDef, session);
+      for (RulesDefinition.Param param : ruleDef.params()) {
+        dbClient.ruleDao().insertRuleParam(session, rule, createRuleParamDto(rule, param));
+      }
+      context.keysToIndex.add(ruleKey);
+      return;
     }
 
     boolean executeUpdate = false;
-    if (mergeRule(ruleDef, rule)) {
+    if (mergeRule(ruleDef, existingRule)) {
       executeUpdate = true;
     }
 
-    if (mergeDebtDefinitions(ruleDef, rule)) {
+    if (mergeDebtDefinitions(ruleDef, existingRule)) {
       executeUpdate = true;
     }
 
-    if (mergeTags(ruleDef, rule)) {
+    if (mergeTags(ruleDef, existingRule)) {
       executeUpdate = true;
     }
 
     if (executeUpdate) {
-      update(session, rule);
+      update(context, existingRule);
+      context.keysToIndex.add(ruleKey);
     }
 
-    mergeParams(ruleDef, rule, session);
-    return newRule || executeUpdate;
+    mergeParams(ruleDef, existingRule, context, session);
   }
 
   private Map<RuleKey, RuleDefinitionDto> loadRules(DbSession session) {
@@ -196,6 +224,11 @@ public class RegisterRules implements Startable {
     return rules;
   }
 
+  private Map<Integer, List<RuleParamDto>> loadRuleParams(DbSession session) {
+    return dbClient.ruleDao().selectAllRuleParams(session).stream()
+      .collect(Collectors.groupingBy(RuleParamDto::getRuleId));
+  }
+
   private List<RulesDefinition.ExtendedRepository> getRepositories(RulesDefinition.Context context) {
     List<RulesDefinition.ExtendedRepository> repositories = new ArrayList<>();
     for (RulesDefinition.Repository repoDef : context.repositories()) {
@@ -232,6 +265,9 @@ public class RegisterRules implements Startable {
       ruleDto.setDescription(ruleDef.markdownDescription());
       ruleDto.setDescriptionFormat(Format.MARKDOWN);
     }
+    // merged before insert, so that the rule does not need to be updated
+    mergeDebtDefinitions(ruleDef, ruleDto);
+    mergeTags(ruleDef, ruleDto);
 
     dbClient.ruleDao().insert(session, ruleDto);
     return ruleDto;
@@ -327,8 +363,8 @@ public class RegisterRules implements Startable {
     return changed;
   }
 
-  private void mergeParams(RulesDefinition.Rule ruleDef, RuleDefinitionDto rule, DbSession session) {
-    List<RuleParamDto> paramDtos = dbClient.ruleDao().selectRuleParamsByRuleKey(session, rule.getKey());
+  private void mergeParams(RulesDefinition.Rule ruleDef, RuleDefinitionDto rule, RegisterRulesContext context, DbSession session) {
+    List<RuleParamDto> paramDtos = context.dbParamsByRuleId.getOrDefault(rule.getId(), Collections.emptyList());
     Map<String, RuleParamDto> existingParamsByName = Maps.newHashMap();
 
     Profiler profiler = Profiler.create(Loggers.get(getClass()));
@@ -341,7 +377,7 @@ public class RegisterRules implements Startable {
         dbClient.ruleDao().deleteRuleParam(session, paramDto.getId());
       } else {
         if (mergeParam(paramDto, paramDef)) {
-          dbClient.ruleDao().updateRuleParam(session, rule, paramDto);
+          context.paramsToUpdate.add(paramDto);
         }
         existingParamsByName.put(paramDto.getName(), paramDto);
       }
@@ -349,27 +385,40 @@ public class RegisterRules implements Startable {
 
     // Create newly parameters
     for (RulesDefinition.Param param : ruleDef.params()) {
-      RuleParamDto paramDto = existingParamsByName.get(param.key());
-      if (paramDto != null) {
+      if (existingParamsByName.containsKey(param.key())) {
         continue;
       }
-      paramDto = RuleParamDto.createFor(rule)
-        .setName(param.key())
-        .setDescription(param.description())
-        .setDefaultValue(param.defaultValue())
-        .setType(param.type().toString());
+      RuleParamDto paramDto = createRuleParamDto(rule, param);
       dbClient.ruleDao().insertRuleParam(session, rule, paramDto);
-      if (StringUtils.isEmpty(param.defaultValue())) {
-        continue;
+      if (!StringUtils.isEmpty(param.defaultValue())) {
+        context.newParamsByRuleId.put(rule.getId(), paramDto);
       }
-      // Propagate the default value to existing active rule parameters
-      profiler.start();
-      for (ActiveRuleDto activeRule : dbClient.activeRuleDao().selectByRuleIdOfAllOrganizations(session, rule.getId())) {
-        ActiveRuleParamDto activeParam = ActiveRuleParamDto.createFor(paramDto).setValue(param.defaultValue());
+    }
+  }
+
+  private static RuleParamDto createRuleParamDto(RuleDefinitionDto rule, RulesDefinition.Param param) {
+    return RuleParamDto.createFor(rule)
+      .setName(param.key())
+      .setDescription(param.description())
+      .setDefaultValue(param.defaultValue())
+      .setType(param.type().toString());
+  }
+
+  /**
+   * Propagate the default values of new parameters to the existing active rules. Active rules are loaded at once.
+   */
+  private void propagateNewParamsToActiveRules(DbSession session, RegisterRulesContext context) {
+    if (context.newParamsByRuleId.isEmpty()) {
+      return;
+    }
+    Profiler profiler = Profiler.create(Loggers.get(getClass())).start();
+    for (ActiveRuleDto activeRule : dbClient.activeRuleDao().selectByRuleIdsOfAllOrganizations(session, context.newParamsByRuleId.keySet())) {
+      for (RuleParamDto paramDto : context.newParamsByRuleId.get(activeRule.getRuleId())) {
+        ActiveRuleParamDto activeParam = ActiveRuleParamDto.createFor(paramDto).setValue(paramDto.getDefaultValue());
         dbClient.activeRuleDao().insertParam(session, activeRule, activeParam);
       }
-      profiler.stopDebug(format("Propagate new param with name %s to active rules of rule %s", paramDto.getName(), rule.getKey()));
     }
+    profiler.stopDebug(format("Propagate new params of %d rules to active rules", context.newParamsByRuleId.keySet().size()));
   }
 
   private boolean mergeParam(RuleParamDto paramDto, RulesDefinition.Param paramDef) {
@@ -405,48 +454,43 @@ public class RegisterRules implements Startable {
     return changed;
   }
 
-  private List<RuleDefinitionDto> processRemainingDbRules(Collection<RuleDefinitionDto> existingRules, DbSession session) {
+  private List<RuleDefinitionDto> processRemainingDbRules(RegisterRulesContext context) {
     // custom rules check status of template, so they must be processed at the end
     List<RuleDefinitionDto> customRules = newArrayList();
     List<RuleDefinitionDto> removedRules = newArrayList();
 
-    for (RuleDefinitionDto rule : existingRules) {
+    for (RuleDefinitionDto rule : context.dbRules.values()) {
       if (rule.isCustomRule()) {
         customRules.add(rule);
       } else if (rule.getStatus() != RuleStatus.REMOVED) {
-        removeRule(session, removedRules, rule);
+        removeRule(context, removedRules, rule);
       }
     }
 
     for (RuleDefinitionDto customRule : customRules) {
       Integer templateId = customRule.getTemplateId();
       checkNotNull(templateId, "Template id of the custom rule '%s' is null", customRule);
-      Optional<RuleDefinitionDto> template = dbClient.ruleDao().selectDefinitionById(templateId, session);
-      if (template.isPresent() && template.get().getStatus() != RuleStatus.REMOVED) {
-        if (updateCustomRuleFromTemplateRule(customRule, template.get())) {
-          update(session, customRule);
+      RuleDefinitionDto template = context.dbRulesById.get(templateId);
+      if (template != null && template.getStatus() != RuleStatus.REMOVED) {
+        if (updateCustomRuleFromTemplateRule(customRule, template)) {
+          update(context, customRule);
         }
       } else {
-        removeRule(session, removedRules, customRule);
+        removeRule(context, removedRules, customRule);
       }
     }
-
-    session.commit();
     return removedRules;
   }
 
-  private void removeRule(DbSession session, List<RuleDefinitionDto> removedRules, RuleDefinitionDto rule) {
+  private void removeRule(RegisterRulesContext context, List<RuleDefinitionDto> removedRules, RuleDefinitionDto rule) {
     LOG.info(format("Disable rule %s", rule.getKey()));
     rule.setStatus(RuleStatus.REMOVED);
     rule.setSystemTags(Collections.emptySet());
-    update(session, rule);
+    update(context, rule);
     // FIXME resetting the tags for all organizations must be handled a different way
     // rule.setTags(Collections.emptySet());
     // update(session, rule.getMetadata());
     removedRules.add(rule);
-    if (removedRules.size() % 100 == 0) {
-      session.commit();
-    }
   }
 
   private static boolean updateCustomRuleFromTemplateRule(RuleDefinitionDto customRule, RuleDefinitionDto templateRule) {
@@ -513,9 +557,37 @@ public class RegisterRules implements Startable {
     return changes;
   }
 
-  private void update(DbSession session, RuleDefinitionDto rule) {
+  private void update(RegisterRulesContext context, RuleDefinitionDto rule) {
     rule.setUpdatedAt(system2.now());
-    dbClient.ruleDao().update(session, rule);
+    context.rulesToUpdate.add(rule);
+  }
+
+  private void persistUpdates(DbSession batchSession, RegisterRulesContext context) {
+    for (RuleDefinitionDto rule : context.rulesToUpdate) {
+      dbClient.ruleDao().update(batchSession, rule);
+    }
+    for (RuleParamDto paramDto : context.paramsToUpdate) {
+      dbClient.ruleDao().updateRuleParam(batchSession, context.dbRulesById.get(paramDto.getRuleId()), paramDto);
+    }
+    batchSession.commit();
+  }
+
+  private static class RegisterRulesContext {
+    // initial state of the rules in db, rules are removed as soon as they are registered
+    private final Map<RuleKey, RuleDefinitionDto> dbRules;
+    private final Map<Integer, RuleDefinitionDto> dbRulesById;
+    private final Map<Integer, List<RuleParamDto>> dbParamsByRuleId;
+    // parameters with default value which are added to existing rules
+    private final ListMultimap<Integer, RuleParamDto> newParamsByRuleId = ArrayListMultimap.create();
+    private final List<RuleDefinitionDto> rulesToUpdate = new ArrayList<>();
+    private final List<RuleParamDto> paramsToUpdate = new ArrayList<>();
+    private final List<RuleKey> keysToIndex = new ArrayList<>();
+
+    private RegisterRulesContext(Map<RuleKey, RuleDefinitionDto> dbRules, Map<Integer, List<RuleParamDto>> dbParamsByRuleId) {
+      this.dbRules = dbRules;
+      this.dbRulesById = dbRules.values().stream().collect(Collectors.toMap(RuleDefinitionDto::getId, Function.identity()));
+      this.dbParamsByRuleId = dbParamsByRuleId;
+    }
   }
 
 }
@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.rule;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.resources.Languages;
+import org.sonar.api.server.debt.DebtRemediationFunction;
+import org.sonar.api.server.rule.RulesDefinition;
+import org.sonar.api.utils.Version;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Hash of all the attributes of rule definitions which are persisted by {@link RegisterRules}. It's stored in
+ * the internal properties in order to skip registration when neither the rule definitions, nor the installed
+ * languages, nor the organization support, nor the version of SonarQube have changed since the last startup. The
+ * version is part of the hash because the way definitions are persisted may change between versions, even if
+ * the definitions do not.
+ */
+class RulesDefinitionFingerprint {
+
+  private static final char DELIMITER = ',';
+
+  private RulesDefinitionFingerprint() {
+    // only static stuff
+  }
+
+  static String of(List<RulesDefinition.ExtendedRepository> repositories, Languages languages, boolean orgsEnabled, Version serverVersion) {
+    MessageDigest digest = DigestUtils.getSha256Digest();
+    StringBuilder header = new StringBuilder();
+    append(header, serverVersion);
+    append(header, orgsEnabled);
+    update(digest, header);
+
+    List<RulesDefinition.ExtendedRepository> sortedRepositories = new ArrayList<>(repositories);
+    sortedRepositories.sort(Comparator.comparing(RulesDefinition.ExtendedRepository::key));
+    for (RulesDefinition.ExtendedRepository repository : sortedRepositories) {
+      StringBuilder sb = new StringBuilder();
+      append(sb, repository.key());
+      append(sb, repository.language());
+      append(sb, languages.get(repository.language()) != null);
+      if (repository instanceof RulesDefinition.Repository) {
+        append(sb, ((RulesDefinition.Repository) repository).name());
+      }
+      update(digest, sb);
+
+      List<RulesDefinition.Rule> rules = new ArrayList<>(repository.rules());
+      rules.sort(Comparator.comparing(RulesDefinition.Rule::key));
+      for (RulesDefinition.Rule rule : rules) {
+        update(digest, appendRule(new StringBuilder(), rule));
+      }
+    }
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  private static StringBuilder appendRule(StringBuilder sb, RulesDefinition.Rule rule) {
+    append(sb, rule.repository().key());
+    append(sb, rule.key());
+    append(sb, rule.name());
+    append(sb, rule.type());
+    append(sb, rule.severity());
+    append(sb, rule.htmlDescription());
+    append(sb, rule.markdownDescription());
+    append(sb, rule.template());
+    append(sb, rule.status());
+    append(sb, rule.gapDescription());
+    append(sb, rule.internalKey());
+    DebtRemediationFunction function = rule.debtRemediationFunction();
+    if (function != null) {
+      append(sb, function.type());
+      append(sb, function.gapMultiplier());
+      append(sb, function.baseEffort());
+    }
+    append(sb, new TreeSet<>(rule.tags()));
+    List<RulesDefinition.Param> params = new ArrayList<>(rule.params());
+    params.sort(Comparator.comparing(RulesDefinition.Param::key));
+    for (RulesDefinition.Param param : params) {
+      append(sb, param.key());
+      append(sb, param.description());
+      append(sb, param.defaultValue());
+      append(sb, param.type());
+    }
+    return sb;
+  }
+
+  private static void append(StringBuilder sb, @Nullable Object value) {
+    sb.append(value).append(DELIMITER);
+  }
+
+  private static void update(MessageDigest digest, StringBuilder sb) {
+    digest.update(sb.append('\n').toString().getBytes(UTF_8));
+  }
+}
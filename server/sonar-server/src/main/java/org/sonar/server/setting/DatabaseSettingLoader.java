@@ -20,15 +20,29 @@
 package org.sonar.server.setting;
 
 import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.property.PropertyDto;
 
 import static org.apache.commons.lang.StringUtils.defaultString;
 
+/**
+ * Loads global settings from db.
+ *
+ * <p>
+ * {@link #loadAll(ImmutableMap.Builder)} keeps the global properties in memory as long as their version,
+ * see {@link org.sonar.db.property.PropertiesDao#selectGlobalPropertiesVersion(DbSession)}, does not change
+ * in db. Validating the copy costs a single lightweight SQL request, whatever the node (Web Server or Compute Engine, in cluster or standalone) that changed
+ * the properties.
+ * </p>
+ */
 public class DatabaseSettingLoader implements SettingLoader {
 
   private final DbClient dbClient;
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
 
   public DatabaseSettingLoader(DbClient dbClient) {
     this.dbClient = dbClient;
@@ -45,10 +59,34 @@ public class DatabaseSettingLoader implements SettingLoader {
 
   @Override
   public void loadAll(ImmutableMap.Builder<String, String> appendTo) {
+    appendTo.putAll(loadGlobalProperties());
+  }
+
+  private Map<String, String> loadGlobalProperties() {
     try (DbSession dbSession = dbClient.openSession(false)) {
+      // version is read before properties. If properties are changed in the meantime, then
+      // the snapshot is considered as outdated and is reloaded on next call.
+      long version = dbClient.propertiesDao().selectGlobalPropertiesVersion(dbSession);
+      Snapshot current = snapshot.get();
+      if (current != null && current.version == version) {
+        return current.properties;
+      }
+      Map<String, String> properties = new HashMap<>();
       dbClient.propertiesDao().selectGlobalProperties(dbSession)
-        .forEach(p -> appendTo.put(p.getKey(), defaultString(p.getValue())));
+        .forEach(p -> properties.put(p.getKey(), defaultString(p.getValue())));
+      Snapshot loaded = new Snapshot(version, ImmutableMap.copyOf(properties));
+      snapshot.set(loaded);
+      return loaded.properties;
     }
   }
 
+  private static class Snapshot {
+    private final long version;
+    private final Map<String, String> properties;
+
+    private Snapshot(long version, Map<String, String> properties) {
+      this.version = version;
+      this.properties = properties;
+    }
+  }
 }
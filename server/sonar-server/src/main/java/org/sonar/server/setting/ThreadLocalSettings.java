@@ -97,19 +97,9 @@ public class ThreadLocalSettings extends Settings {
     if (dbProps == null) {
       return Optional.ofNullable(settingLoader.load(key));
     }
-
-    String loadedValue;
-    if (dbProps.containsKey(key)) {
-      // property may not exist in db. In this case key is present
-      // in cache but value is null
-      loadedValue = dbProps.get(key);
-    } else {
-      // cache the effective value (null if the property
-      // is not persisted)
-      loadedValue = settingLoader.load(key);
-      dbProps.put(key, loadedValue);
-    }
-    return Optional.ofNullable(loadedValue);
+    // cache contains all the properties persisted in db. Missing
+    // key means that property is not persisted.
+    return Optional.ofNullable(dbProps.get(key));
   }
 
   @Override
@@ -129,14 +119,17 @@ public class ThreadLocalSettings extends Settings {
   }
 
   /**
-   * Enables the thread specific cache of settings.
+   * Enables the thread specific cache of settings. All the properties are loaded at once, so that
+   * reading any number of settings afterwards does not hit the db.
    *
    * @throws IllegalStateException if the current thread already has specific cache
    */
   public void load() {
     checkState(CACHE.get() == null,
       "load called twice for thread '%s' or state wasn't cleared last time it was used", Thread.currentThread().getName());
-    CACHE.set(new HashMap<>());
+    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+    settingLoader.loadAll(builder);
+    CACHE.set(new HashMap<>(builder.build()));
   }
 
   /**
@@ -23,6 +23,7 @@ import java.io.File;
 import org.picocontainer.Startable;
 import org.sonar.api.platform.ServerUpgradeStatus;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.platform.ConcurrentStart;
 import org.sonar.server.platform.ServerFileSystem;
 
 import static org.sonar.core.util.FileUtils.deleteQuietly;
@@ -31,6 +32,7 @@ import static org.sonar.core.util.FileUtils.deleteQuietly;
  * SONAR-7903 analysis reports are moved from file system to
  * database. This task cleans up the directory.
  */
+@ConcurrentStart
 public class DeleteOldAnalysisReportsFromFs implements Startable {
 
   private final ServerUpgradeStatus upgradeStatus;
@@ -22,6 +22,7 @@ package org.sonar.server.startup;
 import org.picocontainer.Startable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.platform.ConcurrentStart;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
@@ -34,6 +35,7 @@ import org.sonar.db.loadedtemplate.LoadedTemplateDto;
  *
  * @since 5.2
  */
+@ConcurrentStart
 public class DisplayLogOnDeprecatedProjects implements Startable {
 
   private static final Logger LOG = Loggers.get(DisplayLogOnDeprecatedProjects.class);
@@ -26,6 +26,7 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.log.Profiler;
 import org.sonar.api.web.UserRole;
+import org.sonar.core.platform.ConcurrentStart;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.organization.DefaultTemplates;
@@ -35,6 +36,7 @@ import org.sonar.server.organization.DefaultOrganizationProvider;
 
 import static java.lang.String.format;
 
+@ConcurrentStart
 public class RegisterPermissionTemplates {
 
   private static final Logger LOG = Loggers.get(RegisterPermissionTemplates.class);
@@ -23,11 +23,13 @@ import com.google.common.base.Strings;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.config.PropertyDefinition;
 import org.sonar.api.config.PropertyDefinitions;
+import org.sonar.core.platform.ConcurrentStart;
 import org.sonar.db.property.PropertiesDao;
 
 /**
  * @since 3.4
  */
+@ConcurrentStart
 public class RenameDeprecatedPropertyKeys {
 
   private PropertiesDao dao;
@@ -36,6 +36,7 @@ import org.sonar.api.server.ws.internal.ValidatingRequest;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.util.logs.RequestProfile;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ServerException;
 import org.sonarqube.ws.MediaTypes;
@@ -59,8 +60,12 @@ public class WebServiceEngine implements LocalConnector, Startable {
   private static final Logger LOGGER = Loggers.get(WebServiceEngine.class);
 
   private final WebService.Context context;
+  private final WsActionMetrics metrics;
+  private final WsConcurrencyLimiter limiter;
 
-  public WebServiceEngine(WebService[] webServices) {
+  public WebServiceEngine(WebService[] webServices, WsActionMetrics metrics, WsConcurrencyLimiter limiter) {
+    this.metrics = metrics;
+    this.limiter = limiter;
     context = new WebService.Context();
     for (WebService webService : webServices) {
       webService.define(context);
@@ -90,9 +95,14 @@ public class WebServiceEngine implements LocalConnector, Startable {
   }
 
   public void execute(Request request, Response response) {
+    long start = System.nanoTime();
+    // requests executed through LocalConnector are profiled by the calling request
+    boolean nested = RequestProfile.current() != null;
+    RequestProfile profile = nested ? null : RequestProfile.start();
+    WebService.Action action = null;
     try {
       ActionExtractor actionExtractor = new ActionExtractor(request.getPath());
-      WebService.Action action = getAction(actionExtractor);
+      action = getAction(actionExtractor);
       checkFound(action, "Unknown url : %s", request.getPath());
       if (request instanceof ValidatingRequest) {
         ((ValidatingRequest) request).setAction(action);
@@ -100,7 +110,10 @@ public class WebServiceEngine implements LocalConnector, Startable {
       }
       checkActionExtension(actionExtractor.getExtension());
       verifyRequest(action, request);
-      action.handler().handle(request, response);
+      // requests executed through LocalConnector already hold the thread of the calling request
+      try (WsConcurrencyLimiter.Permit permit = nested ? WsConcurrencyLimiter.NO_PERMIT : limiter.acquire(action.path())) {
+        action.handler().handle(request, response);
+      }
     } catch (IllegalArgumentException e) {
       sendErrors(response, 400, singletonList(e.getMessage()));
     } catch (BadRequestException e) {
@@ -118,6 +131,13 @@ public class WebServiceEngine implements LocalConnector, Startable {
       // Sending exception message into response is a vulnerability. Error must be
       // displayed only in logs.
       sendErrors(response, 500, singletonList("An error has occurred. Please contact your administrator"));
+    } finally {
+      if (!nested) {
+        RequestProfile.stop();
+      }
+      if (action != null) {
+        metrics.record(request, action.path(), System.nanoTime() - start, profile);
+      }
     }
   }
 
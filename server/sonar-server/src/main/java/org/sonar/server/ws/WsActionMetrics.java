@@ -0,0 +1,180 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import org.picocontainer.Startable;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.logs.RequestProfile;
+import org.sonar.db.Database;
+
+import static org.sonar.process.ProcessProperties.WEB_SLOW_REQUEST_THRESHOLD;
+
+/**
+ * Latencies of web service actions since startup. Requests slower than the threshold defined by
+ * {@link org.sonar.process.ProcessProperties#WEB_SLOW_REQUEST_THRESHOLD} are logged with the time
+ * spent in database, in Elasticsearch and in serialization of response. Time spent in database
+ * is recorded only when this log is enabled.
+ */
+@ServerSide
+public class WsActionMetrics implements Startable {
+
+  private static final Logger LOGGER = Loggers.get(WsActionMetrics.class);
+
+  private final Configuration config;
+  private final Database database;
+  private final ConcurrentMap<String, ActionMetrics> metricsByAction = new ConcurrentHashMap<>();
+  private final LongAdder slowRequests = new LongAdder();
+  private long slowRequestThresholdMs = 0L;
+
+  public WsActionMetrics(Configuration config, Database database) {
+    this.config = config;
+    this.database = database;
+  }
+
+  @Override
+  public void start() {
+    slowRequestThresholdMs = config.getLong(WEB_SLOW_REQUEST_THRESHOLD).orElse(0L);
+    if (isSlowRequestLogEnabled()) {
+      database.enableSqlTiming(true);
+    }
+  }
+
+  @Override
+  public void stop() {
+    // nothing to do
+  }
+
+  public boolean isSlowRequestLogEnabled() {
+    return slowRequestThresholdMs > 0L;
+  }
+
+  public long getSlowRequestThresholdMs() {
+    return slowRequestThresholdMs;
+  }
+
+  public long getSlowRequestCount() {
+    return slowRequests.sum();
+  }
+
+  /**
+   * Metrics of the actions that have been requested at least once, by path (for example "api/issues/search")
+   */
+  public Map<String, ActionMetrics> getMetricsByAction() {
+    return Collections.unmodifiableMap(metricsByAction);
+  }
+
+  /**
+   * @param profile the times spent by the request, or {@code null} if the request is executed within
+   *                another request through {@link org.sonar.api.server.ws.LocalConnector}
+   */
+  void record(Request request, String actionPath, long durationNanos, @Nullable RequestProfile profile) {
+    metricsByAction.computeIfAbsent(actionPath, k -> new ActionMetrics()).record(durationNanos, profile, isSlowRequestLogEnabled());
+    if (profile != null && isSlowRequestLogEnabled() && TimeUnit.NANOSECONDS.toMillis(durationNanos) >= slowRequestThresholdMs) {
+      slowRequests.increment();
+      long otherNanos = Math.max(0L,
+        durationNanos - profile.getDbNanos() - profile.getConnectionWaitNanos() - profile.getEsNanos() - profile.getSerializationNanos());
+      LOGGER.warn("Slow request {} {} | time={}ms | db={}ms ({} queries) | db pool wait={}ms | es={}ms ({} requests) | serialization={}ms | other={}ms",
+        request.method(), request.getPath(), toMillis(durationNanos),
+        toMillis(profile.getDbNanos()), profile.getDbCalls(), toMillis(profile.getConnectionWaitNanos()),
+        toMillis(profile.getEsNanos()), profile.getEsCalls(),
+        toMillis(profile.getSerializationNanos()), toMillis(otherNanos));
+    }
+  }
+
+  private static long toMillis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  public static class ActionMetrics {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder profiledRequests = new LongAdder();
+    private final LongAdder dbTimedRequests = new LongAdder();
+    private final LongAdder dbNanos = new LongAdder();
+    private final LongAdder connectionWaitNanos = new LongAdder();
+    private final LongAdder esNanos = new LongAdder();
+    private final LongAdder serializationNanos = new LongAdder();
+
+    private void record(long durationNanos, @Nullable RequestProfile profile, boolean dbTimed) {
+      latency.record(durationNanos);
+      if (profile != null) {
+        profiledRequests.increment();
+        if (dbTimed) {
+          dbTimedRequests.increment();
+          dbNanos.add(profile.getDbNanos());
+        }
+        connectionWaitNanos.add(profile.getConnectionWaitNanos());
+        esNanos.add(profile.getEsNanos());
+        serializationNanos.add(profile.getSerializationNanos());
+      }
+    }
+
+    public LatencyHistogram getLatency() {
+      return latency;
+    }
+
+    /**
+     * Number of requests for which the times spent in database pool, Elasticsearch and serialization are known
+     */
+    public long getProfiledRequestCount() {
+      return profiledRequests.sum();
+    }
+
+    /**
+     * Number of requests for which the time spent in database is known, that is requests executed while SQL
+     * timing is enabled
+     */
+    public long getDbTimedRequestCount() {
+      return dbTimedRequests.sum();
+    }
+
+    /**
+     * Time spent in database by the requests counted by {@link #getDbTimedRequestCount()}
+     */
+    public long getDbNanos() {
+      return dbNanos.sum();
+    }
+
+    /**
+     * Time spent in borrowing connections from the database pool
+     */
+    public long getConnectionWaitNanos() {
+      return connectionWaitNanos.sum();
+    }
+
+    public long getEsNanos() {
+      return esNanos.sum();
+    }
+
+    public long getSerializationNanos() {
+      return serializationNanos.sum();
+    }
+  }
+}
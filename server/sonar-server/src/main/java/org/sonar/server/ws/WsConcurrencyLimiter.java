@@ -0,0 +1,174 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.picocontainer.Startable;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.app.TomcatConnectors;
+import org.sonar.server.exceptions.ServerException;
+
+import static java.lang.String.format;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
+
+/**
+ * Bounds the number of web server threads that can be used concurrently by the heavy actions
+ * listed in {@link #PROPERTY_ACTIONS}, so that slow I/O-bound requests can not starve the other ones.
+ * Heavy requests exceeding {@link #PROPERTY_MAX_THREADS} wait for a thread to be released, as long as
+ * there are less than {@link #PROPERTY_ACCEPT_COUNT} of them. Other ones are rejected with HTTP 503.
+ */
+@ServerSide
+public class WsConcurrencyLimiter implements Startable {
+
+  public static final String PROPERTY_ACTIONS = "sonar.web.http.heavyActions";
+  public static final String PROPERTY_MAX_THREADS = "sonar.web.http.heavyActions.maxThreads";
+  public static final String PROPERTY_ACCEPT_COUNT = "sonar.web.http.heavyActions.acceptCount";
+  static final String DEFAULT_ACTIONS = "api/issues/search,api/sources/raw,api/ce/submit";
+  private static final int DEFAULT_ACCEPT_COUNT = 10;
+  private static final Logger LOGGER = Loggers.get(WsConcurrencyLimiter.class);
+
+  static final Permit NO_PERMIT = () -> {
+    // nothing to release
+  };
+
+  private final Configuration config;
+  private final AtomicInteger waiting = new AtomicInteger();
+  private final LongAdder executed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAccumulator peakActive = new LongAccumulator(Math::max, 0L);
+  private Set<String> actions = ImmutableSet.of();
+  private int maxThreads = 0;
+  private int acceptCount = 0;
+  private Semaphore semaphore = null;
+
+  public WsConcurrencyLimiter(Configuration config) {
+    this.config = config;
+  }
+
+  @Override
+  public void start() {
+    maxThreads = config.getInt(PROPERTY_MAX_THREADS).orElse(0);
+    if (maxThreads <= 0) {
+      return;
+    }
+    String[] actionPaths = config.hasKey(PROPERTY_ACTIONS) ? config.getStringArray(PROPERTY_ACTIONS) : DEFAULT_ACTIONS.split(",");
+    actions = ImmutableSet.copyOf(actionPaths);
+    acceptCount = config.getInt(PROPERTY_ACCEPT_COUNT).orElse(DEFAULT_ACCEPT_COUNT);
+    semaphore = new Semaphore(maxThreads, true);
+    int webThreads = config.getInt(TomcatConnectors.PROPERTY_MAX_THREADS).orElse(TomcatConnectors.DEFAULT_MAX_THREADS);
+    if (maxThreads + acceptCount >= webThreads) {
+      LOGGER.warn("Heavy web services can use up to {} threads ({} + {}), leaving no web thread to other requests. Please check properties {} and {}",
+        maxThreads + acceptCount, maxThreads, acceptCount, PROPERTY_MAX_THREADS, PROPERTY_ACCEPT_COUNT);
+    }
+  }
+
+  @Override
+  public void stop() {
+    // nothing to do
+  }
+
+  public boolean isEnabled() {
+    return semaphore != null;
+  }
+
+  public Set<String> getActions() {
+    return actions;
+  }
+
+  public int getMaxThreads() {
+    return maxThreads;
+  }
+
+  public int getAcceptCount() {
+    return acceptCount;
+  }
+
+  public int getActiveThreads() {
+    return semaphore == null ? 0 : (maxThreads - semaphore.availablePermits());
+  }
+
+  public long getPeakActiveThreads() {
+    return peakActive.get();
+  }
+
+  public int getWaitingRequests() {
+    return waiting.get();
+  }
+
+  public long getExecutedRequests() {
+    return executed.sum();
+  }
+
+  public long getRejectedRequests() {
+    return rejected.sum();
+  }
+
+  /**
+   * Waits for a thread of the heavy actions to be available, if needed.
+   *
+   * @return the permit to be released when execution of action is over
+   * @throws ServerException with HTTP code 503 if too many requests are already waiting
+   */
+  Permit acquire(String actionPath) {
+    if (semaphore == null || !actions.contains(actionPath)) {
+      return NO_PERMIT;
+    }
+    if (!semaphore.tryAcquire()) {
+      waitForPermit(actionPath);
+    }
+    executed.increment();
+    peakActive.accumulate(getActiveThreads());
+    return semaphore::release;
+  }
+
+  private void waitForPermit(String actionPath) {
+    if (waiting.incrementAndGet() > acceptCount) {
+      waiting.decrementAndGet();
+      throw reject(actionPath);
+    }
+    try {
+      semaphore.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw reject(actionPath);
+    } finally {
+      waiting.decrementAndGet();
+    }
+  }
+
+  private ServerException reject(String actionPath) {
+    rejected.increment();
+    return new ServerException(HTTP_UNAVAILABLE, format("Too many concurrent requests to %s. Please retry later.", actionPath));
+  }
+
+  @FunctionalInterface
+  interface Permit extends AutoCloseable {
+    @Override
+    void close();
+  }
+}
@@ -30,6 +30,7 @@ import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.utils.text.JsonWriter;
 import org.sonar.core.util.ProtobufJsonFormat;
+import org.sonar.core.util.logs.RequestProfile;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.NotFoundException;
 
@@ -45,6 +46,7 @@ public class WsUtils {
   }
 
   public static void writeProtobuf(Message msg, Request request, Response response) {
+    long start = System.nanoTime();
     OutputStream output = response.stream().output();
     try {
       if (request.getMediaType().equals(PROTOBUF)) {
@@ -60,6 +62,7 @@ public class WsUtils {
       throw new IllegalStateException("Error while writing protobuf message", e);
     } finally {
       IOUtils.closeQuietly(output);
+      RequestProfile.addSerializationTime(System.nanoTime() - start);
     }
   }
 
@@ -19,6 +19,8 @@
  */
 package org.sonar.ce.queue;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import javax.annotation.Nullable;
@@ -60,7 +62,7 @@ public class CeQueueImplTest {
   private UuidFactory uuidFactory = UuidFactoryImpl.INSTANCE;
   private DefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(dbTester);
 
-  private CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider);
+  private CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider, new DatabaseReportStorage(dbTester.getDbClient()));
 
   @Test
   public void submit_returns_task_populated_from_CeTaskSubmit_and_creates_CeQueue_row() {
@@ -142,6 +144,26 @@ public class CeQueueImplTest {
     assertThat(activity.get().getStatus()).isEqualTo(CeActivityDto.Status.CANCELED);
   }
 
+  @Test
+  public void report_is_deleted_once_removal_of_task_from_queue_is_committed() {
+    List<String> uuidsInQueueWhenDeleted = new ArrayList<>();
+    ReportStorage reportStorage = new DatabaseReportStorage(dbTester.getDbClient()) {
+      @Override
+      public void delete(DbSession dbSession, Collection<String> taskUuids) {
+        try (DbSession otherSession = dbTester.getDbClient().openSession(false)) {
+          dbTester.getDbClient().ceQueueDao().selectAllInAscOrder(otherSession).forEach(dto -> uuidsInQueueWhenDeleted.add(dto.getUuid()));
+        }
+        super.delete(dbSession, taskUuids);
+      }
+    };
+    underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider, reportStorage);
+    CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
+
+    assertThat(underTest.cancel(task.getUuid())).isTrue();
+
+    assertThat(uuidsInQueueWhenDeleted).isEmpty();
+  }
+
   @Test
   public void fail_to_cancel_if_in_progress() throws Exception {
     expectedException.expect(IllegalStateException.class);
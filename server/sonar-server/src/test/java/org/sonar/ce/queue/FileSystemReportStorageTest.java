@@ -0,0 +1,159 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Optional;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.MessageException;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.ce.queue.FileSystemReportStorage.ORPHAN_GRACE_PERIOD_MS;
+
+public class FileSystemReportStorageTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private DbSession dbSession = db.getSession();
+  private File dir;
+  private FileSystemReportStorage underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    dir = new File(temp.newFolder(), "reports");
+    underTest = new FileSystemReportStorage(db.getDbClient(), System2.INSTANCE, dir);
+  }
+
+  @Test
+  public void create_directory_if_missing() {
+    assertThat(dir).isDirectory();
+  }
+
+  @Test
+  public void save_and_open_report() throws Exception {
+    underTest.save(dbSession, "TASK_1", IOUtils.toInputStream("{binary}", UTF_8));
+
+    assertThat(dir.list()).containsOnly("TASK_1.zip");
+    assertThat(read("TASK_1")).isEqualTo("{binary}");
+  }
+
+  @Test
+  public void open_fails_with_explicit_message_if_report_is_missing() {
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("Analysis report TASK_1 is missing from directory " + dir + ". If property sonar.ce.reportStorage.path has been changed");
+
+    underTest.open(dbSession, "TASK_1");
+  }
+
+  @Test
+  public void save_replaces_existing_report() throws Exception {
+    underTest.save(dbSession, "TASK_1", IOUtils.toInputStream("{binary}", UTF_8));
+    underTest.save(dbSession, "TASK_1", IOUtils.toInputStream("{other}", UTF_8));
+
+    assertThat(read("TASK_1")).isEqualTo("{other}");
+  }
+
+  @Test
+  public void delete_reports() {
+    underTest.save(dbSession, "TASK_1", IOUtils.toInputStream("{binary}", UTF_8));
+    underTest.save(dbSession, "TASK_2", IOUtils.toInputStream("{binary}", UTF_8));
+
+    underTest.delete(dbSession, asList("TASK_1", "UNKNOWN"));
+
+    assertThat(dir.list()).containsOnly("TASK_2.zip");
+  }
+
+  @Test
+  public void deleteOrphans_keeps_reports_of_tasks_in_queue() {
+    insertInQueue("TASK_1");
+    underTest.save(dbSession, "TASK_1", IOUtils.toInputStream("{binary}", UTF_8));
+    underTest.save(dbSession, "TASK_2", IOUtils.toInputStream("{binary}", UTF_8));
+    makeOld("TASK_1.zip", "TASK_2.zip");
+
+    underTest.deleteOrphans(dbSession);
+
+    assertThat(dir.list()).containsOnly("TASK_1.zip");
+  }
+
+  @Test
+  public void deleteOrphans_keeps_recent_reports_as_they_may_be_being_submitted() {
+    // report is saved before the task is committed in queue
+    underTest.save(dbSession, "TASK_1", IOUtils.toInputStream("{binary}", UTF_8));
+
+    underTest.deleteOrphans(dbSession);
+
+    assertThat(dir.list()).containsOnly("TASK_1.zip");
+  }
+
+  @Test
+  public void deleteOrphans_deletes_old_temporary_files() throws Exception {
+    FileUtils.write(new File(dir, "TASK_1.tmp"), "{partial}", UTF_8);
+    FileUtils.write(new File(dir, "TASK_2.tmp"), "{partial}", UTF_8);
+    makeOld("TASK_1.tmp");
+
+    underTest.deleteOrphans(dbSession);
+
+    assertThat(dir.list()).containsOnly("TASK_2.tmp");
+  }
+
+  private void makeOld(String... fileNames) {
+    long lastModified = System.currentTimeMillis() - ORPHAN_GRACE_PERIOD_MS - 60_000L;
+    for (String fileName : fileNames) {
+      assertThat(new File(dir, fileName).setLastModified(lastModified)).isTrue();
+    }
+  }
+
+  private String read(String taskUuid) throws Exception {
+    Optional<InputStream> input = underTest.open(dbSession, taskUuid);
+    assertThat(input).isPresent();
+    try (InputStream in = input.get()) {
+      return IOUtils.toString(in, UTF_8);
+    }
+  }
+
+  private void insertInQueue(String taskUuid) {
+    CeQueueDto dto = new CeQueueDto();
+    dto.setTaskType(CeTaskTypes.REPORT);
+    dto.setComponentUuid("PROJECT_1");
+    dto.setUuid(taskUuid);
+    dto.setStatus(CeQueueDto.Status.PENDING);
+    db.getDbClient().ceQueueDao().insert(dbSession, dto);
+    dbSession.commit();
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import java.io.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.server.platform.ServerFileSystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReportStorageProviderTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private MapSettings settings = new MapSettings();
+  private DbClient dbClient = mock(DbClient.class);
+  private ServerFileSystem fs = mock(ServerFileSystem.class);
+  private ReportStorageProvider underTest = new ReportStorageProvider();
+
+  @Test
+  public void reports_are_stored_in_db_by_default() {
+    ReportStorage storage = underTest.provide(settings.asConfig(), dbClient, System2.INSTANCE, fs);
+
+    assertThat(storage).isInstanceOf(DatabaseReportStorage.class);
+    // same instance is returned
+    assertThat(underTest.provide(settings.asConfig(), dbClient, System2.INSTANCE, fs)).isSameAs(storage);
+  }
+
+  @Test
+  public void reports_are_stored_in_directory_if_path_is_defined() throws Exception {
+    File dir = temp.newFolder();
+    settings.setProperty(ReportStorageProvider.PATH_PROPERTY, dir.getAbsolutePath());
+
+    ReportStorage storage = underTest.provide(settings.asConfig(), dbClient, System2.INSTANCE, fs);
+
+    assertThat(storage).isInstanceOf(FileSystemReportStorage.class);
+  }
+
+  @Test
+  public void relative_path_is_resolved_against_data_directory() throws Exception {
+    File dataDir = temp.newFolder();
+    when(fs.getDataDir()).thenReturn(dataDir);
+    settings.setProperty(ReportStorageProvider.PATH_PROPERTY, "reports");
+
+    ReportStorage storage = underTest.provide(settings.asConfig(), dbClient, System2.INSTANCE, fs);
+
+    assertThat(storage).isInstanceOf(FileSystemReportStorage.class);
+    assertThat(new File(dataDir, "reports")).isDirectory();
+  }
+}
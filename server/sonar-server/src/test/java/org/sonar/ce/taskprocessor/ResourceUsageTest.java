@@ -0,0 +1,48 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.taskprocessor;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResourceUsageTest {
+
+  @Test
+  public void measure_allocations_of_current_thread() {
+    ResourceUsage start = ResourceUsage.ofCurrentThread();
+    byte[] allocated = new byte[10_000_000];
+
+    ResourceUsage usage = ResourceUsage.since(start);
+
+    assertThat(allocated).hasSize(10_000_000);
+    if (usage.getAllocatedBytes() != null) {
+      assertThat(usage.getAllocatedBytes()).isGreaterThanOrEqualTo(10_000_000L);
+    }
+    if (usage.getCpuTimeMs() != null) {
+      assertThat(usage.getCpuTimeMs()).isGreaterThanOrEqualTo(0L);
+    }
+  }
+
+  @Test
+  public void test_toString() {
+    assertThat(ResourceUsage.ofCurrentThread().toString()).startsWith("ResourceUsage{cpuTimeMs=");
+  }
+}
@@ -58,7 +58,8 @@ public class IssuesActionTest {
   @Rule
   public UserSessionRule userSessionRule = UserSessionRule.standalone();
 
-  private WsActionTester tester = new WsActionTester(new IssuesAction(db.getDbClient(), userSessionRule, TestComponentFinder.from(db)));
+  private WsActionTester tester = new WsActionTester(new IssuesAction(db.getDbClient(), userSessionRule, TestComponentFinder.from(db),
+    new IssuesResponseCache()));
 
   @Test
   public void test_nullable_fields() throws Exception {
@@ -225,6 +226,46 @@ public class IssuesActionTest {
     }
   }
 
+  @Test
+  public void return_not_modified_if_etag_did_not_change() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setUpdatedAt(1_000L));
+    addPermissionTo(project);
+
+    TestResponse response = tester.newRequest().setParam("key", project.getDbKey()).execute();
+    String etag = response.getHeader("ETag");
+    assertThat(etag).isNotEmpty();
+
+    TestResponse notModified = tester.newRequest().setParam("key", project.getDbKey()).setHeader("If-None-Match", etag).execute();
+    assertThat(notModified.getStatus()).isEqualTo(304);
+    assertThat(notModified.getInput()).isEmpty();
+
+    TestResponse otherEtag = tester.newRequest().setParam("key", project.getDbKey()).setHeader("If-None-Match", "\"other\"").execute();
+    assertThat(otherEtag.getHeader("ETag")).isEqualTo(etag);
+    assertThat(otherEtag.getInput()).isEqualTo(response.getInput());
+  }
+
+  @Test
+  public void etag_changes_when_issues_are_updated() {
+    RuleDefinitionDto rule = db.rules().insert();
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    IssueDto issue = db.issues().insert(rule, project, file, i -> i.setStatus("OPEN").setUpdatedAt(1_000L));
+    addPermissionTo(project);
+    String etag = tester.newRequest().setParam("key", project.getDbKey()).execute().getHeader("ETag");
+
+    db.getDbClient().issueDao().update(db.getSession(), issue.setAssignee("foo").setUpdatedAt(2_000L));
+    db.commit();
+
+    TestResponse response = tester.newRequest().setParam("key", project.getDbKey()).setHeader("If-None-Match", etag).execute();
+    assertThat(response.getHeader("ETag")).isNotEqualTo(etag);
+    try (CloseableIterator<ServerIssue> result = Protobuf.readStream(response.getInputStream(), ServerIssue.parser())) {
+      assertThat(result).extracting(ServerIssue::getAssigneeLogin).containsExactly("foo");
+    }
+  }
+
   @Test
   public void fail_if_user_does_not_have_permission_on_project() {
     ComponentDto project = db.components().insertPrivateProject();
@@ -0,0 +1,54 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.batch;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IssuesResponseCacheTest {
+
+  private IssuesResponseCache underTest = new IssuesResponseCache();
+
+  @Test
+  public void return_cached_response_only_if_version_is_the_same() {
+    underTest.put("uuid1", "v1", new byte[] {1, 2, 3});
+
+    assertThat(underTest.get("uuid1", "v1").get()).isEqualTo(new byte[] {1, 2, 3});
+    assertThat(underTest.get("uuid1", "v2")).isEmpty();
+    assertThat(underTest.get("uuid2", "v1")).isEmpty();
+  }
+
+  @Test
+  public void new_version_replaces_previous_one() {
+    underTest.put("uuid1", "v1", new byte[] {1});
+    underTest.put("uuid1", "v2", new byte[] {2});
+
+    assertThat(underTest.get("uuid1", "v1")).isEmpty();
+    assertThat(underTest.get("uuid1", "v2").get()).isEqualTo(new byte[] {2});
+  }
+
+  @Test
+  public void do_not_cache_big_responses() {
+    underTest.put("uuid1", "v1", new byte[IssuesResponseCache.MAX_ENTRY_SIZE_IN_BYTES + 1]);
+
+    assertThat(underTest.get("uuid1", "v1")).isEmpty();
+  }
+}
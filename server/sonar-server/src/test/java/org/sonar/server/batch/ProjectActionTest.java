@@ -66,6 +66,25 @@ public class ProjectActionTest {
     assertThat(queryArgumentCaptor.getValue().isIssuesMode()).isFalse();
   }
 
+  @Test
+  public void return_not_modified_if_etag_did_not_change() {
+    ProjectRepositories projectRepositories = new ProjectRepositories().addFileData("module-1", "src/Foo.java", new FileData("hash", "rev"));
+    when(projectDataLoader.load(any(ProjectDataQuery.class))).thenReturn(projectRepositories);
+
+    TestResponse response = ws.newRequest().setParam("key", "org.codehaus.sonar:sonar").execute();
+    String etag = response.getHeader("ETag");
+    assertThat(etag).isNotEmpty();
+
+    TestResponse notModified = ws.newRequest().setParam("key", "org.codehaus.sonar:sonar").setHeader("If-None-Match", etag).execute();
+    assertThat(notModified.getStatus()).isEqualTo(304);
+    assertThat(notModified.getInput()).isEmpty();
+
+    projectRepositories.addFileData("module-1", "src/Bar.java", new FileData("hash", "rev"));
+    TestResponse modified = ws.newRequest().setParam("key", "org.codehaus.sonar:sonar").setHeader("If-None-Match", etag).execute();
+    assertThat(modified.getHeader("ETag")).isNotEqualTo(etag);
+    assertThat(modified.getInput()).isNotEmpty();
+  }
+
   /**
    * SONAR-7084
    */
@@ -156,6 +156,17 @@ public class BatchReportReaderImplTest {
     assertThat(underTest.readComponent(COMPONENT_REF)).isNotSameAs(underTest.readComponent(COMPONENT_REF));
   }
 
+  @Test
+  public void packed_report_can_be_deleted_after_close() {
+    writer.writeComponent(COMPONENT);
+    File pack = writer.packComponentFiles();
+    assertThat(underTest.readComponent(COMPONENT_REF)).isEqualTo(COMPONENT);
+
+    underTest.close();
+
+    assertThat(pack.delete()).isTrue();
+  }
+
   @Test
   public void readComponentIssues_returns_empty_list_if_file_does_not_exist() {
     assertThat(underTest.readComponentIssues(COMPONENT_REF)).isEmpty();
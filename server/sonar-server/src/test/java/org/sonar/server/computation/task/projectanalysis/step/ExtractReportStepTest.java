@@ -33,6 +33,7 @@ import org.sonar.api.utils.internal.JUnitTempFolder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.ce.queue.CeTask;
+import org.sonar.ce.queue.DatabaseReportStorage;
 import org.sonar.db.DbTester;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportDirectoryHolderImpl;
@@ -59,12 +60,12 @@ public class ExtractReportStepTest {
   private MutableBatchReportDirectoryHolder reportDirectoryHolder = new BatchReportDirectoryHolderImpl();
   private CeTask ceTask = new CeTask.Builder().setOrganizationUuid("org1").setType(CeTaskTypes.REPORT).setUuid(TASK_UUID).build();
 
-  private ExtractReportStep underTest = new ExtractReportStep(dbTester.getDbClient(), ceTask, tempFolder, reportDirectoryHolder);
+  private ExtractReportStep underTest = new ExtractReportStep(dbTester.getDbClient(), new DatabaseReportStorage(dbTester.getDbClient()), ceTask, tempFolder, reportDirectoryHolder);
 
   @Test
   public void fail_if_report_zip_does_not_exist() throws Exception {
     expectedException.expect(MessageException.class);
-    expectedException.expectMessage("Analysis report 1 is missing in database");
+    expectedException.expectMessage("Analysis report 1 is missing");
 
     underTest.execute();
   }
@@ -22,8 +22,10 @@ package org.sonar.server.notification;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import java.io.InvalidClassException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.junit.Before;
@@ -37,10 +39,13 @@ import org.sonar.db.notification.NotificationQueueDao;
 import org.sonar.db.notification.NotificationQueueDto;
 import org.sonar.db.property.PropertiesDao;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -121,6 +126,76 @@ public class DefaultNotificationManagerTest {
     verify(manager, times(1)).logDeserializationIssue();
   }
 
+  @Test
+  public void processQueue_processes_batch_and_ignores_notifications_unable_to_deserialize() throws Exception {
+    NotificationQueueDto dto1 = NotificationQueueDto.toNotificationQueueDto(new Notification("test1"));
+    NotificationQueueDto dto2 = mock(NotificationQueueDto.class);
+    when(dto2.toNotification()).thenThrow(new InvalidClassException("Pouet"));
+    NotificationQueueDto dto3 = NotificationQueueDto.toNotificationQueueDto(new Notification("test3"));
+    List<NotificationQueueDto> dtos = Arrays.asList(dto1, dto2, dto3);
+    when(notificationQueueDao.selectOldest(10)).thenReturn(dtos);
+    List<Notification> processed = new ArrayList<>();
+
+    int removed = manager.processQueue(10, processed::addAll);
+
+    assertThat(removed).isEqualTo(3);
+    assertThat(processed).extracting(Notification::getType).containsExactly("test1", "test3");
+    verify(notificationQueueDao).delete(dtos);
+  }
+
+  @Test
+  public void processQueue_removes_notifications_from_queue_only_once_processed() {
+    List<NotificationQueueDto> dtos = singletonList(NotificationQueueDto.toNotificationQueueDto(new Notification("test")));
+    when(notificationQueueDao.selectOldest(10)).thenReturn(dtos);
+
+    manager.processQueue(10, notifications -> verify(notificationQueueDao, never()).delete(any(List.class)));
+
+    verify(notificationQueueDao).delete(dtos);
+  }
+
+  @Test
+  public void processQueue_keeps_notifications_in_queue_if_processing_fails() {
+    List<NotificationQueueDto> dtos = singletonList(NotificationQueueDto.toNotificationQueueDto(new Notification("test")));
+    when(notificationQueueDao.selectOldest(10)).thenReturn(dtos);
+
+    try {
+      manager.processQueue(10, notifications -> {
+        throw new IllegalStateException("Unexpected exception");
+      });
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Unexpected exception");
+    }
+
+    verify(notificationQueueDao, never()).delete(any(List.class));
+  }
+
+  @Test
+  public void processQueue_does_nothing_when_queue_is_empty() {
+    when(notificationQueueDao.selectOldest(10)).thenReturn(Collections.emptyList());
+    List<Notification> processed = new ArrayList<>();
+
+    assertThat(manager.processQueue(10, processed::addAll)).isZero();
+    assertThat(processed).isEmpty();
+    verify(notificationQueueDao, never()).delete(any(List.class));
+  }
+
+  @Test
+  public void subscribers_are_loaded_once_while_cache_is_enabled() {
+    when(propertiesDao.selectUsersForNotification("NewViolations", "Email", "uuid_45")).thenReturn(Lists.newArrayList("user1"));
+
+    manager.enableSubscribersCache();
+    assertThat(manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45").keySet()).containsOnly("user1");
+    // modifications of the returned multimap must not leak into the cache
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45").clear();
+    assertThat(manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45").keySet()).containsOnly("user1");
+    verify(propertiesDao, times(1)).selectUsersForNotification("NewViolations", "Email", "uuid_45");
+
+    manager.disableSubscribersCache();
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+    verify(propertiesDao, times(2)).selectUsersForNotification("NewViolations", "Email", "uuid_45");
+  }
+
   @Test
   public void shouldFindNoRecipient() {
     assertThat(manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45").asMap().entrySet()).hasSize(0);
@@ -21,7 +21,10 @@ package org.sonar.server.notification;
 
 import com.google.common.collect.Sets;
 import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.sonar.api.config.PropertyDefinitions;
@@ -32,11 +35,14 @@ import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.db.DbClient;
 import org.sonar.db.property.PropertiesDao;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -69,7 +75,7 @@ public class NotificationDaemonTest {
     when(commentOnIssueCreatedByMe.getType()).thenReturn("issue-changes");
     when(qualityGateChange.getKey()).thenReturn("QGateChange");
     when(qualityGateChange.getType()).thenReturn("qgate-changes");
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(null);
+    when(manager.processQueue(anyInt(), any(Consumer.class))).then(process(notification)).thenReturn(0);
 
     MapSettings settings = new MapSettings(new PropertyDefinitions(NotificationDaemon.class)).setProperty("sonar.notifications.delay", 1L);
 
@@ -175,7 +181,7 @@ public class NotificationDaemonTest {
   @Test
   public void shouldNotStopWhenException() {
     setUpMocks();
-    when(manager.getFromQueue()).thenThrow(new RuntimeException("Unexpected exception")).thenReturn(notification).thenReturn(null);
+    when(manager.processQueue(anyInt(), any(Consumer.class))).thenThrow(new RuntimeException("Unexpected exception")).then(process(notification)).thenReturn(0);
     doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
     doAnswer(addUser(CREATOR_SIMON, emailChannel)).when(commentOnIssueCreatedByMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
 
@@ -217,7 +223,7 @@ public class NotificationDaemonTest {
   public void shouldLogEvery10Minutes() {
     setUpMocks();
     // Emulate 2 notifications in DB
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(notification).thenReturn(null);
+    when(manager.processQueue(anyInt(), any(Consumer.class))).then(process(notification)).then(process(notification)).thenReturn(0);
     when(manager.count()).thenReturn(1L).thenReturn(0L);
     underTest = spy(underTest);
     // Emulate processing of each notification take 10 min to have a log each time
@@ -228,6 +234,21 @@ public class NotificationDaemonTest {
     underTest.stop();
   }
 
+  @Test
+  public void enable_subscribers_cache_while_delivering_a_batch() {
+    setUpMocks();
+
+    underTest.start();
+    verify(manager, timeout(2000)).disableSubscribersCache();
+    underTest.stop();
+
+    InOrder inOrder = inOrder(manager);
+    inOrder.verify(manager).processQueue(anyInt(), any(Consumer.class));
+    inOrder.verify(manager).enableSubscribersCache();
+    inOrder.verify(manager).disableSubscribersCache();
+    assertThat(underTest.getProcessedCount()).isEqualTo(1);
+  }
+
   @Test
   public void hasProjectSubscribersForType() {
     setUpMocks();
@@ -244,6 +265,16 @@ public class NotificationDaemonTest {
     assertThat(service.hasProjectSubscribersForTypes("PROJECT_UUID", Sets.newHashSet("issue-changes"))).isTrue();
   }
 
+  /**
+   * Emulates a queue containing the specified notification
+   */
+  private static Answer<Integer> process(Notification notification) {
+    return invocation -> {
+      ((Consumer<List<Notification>>) invocation.getArguments()[1]).accept(singletonList(notification));
+      return 1;
+    };
+  }
+
   private static Answer<Object> addUser(final String user, final NotificationChannel channel) {
     return addUser(user, new NotificationChannel[] {channel});
   }
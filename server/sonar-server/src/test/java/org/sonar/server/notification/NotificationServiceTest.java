@@ -0,0 +1,228 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.InOrder;
+import org.sonar.api.notifications.Notification;
+import org.sonar.api.notifications.NotificationChannel;
+import org.sonar.db.DbClient;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class NotificationServiceTest {
+
+  private static final String TYPE = "issue-changes";
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private NotificationChannel emailChannel = mock(NotificationChannel.class);
+  private NotificationChannel gtalkChannel = mock(NotificationChannel.class);
+  private ExecutorService executor = Executors.newFixedThreadPool(2);
+  private int notificationCount = 0;
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void deliver_batch_to_recipients_of_each_notification() {
+    Notification notification1 = newNotification("simon", "evgeny");
+    Notification notification2 = newNotification("evgeny");
+    NotificationService underTest = newService(new RecipientsDispatcher(emailChannel));
+
+    underTest.deliver(asList(notification1, notification2), executor);
+
+    verify(emailChannel).deliver(notification1, "simon");
+    verify(emailChannel).deliver(notification1, "evgeny");
+    verify(emailChannel).deliver(notification2, "evgeny");
+    verify(emailChannel, never()).deliver(notification2, "simon");
+  }
+
+  @Test
+  public void deliver_batch_on_each_channel_of_recipient() {
+    Notification notification = newNotification("simon");
+    NotificationService underTest = newService(new RecipientsDispatcher(emailChannel), new RecipientsDispatcher(gtalkChannel));
+
+    underTest.deliver(asList(notification), executor);
+
+    verify(emailChannel).deliver(notification, "simon");
+    verify(gtalkChannel).deliver(notification, "simon");
+  }
+
+  @Test
+  public void deliver_notifications_of_a_recipient_in_order_of_batch_by_a_single_task() {
+    Notification notification1 = newNotification("simon");
+    Notification notification2 = newNotification("simon");
+    Notification notification3 = newNotification("simon");
+    List<Thread> threads = new CopyOnWriteArrayList<>();
+    doAnswer(invocation -> threads.add(Thread.currentThread())).when(emailChannel).deliver(any(Notification.class), anyString());
+    NotificationService underTest = newService(new RecipientsDispatcher(emailChannel));
+
+    underTest.deliver(asList(notification1, notification2, notification3), executor);
+
+    InOrder inOrder = inOrder(emailChannel);
+    inOrder.verify(emailChannel).deliver(notification1, "simon");
+    inOrder.verify(emailChannel).deliver(notification2, "simon");
+    inOrder.verify(emailChannel).deliver(notification3, "simon");
+    assertThat(threads).hasSize(3);
+    assertThat(threads).containsOnly(threads.get(0));
+    assertThat(threads.get(0)).isNotSameAs(Thread.currentThread());
+  }
+
+  @Test
+  public void return_once_all_notifications_are_delivered() {
+    List<String> delivered = new CopyOnWriteArrayList<>();
+    doAnswer(invocation -> {
+      Thread.sleep(20L);
+      return delivered.add((String) invocation.getArguments()[1]);
+    }).when(emailChannel).deliver(any(Notification.class), anyString());
+    NotificationService underTest = newService(new RecipientsDispatcher(emailChannel));
+
+    underTest.deliver(asList(newNotification("simon", "evgeny"), newNotification("freddy")), executor);
+
+    assertThat(delivered).containsOnly("simon", "evgeny", "freddy");
+  }
+
+  @Test
+  public void continue_delivery_if_a_channel_fails() {
+    Notification notification1 = newNotification("simon");
+    Notification notification2 = newNotification("simon", "evgeny");
+    doThrow(new IllegalStateException("SMTP server is down")).when(emailChannel).deliver(eq(notification1), anyString());
+    NotificationService underTest = newService(new RecipientsDispatcher(emailChannel), new RecipientsDispatcher(gtalkChannel));
+
+    underTest.deliver(asList(notification1, notification2), executor);
+
+    verify(gtalkChannel).deliver(notification1, "simon");
+    verify(emailChannel).deliver(notification2, "simon");
+    verify(emailChannel).deliver(notification2, "evgeny");
+  }
+
+  @Test
+  public void continue_delivery_if_a_dispatcher_fails() {
+    Notification notification = newNotification("simon");
+    NotificationDispatcher failingDispatcher = new NotificationDispatcher(TYPE) {
+      @Override
+      public void dispatch(Notification notification, Context context) {
+        throw new IllegalStateException("Unexpected exception");
+      }
+    };
+    NotificationService underTest = newService(failingDispatcher, new RecipientsDispatcher(emailChannel));
+
+    underTest.deliver(asList(notification), executor);
+
+    verify(emailChannel).deliver(notification, "simon");
+  }
+
+  @Test
+  public void deliver_nothing_if_notifications_have_no_recipient() {
+    NotificationService underTest = newService(new RecipientsDispatcher(emailChannel));
+
+    underTest.deliver(asList(newNotification()), executor);
+
+    verify(emailChannel, never()).deliver(any(Notification.class), anyString());
+  }
+
+  @Test
+  public void fail_if_executor_does_not_accept_tasks() {
+    executor.shutdown();
+    NotificationService underTest = newService(new RecipientsDispatcher(emailChannel));
+
+    expectedException.expect(RejectedExecutionException.class);
+
+    underTest.deliver(asList(newNotification("simon")), executor);
+  }
+
+  @Test
+  public void fail_if_interrupted_while_waiting_for_delivery() throws Exception {
+    CountDownLatch delivering = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      delivering.await();
+      return null;
+    }).when(emailChannel).deliver(any(Notification.class), anyString());
+    NotificationService underTest = newService(new RecipientsDispatcher(emailChannel));
+
+    Thread.currentThread().interrupt();
+    try {
+      underTest.deliver(asList(newNotification("simon")), executor);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Interrupted while delivering notifications");
+      assertThat(Thread.interrupted()).isTrue();
+    } finally {
+      delivering.countDown();
+    }
+  }
+
+  private static NotificationService newService(NotificationDispatcher... dispatchers) {
+    return new NotificationService(mock(DbClient.class), dispatchers);
+  }
+
+  private Notification newNotification(String... recipients) {
+    // notifications are compared by value
+    notificationCount++;
+    return new Notification(TYPE)
+      .setFieldValue("id", String.valueOf(notificationCount))
+      .setFieldValue("recipients", String.join(",", recipients));
+  }
+
+  /**
+   * Notifies the users listed in the field "recipients" of notifications, on the specified channel
+   */
+  private static class RecipientsDispatcher extends NotificationDispatcher {
+    private final NotificationChannel channel;
+
+    RecipientsDispatcher(NotificationChannel channel) {
+      super(TYPE);
+      this.channel = channel;
+    }
+
+    @Override
+    public void dispatch(Notification notification, Context context) {
+      for (String recipient : notification.getFieldValue("recipients").split(",")) {
+        if (!recipient.isEmpty()) {
+          context.addUser(recipient, channel);
+        }
+      }
+    }
+  }
+}
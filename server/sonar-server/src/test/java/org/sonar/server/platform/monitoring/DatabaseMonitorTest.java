@@ -62,5 +62,7 @@ public class DatabaseMonitorTest {
   public void pool_info() {
     Map<String, Object> attributes = underTest.attributes();
     assertThat((int) attributes.get("Pool Max Connections")).isGreaterThan(0);
+    assertThat(attributes).containsKeys("Pool Borrows In Progress", "Pool Borrow Count", "Pool Total Borrow Wait (ms)",
+      "Pool Max Borrow Wait (ms)", "Pool Borrow Wait Distribution");
   }
 }
@@ -0,0 +1,54 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Map;
+import org.junit.Test;
+import org.sonar.server.notification.NotificationDaemon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NotificationsMonitorTest {
+
+  private NotificationDaemon daemon = mock(NotificationDaemon.class);
+  private NotificationsMonitor underTest = new NotificationsMonitor(daemon);
+
+  @Test
+  public void name_is_not_empty() {
+    assertThat(underTest.name()).isNotEmpty();
+  }
+
+  @Test
+  public void test_attributes() {
+    when(daemon.getProcessedCount()).thenReturn(15L);
+    when(daemon.getPendingCount()).thenReturn(4L);
+    when(daemon.getDeliveryThreads()).thenReturn(2);
+
+    Map<String, Object> attributes = underTest.attributes();
+
+    assertThat(attributes).containsExactly(
+      entry("Processed Notifications", 15L),
+      entry("Pending Notifications", 4L),
+      entry("Delivery Threads", 2));
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.Map;
+import org.junit.Test;
+import org.sonar.core.platform.ComponentContainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StartupMonitorTest {
+
+  ComponentContainer container = new ComponentContainer();
+  StartupMonitor underTest = new StartupMonitor(container);
+
+  @Test
+  public void name() {
+    assertThat(underTest.name()).isEqualTo("Startup");
+  }
+
+  @Test
+  public void durations_of_started_components() {
+    container.addSingleton(FakeStartable.class);
+    container.startComponents();
+
+    Map<String, Object> attributes = underTest.attributes();
+
+    assertThat(attributes).containsKey(FakeStartable.class.getCanonicalName());
+    assertThat((Map) attributes.get(FakeStartable.class.getCanonicalName()))
+      .containsKeys("Duration (ms)", "Started At (ms)")
+      .containsEntry("Thread", Thread.currentThread().getName());
+  }
+
+  @Test
+  public void no_attributes_if_container_is_not_started() {
+    assertThat(underTest.attributes()).isEmpty();
+  }
+
+  public static class FakeStartable {
+    public void start() {
+      // nothing to do
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.sonar.server.ws.LatencyHistogram;
+import org.sonar.server.ws.WsActionMetrics;
+import org.sonar.server.ws.WsActionMetrics.ActionMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WebServicesMonitorTest {
+
+  WsActionMetrics metrics = mock(WsActionMetrics.class);
+  WebServicesMonitor underTest = new WebServicesMonitor(metrics);
+
+  @Test
+  public void name() {
+    assertThat(underTest.name()).isEqualTo("Web Services");
+  }
+
+  @Test
+  public void no_actions_if_no_requests() {
+    when(metrics.getMetricsByAction()).thenReturn(ImmutableMap.of());
+
+    assertThat(underTest.getRequestCount()).isZero();
+    assertThat(underTest.getActionLatencies()).isEmpty();
+    assertThat(underTest.attributes()).containsOnlyKeys("Requests", "Slow Request Threshold (ms)", "Slow Requests");
+  }
+
+  @Test
+  public void actions_are_sorted_by_total_time() {
+    ActionMetrics search = newActionMetrics(10, 20, 30, 400);
+    ActionMetrics show = newActionMetrics(5);
+    when(metrics.getMetricsByAction()).thenReturn(ImmutableMap.of("api/issues/show", show, "api/issues/search", search));
+    when(metrics.getSlowRequestCount()).thenReturn(1L);
+    when(metrics.getSlowRequestThresholdMs()).thenReturn(300L);
+
+    assertThat(underTest.getRequestCount()).isEqualTo(5);
+    assertThat(underTest.getSlowRequestCount()).isEqualTo(1);
+    assertThat(underTest.getSlowRequestThreshold()).isEqualTo(300);
+    assertThat(underTest.getActionLatencies()).containsExactly(
+      "api/issues/search count=4 p50=20ms p95=400ms p99=400ms max=400ms",
+      "api/issues/show count=1 p50=5ms p95=5ms p99=5ms max=5ms");
+
+    Map<String, Object> attributes = underTest.attributes();
+    assertThat(attributes).containsEntry("Requests", 5L);
+    assertThat(attributes.keySet()).containsSubsequence("api/issues/search", "api/issues/show");
+    assertThat((Map) attributes.get("api/issues/search"))
+      .containsEntry("Requests", 4L)
+      .containsEntry("Max (ms)", 400L)
+      .doesNotContainKey("Mean DB Time (ms)");
+  }
+
+  @Test
+  public void mean_db_time_is_computed_over_requests_with_sql_timing() {
+    ActionMetrics search = newActionMetrics(10);
+    when(search.getProfiledRequestCount()).thenReturn(2L);
+    when(search.getDbTimedRequestCount()).thenReturn(1L);
+    when(search.getDbNanos()).thenReturn(TimeUnit.MILLISECONDS.toNanos(10L));
+    when(search.getConnectionWaitNanos()).thenReturn(TimeUnit.MILLISECONDS.toNanos(4L));
+    when(search.getEsNanos()).thenReturn(TimeUnit.MILLISECONDS.toNanos(6L));
+    when(metrics.getMetricsByAction()).thenReturn(ImmutableMap.of("api/issues/search", search));
+
+    assertThat((Map) underTest.attributes().get("api/issues/search"))
+      .containsEntry("Mean DB Time (ms)", 10L)
+      .containsEntry("Mean DB Pool Wait (ms)", 2L)
+      .containsEntry("Mean ES Time (ms)", 3L)
+      .containsEntry("Mean Serialization Time (ms)", 0L);
+  }
+
+  private static ActionMetrics newActionMetrics(long... durationsMs) {
+    LatencyHistogram latency = new LatencyHistogram();
+    for (long durationMs : durationsMs) {
+      latency.record(TimeUnit.MILLISECONDS.toNanos(durationMs));
+    }
+    ActionMetrics metrics = mock(ActionMetrics.class);
+    when(metrics.getLatency()).thenReturn(latency);
+    return metrics;
+  }
+}
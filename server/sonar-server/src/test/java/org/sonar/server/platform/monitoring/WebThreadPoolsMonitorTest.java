@@ -0,0 +1,75 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Map;
+import org.junit.Test;
+import org.sonar.server.ws.WsConcurrencyLimiter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WebThreadPoolsMonitorTest {
+
+  WsConcurrencyLimiter limiter = mock(WsConcurrencyLimiter.class);
+  WebThreadPoolsMonitor underTest = new WebThreadPoolsMonitor(limiter);
+
+  @Test
+  public void name() {
+    assertThat(underTest.name()).isEqualTo("Web Thread Pools");
+  }
+
+  @Test
+  public void no_heavy_actions_attributes_if_limiter_is_disabled() {
+    when(limiter.isEnabled()).thenReturn(false);
+
+    assertThat(underTest.attributes()).doesNotContainKey("Heavy Web Services");
+  }
+
+  @Test
+  public void heavy_actions_attributes() {
+    when(limiter.isEnabled()).thenReturn(true);
+    when(limiter.getActions()).thenReturn(ImmutableSet.of("api/sources/raw", "api/issues/search"));
+    when(limiter.getMaxThreads()).thenReturn(10);
+    when(limiter.getAcceptCount()).thenReturn(5);
+    when(limiter.getActiveThreads()).thenReturn(3);
+    when(limiter.getPeakActiveThreads()).thenReturn(8L);
+    when(limiter.getWaitingRequests()).thenReturn(1);
+    when(limiter.getExecutedRequests()).thenReturn(100L);
+    when(limiter.getRejectedRequests()).thenReturn(2L);
+
+    assertThat(underTest.getHeavyActionsMaxThreads()).isEqualTo(10);
+    assertThat(underTest.getHeavyActionsActiveThreads()).isEqualTo(3);
+    assertThat(underTest.getHeavyActionsPeakActiveThreads()).isEqualTo(8);
+    assertThat(underTest.getHeavyActionsWaitingRequests()).isEqualTo(1);
+    assertThat(underTest.getHeavyActionsRejectedRequests()).isEqualTo(2);
+    assertThat((Map) underTest.attributes().get("Heavy Web Services"))
+      .containsEntry("Actions", "api/issues/search,api/sources/raw")
+      .containsEntry("Max Threads", 10)
+      .containsEntry("Accept Count", 5)
+      .containsEntry("Active Threads", 3)
+      .containsEntry("Peak Active Threads", 8L)
+      .containsEntry("Waiting Requests", 1)
+      .containsEntry("Executed Requests", 100L)
+      .containsEntry("Rejected Requests", 2L);
+  }
+}
@@ -20,6 +20,7 @@
 package org.sonar.server.plugins;
 
 import java.io.File;
+import org.apache.commons.io.FileUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -27,6 +28,7 @@ import org.sonar.core.platform.ExplodedPlugin;
 import org.sonar.core.platform.PluginInfo;
 import org.sonar.server.platform.ServerFileSystem;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -42,22 +44,60 @@ public class ServerPluginJarExploderTest {
   @Test
   public void copy_all_classloader_files_to_dedicated_directory() throws Exception {
     File deployDir = temp.newFolder();
+    File explodedDir = temp.newFolder();
     when(fs.getDeployedPluginsDir()).thenReturn(deployDir);
+    when(fs.getExplodedPluginsDir()).thenReturn(explodedDir);
     File jar = TestProjectUtils.jarOf("test-libs-plugin");
     PluginInfo info = PluginInfo.create(jar);
 
     ExplodedPlugin exploded = underTest.explode(info);
 
     // all the files loaded by classloaders (JAR + META-INF/libs/*.jar) are copied to the dedicated directory
-    // web/deploy/{pluginKey}
-    File pluginDeployDir = new File(deployDir, "testlibs");
-
+    // of exploded plugins
     assertThat(exploded.getKey()).isEqualTo("testlibs");
-    assertThat(exploded.getMain()).isFile().exists().hasParent(pluginDeployDir);
+    assertThat(exploded.getMain()).isFile().exists();
+    assertThat(exploded.getMain().getCanonicalPath()).startsWith(explodedDir.getCanonicalPath());
     assertThat(exploded.getLibs()).extracting("name").containsOnly("commons-daemon-1.0.15.jar", "commons-email-20030310.165926.jar");
     for (File lib : exploded.getLibs()) {
       assertThat(lib).exists().isFile();
-      assertThat(lib.getCanonicalPath()).startsWith(pluginDeployDir.getCanonicalPath());
+      assertThat(lib.getCanonicalPath()).startsWith(explodedDir.getCanonicalPath());
     }
+
+    // JAR is published to scanners in web/deploy/{pluginKey}
+    assertThat(new File(deployDir, "testlibs/" + jar.getName())).isFile().hasSameContentAs(jar);
+  }
+
+  @Test
+  public void reuse_exploded_files_on_restart() throws Exception {
+    File deployDir = temp.newFolder();
+    when(fs.getDeployedPluginsDir()).thenReturn(deployDir);
+    when(fs.getExplodedPluginsDir()).thenReturn(temp.newFolder());
+    PluginInfo info = PluginInfo.create(TestProjectUtils.jarOf("test-libs-plugin"));
+
+    ExplodedPlugin exploded1 = underTest.explode(info);
+    FileUtils.deleteDirectory(deployDir);
+    ExplodedPlugin exploded2 = new ServerPluginJarExploder(fs).explode(info);
+
+    assertThat(exploded2.getMain()).isEqualTo(exploded1.getMain());
+    assertThat(exploded2.getLibs()).containsOnlyElementsOf(exploded1.getLibs());
+    assertThat(new File(deployDir, "testlibs/" + info.getNonNullJarFile().getName())).isFile();
+  }
+
+  @Test
+  public void clean_exploded_files_of_uninstalled_plugins() throws Exception {
+    File explodedDir = temp.newFolder();
+    when(fs.getDeployedPluginsDir()).thenReturn(temp.newFolder());
+    when(fs.getExplodedPluginsDir()).thenReturn(explodedDir);
+    ExplodedPlugin installed = underTest.explode(PluginInfo.create(TestProjectUtils.jarOf("test-libs-plugin")));
+    File uninstalledDir = new File(explodedDir, "0123456789abcdef0123456789abcdef");
+    FileUtils.write(new File(uninstalledDir, "uninstalled.jar"), "jar");
+    FileUtils.write(new File(explodedDir, "uninstalled.checksum"), "3 1500000000000 0123456789abcdef0123456789abcdef");
+
+    underTest.cleanExplodedPlugins(singletonList("testlibs"));
+
+    assertThat(uninstalledDir).doesNotExist();
+    assertThat(new File(explodedDir, "uninstalled.checksum")).doesNotExist();
+    assertThat(new File(explodedDir, "testlibs.checksum")).isFile();
+    assertThat(installed.getMain()).isFile();
   }
 }
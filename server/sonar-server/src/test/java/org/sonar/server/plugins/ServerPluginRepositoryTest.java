@@ -45,6 +45,7 @@ import org.sonar.updatecenter.common.Version;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ServerPluginRepositoryTest {
@@ -62,7 +63,8 @@ public class ServerPluginRepositoryTest {
   ServerUpgradeStatus upgradeStatus = mock(ServerUpgradeStatus.class);
   ServerFileSystem fs = mock(ServerFileSystem.class, Mockito.RETURNS_DEEP_STUBS);
   PluginLoader pluginLoader = mock(PluginLoader.class);
-  ServerPluginRepository underTest = new ServerPluginRepository(runtime, upgradeStatus, fs, pluginLoader);
+  ServerPluginJarExploder jarExploder = mock(ServerPluginJarExploder.class);
+  ServerPluginRepository underTest = new ServerPluginRepository(runtime, upgradeStatus, fs, pluginLoader, jarExploder);
 
   @Before
   public void setUp() throws IOException {
@@ -111,6 +113,7 @@ public class ServerPluginRepositoryTest {
     underTest.start();
 
     assertThat(underTest.getPluginInfosByKeys()).containsOnlyKeys("testbase");
+    verify(jarExploder).cleanExplodedPlugins(ImmutableSet.of("testbase"));
   }
 
   @Test
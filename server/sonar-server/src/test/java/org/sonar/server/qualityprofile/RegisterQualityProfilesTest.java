@@ -25,8 +25,11 @@ import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.internal.SonarRuntimeImpl;
 import org.sonar.api.resources.Language;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.Version;
 import org.sonar.api.utils.internal.AlwaysIncreasingSystem2;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
@@ -37,6 +40,8 @@ import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.qualityprofile.QProfileDto;
 import org.sonar.db.qualityprofile.RulesProfileDto;
 import org.sonar.server.language.LanguageTesting;
+import org.sonar.server.property.InternalProperties;
+import org.sonar.server.qualityprofile.index.ActiveRuleIndexer;
 import org.sonar.server.tester.UserSessionRule;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -62,7 +67,7 @@ public class RegisterQualityProfilesTest {
   private DbClient dbClient = db.getDbClient();
   private DummyBuiltInQProfileInsert insert = new DummyBuiltInQProfileInsert();
   private DummyBuiltInQProfileUpdate update = new DummyBuiltInQProfileUpdate();
-  private RegisterQualityProfiles underTest = new RegisterQualityProfiles(builtInQProfileRepositoryRule, dbClient, insert, update, mock(BuiltInQualityProfilesUpdateListener.class), system2);
+  private RegisterQualityProfiles underTest = newRegisterQualityProfiles("6.6");
 
   @Test
   public void start_fails_if_BuiltInQProfileRepository_has_not_been_initialized() {
@@ -134,6 +139,61 @@ public class RegisterQualityProfilesTest {
     assertThat(logTester.logs(LoggerLevel.INFO)).contains("Update profile foo/Sonar way");
   }
 
+  @Test
+  public void do_not_update_built_in_profile_if_definition_is_unchanged() {
+    BuiltInQProfile builtIn = builtInQProfileRepositoryRule.add(FOO_LANGUAGE, "Sonar way", false);
+    builtInQProfileRepositoryRule.initialize();
+    insertRulesProfile(builtIn);
+
+    underTest.start();
+    underTest.start();
+
+    assertThat(update.callLogs).containsExactly(builtIn);
+  }
+
+  @Test
+  public void update_built_in_profile_again_if_rule_definitions_are_changed() {
+    BuiltInQProfile builtIn = builtInQProfileRepositoryRule.add(FOO_LANGUAGE, "Sonar way", false);
+    builtInQProfileRepositoryRule.initialize();
+    insertRulesProfile(builtIn);
+
+    underTest.start();
+    dbClient.internalPropertiesDao().save(db.getSession(), InternalProperties.RULES_DEFINITIONS_FINGERPRINT, "new rules");
+    db.commit();
+    underTest.start();
+
+    assertThat(update.callLogs).containsExactly(builtIn, builtIn);
+  }
+
+  @Test
+  public void register_built_in_profile_which_has_been_deleted_even_if_definition_is_unchanged() {
+    BuiltInQProfile builtIn = builtInQProfileRepositoryRule.add(FOO_LANGUAGE, "Sonar way", false);
+    builtInQProfileRepositoryRule.initialize();
+
+    underTest.start();
+    underTest.start();
+
+    assertThat(insert.callLogs).containsExactly(builtIn, builtIn);
+  }
+
+  @Test
+  public void update_built_in_profile_again_if_server_is_upgraded() {
+    BuiltInQProfile builtIn = builtInQProfileRepositoryRule.add(FOO_LANGUAGE, "Sonar way", false);
+    builtInQProfileRepositoryRule.initialize();
+    insertRulesProfile(builtIn);
+
+    underTest.start();
+    underTest = newRegisterQualityProfiles("6.7");
+    underTest.start();
+
+    assertThat(update.callLogs).containsExactly(builtIn, builtIn);
+  }
+
+  private RegisterQualityProfiles newRegisterQualityProfiles(String serverVersion) {
+    return new RegisterQualityProfiles(builtInQProfileRepositoryRule, dbClient, insert, update, mock(BuiltInQualityProfilesUpdateListener.class),
+      mock(ActiveRuleIndexer.class), system2, SonarRuntimeImpl.forSonarQube(Version.parse(serverVersion), SonarQubeSide.SERVER));
+  }
+
   private String selectPersistedName(QProfileDto profile) {
     return db.qualityProfiles().selectByUuid(profile.getKee()).get().getName();
   }
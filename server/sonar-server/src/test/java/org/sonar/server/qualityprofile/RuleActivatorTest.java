@@ -955,6 +955,55 @@ public class RuleActivatorTest {
     assertThatRuleIsActivated(grandchildProfile, rule2, null, rule2.getSeverityString(), INHERITED, emptyMap());
   }
 
+  @Test
+  public void bulk_activation_is_propagated_to_descendants() {
+    RuleDefinitionDto rule1 = createJavaRule();
+    RuleParamDto param = db.rules().insertRuleParam(rule1, p -> p.setName("min").setDefaultValue("10"));
+    RuleDefinitionDto rule2 = createJavaRule();
+    QProfileDto parentProfile = createProfile(rule1);
+    QProfileDto childProfile = createChildProfile(parentProfile);
+    QProfileDto grandchildProfile = createChildProfile(childProfile);
+    activate(grandchildProfile, RuleActivation.create(rule2.getKey(), CRITICAL, null));
+
+    ruleIndexer.indexOnStartup(ruleIndexer.getIndexTypes());
+
+    RuleQuery query = new RuleQuery().setLanguages(singletonList("java"));
+    BulkChangeResult result = underTest.bulkActivateAndCommit(db.getSession(), query, parentProfile, MINOR);
+
+    assertThat(result.getChanges()).hasSize(6);
+    assertThat(result.countSucceeded()).isEqualTo(2);
+    assertThat(result.countFailed()).isEqualTo(0);
+
+    assertThatRuleIsActivated(parentProfile, rule1, result.getChanges(), MINOR, null, of(param.getName(), "10"));
+    assertThatRuleIsActivated(childProfile, rule1, result.getChanges(), MINOR, INHERITED, of(param.getName(), "10"));
+    assertThatRuleIsActivated(grandchildProfile, rule1, result.getChanges(), MINOR, INHERITED, of(param.getName(), "10"));
+    assertThatRuleIsActivated(parentProfile, rule2, result.getChanges(), MINOR, null, emptyMap());
+    assertThatRuleIsActivated(childProfile, rule2, result.getChanges(), MINOR, INHERITED, emptyMap());
+    // grandchild already activated rule2 with its own severity
+    assertThatRuleIsUpdated(grandchildProfile, rule2, CRITICAL, ActiveRule.Inheritance.OVERRIDES, emptyMap());
+  }
+
+  @Test
+  public void bulk_activation_counts_failures_per_rule() {
+    RuleDefinitionDto rule = createJavaRule();
+    RuleDefinitionDto removedRule = createJavaRule();
+    QProfileDto profile = createProfile(rule);
+
+    ruleIndexer.indexOnStartup(ruleIndexer.getIndexTypes());
+    // index is not updated
+    removedRule.setStatus(RuleStatus.REMOVED);
+    db.rules().update(removedRule);
+
+    RuleQuery query = new RuleQuery().setLanguages(singletonList("java"));
+    BulkChangeResult result = underTest.bulkActivateAndCommit(db.getSession(), query, profile, MINOR);
+
+    assertThat(result.countSucceeded()).isEqualTo(1);
+    assertThat(result.countFailed()).isEqualTo(1);
+    assertThat(result.getErrors()).containsExactly("Rule was removed: " + removedRule.getKey());
+    assertThatRuleIsActivated(profile, rule, result.getChanges(), MINOR, null, emptyMap());
+    assertThatRuleIsNotPresent(profile, removedRule);
+  }
+
   @Test
   public void activateOnBuiltInProfile_throws_IAE_when_profile_is_not_built_in() {
     RuleDefinitionDto rule = createJavaRule();
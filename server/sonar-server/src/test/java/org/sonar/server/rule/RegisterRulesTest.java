@@ -23,7 +23,10 @@ import java.util.Date;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.SonarRuntime;
 import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.internal.SonarRuntimeImpl;
 import org.sonar.api.resources.Language;
 import org.sonar.api.resources.Languages;
 import org.sonar.api.rule.RuleKey;
@@ -33,12 +36,16 @@ import org.sonar.api.server.debt.DebtRemediationFunction;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.Version;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.organization.OrganizationDto;
+import org.sonar.db.qualityprofile.ActiveRuleDto;
+import org.sonar.db.qualityprofile.ActiveRuleParamDto;
+import org.sonar.db.qualityprofile.QProfileDto;
 import org.sonar.db.rule.RuleDefinitionDto;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleParamDto;
@@ -58,6 +65,7 @@ import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Collections.singletonList;
 import static org.apache.commons.lang.RandomStringUtils.randomAlphanumeric;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
@@ -92,6 +100,7 @@ public class RegisterRulesTest {
   private RuleIndex ruleIndex;
   private OrganizationDto defaultOrganization;
   private OrganizationFlags organizationFlags = TestOrganizationFlags.standalone();
+  private SonarRuntime runtime = SonarRuntimeImpl.forSonarQube(Version.parse("6.6"), SonarQubeSide.SERVER);
 
   @Before
   public void before() {
@@ -388,6 +397,71 @@ public class RegisterRulesTest {
     assertThat(rule1.getUpdatedAt()).isEqualTo(DATE1.getTime());
   }
 
+  @Test
+  public void do_not_register_rules_when_definitions_are_unchanged() {
+    execute(new FakeRepositoryV1());
+    RuleDefinitionDto rule1 = dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1);
+    dbClient.ruleDao().update(dbTester.getSession(), rule1.setName("Name changed in db"));
+    dbTester.getSession().commit();
+
+    when(system.now()).thenReturn(DATE2.getTime());
+    execute(new FakeRepositoryV1());
+
+    assertThat(dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1).getName()).isEqualTo("Name changed in db");
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("Rule definitions are unchanged");
+
+    execute(new FakeRepositoryV2());
+
+    assertThat(dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1).getName()).isEqualTo("One v2");
+  }
+
+  @Test
+  public void register_rules_again_when_server_is_upgraded() {
+    execute(new FakeRepositoryV1());
+    RuleDefinitionDto rule1 = dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1);
+    dbClient.ruleDao().update(dbTester.getSession(), rule1.setName("Name changed in db"));
+    dbTester.getSession().commit();
+
+    runtime = SonarRuntimeImpl.forSonarQube(Version.parse("6.7"), SonarQubeSide.SERVER);
+    execute(new FakeRepositoryV1());
+
+    assertThat(dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1).getName()).isEqualTo("One");
+  }
+
+  @Test
+  public void register_rules_again_when_organizations_are_enabled() {
+    execute(new RepositoryWithOneTemplateRule());
+    assertThat(dbClient.ruleDao().selectAllDefinitions(dbTester.getSession())).hasSize(1);
+
+    organizationFlags.enable(dbTester.getSession());
+    execute(new RepositoryWithOneTemplateRule());
+
+    assertThat(dbClient.ruleDao().selectAllDefinitions(dbTester.getSession()))
+      .extracting(RuleDefinitionDto::getStatus)
+      .containsOnly(RuleStatus.REMOVED);
+  }
+
+  @Test
+  public void propagate_default_value_of_new_parameter_to_active_rules() {
+    execute(new FakeRepositoryV1());
+    RuleDefinitionDto rule1 = dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1);
+    QProfileDto profile = dbTester.qualityProfiles().insert(defaultOrganization);
+    ActiveRuleDto activeRule = dbTester.qualityProfiles().activateRule(profile, rule1);
+
+    execute(context -> {
+      RulesDefinition.NewRepository repo = context.createRepository("fake", "java");
+      repo.createRule("rule1")
+        .setName("One")
+        .setHtmlDescription("Description of One")
+        .createParam("param3").setDefaultValue("default3");
+      repo.done();
+    });
+
+    assertThat(dbClient.activeRuleDao().selectParamsByActiveRuleId(dbTester.getSession(), activeRule.getId()))
+      .extracting(ActiveRuleParamDto::getKey, ActiveRuleParamDto::getValue)
+      .containsOnly(tuple("param3", "default3"));
+  }
+
   @Test
   public void do_not_update_already_removed_rules() {
     execute(new FakeRepositoryV1());
@@ -486,7 +560,7 @@ public class RegisterRulesTest {
     when(languages.get("java")).thenReturn(mock(Language.class));
     reset(webServerRuleFinder);
 
-    RegisterRules task = new RegisterRules(loader, ruleActivator, dbClient, ruleIndexer, activeRuleIndexer, languages, system, organizationFlags, webServerRuleFinder);
+    RegisterRules task = new RegisterRules(loader, ruleActivator, dbClient, ruleIndexer, activeRuleIndexer, languages, system, organizationFlags, webServerRuleFinder, runtime);
     task.start();
     // Execute a commit to refresh session state as the task is using its own session
     dbTester.getSession().commit();
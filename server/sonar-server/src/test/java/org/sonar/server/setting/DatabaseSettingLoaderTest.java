@@ -20,10 +20,12 @@
 package org.sonar.server.setting;
 
 import com.google.common.collect.ImmutableMap;
+import java.util.Map;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
+import org.sonar.db.property.PropertiesDao;
 import org.sonar.db.property.PropertyDto;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -74,6 +76,58 @@ public class DatabaseSettingLoaderTest {
   assertThat(map.build()).containsOnly(entry("foo", "1"), entry("bar", "2"));
  }
 
+  @Test
+  public void loadAll_returns_properties_changed_in_db_since_previous_call() {
+    insertPropertyIntoDb("foo", "1");
+    insertPropertyIntoDb("bar", "2");
+    assertThat(loadAll()).containsOnly(entry("foo", "1"), entry("bar", "2"));
+    assertThat(loadAll()).containsOnly(entry("foo", "1"), entry("bar", "2"));
+
+    insertPropertyIntoDb("foo", "3");
+    assertThat(loadAll()).containsOnly(entry("foo", "3"), entry("bar", "2"));
+
+    dbTester.getDbClient().propertiesDao().deleteGlobalProperty("bar");
+    assertThat(loadAll()).containsOnly(entry("foo", "3"));
+  }
+
+  @Test
+  public void loadAll_detects_delete_and_insert_done_in_the_same_millisecond() {
+    PropertiesDao dao = dbTester.getDbClient().propertiesDao();
+    insertPropertyIntoDb("foo", "1");
+    insertPropertyIntoDb("bar", "2");
+    assertThat(loadAll()).containsOnly(entry("foo", "1"), entry("bar", "2"));
+
+    // same number of rows, no new timestamp necessarily
+    dao.deleteGlobalProperty("bar");
+    insertPropertyIntoDb("baz", "3");
+    assertThat(loadAll()).containsOnly(entry("foo", "1"), entry("baz", "3"));
+  }
+
+  @Test
+  public void loadAll_detects_update_of_a_property_which_is_not_the_newest() {
+    insertPropertyIntoDb("foo", "1");
+    insertPropertyIntoDb("bar", "2");
+    assertThat(loadAll()).containsOnly(entry("foo", "1"), entry("bar", "2"));
+
+    insertPropertyIntoDb("foo", "3");
+    assertThat(loadAll()).containsOnly(entry("foo", "3"), entry("bar", "2"));
+  }
+
+  @Test
+  public void loadAll_ignores_changes_of_project_properties() {
+    insertPropertyIntoDb("foo", "1");
+    assertThat(loadAll()).containsOnly(entry("foo", "1"));
+
+    dbTester.getDbClient().propertiesDao().saveProperty(new PropertyDto().setKey("foo").setValue("2").setResourceId(10L));
+    assertThat(loadAll()).containsOnly(entry("foo", "1"));
+  }
+
+  private Map<String, String> loadAll() {
+    ImmutableMap.Builder<String, String> map = ImmutableMap.builder();
+    underTest.loadAll(map);
+    return map.build();
+  }
+
   private void insertPropertyIntoDb(String key, String value) {
     dbTester.getDbClient().propertiesDao().saveProperty(new PropertyDto().setKey(key).setValue(value));
   }
@@ -37,7 +37,12 @@ import org.sonar.api.config.PropertyDefinitions;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.data.MapEntry.entry;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 public class ThreadLocalSettingsTest {
 
@@ -213,6 +218,23 @@ public class ThreadLocalSettingsTest {
     underTest.unload();
   }
 
+  @Test
+  public void load_reads_all_database_properties_at_once() {
+    SettingLoader loader = mock(SettingLoader.class);
+    doAnswer(invocation -> ((ImmutableMap.Builder<String, String>) invocation.getArguments()[0]).put("foo", "1").put("bar", "2"))
+      .when(loader).loadAll(any());
+    underTest = new ThreadLocalSettings(new PropertyDefinitions(), new Properties(), loader);
+    underTest.load();
+
+    assertThat(underTest.get("foo").get()).isEqualTo("1");
+    assertThat(underTest.get("bar").get()).isEqualTo("2");
+    assertThat(underTest.get("missing")).isNotPresent();
+
+    verify(loader).loadAll(any());
+    verify(loader, never()).load(anyString());
+    underTest.unload();
+  }
+
   @Test
   public void change_setting_loader() {
     underTest = new ThreadLocalSettings(new PropertyDefinitions(), new Properties());
@@ -0,0 +1,87 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+  private LatencyHistogram underTest = new LatencyHistogram();
+
+  @Test
+  public void empty_histogram() {
+    assertThat(underTest.getCount()).isZero();
+    assertThat(underTest.getTotalMicros()).isZero();
+    assertThat(underTest.getMaxMicros()).isZero();
+    assertThat(underTest.getValueAtPercentile(99.0)).isZero();
+  }
+
+  @Test
+  public void record_durations() {
+    for (int i = 1; i <= 100; i++) {
+      underTest.record(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+
+    assertThat(underTest.getCount()).isEqualTo(100);
+    assertThat(underTest.getTotalMicros()).isEqualTo(5_050_000L);
+    assertThat(underTest.getMaxMicros()).isEqualTo(100_000L);
+    assertThat(underTest.getValueAtPercentile(100.0)).isEqualTo(100_000L);
+    assertRelativeError(underTest.getValueAtPercentile(50.0), 50_000L);
+    assertRelativeError(underTest.getValueAtPercentile(95.0), 95_000L);
+    assertRelativeError(underTest.getValueAtPercentile(99.0), 99_000L);
+  }
+
+  @Test
+  public void small_durations_are_exact() {
+    underTest.record(TimeUnit.MICROSECONDS.toNanos(3L));
+    underTest.record(TimeUnit.MICROSECONDS.toNanos(7L));
+
+    assertThat(underTest.getValueAtPercentile(50.0)).isEqualTo(3L);
+    assertThat(underTest.getValueAtPercentile(100.0)).isEqualTo(7L);
+  }
+
+  @Test
+  public void huge_and_negative_durations_are_bounded() {
+    underTest.record(Long.MAX_VALUE);
+    underTest.record(-10L);
+
+    assertThat(underTest.getMaxMicros()).isEqualTo(LatencyHistogram.MAX_VALUE);
+    assertThat(underTest.getValueAtPercentile(50.0)).isZero();
+    assertThat(underTest.getValueAtPercentile(100.0)).isEqualTo(LatencyHistogram.MAX_VALUE);
+  }
+
+  @Test
+  public void buckets_cover_all_values_without_gaps() {
+    assertThat(LatencyHistogram.bucketIndex(LatencyHistogram.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKETS - 1);
+    assertThat(LatencyHistogram.highestValue(LatencyHistogram.BUCKETS - 1)).isEqualTo(LatencyHistogram.MAX_VALUE);
+    for (int i = 1; i < LatencyHistogram.BUCKETS; i++) {
+      long lowestValue = LatencyHistogram.highestValue(i - 1) + 1;
+      assertThat(LatencyHistogram.bucketIndex(lowestValue)).isEqualTo(i);
+      assertThat(LatencyHistogram.bucketIndex(LatencyHistogram.highestValue(i))).isEqualTo(i);
+    }
+  }
+
+  private static void assertRelativeError(long value, long expected) {
+    assertThat(value).isBetween(expected, expected + expected / 8);
+  }
+}
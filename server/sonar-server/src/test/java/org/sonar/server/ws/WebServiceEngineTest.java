@@ -21,6 +21,7 @@ package org.sonar.server.ws;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import javax.servlet.http.HttpServletResponse;
 import org.apache.catalina.connector.ClientAbortException;
@@ -30,11 +31,15 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.server.ws.LocalConnector;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.api.server.ws.internal.ValidatingRequest;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.core.util.logs.RequestProfile;
+import org.sonar.db.Database;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonarqube.ws.MediaTypes;
 
@@ -50,10 +55,15 @@ public class WebServiceEngineTest {
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
 
-  private WebServiceEngine underTest = new WebServiceEngine(new WebService[] {new SystemWs()});
+  private MapSettings settings = new MapSettings();
+  private WsActionMetrics metrics = new WsActionMetrics(settings.asConfig(), mock(Database.class));
+  private WsConcurrencyLimiter limiter = new WsConcurrencyLimiter(settings.asConfig());
+  private WebServiceEngine underTest = new WebServiceEngine(new WebService[] {new SystemWs()}, metrics, limiter);
 
   @Before
   public void start() {
+    metrics.start();
+    limiter.start();
     underTest.start();
   }
 
@@ -77,6 +87,78 @@ public class WebServiceEngineTest {
     assertThat(response.stream().outputAsString()).isEqualTo("good");
   }
 
+  @Test
+  public void record_latency_of_executed_actions() {
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/health"), new DumbResponse());
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/health"), new DumbResponse());
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/fail"), new DumbResponse());
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/unknown"), new DumbResponse());
+
+    assertThat(metrics.getMetricsByAction()).containsOnlyKeys("api/system/health", "api/system/fail");
+    assertThat(metrics.getMetricsByAction().get("api/system/health").getLatency().getCount()).isEqualTo(2);
+    assertThat(metrics.getMetricsByAction().get("api/system/health").getProfiledRequestCount()).isEqualTo(2);
+    assertThat(metrics.getMetricsByAction().get("api/system/health").getDbTimedRequestCount()).isZero();
+    assertThat(metrics.getMetricsByAction().get("api/system/fail").getLatency().getCount()).isEqualTo(1);
+    assertThat(RequestProfile.current()).isNull();
+  }
+
+  @Test
+  public void log_slow_requests_if_threshold_is_defined() {
+    settings.setProperty("sonar.web.slowRequestThreshold", "50");
+    metrics.start();
+
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/sleep"), new DumbResponse());
+
+    assertThat(metrics.getSlowRequestCount()).isEqualTo(1);
+    assertThat(metrics.getMetricsByAction().get("api/system/sleep").getDbTimedRequestCount()).isEqualTo(1);
+    assertThat(logTester.logs(LoggerLevel.WARN)).hasSize(1);
+    assertThat(logTester.logs(LoggerLevel.WARN).get(0))
+      .startsWith("Slow request GET /api/system/sleep | time=")
+      .contains("| db=0ms (0 queries) | db pool wait=0ms | es=0ms (0 requests) | serialization=0ms | other=");
+  }
+
+  @Test
+  public void request_executed_through_local_connector_is_profiled_by_calling_request() {
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/call_health"), new DumbResponse());
+
+    assertThat(metrics.getMetricsByAction().get("api/system/call_health").getProfiledRequestCount()).isEqualTo(1);
+    assertThat(metrics.getMetricsByAction().get("api/system/health").getLatency().getCount()).isEqualTo(1);
+    assertThat(metrics.getMetricsByAction().get("api/system/health").getProfiledRequestCount()).isZero();
+    assertThat(RequestProfile.current()).isNull();
+  }
+
+  @Test
+  public void heavy_actions_are_rejected_if_too_many_requests_are_running() {
+    settings.setProperty("sonar.web.http.heavyActions", "api/system/call_health");
+    settings.setProperty("sonar.web.http.heavyActions.maxThreads", "1");
+    settings.setProperty("sonar.web.http.heavyActions.acceptCount", "0");
+    limiter.start();
+
+    WsConcurrencyLimiter.Permit permit = limiter.acquire("api/system/call_health");
+    DumbResponse response = new DumbResponse();
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/call_health"), response);
+    permit.close();
+
+    assertThat(response.stream().status()).isEqualTo(503);
+    assertThat(response.stream().outputAsString()).isEqualTo("{\"errors\":[{\"msg\":\"Too many concurrent requests to api/system/call_health. Please retry later.\"}]}");
+    assertThat(limiter.getRejectedRequests()).isEqualTo(1);
+  }
+
+  @Test
+  public void request_executed_through_local_connector_does_not_wait_for_thread_of_heavy_actions() {
+    settings.setProperty("sonar.web.http.heavyActions", "api/system/call_health,api/system/health");
+    settings.setProperty("sonar.web.http.heavyActions.maxThreads", "1");
+    settings.setProperty("sonar.web.http.heavyActions.acceptCount", "0");
+    limiter.start();
+
+    DumbResponse response = new DumbResponse();
+    underTest.execute(new TestRequest().setMethod("GET").setPath("/api/system/call_health"), response);
+
+    assertThat(response.stream().status()).isEqualTo(204);
+    assertThat(limiter.getExecutedRequests()).isEqualTo(1);
+    assertThat(limiter.getActiveThreads()).isZero();
+  }
+
   @Test
   public void execute_request_when_path_does_not_begin_with_slash() {
     ValidatingRequest request = new TestRequest().setMethod("GET").setPath("/api/system/health");
@@ -363,6 +445,20 @@ public class WebServiceEngineTest {
         });
       createNewDefaultAction(newController, "alive")
         .setHandler((request, response) -> response.noContent());
+      createNewDefaultAction(newController, "sleep")
+        .setHandler((request, response) -> {
+          try {
+            Thread.sleep(60L);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          response.noContent();
+        });
+      createNewDefaultAction(newController, "call_health")
+        .setHandler((request, response) -> {
+          request.localConnector().call(new SimpleLocalRequest("api/system/health"));
+          response.noContent();
+        });
 
       createNewDefaultAction(newController, "fail_with_undeclared_parameter")
         .setHandler((request, response) -> response.newJsonWriter().prop("unknown", request.param("unknown")));
@@ -398,4 +494,42 @@ public class WebServiceEngineTest {
         .setResponseExample(getClass().getResource("web-service-engine-test.txt"));
     }
   }
+
+  private static class SimpleLocalRequest implements LocalConnector.LocalRequest {
+    private final String path;
+
+    SimpleLocalRequest(String path) {
+      this.path = path;
+    }
+
+    @Override
+    public String getPath() {
+      return path;
+    }
+
+    @Override
+    public String getMediaType() {
+      return MediaTypes.JSON;
+    }
+
+    @Override
+    public String getMethod() {
+      return "GET";
+    }
+
+    @Override
+    public boolean hasParam(String key) {
+      return false;
+    }
+
+    @Override
+    public String getParam(String key) {
+      return null;
+    }
+
+    @Override
+    public List<String> getMultiParam(String key) {
+      return Collections.emptyList();
+    }
+  }
 }
@@ -0,0 +1,150 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.server.exceptions.ServerException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class WsConcurrencyLimiterTest {
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private MapSettings settings = new MapSettings();
+  private WsConcurrencyLimiter underTest = new WsConcurrencyLimiter(settings.asConfig());
+
+  @Test
+  public void disabled_by_default() {
+    underTest.start();
+
+    assertThat(underTest.isEnabled()).isFalse();
+    assertThat(underTest.acquire("api/issues/search")).isSameAs(WsConcurrencyLimiter.NO_PERMIT);
+    assertThat(underTest.getExecutedRequests()).isZero();
+  }
+
+  @Test
+  public void default_heavy_actions() {
+    settings.setProperty(WsConcurrencyLimiter.PROPERTY_MAX_THREADS, "10");
+    underTest.start();
+
+    assertThat(underTest.isEnabled()).isTrue();
+    assertThat(underTest.getActions()).containsOnly("api/issues/search", "api/sources/raw", "api/ce/submit");
+    assertThat(underTest.getAcceptCount()).isEqualTo(10);
+  }
+
+  @Test
+  public void other_actions_are_not_limited() {
+    settings.setProperty(WsConcurrencyLimiter.PROPERTY_MAX_THREADS, "1");
+    underTest.start();
+
+    assertThat(underTest.acquire("api/issues/show")).isSameAs(WsConcurrencyLimiter.NO_PERMIT);
+    assertThat(underTest.getActiveThreads()).isZero();
+  }
+
+  @Test
+  public void release_thread_when_permit_is_closed() {
+    settings.setProperty(WsConcurrencyLimiter.PROPERTY_MAX_THREADS, "2");
+    underTest.start();
+
+    WsConcurrencyLimiter.Permit permit1 = underTest.acquire("api/issues/search");
+    WsConcurrencyLimiter.Permit permit2 = underTest.acquire("api/sources/raw");
+    assertThat(underTest.getActiveThreads()).isEqualTo(2);
+
+    permit1.close();
+    permit2.close();
+    assertThat(underTest.getActiveThreads()).isZero();
+    assertThat(underTest.getPeakActiveThreads()).isEqualTo(2);
+    assertThat(underTest.getExecutedRequests()).isEqualTo(2);
+  }
+
+  @Test
+  public void request_waits_for_thread_to_be_released() throws Exception {
+    settings.setProperty(WsConcurrencyLimiter.PROPERTY_MAX_THREADS, "1");
+    underTest.start();
+    WsConcurrencyLimiter.Permit permit = underTest.acquire("api/issues/search");
+
+    CountDownLatch executed = new CountDownLatch(1);
+    Thread waitingRequest = new Thread(() -> {
+      underTest.acquire("api/issues/search").close();
+      executed.countDown();
+    });
+    waitingRequest.start();
+    while (underTest.getWaitingRequests() == 0) {
+      Thread.sleep(1L);
+    }
+    assertThat(executed.getCount()).isEqualTo(1);
+
+    permit.close();
+    assertThat(executed.await(10, TimeUnit.SECONDS)).isTrue();
+    waitingRequest.join();
+    assertThat(underTest.getWaitingRequests()).isZero();
+    assertThat(underTest.getRejectedRequests()).isZero();
+  }
+
+  @Test
+  public void reject_request_if_too_many_requests_are_waiting() {
+    settings.setProperty(WsConcurrencyLimiter.PROPERTY_MAX_THREADS, "1");
+    settings.setProperty(WsConcurrencyLimiter.PROPERTY_ACCEPT_COUNT, "0");
+    underTest.start();
+    underTest.acquire("api/issues/search");
+
+    try {
+      underTest.acquire("api/issues/search");
+      fail();
+    } catch (ServerException e) {
+      assertThat(e.httpCode()).isEqualTo(503);
+      assertThat(e.getMessage()).isEqualTo("Too many concurrent requests to api/issues/search. Please retry later.");
+    }
+    assertThat(underTest.getRejectedRequests()).isEqualTo(1);
+    assertThat(underTest.getWaitingRequests()).isZero();
+  }
+
+  @Test
+  public void warn_if_heavy_actions_can_use_all_web_threads() {
+    settings.setProperty("sonar.web.http.maxThreads", "20");
+    settings.setProperty(WsConcurrencyLimiter.PROPERTY_MAX_THREADS, "15");
+    settings.setProperty(WsConcurrencyLimiter.PROPERTY_ACCEPT_COUNT, "5");
+    underTest.start();
+
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsExactly(
+      "Heavy web services can use up to 20 threads (15 + 5), leaving no web thread to other requests. " +
+        "Please check properties sonar.web.http.heavyActions.maxThreads and sonar.web.http.heavyActions.acceptCount");
+  }
+
+  @Test
+  public void compare_with_default_number_of_web_threads_if_not_configured() {
+    settings.setProperty(WsConcurrencyLimiter.PROPERTY_MAX_THREADS, "40");
+    settings.setProperty(WsConcurrencyLimiter.PROPERTY_ACCEPT_COUNT, "10");
+    underTest.start();
+
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsExactly(
+      "Heavy web services can use up to 50 threads (40 + 10), leaving no web thread to other requests. " +
+        "Please check properties sonar.web.http.heavyActions.maxThreads and sonar.web.http.heavyActions.acceptCount");
+  }
+}
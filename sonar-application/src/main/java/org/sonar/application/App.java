@@ -27,6 +27,7 @@ import org.sonar.process.command.CommandFactory;
 import org.sonar.process.command.CommandFactoryImpl;
 import org.sonar.application.process.ProcessLauncher;
 import org.sonar.application.process.ProcessLauncherImpl;
+import org.sonar.application.process.ProcessMetricsLogger;
 import org.sonar.application.process.StopRequestWatcher;
 import org.sonar.application.process.StopRequestWatcherImpl;
 import org.sonar.process.SystemExit;
@@ -64,9 +65,12 @@ public class App {
 
         stopRequestWatcher = StopRequestWatcherImpl.create(settings, scheduler, fileSystem);
         stopRequestWatcher.startWatching();
+        ProcessMetricsLogger processMetricsLogger = ProcessMetricsLogger.create(settings, fileSystem);
+        processMetricsLogger.startLogging();
 
         scheduler.awaitTermination();
         stopRequestWatcher.stopWatching();
+        processMetricsLogger.stopLogging();
       }
     }
 
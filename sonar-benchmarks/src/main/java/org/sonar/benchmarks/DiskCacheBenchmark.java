@@ -0,0 +1,99 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.utils.System2;
+import org.sonar.core.util.CloseableIterator;
+import org.sonar.server.util.cache.DiskCache;
+
+/**
+ * Full traversal of a {@link DiskCache}, as done when persisting issues in Compute Engine
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DiskCacheBenchmark {
+
+  @Param({"100000"})
+  public int size;
+
+  private File file;
+  private DiskCache<Item> cache;
+
+  @Setup
+  public void setUp() throws IOException {
+    SyntheticData data = new SyntheticData();
+    file = File.createTempFile("benchmark", ".cache");
+    cache = new DiskCache<>(file, System2.INSTANCE);
+    try (DiskCache<Item>.DiskAppender appender = cache.newAppender()) {
+      for (int i = 0; i < size; i++) {
+        appender.append(new Item("AV" + i, data.random().nextInt(10_000), data.line()));
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    FileUtils.deleteQuietly(file);
+  }
+
+  @Benchmark
+  public int traverse() {
+    int count = 0;
+    try (CloseableIterator<Item> it = cache.traverse()) {
+      while (it.hasNext()) {
+        count += it.next().line;
+      }
+    }
+    return count;
+  }
+
+  static class Item implements Serializable {
+    private final String key;
+    private final int line;
+    private final String message;
+
+    Item(String key, int line, String message) {
+      this.key = key;
+      this.line = line;
+      this.message = message;
+    }
+  }
+}
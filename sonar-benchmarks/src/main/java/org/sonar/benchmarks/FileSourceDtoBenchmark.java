@@ -0,0 +1,86 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDto;
+
+/**
+ * Compression and serialization of the column FILE_SOURCES.BINARY_DATA
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FileSourceDtoBenchmark {
+
+  @Param({"100", "10000"})
+  public int lines;
+
+  private final FileSourceDto dto = new FileSourceDto();
+  private DbFileSources.Data data;
+  private byte[] encoded;
+
+  @Setup
+  public void setUp() {
+    SyntheticData synthetic = new SyntheticData();
+    List<String> sources = synthetic.lines(lines);
+    DbFileSources.Data.Builder builder = DbFileSources.Data.newBuilder();
+    for (int i = 0; i < sources.size(); i++) {
+      String source = sources.get(i);
+      builder.addLinesBuilder()
+        .setLine(i + 1)
+        .setSource(source)
+        .setScmRevision("rev" + synthetic.random().nextInt(100))
+        .setScmAuthor("author" + synthetic.random().nextInt(10))
+        .setScmDate(1_500_000_000_000L + synthetic.random().nextInt(1_000_000))
+        .setLineHits(synthetic.random().nextInt(5))
+        .setHighlighting(SyntheticData.highlighting(source))
+        .setSymbols(synthetic.symbols(source));
+    }
+    data = builder.build();
+    encoded = FileSourceDto.encodeSourceData(data);
+  }
+
+  @Benchmark
+  public byte[] encodeSourceData() {
+    return FileSourceDto.encodeSourceData(data);
+  }
+
+  @Benchmark
+  public DbFileSources.Data decodeSourceData() {
+    return dto.decodeSourceData(encoded);
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.server.source.HtmlSourceDecorator;
+
+/**
+ * Decoration of the lines of a file, as done by api/sources/lines
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class HtmlSourceDecoratorBenchmark {
+
+  @Param({"500"})
+  public int lines;
+
+  private final HtmlSourceDecorator decorator = new HtmlSourceDecorator();
+  private String[] sources;
+  private String[] highlightings;
+  private String[] symbols;
+
+  @Setup
+  public void setUp() {
+    SyntheticData data = new SyntheticData();
+    List<String> generated = data.lines(lines);
+    sources = new String[lines];
+    highlightings = new String[lines];
+    symbols = new String[lines];
+    for (int i = 0; i < lines; i++) {
+      sources[i] = generated.get(i);
+      highlightings[i] = SyntheticData.highlighting(sources[i]);
+      symbols[i] = data.symbols(sources[i]);
+    }
+  }
+
+  @Benchmark
+  public void decorate(Blackhole blackhole) {
+    for (int i = 0; i < lines; i++) {
+      blackhole.consume(decorator.getDecoratedSourceAsHtml(sources[i], highlightings[i], symbols[i]));
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.MapEntry;
+import com.google.protobuf.Message;
+import java.io.StringWriter;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.util.ProtobufJsonFormat;
+import org.sonarqube.ws.Common;
+import org.sonarqube.ws.Issues;
+
+/**
+ * Serialization to JSON of a response of api/issues/search
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ProtobufJsonFormatBenchmark {
+
+  @Param({"100", "500"})
+  public int issues;
+
+  private Issues.SearchWsResponse response;
+
+  @Setup
+  public void setUp() {
+    SyntheticData data = new SyntheticData();
+    Issues.SearchWsResponse.Builder builder = Issues.SearchWsResponse.newBuilder()
+      .setTotal(issues)
+      .setP(1)
+      .setPs(issues);
+    for (int i = 0; i < issues; i++) {
+      int line = 1 + data.random().nextInt(1_000);
+      builder.addIssuesBuilder()
+        .setKey("AV" + i)
+        .setRule("squid:S" + data.random().nextInt(100))
+        .setSeverity(Common.Severity.MAJOR)
+        .setComponent("project:src/main/java/Foo" + data.random().nextInt(100) + ".java")
+        .setProject("project")
+        .setLine(line)
+        .setTextRange(Common.TextRange.newBuilder().setStartLine(line).setEndLine(line).setStartOffset(0).setEndOffset(10))
+        .setStatus("OPEN")
+        .setMessage(data.line())
+        .setEffort("5min")
+        .setAuthor("author@sonarsource.com")
+        .addTags("bug")
+        .addTags("cwe")
+        .setCreationDate("2017-09-01T10:00:00+0200")
+        .setUpdateDate("2017-09-01T10:00:00+0200")
+        .setType(Common.RuleType.CODE_SMELL);
+    }
+    response = builder.build();
+    if (!write().equals(writeWithReflection())) {
+      throw new IllegalStateException("Compiled writers and reflection do not produce the same JSON");
+    }
+  }
+
+  @Benchmark
+  public String write() {
+    StringWriter json = new StringWriter();
+    try (JsonWriter writer = JsonWriter.of(json)) {
+      ProtobufJsonFormat.write(response, writer);
+    }
+    return json.toString();
+  }
+
+  /**
+   * Baseline: reflection on descriptors for each field of each message, as done by
+   * {@link ProtobufJsonFormat} before writers were compiled per type of message
+   */
+  @Benchmark
+  public String writeWithReflection() {
+    StringWriter json = new StringWriter();
+    try (JsonWriter writer = JsonWriter.of(json)) {
+      writer.setSerializeNulls(false).setSerializeEmptys(true);
+      writer.beginObject();
+      ReflectiveJsonFormat.writeMessage(response, writer);
+      writer.endObject();
+    }
+    return json.toString();
+  }
+
+  private static class ReflectiveJsonFormat {
+    private static void writeMessage(Message message, JsonWriter writer) {
+      List<Descriptors.FieldDescriptor> fields = message.getDescriptorForType().getFields();
+      for (Descriptors.FieldDescriptor fieldDescriptor : fields) {
+        if (fieldDescriptor.isRepeated()) {
+          writer.name(fieldDescriptor.getName());
+          if (fieldDescriptor.isMapField()) {
+            writeMap((Collection<MapEntry>) message.getField(fieldDescriptor), writer);
+          } else {
+            writeArray(writer, fieldDescriptor, (Collection) message.getField(fieldDescriptor));
+          }
+        } else if (message.hasField(fieldDescriptor)) {
+          writer.name(fieldDescriptor.getName());
+          writeFieldValue(fieldDescriptor, message.getField(fieldDescriptor), writer);
+        }
+      }
+    }
+
+    private static void writeArray(JsonWriter writer, Descriptors.FieldDescriptor fieldDescriptor, Collection array) {
+      writer.beginArray();
+      for (Object o : array) {
+        writeFieldValue(fieldDescriptor, o, writer);
+      }
+      writer.endArray();
+    }
+
+    private static void writeMap(Collection<MapEntry> mapEntries, JsonWriter writer) {
+      writer.beginObject();
+      for (MapEntry mapEntry : mapEntries) {
+        writer.name(mapEntry.getKey().toString());
+        writeFieldValue(mapEntry.getDescriptorForType().findFieldByName("value"), mapEntry.getValue(), writer);
+      }
+      writer.endObject();
+    }
+
+    private static void writeFieldValue(Descriptors.FieldDescriptor fieldDescriptor, Object value, JsonWriter writer) {
+      switch (fieldDescriptor.getJavaType()) {
+        case INT:
+          writer.value((Integer) value);
+          break;
+        case LONG:
+          writer.value((Long) value);
+          break;
+        case DOUBLE:
+          writer.value((Double) value);
+          break;
+        case BOOLEAN:
+          writer.value((Boolean) value);
+          break;
+        case STRING:
+          writer.value((String) value);
+          break;
+        case ENUM:
+          writer.value(((Descriptors.EnumValueDescriptor) value).getName());
+          break;
+        case MESSAGE:
+          writeMessageValue((Message) value, writer);
+          break;
+        default:
+          throw new IllegalStateException("Unsupported type " + fieldDescriptor.getJavaType());
+      }
+    }
+
+    private static void writeMessageValue(Message message, JsonWriter writer) {
+      List<Descriptors.FieldDescriptor> fields = message.getDescriptorForType().getFields();
+      if (fields.size() == 1 && fields.get(0).isRepeated() && message.getDescriptorForType().getName().equalsIgnoreCase(fields.get(0).getName())) {
+        Descriptors.FieldDescriptor repeatedDescriptor = fields.get(0);
+        if (repeatedDescriptor.isMapField()) {
+          writeMap((Collection<MapEntry>) message.getField(repeatedDescriptor), writer);
+        } else {
+          writeArray(writer, repeatedDescriptor, (Collection) message.getField(repeatedDescriptor));
+        }
+      } else {
+        writer.beginObject();
+        writeMessage(message, writer);
+        writer.endObject();
+      }
+    }
+  }
+}
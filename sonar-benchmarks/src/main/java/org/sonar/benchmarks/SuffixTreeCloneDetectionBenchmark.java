@@ -0,0 +1,136 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.detector.suffixtree.DuplicationsCollector;
+import org.sonar.duplications.detector.suffixtree.PackedSearch;
+import org.sonar.duplications.detector.suffixtree.Search;
+import org.sonar.duplications.detector.suffixtree.SuffixTreeCloneDetectionAlgorithm;
+import org.sonar.duplications.detector.suffixtree.TextSet;
+import org.sonar.duplications.index.CloneGroup;
+import org.sonar.duplications.index.CloneIndex;
+import org.sonar.duplications.index.MemoryCloneIndex;
+
+/**
+ * Detection of the clones of a file against an index of other files. Blocks are
+ * picked from a small set of hashes, so that a given proportion of them are duplicated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SuffixTreeCloneDetectionBenchmark {
+
+  @Param({"1000", "20000"})
+  public int blocksPerFile;
+
+  @Param({"50"})
+  public int files;
+
+  /**
+   * Number of distinct hashes. The lower, the more duplications.
+   */
+  @Param({"500", "100000"})
+  public int distinctHashes;
+
+  private CloneIndex index;
+  private List<Block> fileBlocks;
+  private TextSet text;
+
+  @Setup
+  public void setUp() {
+    SyntheticData data = new SyntheticData();
+    index = new MemoryCloneIndex();
+    List<List<Block>> otherFiles = new ArrayList<>(files);
+    for (int file = 0; file < files; file++) {
+      List<Block> blocks = blocks(data, "file" + file);
+      otherFiles.add(blocks);
+      for (Block block : blocks) {
+        index.insert(block);
+      }
+    }
+    fileBlocks = blocks(data, "analyzed");
+    for (Block block : fileBlocks) {
+      index.insert(block);
+    }
+
+    TextSet.Builder textBuilder = TextSet.builder();
+    textBuilder.add(fileBlocks);
+    otherFiles.forEach(textBuilder::add);
+    text = textBuilder.build();
+  }
+
+  private List<Block> blocks(SyntheticData data, String resourceId) {
+    List<Block> blocks = new ArrayList<>(blocksPerFile);
+    for (int i = 0; i < blocksPerFile; i++) {
+      blocks.add(Block.builder()
+        .setResourceId(resourceId)
+        .setBlockHash(new ByteArray((long) data.random().nextInt(distinctHashes)))
+        .setIndexInFile(i)
+        .setLines(i + 1, i + 10)
+        .setUnit(i, i + 10)
+        .build());
+    }
+    return blocks;
+  }
+
+  @Benchmark
+  public List<CloneGroup> detect() {
+    return SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks);
+  }
+
+  /**
+   * Search on the suffix tree made of {@link org.sonar.duplications.detector.suffixtree.Node} objects
+   */
+  @Benchmark
+  public List<CloneGroup> searchObjectSuffixTree() {
+    DuplicationsCollector collector = new DuplicationsCollector(text);
+    Search.perform(text, collector);
+    return collector.getResult();
+  }
+
+  /**
+   * Search on the suffix tree made of arrays of primitives, as done by {@link #detect()}
+   */
+  @Benchmark
+  public List<CloneGroup> searchPackedSuffixTree() {
+    DuplicationsCollector collector = new DuplicationsCollector(text);
+    PackedSearch.perform(text, collector);
+    return collector.getResult();
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator of synthetic but reproducible data. The same seed always produces
+ * the same data, so that results of two runs of a benchmark can be compared.
+ */
+public class SyntheticData {
+
+  public static final long DEFAULT_SEED = 42L;
+
+  private static final String[] KEYWORDS = {"public", "private", "static", "final", "return", "if", "else", "for", "while", "new"};
+  private static final String[] IDENTIFIERS = {"foo", "bar", "baz", "index", "count", "result", "builder", "value", "item", "list"};
+
+  private final Random random;
+
+  public SyntheticData() {
+    this(DEFAULT_SEED);
+  }
+
+  public SyntheticData(long seed) {
+    this.random = new Random(seed);
+  }
+
+  public Random random() {
+    return random;
+  }
+
+  /**
+   * Java-like line of code, indented, between 2 and 12 tokens
+   */
+  public String line() {
+    StringBuilder sb = new StringBuilder();
+    int indent = random.nextInt(4);
+    for (int i = 0; i < indent; i++) {
+      sb.append("  ");
+    }
+    int tokens = 2 + random.nextInt(11);
+    for (int i = 0; i < tokens; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      if (random.nextInt(4) == 0) {
+        sb.append(KEYWORDS[random.nextInt(KEYWORDS.length)]);
+      } else {
+        sb.append(IDENTIFIERS[random.nextInt(IDENTIFIERS.length)]).append(random.nextInt(100));
+      }
+    }
+    sb.append(random.nextBoolean() ? ";" : " {");
+    return sb.toString();
+  }
+
+  public List<String> lines(int count) {
+    List<String> lines = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      lines.add(line());
+    }
+    return lines;
+  }
+
+  /**
+   * Content of a source file with the given number of lines, separated by \n
+   */
+  public String source(int lines) {
+    return String.join("\n", lines(lines));
+  }
+
+  /**
+   * Highlighting rules of a line, as stored in column FILE_SOURCES.BINARY_DATA. For
+   * example "0,6,k;7,12,c".
+   */
+  public static String highlighting(String line) {
+    StringBuilder sb = new StringBuilder();
+    int start = 0;
+    int index = 0;
+    while (start < line.length()) {
+      int end = line.indexOf(' ', start);
+      if (end < 0) {
+        end = line.length();
+      }
+      if (end > start) {
+        if (sb.length() > 0) {
+          sb.append(';');
+        }
+        sb.append(start).append(',').append(end).append(',').append(index % 2 == 0 ? "k" : "c");
+        index++;
+      }
+      start = end + 1;
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Symbol references of a line, for example "7,12,1"
+   */
+  public String symbols(String line) {
+    int end = line.indexOf(' ');
+    if (end <= 0) {
+      return "";
+    }
+    return "0," + end + "," + random.nextInt(50);
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.core.issue.tracking.BlockHashSequence;
+import org.sonar.core.issue.tracking.Input;
+import org.sonar.core.issue.tracking.LineHashSequence;
+import org.sonar.core.issue.tracking.Trackable;
+import org.sonar.core.issue.tracking.Tracker;
+import org.sonar.core.issue.tracking.Tracking;
+
+/**
+ * Tracking of issues of a single file. Base issues are raw issues with some lines
+ * inserted at the beginning of file and some messages changed, so that all the
+ * passes of {@link Tracker} are executed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TrackerBenchmark {
+
+  private static final int NB_RULES = 20;
+
+  @Param({"100", "10000"})
+  public int issues;
+
+  @Param({"5000"})
+  public int lines;
+
+  private Tracker<Issue, Issue> tracker = new Tracker<>();
+  private SimpleInput rawInput;
+  private SimpleInput baseInput;
+
+  @Setup
+  public void setUp() {
+    SyntheticData data = new SyntheticData();
+    List<String> baseLines = data.lines(lines);
+    List<String> rawLines = new ArrayList<>(data.lines(10));
+    rawLines.addAll(baseLines);
+
+    LineHashSequence baseHashes = LineHashSequence.createForLines(baseLines);
+    LineHashSequence rawHashes = LineHashSequence.createForLines(rawLines);
+
+    List<Issue> bases = new ArrayList<>(issues);
+    List<Issue> raws = new ArrayList<>(issues);
+    for (int i = 0; i < issues; i++) {
+      RuleKey ruleKey = RuleKey.of("squid", "S" + data.random().nextInt(NB_RULES));
+      int baseLine = 1 + data.random().nextInt(lines);
+      String message = "Message " + data.random().nextInt(100);
+      bases.add(new Issue(ruleKey, baseLine, baseHashes.getHashForLine(baseLine), message));
+      // 10 lines have been added at the beginning of file, and one issue out of ten has a new message
+      int rawLine = baseLine + 10;
+      String rawMessage = i % 10 == 0 ? ("New message " + i) : message;
+      raws.add(new Issue(ruleKey, rawLine, rawHashes.getHashForLine(rawLine), rawMessage));
+    }
+    rawInput = new SimpleInput(rawHashes, raws);
+    baseInput = new SimpleInput(baseHashes, bases);
+  }
+
+  @Benchmark
+  public Tracking<Issue, Issue> track() {
+    return tracker.track(rawInput, baseInput);
+  }
+
+  static class Issue implements Trackable {
+    private final RuleKey ruleKey;
+    private final Integer line;
+    private final String lineHash;
+    private final String message;
+
+    Issue(RuleKey ruleKey, Integer line, String lineHash, String message) {
+      this.ruleKey = ruleKey;
+      this.line = line;
+      this.lineHash = lineHash;
+      this.message = message;
+    }
+
+    @Override
+    public Integer getLine() {
+      return line;
+    }
+
+    @Override
+    public String getMessage() {
+      return message;
+    }
+
+    @Override
+    public String getLineHash() {
+      return lineHash;
+    }
+
+    @Override
+    public RuleKey getRuleKey() {
+      return ruleKey;
+    }
+  }
+
+  static class SimpleInput implements Input<Issue> {
+    private final LineHashSequence lineHashes;
+    private final BlockHashSequence blockHashes;
+    private final Collection<Issue> issues;
+
+    SimpleInput(LineHashSequence lineHashes, Collection<Issue> issues) {
+      this.lineHashes = lineHashes;
+      this.blockHashes = BlockHashSequence.create(lineHashes);
+      this.issues = issues;
+    }
+
+    @Override
+    public LineHashSequence getLineHashSequence() {
+      return lineHashes;
+    }
+
+    @Override
+    public BlockHashSequence getBlockHashSequence() {
+      return blockHashes;
+    }
+
+    @Override
+    public Collection<Issue> getIssues() {
+      return issues;
+    }
+  }
+}
@@ -19,38 +19,58 @@
  */
 package org.sonar.core.issue.tracking;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
-import java.util.Collection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import javax.annotation.Nonnull;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
-import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.InstantiationStrategy;
+import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.rule.RuleKey;
 
+/**
+ * Matches raw issues of a file with its base issues.
+ * <p/>
+ * Issues can match only if they have the same rule, so they are indexed once per file by rule,
+ * then by the search key of each pass. All the passes reuse this index and drop the issues that
+ * are already matched, instead of re-building search keys for all unmatched issues.
+ * <p/>
+ * This class is stateless, so the same instance can be used to track different files concurrently.
+ */
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
 @ScannerSide
 public class Tracker<RAW extends Trackable, BASE extends Trackable> {
 
   public Tracking<RAW, BASE> track(Input<RAW> rawInput, Input<BASE> baseInput) {
     Tracking<RAW, BASE> tracking = new Tracking<>(rawInput, baseInput);
+    if (tracking.isComplete()) {
+      return tracking;
+    }
+    Map<RuleKey, RuleIssues<RAW, BASE>> issuesByRule = indexByRule(tracking);
 
     // 1. match issues with same rule, same line and same line hash, but not necessarily with same message
-    match(tracking, LineAndLineHashKeyFactory.INSTANCE);
+    match(tracking, issuesByRule, RuleIssues::findByLineAndLineHash);
 
     // 2. detect code moves by comparing blocks of codes
     detectCodeMoves(rawInput, baseInput, tracking);
 
     // 3. match issues with same rule, same message and same line hash
-    match(tracking, LineHashAndMessageKeyFactory.INSTANCE);
+    match(tracking, issuesByRule, RuleIssues::findByLineHashAndMessage);
 
     // 4. match issues with same rule, same line and same message
-    match(tracking, LineAndMessageKeyFactory.INSTANCE);
+    match(tracking, issuesByRule, RuleIssues::findByLineAndMessage);
 
     // 5. match issues with same rule and same line hash but different line and different message.
     // See SONAR-2812
-    match(tracking, LineHashKeyFactory.INSTANCE);
+    match(tracking, issuesByRule, RuleIssues::findByLineHash);
 
     return tracking;
   }
@@ -61,189 +81,165 @@ public class Tracker<RAW extends Trackable, BASE extends Trackable> {
     }
   }
 
-  private void match(Tracking<RAW, BASE> tracking, SearchKeyFactory factory) {
-    if (tracking.isComplete()) {
-      return;
-    }
-
-    Multimap<SearchKey, BASE> baseSearch = ArrayListMultimap.create();
+  /**
+   * Only the rules having both raw and base issues are indexed, as other issues can't match.
+   */
+  private Map<RuleKey, RuleIssues<RAW, BASE>> indexByRule(Tracking<RAW, BASE> tracking) {
+    Map<RuleKey, RuleIssues<RAW, BASE>> issuesByRule = new LinkedHashMap<>();
     for (BASE base : tracking.getUnmatchedBases()) {
-      baseSearch.put(factory.create(base), base);
+      issuesByRule.computeIfAbsent(base.getRuleKey(), k -> new RuleIssues<>(tracking)).addBase(base);
+    }
+    if (issuesByRule.isEmpty()) {
+      return Collections.emptyMap();
     }
-
     for (RAW raw : tracking.getUnmatchedRaws()) {
-      SearchKey rawKey = factory.create(raw);
-      Collection<BASE> bases = baseSearch.get(rawKey);
-      if (!bases.isEmpty()) {
-        // TODO taking the first one. Could be improved if there are more than 2 issues on the same line.
-        // Message could be checked to take the best one.
-        BASE match = bases.iterator().next();
-        tracking.match(raw, match);
-        baseSearch.remove(rawKey, match);
+      RuleIssues<RAW, BASE> ruleIssues = issuesByRule.get(raw.getRuleKey());
+      if (ruleIssues != null) {
+        ruleIssues.raws.add(raw);
       }
     }
+    issuesByRule.values().removeIf(ruleIssues -> ruleIssues.raws.isEmpty());
+    return issuesByRule;
   }
 
-  private interface SearchKey {
-  }
-
-  private interface SearchKeyFactory {
-    SearchKey create(Trackable trackable);
-  }
-
-  private static class LineAndLineHashKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String lineHash;
-    private final Integer line;
-
-    LineAndLineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.line = trackable.getLine();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
+  private void match(Tracking<RAW, BASE> tracking, Map<RuleKey, RuleIssues<RAW, BASE>> issuesByRule, BaseFinder<RAW, BASE> finder) {
+    if (tracking.isComplete()) {
+      return;
     }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+    Iterator<RuleIssues<RAW, BASE>> it = issuesByRule.values().iterator();
+    while (it.hasNext()) {
+      RuleIssues<RAW, BASE> ruleIssues = it.next();
+      if (!ruleIssues.removeMatched()) {
+        // all the raw issues or all the base issues of this rule are matched
+        it.remove();
+        continue;
+      }
+      for (RAW raw : ruleIssues.raws) {
+        // the first unmatched base is taken. Could be improved if there are more than 2 issues on the same line.
+        // Message could be checked to take the best one.
+        BASE match = finder.find(ruleIssues, raw);
+        if (match != null) {
+          tracking.match(raw, match);
+        }
       }
-      LineAndLineHashKey that = (LineAndLineHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && lineHash.equals(that.lineHash)
-        && ruleKey.equals(that.ruleKey);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
     }
   }
 
-  private enum LineAndLineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineAndLineHashKey(t);
-    }
+  @FunctionalInterface
+  private interface BaseFinder<RAW extends Trackable, BASE extends Trackable> {
+    @CheckForNull
+    BASE find(RuleIssues<RAW, BASE> ruleIssues, RAW raw);
   }
 
-  private static class LineHashAndMessageKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String message;
-    private final String lineHash;
+  /**
+   * Raw and base issues of a given rule. Bases are indexed once by the search key of each pass. Queues
+   * keep the order of input issues, so that the first candidate is always the same. Bases matched by a
+   * pass or by {@link BlockRecognizer} are dropped from the head of the queues when they are next looked
+   * up, so each base is skipped at most once per index even when thousands of issues share the same key.
+   */
+  private static class RuleIssues<RAW extends Trackable, BASE extends Trackable> {
+    private final Tracking<RAW, BASE> tracking;
+    private final List<RAW> raws = new ArrayList<>();
+    private final List<BASE> bases = new ArrayList<>();
+    private final Map<SearchKey, Deque<BASE>> basesByLineAndLineHash = new HashMap<>();
+    private final Map<SearchKey, Deque<BASE>> basesByLineHashAndMessage = new HashMap<>();
+    private final Map<SearchKey, Deque<BASE>> basesByLineAndMessage = new HashMap<>();
+    private final Map<String, Deque<BASE>> basesByLineHash = new HashMap<>();
 
-    LineHashAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
+    RuleIssues(Tracking<RAW, BASE> tracking) {
+      this.tracking = tracking;
     }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
-      }
-      LineHashAndMessageKey that = (LineHashAndMessageKey) o;
-      // start with most discriminant field
-      return lineHash.equals(that.lineHash)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
+    void addBase(BASE base) {
+      bases.add(base);
+      String lineHash = lineHash(base);
+      add(basesByLineAndLineHash, new SearchKey(base.getLine(), lineHash), base);
+      add(basesByLineHashAndMessage, new SearchKey(lineHash, base.getMessage()), base);
+      add(basesByLineAndMessage, new SearchKey(base.getLine(), base.getMessage()), base);
+      add(basesByLineHash, lineHash, base);
     }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      return result;
+    private static <K, T> void add(Map<K, Deque<T>> index, K key, T value) {
+      index.computeIfAbsent(key, k -> new ArrayDeque<>()).add(value);
     }
-  }
 
-  private enum LineHashAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineHashAndMessageKey(t);
+    /**
+     * Forgets the issues matched by previous passes.
+     *
+     * @return false if there are no more unmatched raw issues or no more unmatched base issues
+     */
+    boolean removeMatched() {
+      raws.removeIf(raw -> !tracking.containsUnmatchedRaw(raw));
+      bases.removeIf(base -> !tracking.containsUnmatchedBase(base));
+      return !raws.isEmpty() && !bases.isEmpty();
     }
-  }
 
-  private static class LineAndMessageKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String message;
-    private final Integer line;
+    @CheckForNull
+    BASE findByLineAndLineHash(RAW raw) {
+      return firstUnmatched(basesByLineAndLineHash, new SearchKey(raw.getLine(), lineHash(raw)));
+    }
 
-    LineAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.line = trackable.getLine();
+    @CheckForNull
+    BASE findByLineHashAndMessage(RAW raw) {
+      return firstUnmatched(basesByLineHashAndMessage, new SearchKey(lineHash(raw), raw.getMessage()));
     }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
-      }
-      LineAndMessageKey that = (LineAndMessageKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
+    @CheckForNull
+    BASE findByLineAndMessage(RAW raw) {
+      return firstUnmatched(basesByLineAndMessage, new SearchKey(raw.getLine(), raw.getMessage()));
     }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
+    @CheckForNull
+    BASE findByLineHash(RAW raw) {
+      return firstUnmatched(basesByLineHash, lineHash(raw));
     }
-  }
 
-  private enum LineAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineAndMessageKey(t);
+    @CheckForNull
+    private <K> BASE firstUnmatched(Map<K, Deque<BASE>> index, K key) {
+      Deque<BASE> candidates = index.get(key);
+      if (candidates == null) {
+        return null;
+      }
+      while (!candidates.isEmpty() && !tracking.containsUnmatchedBase(candidates.peekFirst())) {
+        candidates.pollFirst();
+      }
+      if (candidates.isEmpty()) {
+        index.remove(key);
+        return null;
+      }
+      return candidates.peekFirst();
+    }
+
+    private static String lineHash(Trackable trackable) {
+      return StringUtils.defaultString(trackable.getLineHash(), "");
     }
   }
 
-  private static class LineHashKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String lineHash;
+  private static final class SearchKey {
+    private final Object first;
+    private final Object second;
 
-    LineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
+    SearchKey(@Nullable Object first, @Nullable Object second) {
+      this.first = first;
+      this.second = second;
     }
 
     @Override
-    public boolean equals(@Nonnull Object o) {
+    public boolean equals(Object o) {
       if (this == o) {
         return true;
       }
-      LineHashKey that = (LineHashKey) o;
-      // start with most discriminant field
-      return lineHash.equals(that.lineHash)
-        && ruleKey.equals(that.ruleKey);
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      SearchKey other = (SearchKey) o;
+      return Objects.equals(first, other.first) && Objects.equals(second, other.second);
     }
 
     @Override
     public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      return result;
-    }
-  }
-
-  private enum LineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineHashKey(t);
+      return 31 * Objects.hashCode(first) + Objects.hashCode(second);
     }
   }
 }
@@ -25,6 +25,8 @@ import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.picocontainer.Characteristics;
 import org.picocontainer.ComponentAdapter;
@@ -78,6 +80,49 @@ public class ComponentContainer implements ContainerPopulator.Container {
       addChildContainer(pc);
       return pc;
     }
+
+    @CheckForNull
+    private StartLifecycleStrategy getStartLifecycleStrategy() {
+      return lifecycleStrategy instanceof StartLifecycleStrategy ? (StartLifecycleStrategy) lifecycleStrategy : null;
+    }
+  }
+
+  /**
+   * Records the durations of starts in the {@link StartupTimeline} shared by a root container and its children.
+   */
+  private static final class StartLifecycleStrategy extends ReflectionLifecycleStrategy {
+    private final StartupTimeline timeline = new StartupTimeline();
+    // concurrent starts are enabled only for the thread which called startComponents(Executor)
+    private final ThreadLocal<ConcurrentStarts> concurrentStarts = new ThreadLocal<>();
+
+    private StartLifecycleStrategy() {
+      super(new NullComponentMonitor(), "start", "stop", "close");
+    }
+
+    @Override
+    public void start(Object component) {
+      ConcurrentStarts starts = concurrentStarts.get();
+      if (starts == null) {
+        doStart(component);
+        return;
+      }
+      ConcurrentStart concurrentStart = component.getClass().getAnnotation(ConcurrentStart.class);
+      if (concurrentStart == null) {
+        starts.awaitAll();
+        doStart(component);
+      } else {
+        starts.submit(component, concurrentStart.after(), () -> doStart(component));
+      }
+    }
+
+    private void doStart(Object component) {
+      Profiler profiler = Profiler.createIfTrace(Loggers.get(ComponentContainer.class));
+      profiler.start();
+      long startedAt = System.nanoTime();
+      super.start(component);
+      timeline.add(component.getClass().getCanonicalName(), startedAt);
+      profiler.stopTrace(component.getClass().getCanonicalName() + " started");
+    }
   }
 
   private ComponentContainer parent;
@@ -148,6 +193,46 @@ public class ComponentContainer implements ContainerPopulator.Container {
     }
   }
 
+  /**
+   * Same as {@link #startComponents()}, except that the starts of the components annotated with
+   * {@link ConcurrentStart} are executed by {@code executor}. This method returns when all the starts
+   * are completed.
+   */
+  public ComponentContainer startComponents(Executor executor) {
+    StartLifecycleStrategy lifecycleStrategy = getStartLifecycleStrategy();
+    if (lifecycleStrategy == null) {
+      return startComponents();
+    }
+    ConcurrentStarts starts = new ConcurrentStarts(executor);
+    lifecycleStrategy.concurrentStarts.set(starts);
+    try {
+      doBeforeStart();
+      pico.start();
+      starts.awaitAll();
+      doAfterStart();
+      return this;
+    } catch (Exception e) {
+      // do not let starts run in background once the container has failed to start
+      starts.awaitAllQuietly();
+      throw PicoUtils.propagate(e);
+    } finally {
+      lifecycleStrategy.concurrentStarts.remove();
+    }
+  }
+
+  /**
+   * Durations of the starts of the components of the root container and of all its children
+   */
+  public StartupTimeline getStartupTimeline() {
+    StartLifecycleStrategy lifecycleStrategy = getStartLifecycleStrategy();
+    return lifecycleStrategy == null ? new StartupTimeline() : lifecycleStrategy.timeline;
+  }
+
+  @CheckForNull
+  private StartLifecycleStrategy getStartLifecycleStrategy() {
+    return pico instanceof ExtendedDefaultPicoContainer ? ((ExtendedDefaultPicoContainer) pico).getStartLifecycleStrategy() : null;
+  }
+
   /**
    * This method aims to be overridden
    */
@@ -312,16 +397,7 @@ public class ComponentContainer implements ContainerPopulator.Container {
   }
 
   public static MutablePicoContainer createPicoContainer() {
-    ReflectionLifecycleStrategy lifecycleStrategy = new ReflectionLifecycleStrategy(new NullComponentMonitor(), "start", "stop", "close") {
-      @Override
-      public void start(Object component) {
-        Profiler profiler = Profiler.createIfTrace(Loggers.get(ComponentContainer.class));
-        profiler.start();
-        super.start(component);
-        profiler.stopTrace(component.getClass().getCanonicalName() + " started");
-      }
-    };
-    return new ExtendedDefaultPicoContainer(new OptInCaching(), lifecycleStrategy, null);
+    return new ExtendedDefaultPicoContainer(new OptInCaching(), new StartLifecycleStrategy(), null);
   }
 
   public ComponentContainer getParent() {
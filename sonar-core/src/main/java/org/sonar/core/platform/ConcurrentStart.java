@@ -0,0 +1,50 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.platform;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.Executor;
+
+/**
+ * The start of a component annotated with {@code ConcurrentStart} can be executed in background, concurrently with
+ * the starts of the other annotated components, when the container is started by
+ * {@link ComponentContainer#startComponents(Executor)}. Other components are started once all the pending background
+ * starts are completed.
+ * <p/>
+ * This annotation has no effect when the container is started by {@link ComponentContainer#startComponents()}.
+ *
+ * @since 6.6
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ConcurrentStart {
+
+  /**
+   * Types of the components which must be started before this one. Only components annotated with
+   * {@code ConcurrentStart} are relevant, as the other components are always started sequentially. They
+   * must be added to the container before this component, otherwise the start fails with {@link IllegalStateException}.
+   */
+  Class<?>[] after() default {};
+}
@@ -0,0 +1,99 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import static java.lang.String.format;
+
+/**
+ * Starts in background of the components annotated with {@link ConcurrentStart}. Not thread-safe, it's used
+ * only by the thread which starts the container.
+ */
+class ConcurrentStarts {
+
+  private final Executor executor;
+  private final List<Object> components = new ArrayList<>();
+  private final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+  ConcurrentStarts(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * @throws IllegalStateException if one of the types in {@code after} matches no component submitted before
+   */
+  void submit(Object component, Class<?>[] after, Runnable start) {
+    List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+    for (Class<?> type : after) {
+      boolean submitted = false;
+      for (int i = 0; i < components.size(); i++) {
+        if (type.isInstance(components.get(i))) {
+          dependencies.add(futures.get(i));
+          submitted = true;
+        }
+      }
+      if (!submitted) {
+        throw new IllegalStateException(format("%s must be started after %s, which is not started yet. Components annotated with @%s " +
+          "must be added to the container after the components they depend on.", component.getClass().getName(), type.getName(),
+          ConcurrentStart.class.getSimpleName()));
+      }
+    }
+    // start is not executed if one of the dependencies failed
+    CompletableFuture<Void> future = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture[dependencies.size()]))
+      .thenRunAsync(start, executor);
+    components.add(component);
+    futures.add(future);
+  }
+
+  /**
+   * Waits for the completion of all the submitted starts.
+   *
+   * @throws RuntimeException the failure of one of the starts
+   */
+  void awaitAll() {
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  void awaitAllQuietly() {
+    for (CompletableFuture<Void> future : futures) {
+      try {
+        future.join();
+      } catch (RuntimeException e) {
+        // ignored
+      }
+    }
+  }
+}
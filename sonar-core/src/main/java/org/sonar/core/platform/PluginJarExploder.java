@@ -20,16 +20,30 @@
 package org.sonar.core.platform;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.zip.ZipEntry;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.sonar.api.utils.ZipUtils;
 
 import static org.apache.commons.io.FileUtils.listFiles;
+import static org.sonar.core.util.FileUtils.deleteQuietly;
 
 public abstract class PluginJarExploder {
 
   protected static final String LIB_RELATIVE_PATH_IN_JAR = "META-INF/lib";
+  private static final String CHECKSUM_FILE_SUFFIX = ".checksum";
 
   public abstract ExplodedPlugin explode(PluginInfo info);
 
@@ -37,6 +51,101 @@ public abstract class PluginJarExploder {
     return ze -> ze.getName().startsWith(LIB_RELATIVE_PATH_IN_JAR);
   }
 
+  /**
+   * Copies the JAR and unzips its libraries into the directory {@code cacheDir/<MD5 of JAR>}. This directory is
+   * created by an atomic move and is never modified afterwards, so it can be reused after restarts and by
+   * other processes sharing the same {@code cacheDir}.
+   * <p/>
+   * The checksum of the JAR is computed again only when its size or its date of last modification change. The
+   * directory of the previous checksum is then deleted, for example when the plugin is upgraded.
+   */
+  protected ExplodedPlugin explodeToCache(PluginInfo info, File cacheDir) throws IOException {
+    File jar = info.getNonNullJarFile();
+    FileUtils.forceMkdir(cacheDir);
+    File dir = new File(cacheDir, checksumOf(info.getKey(), jar, cacheDir));
+    File cachedJar = new File(dir, jar.getName());
+    if (!cachedJar.isFile()) {
+      // same content as a JAR previously exploded with another name
+      deleteQuietly(dir);
+      File tempDir = Files.createTempDirectory(cacheDir.toPath(), "tmp").toFile();
+      try {
+        FileUtils.copyFile(jar, new File(tempDir, jar.getName()));
+        ZipUtils.unzip(jar, tempDir, newLibFilter());
+        Files.move(tempDir.toPath(), dir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        // another process may have exploded the same JAR concurrently
+        if (!cachedJar.isFile()) {
+          throw e;
+        }
+      } finally {
+        deleteQuietly(tempDir);
+      }
+    }
+    return explodeFromUnzippedDir(info.getKey(), cachedJar, dir);
+  }
+
+  private static String checksumOf(String pluginKey, File jar, File cacheDir) throws IOException {
+    File checksumFile = new File(cacheDir, pluginKey + CHECKSUM_FILE_SUFFIX);
+    // format is "<size> <date of last modification> <MD5>"
+    String[] previous = readChecksumFile(checksumFile);
+    String signature = jar.length() + " " + jar.lastModified();
+    if (previous != null && signature.equals(previous[0] + " " + previous[1])) {
+      return previous[2];
+    }
+
+    String checksum;
+    try (InputStream input = new FileInputStream(jar)) {
+      checksum = DigestUtils.md5Hex(input);
+    }
+    File tempFile = File.createTempFile("checksum", CHECKSUM_FILE_SUFFIX, cacheDir);
+    try {
+      FileUtils.write(tempFile, signature + " " + checksum, StandardCharsets.UTF_8);
+      Files.move(tempFile.toPath(), checksumFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      deleteQuietly(tempFile);
+    }
+    if (previous != null && !checksum.equals(previous[2])) {
+      deleteQuietly(new File(cacheDir, previous[2]));
+    }
+    return checksum;
+  }
+
+  /**
+   * Deletes from {@code cacheDir} everything which is not used by the specified plugins: directories of plugins
+   * which have been uninstalled or upgraded, checksum files of uninstalled plugins, and temporary files and directories
+   * left by explosions which have been interrupted. It must be called once all the installed plugins have been
+   * exploded, while no other process explodes plugins into {@code cacheDir}.
+   */
+  protected static void cleanCache(File cacheDir, Collection<String> pluginKeys) throws IOException {
+    File[] files = cacheDir.listFiles();
+    if (files == null) {
+      return;
+    }
+    Set<String> usedFileNames = new HashSet<>();
+    for (String pluginKey : pluginKeys) {
+      File checksumFile = new File(cacheDir, pluginKey + CHECKSUM_FILE_SUFFIX);
+      String[] checksum = readChecksumFile(checksumFile);
+      if (checksum != null) {
+        usedFileNames.add(checksumFile.getName());
+        usedFileNames.add(checksum[2]);
+      }
+    }
+    for (File file : files) {
+      if (!usedFileNames.contains(file.getName())) {
+        deleteQuietly(file);
+      }
+    }
+  }
+
+  @CheckForNull
+  private static String[] readChecksumFile(File checksumFile) throws IOException {
+    if (!checksumFile.isFile()) {
+      return null;
+    }
+    String[] fields = FileUtils.readFileToString(checksumFile, StandardCharsets.UTF_8).trim().split(" ");
+    return fields.length == 3 ? fields : null;
+  }
+
   protected ExplodedPlugin explodeFromUnzippedDir(String pluginKey, File jarFile, File unzippedDir) {
     File libDir = new File(unzippedDir, PluginJarExploder.LIB_RELATIVE_PATH_IN_JAR);
     Collection<File> libs;
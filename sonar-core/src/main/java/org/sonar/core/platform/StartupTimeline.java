@@ -0,0 +1,104 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.platform;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Durations of the starts of the components of a {@link ComponentContainer} and of its children, in the order
+ * they completed.
+ */
+public class StartupTimeline {
+
+  private final long createdAt = System.nanoTime();
+  private final List<Entry> entries = new CopyOnWriteArrayList<>();
+
+  /**
+   * @param startedAt start of the component, as returned by {@link System#nanoTime()}
+   */
+  void add(String component, long startedAt) {
+    long now = System.nanoTime();
+    entries.add(new Entry(component, TimeUnit.NANOSECONDS.toMillis(startedAt - createdAt), TimeUnit.NANOSECONDS.toMillis(now - startedAt),
+      Thread.currentThread().getName()));
+  }
+
+  public List<Entry> getEntries() {
+    return unmodifiableList(new ArrayList<>(entries));
+  }
+
+  /**
+   * The {@code count} longest starts, the longest first
+   */
+  public List<Entry> getLongest(int count) {
+    List<Entry> result = new ArrayList<>(entries);
+    result.sort(Comparator.comparingLong(Entry::getDuration).reversed());
+    return unmodifiableList(result.subList(0, Math.min(count, result.size())));
+  }
+
+  public static final class Entry {
+    private final String component;
+    private final long startedAt;
+    private final long duration;
+    private final String thread;
+
+    private Entry(String component, long startedAt, long duration, String thread) {
+      this.component = component;
+      this.startedAt = startedAt;
+      this.duration = duration;
+      this.thread = thread;
+    }
+
+    public String getComponent() {
+      return component;
+    }
+
+    /**
+     * Number of milliseconds between the creation of the root container and the start of the component
+     */
+    public long getStartedAt() {
+      return startedAt;
+    }
+
+    /**
+     * Duration of the start, in milliseconds
+     */
+    public long getDuration() {
+      return duration;
+    }
+
+    /**
+     * Name of the thread which started the component
+     */
+    public String getThread() {
+      return thread;
+    }
+
+    @Override
+    public String toString() {
+      return component + " (" + duration + " ms)";
+    }
+  }
+}
@@ -19,13 +19,26 @@
  */
 package org.sonar.core.util;
 
+import com.google.common.base.Throwables;
 import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.GeneratedMessage;
 import com.google.protobuf.MapEntry;
 import com.google.protobuf.Message;
+import com.google.protobuf.ProtocolMessageEnum;
 import java.io.StringWriter;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.text.JsonWriter;
 
 /**
@@ -131,31 +144,56 @@ public class ProtobufJsonFormat {
     // only statics
   }
 
-  static class MessageType {
-    private static final Map<Class<? extends Message>, MessageType> TYPES_BY_CLASS = new HashMap<>();
+  /**
+   * Writer of a type of message. It is built on first use of the type, then shared by all threads.
+   * Fields of generated messages are read through method handles on their generated accessors, instead
+   * of the reflective {@link Message#getField(Descriptors.FieldDescriptor)} and
+   * {@link Message#hasField(Descriptors.FieldDescriptor)}.
+   */
+  static class MessageWriter {
+    private static final ConcurrentMap<Object, MessageWriter> WRITERS = new ConcurrentHashMap<>();
 
-    private final Descriptors.FieldDescriptor[] fieldDescriptors;
+    private final Class<?> messageClass;
+    private final FieldWriter[] fieldWriters;
     private final boolean doesWrapRepeated;
 
-    private MessageType(Descriptors.Descriptor descriptor) {
-      this.fieldDescriptors = descriptor.getFields().toArray(new Descriptors.FieldDescriptor[descriptor.getFields().size()]);
-      this.doesWrapRepeated = fieldDescriptors.length == 1 && fieldDescriptors[0].isRepeated() && descriptor.getName().equalsIgnoreCase(fieldDescriptors[0].getName());
+    private MessageWriter(Class<?> messageClass, Descriptors.Descriptor descriptor) {
+      this.messageClass = messageClass;
+      List<Descriptors.FieldDescriptor> fields = descriptor.getFields();
+      this.fieldWriters = new FieldWriter[fields.size()];
+      for (int i = 0; i < fieldWriters.length; i++) {
+        fieldWriters[i] = newFieldWriter(messageClass, fields.get(i));
+      }
+      this.doesWrapRepeated = fields.size() == 1 && fields.get(0).isRepeated() && descriptor.getName().equalsIgnoreCase(fields.get(0).getName());
+    }
+
+    static MessageWriter of(Message message) {
+      // all the dynamic messages share the same class, whatever their type
+      Object key = message instanceof DynamicMessage ? message.getDescriptorForType() : message.getClass();
+      return WRITERS.computeIfAbsent(key, k -> new MessageWriter(message.getClass(), message.getDescriptorForType()));
+    }
+
+    void writeFields(Message message, JsonWriter writer) {
+      for (FieldWriter fieldWriter : fieldWriters) {
+        fieldWriter.write(message, writer);
+      }
     }
 
-    static MessageType of(Message message) {
-      MessageType type = TYPES_BY_CLASS.get(message.getClass());
-      if (type == null) {
-        type = new MessageType(message.getDescriptorForType());
-        TYPES_BY_CLASS.put(message.getClass(), type);
+    void writeValue(Message message, JsonWriter writer) {
+      if (doesWrapRepeated) {
+        fieldWriters[0].writeValue(message, writer);
+      } else {
+        writer.beginObject();
+        writeFields(message, writer);
+        writer.endObject();
       }
-      return type;
     }
   }
 
   public static void write(Message message, JsonWriter writer) {
     writer.setSerializeNulls(false).setSerializeEmptys(true);
     writer.beginObject();
-    writeMessage(message, writer);
+    MessageWriter.of(message).writeFields(message, writer);
     writer.endObject();
   }
 
@@ -167,84 +205,264 @@ public class ProtobufJsonFormat {
     return json.toString();
   }
 
-  private static void writeMessage(Message message, JsonWriter writer) {
-    MessageType type = MessageType.of(message);
-    for (Descriptors.FieldDescriptor fieldDescriptor : type.fieldDescriptors) {
-      if (fieldDescriptor.isRepeated()) {
-        writer.name(fieldDescriptor.getName());
-        if (fieldDescriptor.isMapField()) {
-          writeMap((Collection<MapEntry>) message.getField(fieldDescriptor), writer);
-        } else {
-          writeArray(writer, fieldDescriptor, (Collection) message.getField(fieldDescriptor));
-        }
-      } else if (message.hasField(fieldDescriptor)) {
-        writer.name(fieldDescriptor.getName());
-        Object fieldValue = message.getField(fieldDescriptor);
-        writeFieldValue(fieldDescriptor, fieldValue, writer);
-      }
+  private static FieldWriter newFieldWriter(Class<?> messageClass, Descriptors.FieldDescriptor field) {
+    if (field.isMapField()) {
+      return new MapFieldWriter(field);
     }
+    String accessorName = toAccessorName(field.getName());
+    ValueWriter valueWriter = newValueWriter(field);
+    if (field.isRepeated()) {
+      return new RepeatedFieldWriter(field.getName(), newGetter(messageClass, "get" + accessorName + "List", List.class, field), valueWriter);
+    }
+    return new SingularFieldWriter(field.getName(), newPresence(messageClass, "has" + accessorName, field),
+      newGetter(messageClass, "get" + accessorName, accessorType(field), field), valueWriter);
   }
 
-  private static void writeArray(JsonWriter writer, Descriptors.FieldDescriptor fieldDescriptor, Collection array) {
-    writer.beginArray();
-    for (Object o : array) {
-      writeFieldValue(fieldDescriptor, o, writer);
+  private static ValueWriter newValueWriter(Descriptors.FieldDescriptor fieldDescriptor) {
+    switch (fieldDescriptor.getJavaType()) {
+      case INT:
+        return (value, writer) -> writer.value((Integer) value);
+      case LONG:
+        return (value, writer) -> writer.value((Long) value);
+      case DOUBLE:
+        return (value, writer) -> writer.value((Double) value);
+      case BOOLEAN:
+        return (value, writer) -> writer.value((Boolean) value);
+      case STRING:
+        return (value, writer) -> writer.value((String) value);
+      case ENUM:
+        return ProtobufJsonFormat::writeEnumValue;
+      case MESSAGE:
+        return new MessageValueWriter();
+      default:
+        // fails only if a value is written, so that messages can declare unsupported fields as long as they are absent
+        return (value, writer) -> {
+          throw new IllegalStateException(String.format("JSON format does not support type '%s' of field '%s'", fieldDescriptor.getJavaType(), fieldDescriptor.getName()));
+        };
     }
-    writer.endArray();
   }
 
-  private static void writeMap(Collection<MapEntry> mapEntries, JsonWriter writer) {
-    writer.beginObject();
-    for (MapEntry mapEntry : mapEntries) {
-      // Key fields are always double-quoted in json
-      writer.name(mapEntry.getKey().toString());
-      Descriptors.FieldDescriptor valueDescriptor = mapEntry.getDescriptorForType().findFieldByName("value");
-      writeFieldValue(valueDescriptor, mapEntry.getValue(), writer);
-    }
-    writer.endObject();
+  private static void writeEnumValue(Object value, JsonWriter writer) {
+    // generated accessors return Java enums, whereas reflection returns descriptors
+    Descriptors.EnumValueDescriptor descriptor = value instanceof ProtocolMessageEnum ? ((ProtocolMessageEnum) value).getValueDescriptor()
+      : (Descriptors.EnumValueDescriptor) value;
+    writer.value(descriptor.getName());
   }
 
-  private static void writeFieldValue(Descriptors.FieldDescriptor fieldDescriptor, Object value, JsonWriter writer) {
-    switch (fieldDescriptor.getJavaType()) {
+  /**
+   * Type returned by the generated getter of a singular field, or {@code null} if the type is
+   * not supported by the JSON format.
+   */
+  @CheckForNull
+  private static Class<?> accessorType(Descriptors.FieldDescriptor field) {
+    switch (field.getJavaType()) {
       case INT:
-        writer.value((Integer) value);
-        break;
+        return int.class;
       case LONG:
-        writer.value((Long) value);
-        break;
+        return long.class;
       case DOUBLE:
-        writer.value((Double) value);
-        break;
+        return double.class;
       case BOOLEAN:
-        writer.value((Boolean) value);
-        break;
+        return boolean.class;
       case STRING:
-        writer.value((String) value);
-        break;
+        return String.class;
       case ENUM:
-        writer.value(((Descriptors.EnumValueDescriptor) value).getName());
-        break;
+        return ProtocolMessageEnum.class;
       case MESSAGE:
-        writeMessageValue((Message) value, writer);
-        break;
+        return Message.class;
       default:
-        throw new IllegalStateException(String.format("JSON format does not support type '%s' of field '%s'", fieldDescriptor.getJavaType(), fieldDescriptor.getName()));
+        return null;
     }
   }
 
-  private static void writeMessageValue(Message message, JsonWriter writer) {
-    MessageType messageType = MessageType.of(message);
-    if (messageType.doesWrapRepeated) {
-      Descriptors.FieldDescriptor repeatedDescriptor = messageType.fieldDescriptors[0];
-      if (repeatedDescriptor.isMapField()) {
-        writeMap((Collection<MapEntry>) message.getField(repeatedDescriptor), writer);
+  private static Function<Message, Object> newGetter(Class<?> messageClass, String methodName, @Nullable Class<?> returnType, Descriptors.FieldDescriptor field) {
+    MethodHandle handle = findAccessor(messageClass, methodName, returnType);
+    if (handle == null) {
+      return message -> message.getField(field);
+    }
+    MethodHandle getter = handle.asType(MethodType.methodType(Object.class, Message.class));
+    return message -> {
+      try {
+        return (Object) getter.invokeExact(message);
+      } catch (Throwable e) {
+        throw Throwables.propagate(e);
+      }
+    };
+  }
+
+  private static Predicate<Message> newPresence(Class<?> messageClass, String methodName, Descriptors.FieldDescriptor field) {
+    // there are no generated "has" methods for the scalar fields of proto3 messages
+    MethodHandle handle = findAccessor(messageClass, methodName, boolean.class);
+    if (handle == null) {
+      return message -> message.hasField(field);
+    }
+    MethodHandle presence = handle.asType(MethodType.methodType(boolean.class, Message.class));
+    return message -> {
+      try {
+        return (boolean) presence.invokeExact(message);
+      } catch (Throwable e) {
+        throw Throwables.propagate(e);
+      }
+    };
+  }
+
+  /**
+   * Public no-arg method declared by a generated message, or {@code null} if it does not exist or does
+   * not return the expected type. In this case reflection on descriptors is used.
+   */
+  @CheckForNull
+  private static MethodHandle findAccessor(Class<?> messageClass, String methodName, @Nullable Class<?> returnType) {
+    if (returnType == null || !GeneratedMessage.class.isAssignableFrom(messageClass)) {
+      return null;
+    }
+    try {
+      Method method = messageClass.getMethod(methodName);
+      if (!method.getDeclaringClass().equals(messageClass) || !returnType.isAssignableFrom(method.getReturnType())) {
+        return null;
+      }
+      return MethodHandles.publicLookup().unreflect(method);
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Name of the field in the accessors generated by protoc, for example "Line" for the field "line" ("getLine()")
+   * or "StartOffset" for the field "start_offset" ("getStartOffset()").
+   */
+  static String toAccessorName(String fieldName) {
+    StringBuilder sb = new StringBuilder(fieldName.length());
+    boolean capitalizeNext = true;
+    for (int i = 0; i < fieldName.length(); i++) {
+      char c = fieldName.charAt(i);
+      if (c >= 'a' && c <= 'z') {
+        sb.append(capitalizeNext ? Character.toUpperCase(c) : c);
+        capitalizeNext = false;
+      } else if (c >= 'A' && c <= 'Z') {
+        sb.append(c);
+        capitalizeNext = false;
+      } else if (c >= '0' && c <= '9') {
+        sb.append(c);
+        capitalizeNext = true;
       } else {
-        writeArray(writer, repeatedDescriptor, (Collection) message.getField(repeatedDescriptor));
+        capitalizeNext = true;
+      }
+    }
+    return sb.toString();
+  }
+
+  @FunctionalInterface
+  private interface ValueWriter {
+    void write(Object value, JsonWriter writer);
+  }
+
+  private abstract static class FieldWriter {
+    private final String name;
+
+    FieldWriter(String name) {
+      this.name = name;
+    }
+
+    void write(Message message, JsonWriter writer) {
+      writer.name(name);
+      writeValue(message, writer);
+    }
+
+    abstract void writeValue(Message message, JsonWriter writer);
+  }
+
+  private static class SingularFieldWriter extends FieldWriter {
+    private final Predicate<Message> presence;
+    private final Function<Message, Object> getter;
+    private final ValueWriter valueWriter;
+
+    SingularFieldWriter(String name, Predicate<Message> presence, Function<Message, Object> getter, ValueWriter valueWriter) {
+      super(name);
+      this.presence = presence;
+      this.getter = getter;
+      this.valueWriter = valueWriter;
+    }
+
+    @Override
+    void write(Message message, JsonWriter writer) {
+      // absent fields are ignored
+      if (presence.test(message)) {
+        super.write(message, writer);
+      }
+    }
+
+    @Override
+    void writeValue(Message message, JsonWriter writer) {
+      valueWriter.write(getter.apply(message), writer);
+    }
+  }
+
+  private static class RepeatedFieldWriter extends FieldWriter {
+    private final Function<Message, Object> getter;
+    private final ValueWriter valueWriter;
+
+    RepeatedFieldWriter(String name, Function<Message, Object> getter, ValueWriter valueWriter) {
+      super(name);
+      this.getter = getter;
+      this.valueWriter = valueWriter;
+    }
+
+    @Override
+    void writeValue(Message message, JsonWriter writer) {
+      writer.beginArray();
+      for (Object o : (Collection<?>) getter.apply(message)) {
+        valueWriter.write(o, writer);
       }
-    } else {
+      writer.endArray();
+    }
+  }
+
+  private static class MapFieldWriter extends FieldWriter {
+    private final Descriptors.FieldDescriptor field;
+    private final Descriptors.FieldDescriptor keyDescriptor;
+    private final Descriptors.FieldDescriptor valueDescriptor;
+    private final ValueWriter valueWriter;
+
+    MapFieldWriter(Descriptors.FieldDescriptor field) {
+      super(field.getName());
+      this.field = field;
+      this.keyDescriptor = field.getMessageType().findFieldByName("key");
+      this.valueDescriptor = field.getMessageType().findFieldByName("value");
+      this.valueWriter = newValueWriter(valueDescriptor);
+    }
+
+    @Override
+    void writeValue(Message message, JsonWriter writer) {
       writer.beginObject();
-      writeMessage(message, writer);
+      for (Object entry : (Collection<?>) message.getField(field)) {
+        // Key fields are always double-quoted in json
+        if (entry instanceof MapEntry) {
+          MapEntry mapEntry = (MapEntry) entry;
+          writer.name(mapEntry.getKey().toString());
+          valueWriter.write(mapEntry.getValue(), writer);
+        } else {
+          Message mapEntry = (Message) entry;
+          writer.name(mapEntry.getField(keyDescriptor).toString());
+          valueWriter.write(mapEntry.getField(valueDescriptor), writer);
+        }
+      }
       writer.endObject();
     }
   }
+
+  private static class MessageValueWriter implements ValueWriter {
+    // values of a field are all of the same class, so the writer of the last value is kept
+    private MessageWriter lastWriter;
+
+    @Override
+    public void write(Object value, JsonWriter writer) {
+      Message message = (Message) value;
+      MessageWriter messageWriter = lastWriter;
+      if (messageWriter == null || !messageWriter.messageClass.equals(message.getClass())) {
+        messageWriter = MessageWriter.of(message);
+        lastWriter = messageWriter;
+      }
+      messageWriter.writeValue(message, writer);
+    }
+  }
 }
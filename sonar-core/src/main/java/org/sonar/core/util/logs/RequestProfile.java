@@ -0,0 +1,121 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.util.logs;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Time spent by the current thread in database requests, in borrowing connections from the pool,
+ * in Elasticsearch requests and in serialization of responses, since the call to {@link #start()}. Times added when no
+ * profile is started on the thread are ignored, so instrumented code does not have
+ * to check it.
+ *
+ * @since 6.6
+ */
+public final class RequestProfile {
+
+  private static final ThreadLocal<RequestProfile> CURRENT = new ThreadLocal<>();
+
+  private long dbNanos = 0L;
+  private int dbCalls = 0;
+  private long connectionWaitNanos = 0L;
+  private long esNanos = 0L;
+  private int esCalls = 0;
+  private long serializationNanos = 0L;
+
+  private RequestProfile() {
+    // use start()
+  }
+
+  /**
+   * Starts a new profile on the current thread. Any profile previously started is replaced.
+   */
+  public static RequestProfile start() {
+    RequestProfile profile = new RequestProfile();
+    CURRENT.set(profile);
+    return profile;
+  }
+
+  /**
+   * Removes the profile started on the current thread, if any.
+   */
+  public static void stop() {
+    CURRENT.remove();
+  }
+
+  @CheckForNull
+  public static RequestProfile current() {
+    return CURRENT.get();
+  }
+
+  public static void addDbTime(long nanos) {
+    RequestProfile profile = CURRENT.get();
+    if (profile != null) {
+      profile.dbNanos += nanos;
+      profile.dbCalls++;
+    }
+  }
+
+  public static void addConnectionWaitTime(long nanos) {
+    RequestProfile profile = CURRENT.get();
+    if (profile != null) {
+      profile.connectionWaitNanos += nanos;
+    }
+  }
+
+  public static void addEsTime(long nanos) {
+    RequestProfile profile = CURRENT.get();
+    if (profile != null) {
+      profile.esNanos += nanos;
+      profile.esCalls++;
+    }
+  }
+
+  public static void addSerializationTime(long nanos) {
+    RequestProfile profile = CURRENT.get();
+    if (profile != null) {
+      profile.serializationNanos += nanos;
+    }
+  }
+
+  public long getDbNanos() {
+    return dbNanos;
+  }
+
+  public int getDbCalls() {
+    return dbCalls;
+  }
+
+  public long getConnectionWaitNanos() {
+    return connectionWaitNanos;
+  }
+
+  public long getEsNanos() {
+    return esNanos;
+  }
+
+  public int getEsCalls() {
+    return esCalls;
+  }
+
+  public long getSerializationNanos() {
+    return serializationNanos;
+  }
+}
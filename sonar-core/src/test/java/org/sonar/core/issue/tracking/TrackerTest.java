@@ -157,6 +157,69 @@ public class TrackerTest {
     assertThat(tracking.baseFor(raw)).isSameAs(base);
   }
 
+  @Test
+  public void issues_on_same_line_are_matched_by_rule_in_order_of_input() {
+    FakeInput baseInput = new FakeInput("H1", "H2");
+    Issue base1 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue base2 = baseInput.createIssueOnLine(1, RULE_UNUSED_LOCAL_VARIABLE, "msg");
+    Issue base3 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+
+    FakeInput rawInput = new FakeInput("H1", "H2");
+    Issue raw1 = rawInput.createIssueOnLine(1, RULE_UNUSED_LOCAL_VARIABLE, "msg");
+    Issue raw2 = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue raw3 = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue raw4 = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    assertThat(tracking.baseFor(raw1)).isSameAs(base2);
+    assertThat(tracking.baseFor(raw2)).isSameAs(base1);
+    assertThat(tracking.baseFor(raw3)).isSameAs(base3);
+    assertThat(tracking.baseFor(raw4)).isNull();
+    assertThat(tracking.getUnmatchedBases()).isEmpty();
+  }
+
+  @Test(timeout = 10_000L)
+  public void match_thousands_of_issues_without_line_in_order_of_input() {
+    int count = 50_000;
+    FakeInput baseInput = new FakeInput();
+    FakeInput rawInput = new FakeInput();
+    List<Issue> bases = new ArrayList<>();
+    List<Issue> raws = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      bases.add(baseInput.createIssue(RULE_SYSTEM_PRINT, "msg" + i));
+      raws.add(rawInput.createIssue(RULE_SYSTEM_PRINT, "msg" + i));
+    }
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    for (int i = 0; i < count; i++) {
+      assertThat(tracking.baseFor(raws.get(i))).isSameAs(bases.get(i));
+    }
+    assertThat(tracking.getUnmatchedBases()).isEmpty();
+  }
+
+  @Test(timeout = 10_000L)
+  public void match_thousands_of_issues_with_same_line_hash_on_different_lines() {
+    int count = 50_000;
+    FakeInput baseInput = new FakeInput();
+    FakeInput rawInput = new FakeInput();
+    List<Issue> bases = new ArrayList<>();
+    List<Issue> raws = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Issue base = new Issue(i + 1, "H", RULE_SYSTEM_PRINT, "base" + i);
+      baseInput.addIssue(base);
+      bases.add(base);
+      Issue raw = new Issue(count + i + 1, "H", RULE_SYSTEM_PRINT, "raw" + i);
+      rawInput.addIssue(raw);
+      raws.add(raw);
+    }
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    for (int i = 0; i < count; i++) {
+      assertThat(tracking.baseFor(raws.get(i))).isSameAs(bases.get(i));
+    }
+    assertThat(tracking.getUnmatchedBases()).isEmpty();
+  }
+
   @Test
   public void do_not_fail_if_base_issue_without_line() {
     FakeInput baseInput = new FakeInput("H1", "H2");
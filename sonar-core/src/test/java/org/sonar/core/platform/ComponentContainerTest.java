@@ -19,7 +19,12 @@
  */
 package org.sonar.core.platform;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -338,6 +343,139 @@ public class ComponentContainerTest {
     assertThat(component.isClosedAfterStop).isTrue();
   }
 
+  @Test
+  public void record_starts_of_container_and_children_in_timeline() {
+    ComponentContainer parent = new ComponentContainer();
+    parent.addSingleton(StartableComponent.class);
+    ComponentContainer child = parent.createChild();
+    child.addSingleton(StartableCloseableComponent.class);
+
+    parent.startComponents();
+    child.startComponents();
+
+    assertThat(child.getStartupTimeline()).isSameAs(parent.getStartupTimeline());
+    assertThat(parent.getStartupTimeline().getEntries()).extracting(StartupTimeline.Entry::getComponent)
+      .contains(StartableComponent.class.getCanonicalName(), StartableCloseableComponent.class.getCanonicalName());
+  }
+
+  @Test
+  public void start_annotated_components_with_executor() {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ComponentContainer container = new ComponentContainer();
+      container.add(StartRecorder.class, ConcurrentComponent.class, DependentConcurrentComponent.class, SequentialComponent.class);
+
+      container.startComponents(executor);
+
+      StartRecorder recorder = container.getComponentByType(StartRecorder.class);
+      assertThat(recorder.starts).containsExactly("concurrent", "dependent", "sequential");
+      assertThat(recorder.threads.get(0)).isNotEqualTo(Thread.currentThread().getName());
+      assertThat(recorder.threads.get(2)).isEqualTo(Thread.currentThread().getName());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void annotation_is_ignored_when_container_is_started_without_executor() {
+    ComponentContainer container = new ComponentContainer();
+    container.add(StartRecorder.class, ConcurrentComponent.class);
+
+    container.startComponents();
+
+    assertThat(container.getComponentByType(StartRecorder.class).threads).containsOnly(Thread.currentThread().getName());
+  }
+
+  @Test
+  public void fail_if_concurrent_start_fails() {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ComponentContainer container = new ComponentContainer();
+      container.add(ConcurrentUnstartableComponent.class);
+
+      thrown.expect(IllegalStateException.class);
+      thrown.expectMessage("Fail to start");
+
+      container.startComponents(executor);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void fail_if_concurrent_start_depends_on_component_not_started_yet() {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ComponentContainer container = new ComponentContainer();
+      container.add(StartRecorder.class, DependentConcurrentComponent.class, ConcurrentComponent.class);
+
+      thrown.expect(IllegalStateException.class);
+      thrown.expectMessage(DependentConcurrentComponent.class.getName() + " must be started after " + ConcurrentComponent.class.getName()
+        + ", which is not started yet");
+
+      container.startComponents(executor);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public static class StartRecorder {
+    private final List<String> starts = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> threads = Collections.synchronizedList(new ArrayList<>());
+
+    void record(String component) {
+      starts.add(component);
+      threads.add(Thread.currentThread().getName());
+    }
+  }
+
+  @ConcurrentStart
+  public static class ConcurrentComponent {
+    private final StartRecorder recorder;
+
+    public ConcurrentComponent(StartRecorder recorder) {
+      this.recorder = recorder;
+    }
+
+    public void start() throws InterruptedException {
+      // give a chance to the dependent component to start too early
+      Thread.sleep(50L);
+      recorder.record("concurrent");
+    }
+  }
+
+  @ConcurrentStart(after = ConcurrentComponent.class)
+  public static class DependentConcurrentComponent {
+    private final StartRecorder recorder;
+
+    public DependentConcurrentComponent(StartRecorder recorder) {
+      this.recorder = recorder;
+    }
+
+    public void start() {
+      recorder.record("dependent");
+    }
+  }
+
+  public static class SequentialComponent {
+    private final StartRecorder recorder;
+
+    public SequentialComponent(StartRecorder recorder) {
+      this.recorder = recorder;
+    }
+
+    public void start() {
+      recorder.record("sequential");
+    }
+  }
+
+  @ConcurrentStart
+  public static class ConcurrentUnstartableComponent {
+    public void start() {
+      throw new IllegalStateException("Fail to start");
+    }
+  }
+
   public static class StartableComponent {
     public boolean started = false;
     public boolean stopped = false;
@@ -20,12 +20,21 @@
 package org.sonar.core.platform;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.utils.ZipUtils;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class PluginJarExploderTest {
@@ -74,6 +83,114 @@ public class PluginJarExploderTest {
     assertThat(exploded.getMain()).isSameAs(jarFile);
   }
 
+  @Test
+  public void explode_to_directory_named_after_checksum_of_jar() throws Exception {
+    File jarFile = getFile("sonar-checkstyle-plugin-2.8.jar");
+    File cacheDir = temp.newFolder();
+
+    ExplodedPlugin exploded = new CachingExploder(cacheDir).explode(new PluginInfo("checkstyle").setJarFile(jarFile));
+
+    File dir = new File(cacheDir, md5Of(jarFile));
+    assertThat(exploded.getKey()).isEqualTo("checkstyle");
+    assertThat(exploded.getMain()).isFile().hasParent(dir).hasName(jarFile.getName());
+    assertThat(exploded.getLibs()).extracting("name").containsOnly("antlr-2.7.6.jar", "checkstyle-5.1.jar", "commons-cli-1.0.jar");
+    assertThat(new File(cacheDir, "checkstyle.checksum")).isFile();
+  }
+
+  @Test
+  public void reuse_directory_of_previous_explode() throws Exception {
+    File jarFile = getFile("sonar-checkstyle-plugin-2.8.jar");
+    File cacheDir = temp.newFolder();
+    PluginInfo info = new PluginInfo("checkstyle").setJarFile(jarFile);
+    ExplodedPlugin exploded1 = new CachingExploder(cacheDir).explode(info);
+    File lib = exploded1.getLibs().iterator().next();
+    FileUtils.write(lib, "not unzipped again");
+
+    ExplodedPlugin exploded2 = new CachingExploder(cacheDir).explode(info);
+
+    assertThat(exploded2.getMain()).isEqualTo(exploded1.getMain());
+    assertThat(FileUtils.readFileToString(lib)).isEqualTo("not unzipped again");
+  }
+
+  @Test
+  public void replace_directory_when_jar_is_upgraded() throws Exception {
+    File cacheDir = temp.newFolder();
+    File jarFile = new File(temp.newFolder(), "plugin.jar");
+    FileUtils.copyFile(getFile("sonar-checkstyle-plugin-2.8.jar"), jarFile);
+    PluginInfo info = new PluginInfo("checkstyle").setJarFile(jarFile);
+    ExplodedPlugin exploded1 = new CachingExploder(cacheDir).explode(info);
+    File dir1 = exploded1.getMain().getParentFile();
+
+    // new version of plugin does not embed libraries
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jarFile))) {
+      zip.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+      zip.write("Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8));
+      zip.closeEntry();
+    }
+    ExplodedPlugin exploded2 = new CachingExploder(cacheDir).explode(info);
+
+    assertThat(exploded2.getMain().getParentFile()).isEqualTo(new File(cacheDir, md5Of(jarFile)));
+    assertThat(exploded2.getMain()).hasSameContentAs(jarFile);
+    assertThat(exploded2.getLibs()).isEmpty();
+    assertThat(dir1).doesNotExist();
+  }
+
+  @Test
+  public void clean_cache_deletes_files_of_uninstalled_and_upgraded_plugins() throws Exception {
+    File cacheDir = temp.newFolder();
+    File jarFile = new File(temp.newFolder(), "plugin.jar");
+    FileUtils.copyFile(getFile("sonar-checkstyle-plugin-2.8.jar"), jarFile);
+    CachingExploder exploder = new CachingExploder(cacheDir);
+    ExplodedPlugin installed = exploder.explode(new PluginInfo("checkstyle").setJarFile(jarFile));
+    File uninstalledDir = new File(cacheDir, "0123456789abcdef0123456789abcdef");
+    FileUtils.write(new File(uninstalledDir, "uninstalled.jar"), "jar");
+    FileUtils.write(new File(cacheDir, "uninstalled.checksum"), "3 1500000000000 0123456789abcdef0123456789abcdef");
+    File interruptedExplosion = new File(cacheDir, "tmp123");
+    FileUtils.write(new File(interruptedExplosion, "plugin.jar"), "jar");
+    File interruptedChecksum = new File(cacheDir, "checksum456.checksum");
+    FileUtils.write(interruptedChecksum, "3 1500000000000 abc");
+
+    PluginJarExploder.cleanCache(cacheDir, asList("checkstyle", "not_exploded"));
+
+    assertThat(cacheDir.list()).containsOnly(md5Of(jarFile), "checkstyle.checksum");
+    assertThat(installed.getMain()).isFile();
+    for (File lib : installed.getLibs()) {
+      assertThat(lib).isFile();
+    }
+  }
+
+  @Test
+  public void clean_cache_ignores_missing_directory() throws Exception {
+    File cacheDir = new File(temp.getRoot(), "does_not_exist");
+
+    PluginJarExploder.cleanCache(cacheDir, asList("checkstyle"));
+
+    assertThat(cacheDir).doesNotExist();
+  }
+
+  private static String md5Of(File file) throws IOException {
+    try (InputStream input = new FileInputStream(file)) {
+      return DigestUtils.md5Hex(input);
+    }
+  }
+
+  private static class CachingExploder extends PluginJarExploder {
+    private final File cacheDir;
+
+    CachingExploder(File cacheDir) {
+      this.cacheDir = cacheDir;
+    }
+
+    @Override
+    public ExplodedPlugin explode(PluginInfo info) {
+      try {
+        return explodeToCache(info, cacheDir);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
   private File getFile(String filename) {
     return FileUtils.toFile(getClass().getResource("/org/sonar/core/platform/" + filename));
   }
@@ -20,7 +20,12 @@
 package org.sonar.core.util;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
 import java.io.StringWriter;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -210,6 +215,52 @@ public class ProtobufJsonFormatTest {
     assertThat(toJson(msg.build())).isEqualTo("{\"catalogs\":{\"numbers\":{\"one\":\"un\",\"two\":\"deux\"}}}");
   }
 
+  @Test
+  public void write_same_json_as_reflection_on_descriptors() throws Exception {
+    TestMapOfArray.Builder mapOfArray = TestMapOfArray.newBuilder();
+    mapOfArray.getMutableMoneys().put("eur", Countries.newBuilder().addCountries(Country.newBuilder().setContinent("Europe").setName("France")).build());
+    Translations.Builder translations = Translations.newBuilder();
+    translations.getMutableTranslations().put("one", "un");
+    TestMapOfMap.Builder mapOfMap = TestMapOfMap.newBuilder();
+    mapOfMap.getMutableCatalogs().put("numbers", translations.build());
+    Message[] messages = {
+      PrimitiveTypeMsg.newBuilder().setStringField("foo").setIntField(10).setLongField(100L).setDoubleField(3.14).setBooleanField(true)
+        .setEnumField(org.sonar.core.test.Test.FakeEnum.GREEN).setNested(NestedMsg.newBuilder().setLabel("nested")).build(),
+      PrimitiveTypeMsg.newBuilder().build(),
+      TestArray.newBuilder().addStrings("one").addNesteds(NestedMsg.newBuilder().setLabel("nestedOne")).build(),
+      TestNullableArray.newBuilder().setLabel("world").setCountries(Countries.newBuilder().addCountries(Country.newBuilder().setName("France"))).build(),
+      TestNullableMap.newBuilder().setLabel("world").setTranslations(translations).build(),
+      mapOfArray.build(),
+      mapOfMap.build()
+    };
+
+    for (Message message : messages) {
+      // dynamic messages are written through reflection on descriptors
+      DynamicMessage dynamicMessage = DynamicMessage.parseFrom(message.getDescriptorForType(), message.toByteString());
+      assertThat(toJson(message)).isEqualTo(toJson(dynamicMessage));
+    }
+  }
+
+  @Test
+  public void write_concurrently() throws Exception {
+    TestNullableArray msg = TestNullableArray.newBuilder()
+      .setLabel("world")
+      .setCountries(Countries.newBuilder().addCountries(Country.newBuilder().setName("France").setContinent("Europe")))
+      .build();
+
+    List<String> jsons = IntStream.range(0, 100).parallel().mapToObj(i -> toJson(msg)).collect(Collectors.toList());
+
+    assertThat(jsons).containsOnly("{\"label\":\"world\",\"countries\":[{\"name\":\"France\",\"continent\":\"Europe\"}]}");
+  }
+
+  @Test
+  public void accessor_name_is_camel_case_of_field_name() {
+    assertThat(ProtobufJsonFormat.toAccessorName("line")).isEqualTo("Line");
+    assertThat(ProtobufJsonFormat.toAccessorName("stringField")).isEqualTo("StringField");
+    assertThat(ProtobufJsonFormat.toAccessorName("start_offset")).isEqualTo("StartOffset");
+    assertThat(ProtobufJsonFormat.toAccessorName("p2p_value")).isEqualTo("P2PValue");
+  }
+
   @Test
   public void constructor_is_private() throws Exception {
     assertThat(TestUtils.hasOnlyPrivateConstructors(ProtobufJsonFormat.class)).isTrue();
@@ -0,0 +1,85 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.util.logs;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RequestProfileTest {
+
+  @After
+  public void tearDown() {
+    RequestProfile.stop();
+  }
+
+  @Test
+  public void times_are_ignored_if_profile_is_not_started() {
+    RequestProfile.addDbTime(10L);
+    RequestProfile.addConnectionWaitTime(5L);
+    RequestProfile.addEsTime(20L);
+    RequestProfile.addSerializationTime(30L);
+
+    assertThat(RequestProfile.current()).isNull();
+  }
+
+  @Test
+  public void times_are_accumulated_on_started_profile() {
+    RequestProfile profile = RequestProfile.start();
+
+    RequestProfile.addDbTime(10L);
+    RequestProfile.addDbTime(5L);
+    RequestProfile.addConnectionWaitTime(3L);
+    RequestProfile.addConnectionWaitTime(4L);
+    RequestProfile.addEsTime(20L);
+    RequestProfile.addSerializationTime(30L);
+
+    assertThat(RequestProfile.current()).isSameAs(profile);
+    assertThat(profile.getDbNanos()).isEqualTo(15L);
+    assertThat(profile.getDbCalls()).isEqualTo(2);
+    assertThat(profile.getConnectionWaitNanos()).isEqualTo(7L);
+    assertThat(profile.getEsNanos()).isEqualTo(20L);
+    assertThat(profile.getEsCalls()).isEqualTo(1);
+    assertThat(profile.getSerializationNanos()).isEqualTo(30L);
+  }
+
+  @Test
+  public void stop_removes_profile_of_current_thread() {
+    RequestProfile profile = RequestProfile.start();
+    RequestProfile.stop();
+
+    RequestProfile.addDbTime(10L);
+
+    assertThat(RequestProfile.current()).isNull();
+    assertThat(profile.getDbNanos()).isZero();
+  }
+
+  @Test
+  public void profile_is_not_shared_between_threads() throws Exception {
+    RequestProfile profile = RequestProfile.start();
+
+    Thread thread = new Thread(() -> RequestProfile.addDbTime(10L));
+    thread.start();
+    thread.join();
+
+    assertThat(profile.getDbNanos()).isZero();
+  }
+}
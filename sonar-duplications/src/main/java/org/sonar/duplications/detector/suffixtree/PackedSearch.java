@@ -0,0 +1,167 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector.suffixtree;
+
+/**
+ * Same as {@link Search}, but performed on a {@link PackedSuffixTree}.
+ */
+public final class PackedSearch {
+
+  private final PackedSuffixTree tree;
+  private final TextSet text;
+  private final Search.Collector reporter;
+
+  /**
+   * Depths of leaves, in order of visit
+   */
+  private final int[] list;
+  private int listSize;
+  private final int[] depths;
+  private final int[] startSizes;
+  private final int[] endSizes;
+  private int[] innerNodes;
+  private int innerNodesSize;
+
+  private PackedSearch(PackedSuffixTree tree, TextSet text, Search.Collector reporter) {
+    this.tree = tree;
+    this.text = text;
+    this.reporter = reporter;
+    this.list = new int[tree.length()];
+    this.depths = new int[tree.nodes()];
+    this.startSizes = new int[tree.nodes()];
+    this.endSizes = new int[tree.nodes()];
+    this.innerNodes = new int[tree.nodes()];
+  }
+
+  public static void perform(TextSet text, Search.Collector reporter) {
+    new PackedSearch(PackedSuffixTree.create(text), text, reporter).compute();
+  }
+
+  private void compute() {
+    // O(N)
+    dfs();
+
+    // O(N)
+    sortInnerNodesByDescendingDepth();
+
+    // O(N)
+    visitInnerNodes();
+  }
+
+  /**
+   * Depth-first search (DFS).
+   */
+  private void dfs() {
+    int[] stack = new int[tree.nodes()];
+    int stackSize = 0;
+    stack[stackSize] = PackedSuffixTree.ROOT;
+    stackSize++;
+    while (stackSize > 0) {
+      stackSize--;
+      int node = stack[stackSize];
+      startSizes[node] = listSize;
+      int firstChild = tree.firstChild(node);
+      int endOfChildren = tree.endOfChildren(node);
+      if (firstChild == endOfChildren) {
+        // leaf
+        list[listSize] = depths[node];
+        listSize++;
+        endSizes[node] = listSize;
+      } else {
+        if (node != PackedSuffixTree.ROOT) {
+          // inner node = not leaf and not root
+          innerNodes[innerNodesSize] = node;
+          innerNodesSize++;
+        }
+        for (int i = firstChild; i < endOfChildren; i++) {
+          int child = tree.child(i);
+          depths[child] = depths[node] + tree.edgeSpan(child) + 1;
+          stack[stackSize] = child;
+          stackSize++;
+        }
+      }
+    }
+    // At this point all inner nodes are ordered by the time of entering, so we visit them from last to first
+    for (int i = innerNodesSize - 1; i >= 0; i--) {
+      int node = innerNodes[i];
+      int max = -1;
+      for (int c = tree.firstChild(node); c < tree.endOfChildren(node); c++) {
+        max = Math.max(endSizes[tree.child(c)], max);
+      }
+      endSizes[node] = max;
+    }
+  }
+
+  /**
+   * Stable counting sort, as depth of nodes is bounded by length of text
+   */
+  private void sortInnerNodesByDescendingDepth() {
+    int maxDepth = tree.length();
+    int[] counts = new int[maxDepth + 2];
+    for (int i = 0; i < innerNodesSize; i++) {
+      counts[maxDepth - depths[innerNodes[i]] + 1]++;
+    }
+    for (int i = 1; i < counts.length; i++) {
+      counts[i] += counts[i - 1];
+    }
+    int[] sorted = new int[innerNodesSize];
+    for (int i = 0; i < innerNodesSize; i++) {
+      int node = innerNodes[i];
+      int index = maxDepth - depths[node];
+      sorted[counts[index]] = node;
+      counts[index]++;
+    }
+    innerNodes = sorted;
+  }
+
+  /**
+   * Each inner-node represents prefix of some suffixes, thus substring of text.
+   */
+  private void visitInnerNodes() {
+    for (int i = 0; i < innerNodesSize; i++) {
+      int node = innerNodes[i];
+      if (containsOrigin(node)) {
+        report(node);
+      }
+    }
+  }
+
+  private boolean containsOrigin(int node) {
+    for (int i = startSizes[node]; i < endSizes[node]; i++) {
+      int start = tree.length() - list[i];
+      int end = start + depths[node];
+      if (text.isInsideOrigin(end)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void report(int node) {
+    reporter.startOfGroup(endSizes[node] - startSizes[node], depths[node]);
+    for (int i = startSizes[node]; i < endSizes[node]; i++) {
+      int start = tree.length() - list[i];
+      int end = start + depths[node];
+      reporter.part(start, end);
+    }
+    reporter.endOfGroup();
+  }
+
+}
@@ -0,0 +1,266 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector.suffixtree;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Suffix tree built with the same algorithm as {@link SuffixTree}, but stored in arrays of primitives instead of
+ * {@link Node} and {@link Edge} objects, in order to reduce allocations when text is large.
+ * <p>
+ * Symbols of text are replaced by integers, so that they are compared and hashed only once. Each node except
+ * the root has exactly one incoming edge, so an edge is identified by the node where it ends. Edges are looked up
+ * in an open-addressing hash table, which key is made of the start node of edge and of its first symbol.
+ * </p>
+ */
+public final class PackedSuffixTree {
+
+  static final int ROOT = 0;
+  private static final int NONE = -1;
+  private static final long FREE = -1L;
+
+  private final int[] text;
+
+  /**
+   * Indices in text of the first and last symbols of the edge ending at a node
+   */
+  private final int[] edgeBegin;
+  private final int[] edgeEnd;
+  private final int[] suffixLinks;
+  private int nodes;
+
+  private final long[] tableKeys;
+  private final int[] tableValues;
+  private final int tableMask;
+
+  private int activeNode = ROOT;
+  private int activeBegin = 0;
+  private int activeEnd = -1;
+
+  /**
+   * Children of nodes, in compressed form: children of node {@code i} are at indices
+   * from {@code childrenOffsets[i]} inclusive to {@code childrenOffsets[i + 1]} exclusive of {@code children}.
+   */
+  private int[] childrenOffsets;
+  private int[] children;
+
+  private PackedSuffixTree(int[] text) {
+    this.text = text;
+    int maxNodes = 2 * text.length + 1;
+    this.edgeBegin = new int[maxNodes];
+    this.edgeEnd = new int[maxNodes];
+    this.suffixLinks = new int[maxNodes];
+    int tableSize = Integer.highestOneBit(2 * maxNodes - 1) << 1;
+    this.tableKeys = new long[tableSize];
+    this.tableValues = new int[tableSize];
+    this.tableMask = tableSize - 1;
+    Arrays.fill(tableKeys, FREE);
+    newNode(0, -1);
+  }
+
+  public static PackedSuffixTree create(Text text) {
+    PackedSuffixTree tree = new PackedSuffixTree(toIntegers(text));
+    for (int i = 0; i < tree.text.length; i++) {
+      tree.addPrefix(i);
+    }
+    tree.indexChildren();
+    return tree;
+  }
+
+  private static int[] toIntegers(Text text) {
+    int[] result = new int[text.length()];
+    Map<Object, Integer> ids = new HashMap<>();
+    for (int i = 0; i < result.length; i++) {
+      Object symbol = text.symbolAt(i);
+      Integer id = ids.get(symbol);
+      if (id == null) {
+        id = ids.size();
+        ids.put(symbol, id);
+      }
+      result[i] = id;
+    }
+    return result;
+  }
+
+  private void addPrefix(int endIndex) {
+    int lastParentNode = NONE;
+    int parentNode;
+
+    while (true) {
+      parentNode = activeNode;
+      if (activeBegin > activeEnd) {
+        // explicit node
+        if (findEdge(activeNode, text[endIndex]) != NONE) {
+          break;
+        }
+      } else {
+        int edge = findEdge(activeNode, text[activeBegin]);
+        int span = activeEnd - activeBegin;
+        if (text[edgeBegin[edge] + span + 1] == text[endIndex]) {
+          break;
+        }
+        parentNode = splitEdge(edge, span);
+      }
+
+      int leaf = newNode(endIndex, text.length - 1);
+      putEdge(parentNode, text[endIndex], leaf);
+      updateSuffixNode(lastParentNode, parentNode);
+      lastParentNode = parentNode;
+
+      if (activeNode == ROOT) {
+        activeBegin++;
+      } else {
+        activeNode = suffixLinks[activeNode];
+      }
+      canonize();
+    }
+    updateSuffixNode(lastParentNode, parentNode);
+    activeEnd++;
+    canonize();
+  }
+
+  /**
+   * Splits the specified edge, which starts at the active node, after {@code span + 1} symbols.
+   *
+   * @return the node inserted in the middle of edge
+   */
+  private int splitEdge(int edge, int span) {
+    int begin = edgeBegin[edge];
+    int middle = newNode(begin, begin + span);
+    suffixLinks[middle] = activeNode;
+    putEdge(activeNode, text[begin], middle);
+    edgeBegin[edge] = begin + span + 1;
+    putEdge(middle, text[edgeBegin[edge]], edge);
+    return middle;
+  }
+
+  private void canonize() {
+    if (activeBegin > activeEnd) {
+      return;
+    }
+    int edge = findEdge(activeNode, text[activeBegin]);
+    int edgeSpan = edgeEnd[edge] - edgeBegin[edge];
+    while (edgeSpan <= activeEnd - activeBegin) {
+      activeBegin += edgeSpan + 1;
+      activeNode = edge;
+      if (activeBegin <= activeEnd) {
+        edge = findEdge(edge, text[activeBegin]);
+        edgeSpan = edgeEnd[edge] - edgeBegin[edge];
+      }
+    }
+  }
+
+  private void updateSuffixNode(int node, int suffixNode) {
+    if (node != NONE && node != ROOT) {
+      suffixLinks[node] = suffixNode;
+    }
+  }
+
+  private int newNode(int begin, int end) {
+    int node = nodes;
+    nodes++;
+    edgeBegin[node] = begin;
+    edgeEnd[node] = end;
+    suffixLinks[node] = NONE;
+    return node;
+  }
+
+  private int findEdge(int node, int symbol) {
+    long key = key(node, symbol);
+    int slot = slot(key);
+    while (tableKeys[slot] != FREE) {
+      if (tableKeys[slot] == key) {
+        return tableValues[slot];
+      }
+      slot = (slot + 1) & tableMask;
+    }
+    return NONE;
+  }
+
+  private void putEdge(int node, int symbol, int child) {
+    long key = key(node, symbol);
+    int slot = slot(key);
+    while (tableKeys[slot] != FREE && tableKeys[slot] != key) {
+      slot = (slot + 1) & tableMask;
+    }
+    tableKeys[slot] = key;
+    tableValues[slot] = child;
+  }
+
+  private static long key(int node, int symbol) {
+    return ((long) node << 32) | symbol;
+  }
+
+  private int slot(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32)) & tableMask;
+  }
+
+  private void indexChildren() {
+    childrenOffsets = new int[nodes + 1];
+    for (int slot = 0; slot < tableKeys.length; slot++) {
+      if (tableKeys[slot] != FREE) {
+        childrenOffsets[(int) (tableKeys[slot] >>> 32) + 1]++;
+      }
+    }
+    for (int node = 0; node < nodes; node++) {
+      childrenOffsets[node + 1] += childrenOffsets[node];
+    }
+    children = new int[childrenOffsets[nodes]];
+    int[] next = Arrays.copyOf(childrenOffsets, nodes);
+    for (int slot = 0; slot < tableKeys.length; slot++) {
+      if (tableKeys[slot] != FREE) {
+        int node = (int) (tableKeys[slot] >>> 32);
+        children[next[node]] = tableValues[slot];
+        next[node]++;
+      }
+    }
+  }
+
+  int length() {
+    return text.length;
+  }
+
+  int nodes() {
+    return nodes;
+  }
+
+  int firstChild(int node) {
+    return childrenOffsets[node];
+  }
+
+  int endOfChildren(int node) {
+    return childrenOffsets[node + 1];
+  }
+
+  int child(int index) {
+    return children[index];
+  }
+
+  /**
+   * @return length in symbols of the edge ending at specified node, minus one, as {@link Edge#getSpan()}
+   */
+  int edgeSpan(int node) {
+    return edgeEnd[node] - edgeBegin[node];
+  }
+
+}
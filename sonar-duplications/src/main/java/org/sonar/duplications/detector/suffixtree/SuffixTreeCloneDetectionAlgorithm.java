@@ -50,7 +50,7 @@ public final class SuffixTreeCloneDetectionAlgorithm {
       return Collections.emptyList();
     }
     DuplicationsCollector reporter = new DuplicationsCollector(text);
-    Search.perform(text, reporter);
+    PackedSearch.perform(text, reporter);
     return reporter.getResult();
   }
 
@@ -0,0 +1,414 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.index;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.Nullable;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.index.PackedMemoryCloneIndex.ResourceBlocks;
+import org.sonar.duplications.utils.DirectBuffers;
+import org.sonar.duplications.utils.FastStringComparator;
+
+/**
+ * Provides an index optimized by memory, which stores blocks outside of the Java heap.
+ * <p>
+ * Unlike {@link PackedMemoryCloneIndex}, blocks are stored in a direct {@link ByteBuffer}, resource ids are interned
+ * to integers, and the index never needs to be sorted:
+ * <ul>
+ * <li>blocks having the same hash are linked together, and the first and last blocks of each hash are found with a hash table,
+ * so that {@link #getBySequenceHash(ByteArray)} does not depend on the number of blocks in index,</li>
+ * <li>blocks of the same resource are linked together, so that {@link #getByResourceId(String)} does not depend on
+ * the number of blocks in index either.</li>
+ * </ul>
+ * Blocks are returned in order of insertion.
+ * </p>
+ * <p>
+ * Index is thread-safe, so it can be populated by several threads at the same time. Insertions are serialized by
+ * a single lock though, as all blocks are stored in the same buffer and linked together: concurrent builds are
+ * correct, but not faster than a sequential build. Lookups share a read lock and run concurrently.
+ * </p>
+ * <p>
+ * Offsets in a {@link ByteBuffer} are ints, so the number of blocks is limited to {@code Integer.MAX_VALUE} divided by
+ * the size of a block, that is about 53 millions blocks with the default hash size.
+ * </p>
+ * <p>
+ * Note that this implementation does not support deletion.
+ * </p>
+ */
+public class OffHeapCloneIndex extends AbstractCloneIndex {
+
+  private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+  private static final int NONE = -1;
+
+  // offsets of fields of a block, in ints, after the hash
+  private static final int RESOURCE = 0;
+  private static final int INDEX_IN_FILE = 1;
+  private static final int START_LINE = 2;
+  private static final int END_LINE = 3;
+  private static final int START_UNIT = 4;
+  private static final int END_UNIT = 5;
+  private static final int NEXT_WITH_SAME_HASH = 6;
+  private static final int NEXT_WITH_SAME_RESOURCE = 7;
+  private static final int FIELDS = 8;
+
+  private final int hashBytes;
+  private final int blockBytes;
+  private final Lock readLock;
+  private final Lock writeLock;
+
+  private ByteBuffer blocks;
+  private int size;
+
+  private final Map<String, Integer> resourceIndices = new HashMap<>();
+  private final List<String> resourceIds = new ArrayList<>();
+  private int[] firstOfResource;
+  private int[] lastOfResource;
+
+  /**
+   * Open-addressing table of distinct hashes. Each slot contains the index of the hash in
+   * {@link #firstOfHash} and {@link #lastOfHash}, or {@link #NONE}.
+   */
+  private int[] hashTable;
+  private int distinctHashes;
+  private int[] firstOfHash;
+  private int[] lastOfHash;
+
+  public OffHeapCloneIndex() {
+    this(8, DEFAULT_INITIAL_CAPACITY);
+  }
+
+  /**
+   * @param hashBytes size of hash in bytes
+   * @param initialCapacity the initial capacity
+   */
+  public OffHeapCloneIndex(int hashBytes, int initialCapacity) {
+    int capacity = Math.max(initialCapacity, 1);
+    this.hashBytes = hashBytes;
+    this.blockBytes = hashBytes + FIELDS * Integer.BYTES;
+    this.blocks = ByteBuffer.allocateDirect(offset(capacity));
+    this.firstOfResource = new int[16];
+    this.lastOfResource = new int[16];
+    this.hashTable = newHashTable(Integer.highestOneBit(capacity) << 1);
+    this.firstOfHash = new int[hashTable.length / 2];
+    this.lastOfHash = new int[hashTable.length / 2];
+    ReadWriteLock lock = new ReentrantReadWriteLock();
+    this.readLock = lock.readLock();
+    this.writeLock = lock.writeLock();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * <strong>Note that this implementation allows insertion of two blocks with same index for one resource.</strong>
+   * </p>
+   */
+  @Override
+  public void insert(Block block) {
+    byte[] hash = block.getBlockHash().getBytes();
+    checkHashSize(hash);
+    writeLock.lock();
+    try {
+      ensureCapacity();
+      int blockIndex = size;
+      int offset = offset(blockIndex);
+      for (int i = 0; i < hashBytes; i++) {
+        blocks.put(offset + i, hash[i]);
+      }
+      int resource = internResourceId(block.getResourceId());
+      setField(blockIndex, RESOURCE, resource);
+      setField(blockIndex, INDEX_IN_FILE, block.getIndexInFile());
+      setField(blockIndex, START_LINE, block.getStartLine());
+      setField(blockIndex, END_LINE, block.getEndLine());
+      setField(blockIndex, START_UNIT, block.getStartUnit());
+      setField(blockIndex, END_UNIT, block.getEndUnit());
+      setField(blockIndex, NEXT_WITH_SAME_HASH, NONE);
+      setField(blockIndex, NEXT_WITH_SAME_RESOURCE, NONE);
+      size++;
+
+      if (lastOfResource[resource] == NONE) {
+        firstOfResource[resource] = blockIndex;
+      } else {
+        setField(lastOfResource[resource], NEXT_WITH_SAME_RESOURCE, blockIndex);
+      }
+      lastOfResource[resource] = blockIndex;
+
+      linkToSameHash(blockIndex, hash);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  private int internResourceId(String resourceId) {
+    Integer resource = resourceIndices.get(resourceId);
+    if (resource != null) {
+      return resource;
+    }
+    int newResource = resourceIds.size();
+    resourceIndices.put(resourceId, newResource);
+    resourceIds.add(resourceId);
+    if (newResource == firstOfResource.length) {
+      firstOfResource = Arrays.copyOf(firstOfResource, newResource * 2);
+      lastOfResource = Arrays.copyOf(lastOfResource, newResource * 2);
+    }
+    firstOfResource[newResource] = NONE;
+    lastOfResource[newResource] = NONE;
+    return newResource;
+  }
+
+  private void linkToSameHash(int blockIndex, byte[] hash) {
+    int slot = findSlot(hash);
+    int hashIndex = hashTable[slot];
+    if (hashIndex == NONE) {
+      if ((distinctHashes + 1) * 2 > hashTable.length) {
+        rehash();
+        slot = findSlot(hash);
+      }
+      hashIndex = distinctHashes;
+      distinctHashes++;
+      hashTable[slot] = hashIndex;
+      firstOfHash[hashIndex] = blockIndex;
+    } else {
+      setField(lastOfHash[hashIndex], NEXT_WITH_SAME_HASH, blockIndex);
+    }
+    lastOfHash[hashIndex] = blockIndex;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Hash of returned blocks is the specified instance of {@link ByteArray}.
+   * </p>
+   */
+  @Override
+  public Collection<Block> getBySequenceHash(ByteArray sequenceHash) {
+    byte[] hash = sequenceHash.getBytes();
+    checkHashSize(hash);
+    readLock.lock();
+    try {
+      int hashIndex = hashTable[findSlot(hash)];
+      if (hashIndex == NONE) {
+        return Collections.emptyList();
+      }
+      List<Block> result = new ArrayList<>();
+      Block.Builder builder = Block.builder();
+      for (int blockIndex = firstOfHash[hashIndex]; blockIndex != NONE; blockIndex = getField(blockIndex, NEXT_WITH_SAME_HASH)) {
+        result.add(createBlock(builder, blockIndex, resourceIds.get(getField(blockIndex, RESOURCE)), sequenceHash));
+      }
+      return result;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public Collection<Block> getByResourceId(String resourceId) {
+    readLock.lock();
+    try {
+      Integer resource = resourceIndices.get(resourceId);
+      if (resource == null) {
+        return Collections.emptyList();
+      }
+      return getBlocksOfResource(resource);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  private List<Block> getBlocksOfResource(int resource) {
+    String resourceId = resourceIds.get(resource);
+    List<Block> result = new ArrayList<>();
+    Block.Builder builder = Block.builder();
+    for (int blockIndex = firstOfResource[resource]; blockIndex != NONE; blockIndex = getField(blockIndex, NEXT_WITH_SAME_RESOURCE)) {
+      result.add(createBlock(builder, blockIndex, resourceId, null));
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Resources are sorted by {@link FastStringComparator}, as in {@link PackedMemoryCloneIndex}.
+   * </p>
+   */
+  @Override
+  public Iterator<ResourceBlocks> iterator() {
+    List<String> sortedResourceIds;
+    readLock.lock();
+    try {
+      sortedResourceIds = new ArrayList<>(resourceIds);
+    } finally {
+      readLock.unlock();
+    }
+    sortedResourceIds.sort(FastStringComparator.INSTANCE);
+    Iterator<String> it = sortedResourceIds.iterator();
+    return new Iterator<ResourceBlocks>() {
+      @Override
+      public boolean hasNext() {
+        return it.hasNext();
+      }
+
+      @Override
+      public ResourceBlocks next() {
+        String resourceId = it.next();
+        return new ResourceBlocks(resourceId, getByResourceId(resourceId));
+      }
+    };
+  }
+
+  @Override
+  public int noResources() {
+    readLock.lock();
+    try {
+      return resourceIds.size();
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  private Block createBlock(Block.Builder builder, int blockIndex, String resourceId, @Nullable ByteArray hash) {
+    ByteArray blockHash = hash;
+    if (blockHash == null) {
+      byte[] bytes = new byte[hashBytes];
+      int offset = offset(blockIndex);
+      for (int i = 0; i < hashBytes; i++) {
+        bytes[i] = blocks.get(offset + i);
+      }
+      blockHash = new ByteArray(bytes);
+    }
+    return builder
+      .setResourceId(resourceId)
+      .setBlockHash(blockHash)
+      .setIndexInFile(getField(blockIndex, INDEX_IN_FILE))
+      .setLines(getField(blockIndex, START_LINE), getField(blockIndex, END_LINE))
+      .setUnit(getField(blockIndex, START_UNIT), getField(blockIndex, END_UNIT))
+      .build();
+  }
+
+  private int getField(int blockIndex, int field) {
+    return blocks.getInt(offset(blockIndex) + hashBytes + field * Integer.BYTES);
+  }
+
+  private void setField(int blockIndex, int field, int value) {
+    blocks.putInt(offset(blockIndex) + hashBytes + field * Integer.BYTES, value);
+  }
+
+  private void checkHashSize(byte[] hash) {
+    if (hash.length != hashBytes) {
+      throw new IllegalArgumentException("Expected " + hashBytes + " bytes in hash, but got " + hash.length);
+    }
+  }
+
+  /**
+   * Offset of the first byte of a block in {@link #blocks}
+   *
+   * @throws IllegalStateException if the offset exceeds the maximum size of a {@link ByteBuffer}
+   */
+  private int offset(int blockIndex) {
+    try {
+      return Math.multiplyExact(blockIndex, blockBytes);
+    } catch (ArithmeticException e) {
+      throw new IllegalStateException("Index can't contain more than " + maxCapacity() + " blocks", e);
+    }
+  }
+
+  private int maxCapacity() {
+    return Integer.MAX_VALUE / blockBytes;
+  }
+
+  /**
+   * Increases the capacity, if necessary. The memory of the previous buffer is released immediately, as direct
+   * buffers are freed only when garbage collected, which may never happen if heap is not under pressure.
+   */
+  private void ensureCapacity() {
+    if (offset(size + 1) <= blocks.capacity()) {
+      return;
+    }
+    int newCapacity = (int) Math.min(blocks.capacity() / blockBytes * 3L / 2 + 1, maxCapacity());
+    ByteBuffer newBlocks = ByteBuffer.allocateDirect(offset(newCapacity));
+    ByteBuffer oldBlocks = blocks;
+    oldBlocks.clear();
+    newBlocks.put(oldBlocks);
+    newBlocks.clear();
+    blocks = newBlocks;
+    DirectBuffers.release(oldBlocks);
+  }
+
+  private int findSlot(byte[] hash) {
+    int mask = hashTable.length - 1;
+    int slot = hashCode(hash) & mask;
+    while (hashTable[slot] != NONE && !hasHash(firstOfHash[hashTable[slot]], hash)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private boolean hasHash(int blockIndex, byte[] hash) {
+    int offset = offset(blockIndex);
+    for (int i = 0; i < hashBytes; i++) {
+      if (blocks.get(offset + i) != hash[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void rehash() {
+    int[] newTable = newHashTable(hashTable.length * 2);
+    int mask = newTable.length - 1;
+    byte[] hash = new byte[hashBytes];
+    for (int hashIndex = 0; hashIndex < distinctHashes; hashIndex++) {
+      int offset = offset(firstOfHash[hashIndex]);
+      for (int i = 0; i < hashBytes; i++) {
+        hash[i] = blocks.get(offset + i);
+      }
+      int slot = hashCode(hash) & mask;
+      while (newTable[slot] != NONE) {
+        slot = (slot + 1) & mask;
+      }
+      newTable[slot] = hashIndex;
+    }
+    hashTable = newTable;
+    firstOfHash = Arrays.copyOf(firstOfHash, newTable.length / 2);
+    lastOfHash = Arrays.copyOf(lastOfHash, newTable.length / 2);
+  }
+
+  private static int[] newHashTable(int size) {
+    int[] table = new int[size];
+    Arrays.fill(table, NONE);
+    return table;
+  }
+
+  private static int hashCode(byte[] hash) {
+    int h = Arrays.hashCode(hash) * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
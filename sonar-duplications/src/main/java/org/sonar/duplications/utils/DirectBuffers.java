@@ -0,0 +1,81 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.utils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
+
+/**
+ * Releases the memory of direct and memory-mapped buffers without waiting for them to be garbage collected.
+ * Unmapping a file is required, for example, to delete it on Windows. JDK has no public API for that, so internal
+ * APIs are called by reflection: {@code sun.misc.Unsafe#invokeCleaner(ByteBuffer)} on Java 9+ and
+ * {@code DirectBuffer#cleaner()} on Java 8. If none is available, the buffer is released by the garbage collector.
+ * <p>
+ * A released buffer, or any of its duplicates and slices, must never be accessed again, as it would crash the JVM.
+ * </p>
+ */
+public final class DirectBuffers {
+
+  private DirectBuffers() {
+    // only static methods
+  }
+
+  /**
+   * @return {@code true} if memory has been released, {@code false} if the buffer is not direct or if
+   * memory can't be released explicitly on this JVM
+   */
+  public static boolean release(@Nullable ByteBuffer buffer) {
+    if (buffer == null || !buffer.isDirect()) {
+      return false;
+    }
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Method invokeCleaner;
+      try {
+        invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      } catch (NoSuchMethodException e) {
+        return releaseOnJava8(buffer);
+      }
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      return true;
+    } catch (Exception e) {
+      // buffer is a duplicate or a slice, or internal APIs are not accessible
+      return false;
+    }
+  }
+
+  private static boolean releaseOnJava8(ByteBuffer buffer) throws ReflectiveOperationException {
+    Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+    cleanerMethod.setAccessible(true);
+    Object cleaner = cleanerMethod.invoke(buffer);
+    if (cleaner == null) {
+      // duplicates and slices have no cleaner
+      return false;
+    }
+    Method clean = cleaner.getClass().getMethod("clean");
+    clean.setAccessible(true);
+    clean.invoke(cleaner);
+    return true;
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.detector.suffixtree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PackedSearchTest {
+
+  @Test
+  public void same_groups_as_search_on_suffix_tree_of_objects() {
+    Random random = new Random(42);
+    for (int i = 0; i < 500; i++) {
+      TextSet text = randomText(random, 1 + random.nextInt(5), 1 + random.nextInt(i % 2 == 0 ? 3 : 30));
+
+      RecordingCollector expected = new RecordingCollector();
+      Search.perform(text, expected);
+      RecordingCollector actual = new RecordingCollector();
+      PackedSearch.perform(text, actual);
+
+      // groups of same length are reported in an unspecified order
+      assertThat(actual.lengths).isEqualTo(expected.lengths);
+      Collections.sort(actual.groups);
+      Collections.sort(expected.groups);
+      assertThat(actual.groups).isEqualTo(expected.groups);
+    }
+  }
+
+  private static TextSet randomText(Random random, int files, int distinctHashes) {
+    TextSet.Builder builder = TextSet.builder();
+    for (int file = 0; file < files; file++) {
+      List<Block> blocks = new ArrayList<>();
+      int size = 1 + random.nextInt(50);
+      for (int i = 0; i < size; i++) {
+        blocks.add(Block.builder()
+          .setResourceId("file" + file)
+          .setBlockHash(new ByteArray((long) random.nextInt(distinctHashes)))
+          .setIndexInFile(i)
+          .setLines(i, i + 1)
+          .build());
+      }
+      builder.add(blocks);
+    }
+    return builder.build();
+  }
+
+  private static class RecordingCollector extends Search.Collector {
+    private final List<Integer> lengths = new ArrayList<>();
+    private final List<String> groups = new ArrayList<>();
+    private List<String> parts;
+
+    @Override
+    void startOfGroup(int size, int length) {
+      lengths.add(length);
+      parts = new ArrayList<>();
+    }
+
+    @Override
+    void part(int start, int end) {
+      parts.add(start + "-" + end);
+    }
+
+    @Override
+    void endOfGroup() {
+      Collections.sort(parts);
+      groups.add(lengths.get(lengths.size() - 1) + ":" + parts);
+    }
+  }
+
+}
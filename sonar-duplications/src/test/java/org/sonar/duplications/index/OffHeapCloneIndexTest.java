@@ -0,0 +1,212 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.index.PackedMemoryCloneIndex.ResourceBlocks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class OffHeapCloneIndexTest {
+
+  private OffHeapCloneIndex index = new OffHeapCloneIndex();
+
+  @Test
+  public void test() {
+    index.insert(newBlock("a", 1));
+    index.insert(newBlock("a", 2));
+    index.insert(newBlock("b", 1));
+    index.insert(newBlock("c", 1));
+    index.insert(newBlock("d", 1));
+    index.insert(newBlock("e", 1));
+    index.insert(newBlock("e", 2));
+    index.insert(newBlock("e", 3));
+
+    assertThat(index.noResources()).isEqualTo(5);
+    assertThat(index.getBySequenceHash(new ByteArray(1L))).hasSize(5);
+    assertThat(index.getBySequenceHash(new ByteArray(2L))).hasSize(2);
+    assertThat(index.getBySequenceHash(new ByteArray(3L))).hasSize(1);
+    assertThat(index.getBySequenceHash(new ByteArray(4L))).isEmpty();
+    assertThat(index.getByResourceId("a")).hasSize(2);
+    assertThat(index.getByResourceId("b")).hasSize(1);
+    assertThat(index.getByResourceId("e")).hasSize(3);
+    assertThat(index.getByResourceId("does not exist")).isEmpty();
+  }
+
+  @Test
+  public void blocks_are_restored_as_inserted() {
+    Block block = Block.builder()
+      .setResourceId("a")
+      .setBlockHash(new ByteArray(42L))
+      .setIndexInFile(3)
+      .setLines(4, 5)
+      .setUnit(6, 7)
+      .build();
+    index.insert(block);
+
+    Block fromResource = index.getByResourceId("a").iterator().next();
+    assertThat(fromResource).isEqualTo(block);
+    assertThat(fromResource.getBlockHash()).isEqualTo(block.getBlockHash());
+    assertThat(fromResource.getStartUnit()).isEqualTo(6);
+    assertThat(fromResource.getEndUnit()).isEqualTo(7);
+    assertThat(index.getBySequenceHash(new ByteArray(42L))).containsExactly(block);
+  }
+
+  @Test
+  public void blocks_are_returned_in_order_of_insertion() {
+    index.insert(newBlock("a", 1, 0));
+    index.insert(newBlock("b", 1, 0));
+    index.insert(newBlock("a", 2, 1));
+    index.insert(newBlock("a", 1, 2));
+
+    assertThat(index.getByResourceId("a")).extracting(Block::getIndexInFile).containsExactly(0, 1, 2);
+    assertThat(index.getBySequenceHash(new ByteArray(1L))).extracting(Block::getResourceId).containsExactly("a", "b", "a");
+  }
+
+  /**
+   * When: query by a hash value.
+   * Expected: all blocks should have same hash, which presented in the form of the same object.
+   */
+  @Test
+  public void should_construct_blocks_with_normalized_hash() {
+    index.insert(newBlock("a", 1));
+    index.insert(newBlock("b", 1));
+    index.insert(newBlock("c", 1));
+    ByteArray requestedHash = new ByteArray(1L);
+    Collection<Block> blocks = index.getBySequenceHash(requestedHash);
+    assertThat(blocks).hasSize(3);
+    for (Block block : blocks) {
+      assertThat(block.getBlockHash()).isSameAs(requestedHash);
+    }
+  }
+
+  @Test
+  public void iterate_resources_in_same_order_as_PackedMemoryCloneIndex() {
+    CloneIndex packedIndex = new PackedMemoryCloneIndex();
+    for (String resourceId : new String[] {"a", "c", "b", "c", "a"}) {
+      index.insert(newBlock(resourceId, 1));
+      packedIndex.insert(newBlock(resourceId, 1));
+    }
+
+    List<ResourceBlocks> resourcesBlocks = toList(index.iterator());
+
+    assertThat(resourcesBlocks).extracting(ResourceBlocks::resourceId).containsExactly("a", "b", "c");
+    assertThat(toList(packedIndex.iterator())).extracting(ResourceBlocks::resourceId).containsExactly("a", "b", "c");
+    assertThat(resourcesBlocks.get(0).blocks()).hasSize(2);
+    assertThat(resourcesBlocks.get(1).blocks()).hasSize(1);
+    assertThat(resourcesBlocks.get(2).blocks()).hasSize(2);
+  }
+
+  /**
+   * Given: index with initial capacity 1.
+   * Expected: size and capacity should be increased after insertion of blocks.
+   */
+  @Test
+  public void should_increase_capacity() {
+    CloneIndex index = new OffHeapCloneIndex(8, 1);
+    for (int i = 0; i < 100; i++) {
+      index.insert(newBlock("a", i, i));
+    }
+    assertThat(index.getByResourceId("a")).hasSize(100);
+    for (int i = 0; i < 100; i++) {
+      assertThat(index.getBySequenceHash(new ByteArray((long) i))).extracting(Block::getIndexInFile).containsExactly(i);
+    }
+  }
+
+  @Test
+  public void fail_if_capacity_exceeds_maximum_size_of_direct_buffer() {
+    // 40 bytes per block with 8-byte hashes
+    try {
+      new OffHeapCloneIndex(8, 60_000_000);
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Index can't contain more than 53687091 blocks");
+    }
+  }
+
+  @Test
+  public void support_concurrent_insertions() throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int resource = 0; resource < 20; resource++) {
+      String resourceId = "r" + resource;
+      executor.submit(() -> {
+        for (int i = 0; i < 1000; i++) {
+          index.insert(newBlock(resourceId, i % 50, i));
+        }
+      });
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+    assertThat(index.noResources()).isEqualTo(20);
+    assertThat(index.getByResourceId("r7")).extracting(Block::getIndexInFile).hasSize(1000).isSorted();
+    assertThat(index.getBySequenceHash(new ByteArray(3L))).hasSize(20 * 20);
+  }
+
+  /**
+   * Given: index, which accepts blocks with 4-byte hash.
+   * Expected: exception during insertion of block with 8-byte hash.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void attempt_to_insert_hash_of_incorrect_size() {
+    CloneIndex index = new OffHeapCloneIndex(4, 1);
+    index.insert(newBlock("a", 1));
+  }
+
+  /**
+   * Given: index, which accepts blocks with 4-byte hash.
+   * Expected: exception during search by 8-byte hash.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void attempt_to_find_hash_of_incorrect_size() {
+    CloneIndex index = new OffHeapCloneIndex(4, 1);
+    index.getBySequenceHash(new ByteArray(1L));
+  }
+
+  private static List<ResourceBlocks> toList(Iterator<ResourceBlocks> it) {
+    List<ResourceBlocks> list = new ArrayList<>();
+    it.forEachRemaining(list::add);
+    return list;
+  }
+
+  private static Block newBlock(String resourceId, long hash) {
+    return newBlock(resourceId, hash, 1);
+  }
+
+  private static Block newBlock(String resourceId, long hash, int indexInFile) {
+    return Block.builder()
+      .setResourceId(resourceId)
+      .setBlockHash(new ByteArray(hash))
+      .setIndexInFile(indexInFile)
+      .setLines(1, 2)
+      .build();
+  }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.utils;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DirectBuffersTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void release_direct_buffer() {
+    assertThat(DirectBuffers.release(ByteBuffer.allocateDirect(1_024))).isTrue();
+  }
+
+  @Test
+  public void ignore_heap_buffers_and_null() {
+    assertThat(DirectBuffers.release(ByteBuffer.allocate(1_024))).isFalse();
+    assertThat(DirectBuffers.release(null)).isFalse();
+  }
+
+  @Test
+  public void unmapped_file_can_be_deleted() throws Exception {
+    File file = temp.newFile();
+    MappedByteBuffer buffer;
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw"); FileChannel channel = randomAccessFile.getChannel()) {
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, 1_024);
+    }
+    buffer.put(0, (byte) 1);
+
+    assertThat(DirectBuffers.release(buffer)).isTrue();
+    assertThat(file.delete()).isTrue();
+  }
+}
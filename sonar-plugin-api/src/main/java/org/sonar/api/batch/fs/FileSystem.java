@@ -22,6 +22,7 @@ package org.sonar.api.batch.fs;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.util.SortedSet;
+import java.util.stream.StreamSupport;
 import javax.annotation.CheckForNull;
 import org.sonar.api.batch.ScannerSide;
 
@@ -175,5 +176,27 @@ public interface FileSystem {
      * @since 6.3
      */
     Iterable<InputFile> getFilesByExtension(String extension);
+
+    /**
+     * Default implementation traverses all files. It should be overridden by
+     * implementations that index files by language.
+     * @since 6.6
+     */
+    default Iterable<InputFile> getFilesByLanguage(String language) {
+      return () -> StreamSupport.stream(inputFiles().spliterator(), false)
+        .filter(f -> language.equals(f.language()))
+        .iterator();
+    }
+
+    /**
+     * Default implementation traverses all files. It should be overridden by
+     * implementations that index files by type.
+     * @since 6.6
+     */
+    default Iterable<InputFile> getFilesByType(InputFile.Type type) {
+      return () -> StreamSupport.stream(inputFiles().spliterator(), false)
+        .filter(f -> type == f.type())
+        .iterator();
+    }
   }
 }
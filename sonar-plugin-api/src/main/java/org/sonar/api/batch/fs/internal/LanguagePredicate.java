@@ -19,6 +19,7 @@
  */
 package org.sonar.api.batch.fs.internal;
 
+import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 
 /**
@@ -35,4 +36,17 @@ class LanguagePredicate extends AbstractFilePredicate {
   public boolean apply(InputFile f) {
     return language.equals(f.language());
   }
+
+  @Override
+  public Iterable<InputFile> get(FileSystem.Index index) {
+    return index.getFilesByLanguage(language);
+  }
+
+  /**
+   * Uses index, but generally matches more files than the predicates on paths
+   */
+  @Override
+  public int priority() {
+    return USE_INDEX - 1;
+  }
 }
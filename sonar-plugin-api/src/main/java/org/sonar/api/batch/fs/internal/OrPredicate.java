@@ -21,10 +21,15 @@ package org.sonar.api.batch.fs.internal;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import org.sonar.api.batch.fs.FilePredicate;
+import org.sonar.api.batch.fs.FileSystem.Index;
 import org.sonar.api.batch.fs.InputFile;
 
+import static java.util.stream.Collectors.toList;
+
 /**
  * @since 4.2
  */
@@ -64,6 +69,23 @@ class OrPredicate extends AbstractFilePredicate implements OperatorPredicate {
     return false;
   }
 
+  /**
+   * When all the operands use an index, the union of their results is returned. Otherwise
+   * all files are traversed.
+   */
+  @Override
+  public Iterable<InputFile> get(Index index) {
+    List<OptimizedFilePredicate> optimized = predicates.stream().map(OptimizedFilePredicateAdapter::create).collect(toList());
+    if (optimized.stream().anyMatch(p -> p.priority() <= DEFAULT_PRIORITY)) {
+      return super.get(index);
+    }
+    Set<InputFile> result = new LinkedHashSet<>();
+    for (OptimizedFilePredicate predicate : optimized) {
+      predicate.get(index).forEach(result::add);
+    }
+    return result;
+  }
+
   Collection<FilePredicate> predicates() {
     return predicates;
   }
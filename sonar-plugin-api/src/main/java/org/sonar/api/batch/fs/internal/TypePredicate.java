@@ -19,6 +19,7 @@
  */
 package org.sonar.api.batch.fs.internal;
 
+import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 
 /**
@@ -37,4 +38,18 @@ class TypePredicate extends AbstractFilePredicate {
     return type == f.type();
   }
 
+  @Override
+  public Iterable<InputFile> get(FileSystem.Index index) {
+    return index.getFilesByType(type);
+  }
+
+  /**
+   * Uses index, but there are only two types, so it's less selective than
+   * the predicates on language or paths
+   */
+  @Override
+  public int priority() {
+    return USE_INDEX - 2;
+  }
+
 }
@@ -24,6 +24,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -314,6 +315,16 @@ public abstract class Request {
    */
   public abstract String getPath();
 
+  /**
+   * Optional value of the HTTP header with specified name. Returns {@link Optional#empty()}
+   * if the header is missing or if headers are not supported by the implementation.
+   *
+   * @since 6.6
+   */
+  public Optional<String> header(String name) {
+    return Optional.empty();
+  }
+
   /**
    * @since 6.0
    */
@@ -27,6 +27,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.FilePredicates;
+import org.sonar.api.batch.fs.InputFile;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -151,4 +153,23 @@ public class DefaultFileSystemTest {
     // it would fail if more than one java file
     assertThat(fs.inputFile(fs.predicates().hasLanguage("java"))).isNotNull();
   }
+
+  @Test
+  public void files_by_language_and_type_are_indexed() {
+    fs.add(new TestInputFileBuilder("foo", "src/Foo.php").setLanguage("php").build());
+    fs.add(new TestInputFileBuilder("foo", "src/Bar.java").setLanguage("java").build());
+    fs.add(new TestInputFileBuilder("foo", "test/BarTest.java").setLanguage("java").setType(InputFile.Type.TEST).build());
+    fs.add(new TestInputFileBuilder("foo", "src/readme.txt").build());
+    FilePredicates p = fs.predicates();
+
+    assertThat(fs.inputFiles(p.hasLanguage("java"))).extracting(InputFile::relativePath).containsOnly("src/Bar.java", "test/BarTest.java");
+    assertThat(fs.inputFiles(p.hasType(InputFile.Type.TEST))).extracting(InputFile::relativePath).containsOnly("test/BarTest.java");
+    assertThat(fs.inputFiles(p.and(p.hasLanguage("java"), p.hasType(InputFile.Type.MAIN)))).extracting(InputFile::relativePath)
+      .containsOnly("src/Bar.java");
+    assertThat(fs.inputFiles(p.hasLanguages("java", "php"))).extracting(InputFile::relativePath)
+      .containsOnly("src/Foo.php", "src/Bar.java", "test/BarTest.java");
+    assertThat(fs.inputFiles(p.or(p.hasLanguage("php"), p.hasRelativePath("src/readme.txt")))).extracting(InputFile::relativePath)
+      .containsOnly("src/Foo.php", "src/readme.txt");
+    assertThat(fs.inputFiles(p.hasLanguage("cobol"))).isEmpty();
+  }
 }
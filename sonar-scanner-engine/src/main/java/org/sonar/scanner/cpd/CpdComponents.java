@@ -21,6 +21,7 @@ package org.sonar.scanner.cpd;
 
 import com.google.common.collect.ImmutableList;
 import java.util.List;
+import org.sonar.scanner.cpd.deprecated.CpdBlocksCache;
 import org.sonar.scanner.cpd.deprecated.CpdMappings;
 import org.sonar.scanner.cpd.deprecated.DefaultCpdBlockIndexer;
 import org.sonar.scanner.cpd.deprecated.DeprecatedCpdBlockIndexerSensor;
@@ -35,6 +36,7 @@ public final class CpdComponents {
     return ImmutableList.of(
       DeprecatedCpdBlockIndexerSensor.class,
       CpdMappings.class,
+      CpdBlocksCache.class,
       JavaCpdBlockIndexer.class,
       DefaultCpdBlockIndexer.class);
   }
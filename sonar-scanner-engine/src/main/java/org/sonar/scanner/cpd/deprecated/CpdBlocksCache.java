@@ -0,0 +1,216 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cpd.deprecated;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.picocontainer.Startable;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.config.Configuration;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.home.cache.FileCache;
+
+import static java.util.concurrent.TimeUnit.DAYS;
+
+/**
+ * Persistent cache of the CPD blocks of files, stored in the user cache. Blocks are keyed by the hash of the
+ * content of the file, so that files which are not modified between two analyses are not tokenized again.
+ * Disabled by default.
+ * <p>
+ * Entries which have not been used for {@link #MAX_AGE_MS} are deleted when the cache is started.
+ */
+public class CpdBlocksCache implements Startable {
+
+  static final String PROPERTY_ENABLED = "sonar.cpd.cache.enabled";
+  static final long MAX_AGE_MS = DAYS.toMillis(30);
+
+  private static final Logger LOG = Loggers.get(CpdBlocksCache.class);
+  /**
+   * To be incremented when the format of cached files changes
+   */
+  private static final int FORMAT_VERSION = 1;
+  private static final String DIR_NAME = "cpd";
+
+  private final FileCache fileCache;
+  private final System2 system2;
+  private final boolean enabled;
+
+  public CpdBlocksCache(FileCache fileCache, Configuration settings, System2 system2) {
+    this.fileCache = fileCache;
+    this.system2 = system2;
+    this.enabled = settings.getBoolean(PROPERTY_ENABLED).orElse(false);
+  }
+
+  /**
+   * Identifies the implementation of a tokenizer, so that blocks are computed again when the plugin or the
+   * library which provides it is upgraded. Jars are stored in directories named after their checksum in the user cache,
+   * so their location changes on upgrade.
+   */
+  public static String implementationKey(Class<?> tokenizerClass) {
+    CodeSource codeSource = tokenizerClass.getProtectionDomain().getCodeSource();
+    String location = codeSource == null || codeSource.getLocation() == null ? "" : codeSource.getLocation().toString();
+    Package pkg = tokenizerClass.getPackage();
+    String version = pkg == null ? null : pkg.getImplementationVersion();
+    return tokenizerClass.getName() + "|" + location + "|" + version;
+  }
+
+  @Override
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    Path dir = new File(fileCache.getDir(), DIR_NAME).toPath();
+    if (!Files.isDirectory(dir)) {
+      return;
+    }
+    long threshold = system2.now() - MAX_AGE_MS;
+    try {
+      Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+          if (attrs.lastModifiedTime().toMillis() < threshold) {
+            Files.deleteIfExists(file);
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path subDir, IOException exc) throws IOException {
+          if (!subDir.equals(dir) && isEmpty(subDir)) {
+            Files.deleteIfExists(subDir);
+          }
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      LOG.debug("Fail to purge CPD blocks cache: " + dir, e);
+    }
+  }
+
+  private static boolean isEmpty(Path dir) throws IOException {
+    try (Stream<Path> children = Files.list(dir)) {
+      return !children.findAny().isPresent();
+    }
+  }
+
+  @Override
+  public void stop() {
+    // nothing to do
+  }
+
+  /**
+   * Blocks previously computed for a file having the same content, or {@code null} if none are cached.
+   *
+   * @param chunkerKey identifies the algorithm which computes the blocks, for example the tokenizer and the block size
+   */
+  @CheckForNull
+  public List<Block> get(String chunkerKey, InputFile inputFile) {
+    File cachedFile = cachedFile(chunkerKey, inputFile);
+    if (cachedFile == null || !cachedFile.isFile()) {
+      return null;
+    }
+    String resourceId = ((DefaultInputFile) inputFile).key();
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cachedFile.toPath())))) {
+      int size = in.readInt();
+      List<Block> blocks = new ArrayList<>(size);
+      Block.Builder builder = Block.builder().setResourceId(resourceId);
+      for (int i = 0; i < size; i++) {
+        byte[] hash = new byte[in.readUnsignedShort()];
+        in.readFully(hash);
+        blocks.add(builder
+          .setBlockHash(new ByteArray(hash))
+          .setIndexInFile(in.readInt())
+          .setLines(in.readInt(), in.readInt())
+          .setUnit(in.readInt(), in.readInt())
+          .build());
+      }
+      // entries which are still used are not purged
+      cachedFile.setLastModified(system2.now());
+      return blocks;
+    } catch (IOException e) {
+      LOG.debug("Fail to read CPD blocks from cache: " + cachedFile, e);
+      return null;
+    }
+  }
+
+  public void put(String chunkerKey, InputFile inputFile, List<Block> blocks) {
+    File cachedFile = cachedFile(chunkerKey, inputFile);
+    if (cachedFile == null) {
+      return;
+    }
+    try {
+      Path dir = Files.createDirectories(cachedFile.getParentFile().toPath());
+      Path tempFile = Files.createTempFile(dir, "blocks", null);
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        out.writeInt(blocks.size());
+        for (Block block : blocks) {
+          byte[] hash = block.getBlockHash().getBytes();
+          out.writeShort(hash.length);
+          out.write(hash);
+          out.writeInt(block.getIndexInFile());
+          out.writeInt(block.getStartLine());
+          out.writeInt(block.getEndLine());
+          out.writeInt(block.getStartUnit());
+          out.writeInt(block.getEndUnit());
+        }
+      }
+      Files.move(tempFile, cachedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      LOG.debug("Fail to write CPD blocks to cache: " + cachedFile, e);
+    }
+  }
+
+  @CheckForNull
+  private File cachedFile(String chunkerKey, InputFile inputFile) {
+    if (!enabled) {
+      return null;
+    }
+    String contentHash = ((DefaultInputFile) inputFile).hash();
+    Charset charset = inputFile.charset();
+    if (contentHash == null || charset == null) {
+      return null;
+    }
+    // the same bytes decoded with another charset can give other tokens
+    String chunkerHash = DigestUtils.md5Hex(FORMAT_VERSION + "|" + chunkerKey + "|" + charset.name());
+    return new File(new File(new File(fileCache.getDir(), DIR_NAME), chunkerHash), contentHash);
+  }
+}
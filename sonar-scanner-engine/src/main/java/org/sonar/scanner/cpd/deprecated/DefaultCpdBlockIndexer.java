@@ -45,12 +45,14 @@ public class DefaultCpdBlockIndexer extends CpdBlockIndexer {
   private final FileSystem fs;
   private final Configuration settings;
   private final SonarCpdBlockIndex index;
+  private final CpdBlocksCache blocksCache;
 
-  public DefaultCpdBlockIndexer(CpdMappings mappings, FileSystem fs, Configuration settings, SonarCpdBlockIndex index) {
+  public DefaultCpdBlockIndexer(CpdMappings mappings, FileSystem fs, Configuration settings, SonarCpdBlockIndex index, CpdBlocksCache blocksCache) {
     this.mappings = mappings;
     this.fs = fs;
     this.settings = settings;
     this.index = index;
+    this.blocksCache = blocksCache;
   }
 
   @Override
@@ -82,22 +84,33 @@ public class DefaultCpdBlockIndexer extends CpdBlockIndexer {
   }
 
   private void populateIndex(String languageKey, List<InputFile> sourceFiles, CpdMapping mapping) {
-    TokenizerBridge bridge = new TokenizerBridge(mapping.getTokenizer(), getBlockSize(languageKey));
+    int blockSize = getBlockSize(languageKey);
+    TokenizerBridge bridge = new TokenizerBridge(mapping.getTokenizer(), blockSize);
+    String chunkerKey = languageKey + "|" + CpdBlocksCache.implementationKey(mapping.getTokenizer().getClass()) + "|" + blockSize;
     for (InputFile inputFile : sourceFiles) {
       if (!index.isIndexed(inputFile)) {
-        LOG.debug("Populating index from {}", inputFile.absolutePath());
-        String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
-        List<Block> blocks;
-        try (InputStreamReader isr = new InputStreamReader(inputFile.inputStream(), inputFile.charset())) {
-          blocks = bridge.chunk(resourceEffectiveKey, inputFile.absolutePath(), isr);
-        } catch (IOException e) {
-          throw new IllegalStateException("Unable to read content of file " + inputFile.absolutePath(), e);
+        List<Block> blocks = blocksCache.get(chunkerKey, inputFile);
+        if (blocks == null) {
+          blocks = chunk(bridge, inputFile);
+          blocksCache.put(chunkerKey, inputFile, blocks);
+        } else {
+          LOG.debug("Populating index from cached blocks of {}", inputFile.absolutePath());
         }
         index.insert(inputFile, blocks);
       }
     }
   }
 
+  private static List<Block> chunk(TokenizerBridge bridge, InputFile inputFile) {
+    LOG.debug("Populating index from {}", inputFile.absolutePath());
+    String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
+    try (InputStreamReader isr = new InputStreamReader(inputFile.inputStream(), inputFile.charset())) {
+      return bridge.chunk(resourceEffectiveKey, inputFile.absolutePath(), isr);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read content of file " + inputFile.absolutePath(), e);
+    }
+  }
+
   @VisibleForTesting
   int getBlockSize(String languageKey) {
     return settings.getInt("sonar.cpd." + languageKey + ".minimumLines").orElse(getDefaultBlockSize(languageKey));
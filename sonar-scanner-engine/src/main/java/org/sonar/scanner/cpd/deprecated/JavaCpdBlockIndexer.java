@@ -48,15 +48,18 @@ public class JavaCpdBlockIndexer extends CpdBlockIndexer {
   private static final Logger LOG = Loggers.get(JavaCpdBlockIndexer.class);
 
   private static final int BLOCK_SIZE = 10;
+  private static final String CHUNKER_KEY = "java|" + CpdBlocksCache.implementationKey(JavaTokenProducer.class) + "|" + BLOCK_SIZE;
 
   private final FileSystem fs;
   private final Configuration settings;
   private final SonarCpdBlockIndex index;
+  private final CpdBlocksCache blocksCache;
 
-  public JavaCpdBlockIndexer(FileSystem fs, Configuration settings, SonarCpdBlockIndex index) {
+  public JavaCpdBlockIndexer(FileSystem fs, Configuration settings, SonarCpdBlockIndex index, CpdBlocksCache blocksCache) {
     this.fs = fs;
     this.settings = settings;
     this.index = index;
+    this.blocksCache = blocksCache;
   }
 
   @Override
@@ -85,6 +88,12 @@ public class JavaCpdBlockIndexer extends CpdBlockIndexer {
     BlockChunker blockChunker = new BlockChunker(BLOCK_SIZE);
 
     for (InputFile inputFile : sourceFiles) {
+      List<Block> cachedBlocks = blocksCache.get(CHUNKER_KEY, inputFile);
+      if (cachedBlocks != null) {
+        LOG.debug("Populating index from cached blocks of {}", inputFile);
+        index.insert(inputFile, cachedBlocks);
+        continue;
+      }
       LOG.debug("Populating index from {}", inputFile);
       String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
 
@@ -105,6 +114,7 @@ public class JavaCpdBlockIndexer extends CpdBlockIndexer {
       } catch (Exception e) {
         throw new IllegalStateException("Cannot process file " + inputFile.file(), e);
       }
+      blocksCache.put(CHUNKER_KEY, inputFile, blocks);
       index.insert(inputFile, blocks);
     }
   }
@@ -65,7 +65,6 @@ public class IssueTransition {
       localIssueTracking.init();
     }
 
-    ScannerReportReader reader = new ScannerReportReader(reportPublisher.getReportDir().toFile());
     int nbComponents = inputComponentStore.all().size();
 
     if (nbComponents == 0) {
@@ -76,7 +75,7 @@ public class IssueTransition {
     progressReport.start("Performing issue tracking");
     int count = 0;
 
-    try {
+    try (ScannerReportReader reader = new ScannerReportReader(reportPublisher.getReportDir().toFile())) {
       for (InputComponent component : inputComponentStore.all()) {
         trackIssues(reader, (DefaultInputComponent) component);
         count++;
@@ -62,9 +62,13 @@ public class ComponentsPublisher implements ReportPublisherStep {
 
   @Override
   public void publish(ScannerReportWriter writer) {
-    this.reader = new ScannerReportReader(writer.getFileStructure().root());
-    this.writer = writer;
-    recursiveWriteComponent((DefaultInputComponent) moduleHierarchy.root());
+    try (ScannerReportReader componentsReader = new ScannerReportReader(writer.getFileStructure().root())) {
+      this.reader = componentsReader;
+      this.writer = writer;
+      recursiveWriteComponent((DefaultInputComponent) moduleHierarchy.root());
+    } finally {
+      this.reader = null;
+    }
   }
 
   /**
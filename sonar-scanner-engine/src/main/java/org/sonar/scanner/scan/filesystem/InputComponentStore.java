@@ -63,6 +63,11 @@ public class InputComponentStore {
   private final Map<String, InputComponent> inputComponents = new HashMap<>();
   private final SetMultimap<String, InputFile> filesByNameCache = LinkedHashMultimap.create();
   private final SetMultimap<String, InputFile> filesByExtensionCache = LinkedHashMultimap.create();
+  private final SetMultimap<String, InputFile> filesByLanguageCache = LinkedHashMultimap.create();
+  private final SetMultimap<InputFile.Type, InputFile> filesByTypeCache = LinkedHashMultimap.create();
+  // indexed by module key, so that queries of a module do not iterate the files of other modules
+  private final Map<String, SetMultimap<String, InputFile>> filesByModuleAndLanguageCache = new HashMap<>();
+  private final Map<String, SetMultimap<InputFile.Type, InputFile>> filesByModuleAndTypeCache = new HashMap<>();
   private final InputModule root;
   private final AnalysisMode mode;
 
@@ -108,6 +113,14 @@ public class InputComponentStore {
   }
 
   public InputComponentStore removeModule(String moduleKey) {
+    SetMultimap<String, InputFile> moduleFilesByLanguage = filesByModuleAndLanguageCache.remove(moduleKey);
+    if (moduleFilesByLanguage != null) {
+      moduleFilesByLanguage.entries().forEach(e -> filesByLanguageCache.remove(e.getKey(), e.getValue()));
+    }
+    SetMultimap<InputFile.Type, InputFile> moduleFilesByType = filesByModuleAndTypeCache.remove(moduleKey);
+    if (moduleFilesByType != null) {
+      moduleFilesByType.entries().forEach(e -> filesByTypeCache.remove(e.getKey(), e.getValue()));
+    }
     inputFileCache.row(moduleKey).clear();
     inputDirCache.row(moduleKey).clear();
     return this;
@@ -116,6 +129,12 @@ public class InputComponentStore {
   public InputComponentStore remove(InputFile inputFile) {
     DefaultInputFile file = (DefaultInputFile) inputFile;
     inputFileCache.remove(file.moduleKey(), file.getModuleRelativePath());
+    if (file.language() != null) {
+      filesByLanguageCache.remove(file.language(), inputFile);
+      moduleIndex(filesByModuleAndLanguageCache, file.moduleKey()).remove(file.language(), inputFile);
+    }
+    filesByTypeCache.remove(file.type(), inputFile);
+    moduleIndex(filesByModuleAndTypeCache, file.moduleKey()).remove(file.type(), inputFile);
     return this;
   }
 
@@ -133,12 +152,20 @@ public class InputComponentStore {
     inputComponents.put(inputFile.key(), inputFile);
     filesByNameCache.put(inputFile.filename(), inputFile);
     filesByExtensionCache.put(FileExtensionPredicate.getExtension(inputFile), inputFile);
+    filesByTypeCache.put(inputFile.type(), inputFile);
+    moduleIndex(filesByModuleAndTypeCache, file.moduleKey()).put(inputFile.type(), inputFile);
     return this;
   }
 
+  private static <K> SetMultimap<K, InputFile> moduleIndex(Map<String, SetMultimap<K, InputFile>> cache, String moduleKey) {
+    return cache.computeIfAbsent(moduleKey, k -> LinkedHashMultimap.create());
+  }
+
   private void addToLanguageCache(DefaultInputFile inputFile) {
     String language = inputFile.language();
     if (language != null) {
+      filesByLanguageCache.put(language, inputFile);
+      moduleIndex(filesByModuleAndLanguageCache, inputFile.moduleKey()).put(language, inputFile);
       globalLanguagesCache.add(language);
       languagesCache.computeIfAbsent(inputFile.moduleKey(), k -> new TreeSet<>()).add(language);
     }
@@ -204,6 +231,24 @@ public class InputComponentStore {
     return filesByExtensionCache.get(extension);
   }
 
+  public Iterable<InputFile> getFilesByLanguage(String language) {
+    return filesByLanguageCache.get(language);
+  }
+
+  public Iterable<InputFile> getFilesByType(InputFile.Type type) {
+    return filesByTypeCache.get(type);
+  }
+
+  public Iterable<InputFile> getFilesByLanguage(String moduleKey, String language) {
+    SetMultimap<String, InputFile> moduleFiles = filesByModuleAndLanguageCache.get(moduleKey);
+    return moduleFiles == null ? Collections.emptySet() : moduleFiles.get(language);
+  }
+
+  public Iterable<InputFile> getFilesByType(String moduleKey, InputFile.Type type) {
+    SetMultimap<InputFile.Type, InputFile> moduleFiles = filesByModuleAndTypeCache.get(moduleKey);
+    return moduleFiles == null ? Collections.emptySet() : moduleFiles.get(type);
+  }
+
   public SortedSet<String> getLanguages() {
     return globalLanguagesCache;
   }
@@ -95,4 +95,22 @@ public class ModuleInputComponentStore extends DefaultFileSystem.Cache {
   public Iterable<InputFile> getFilesByExtension(String extension) {
     return inputComponentStore.getFilesByExtension(extension);
   }
+
+  @Override
+  public Iterable<InputFile> getFilesByLanguage(String language) {
+    if (strategy.isGlobal()) {
+      return inputComponentStore.getFilesByLanguage(language);
+    } else {
+      return inputComponentStore.getFilesByLanguage(moduleKey, language);
+    }
+  }
+
+  @Override
+  public Iterable<InputFile> getFilesByType(InputFile.Type type) {
+    if (strategy.isGlobal()) {
+      return inputComponentStore.getFilesByType(type);
+    } else {
+      return inputComponentStore.getFilesByType(moduleKey, type);
+    }
+  }
 }
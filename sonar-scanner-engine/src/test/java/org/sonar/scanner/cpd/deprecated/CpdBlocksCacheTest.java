@@ -0,0 +1,177 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cpd.deprecated;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.utils.System2;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.home.cache.FileCache;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CpdBlocksCacheTest {
+
+  private static final String CHUNKER_KEY = "java|10";
+  private static final long NOW = 1_500_000_000_000L;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private FileCache fileCache = mock(FileCache.class);
+  private MapSettings settings = new MapSettings();
+  private System2 system2 = mock(System2.class);
+  private File cacheDir;
+
+  @Before
+  public void setUp() throws IOException {
+    cacheDir = temp.newFolder();
+    when(fileCache.getDir()).thenReturn(cacheDir);
+    when(system2.now()).thenReturn(NOW);
+    settings.setProperty(CpdBlocksCache.PROPERTY_ENABLED, true);
+  }
+
+  @Test
+  public void get_blocks_of_file_with_same_content() {
+    CpdBlocksCache underTest = new CpdBlocksCache(fileCache, settings.asConfig(), system2);
+    underTest.put(CHUNKER_KEY, inputFile("src/Foo.java", "abc"), asList(block("foo:src/Foo.java", 0), block("foo:src/Foo.java", 1)));
+
+    List<Block> blocks = underTest.get(CHUNKER_KEY, inputFile("src/Bar.java", "abc"));
+
+    assertThat(blocks).containsExactly(block("foo:src/Bar.java", 0), block("foo:src/Bar.java", 1));
+    assertThat(blocks.get(1).getStartLine()).isEqualTo(2);
+    assertThat(blocks.get(1).getEndLine()).isEqualTo(11);
+    assertThat(blocks.get(1).getStartUnit()).isEqualTo(10);
+    assertThat(blocks.get(1).getEndUnit()).isEqualTo(20);
+  }
+
+  @Test
+  public void get_nothing_if_content_or_chunker_is_different() {
+    CpdBlocksCache underTest = new CpdBlocksCache(fileCache, settings.asConfig(), system2);
+    underTest.put(CHUNKER_KEY, inputFile("src/Foo.java", "abc"), asList(block("foo:src/Foo.java", 0)));
+
+    assertThat(underTest.get(CHUNKER_KEY, inputFile("src/Foo.java", "def"))).isNull();
+    assertThat(underTest.get("java|20", inputFile("src/Foo.java", "abc"))).isNull();
+  }
+
+  @Test
+  public void get_nothing_if_charset_is_different() {
+    CpdBlocksCache underTest = new CpdBlocksCache(fileCache, settings.asConfig(), system2);
+    underTest.put(CHUNKER_KEY, inputFile("src/Foo.java", "abc", UTF_8), asList(block("foo:src/Foo.java", 0)));
+
+    assertThat(underTest.get(CHUNKER_KEY, inputFile("src/Foo.java", "abc", ISO_8859_1))).isNull();
+  }
+
+  @Test
+  public void start_deletes_entries_which_have_not_been_used_for_a_long_time() {
+    CpdBlocksCache underTest = new CpdBlocksCache(fileCache, settings.asConfig(), system2);
+    underTest.put(CHUNKER_KEY, inputFile("src/Old.java", "old"), asList(block("foo:src/Old.java", 0)));
+    underTest.put(CHUNKER_KEY, inputFile("src/Used.java", "used"), asList(block("foo:src/Used.java", 0)));
+    underTest.put(CHUNKER_KEY, inputFile("src/Recent.java", "recent"), asList(block("foo:src/Recent.java", 0)));
+    setLastModified(NOW - CpdBlocksCache.MAX_AGE_MS - 1);
+    setLastModified("recent", NOW);
+    // reading an entry marks it as used
+    underTest.get(CHUNKER_KEY, inputFile("src/Used.java", "used"));
+
+    underTest.start();
+
+    assertThat(underTest.get(CHUNKER_KEY, inputFile("src/Old.java", "old"))).isNull();
+    assertThat(underTest.get(CHUNKER_KEY, inputFile("src/Used.java", "used"))).hasSize(1);
+    assertThat(underTest.get(CHUNKER_KEY, inputFile("src/Recent.java", "recent"))).hasSize(1);
+  }
+
+  @Test
+  public void start_deletes_directories_of_chunkers_which_are_no_longer_used() {
+    CpdBlocksCache underTest = new CpdBlocksCache(fileCache, settings.asConfig(), system2);
+    underTest.put(CHUNKER_KEY, inputFile("src/Old.java", "old"), asList(block("foo:src/Old.java", 0)));
+    setLastModified(NOW - CpdBlocksCache.MAX_AGE_MS - 1);
+
+    underTest.start();
+
+    assertThat(new File(cacheDir, "cpd").list()).isEmpty();
+  }
+
+  @Test
+  public void implementation_key_depends_on_location_of_class() {
+    String key = CpdBlocksCache.implementationKey(Block.class);
+
+    assertThat(key)
+      .startsWith(Block.class.getName() + "|")
+      .contains(Block.class.getProtectionDomain().getCodeSource().getLocation().toString());
+  }
+
+  @Test
+  public void cache_nothing_if_disabled() {
+    settings.removeProperty(CpdBlocksCache.PROPERTY_ENABLED);
+    CpdBlocksCache underTest = new CpdBlocksCache(fileCache, settings.asConfig(), system2);
+    underTest.put(CHUNKER_KEY, inputFile("src/Foo.java", "abc"), asList(block("foo:src/Foo.java", 0)));
+
+    assertThat(underTest.get(CHUNKER_KEY, inputFile("src/Foo.java", "abc"))).isNull();
+    assertThat(cacheDir.list()).isEmpty();
+  }
+
+  private void setLastModified(long time) {
+    setLastModified(null, time);
+  }
+
+  private void setLastModified(@Nullable String hash, long time) {
+    for (File chunkerDir : new File(cacheDir, "cpd").listFiles()) {
+      for (File file : chunkerDir.listFiles()) {
+        if (hash == null || file.getName().equals(hash)) {
+          assertThat(file.setLastModified(time)).isTrue();
+        }
+      }
+    }
+  }
+
+  private static InputFile inputFile(String relativePath, String hash) {
+    return inputFile(relativePath, hash, UTF_8);
+  }
+
+  private static InputFile inputFile(String relativePath, String hash, Charset charset) {
+    return new TestInputFileBuilder("foo", relativePath).setHash(hash).setCharset(charset).build();
+  }
+
+  private static Block block(String resourceId, int index) {
+    return Block.builder()
+      .setResourceId(resourceId)
+      .setBlockHash(new ByteArray(index * 31L))
+      .setIndexInFile(index)
+      .setLines(index + 1, index + 10)
+      .setUnit(index * 10, index * 10 + 10)
+      .build();
+  }
+}
@@ -38,7 +38,7 @@ public class DefaultCpdBlockIndexerTest {
   @Before
   public void init() {
     settings = new MapSettings();
-    engine = new DefaultCpdBlockIndexer(null, null, settings.asConfig(), null);
+    engine = new DefaultCpdBlockIndexer(null, null, settings.asConfig(), null, null);
   }
 
   @Test
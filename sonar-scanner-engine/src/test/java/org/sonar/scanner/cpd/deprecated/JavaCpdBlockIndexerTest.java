@@ -39,19 +39,27 @@ import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.config.internal.MapSettings;
 import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 
 public class JavaCpdBlockIndexerTest {
   private static final String JAVA = "java";
 
   @Mock
   private SonarCpdBlockIndex index;
+  @Mock
+  private CpdBlocksCache blocksCache;
 
   @Captor
   private ArgumentCaptor<List<Block>> blockCaptor;
@@ -78,12 +86,12 @@ public class JavaCpdBlockIndexerTest {
     FileUtils.copyURLToFile(this.getClass().getResource("ManyStatements.java"), ioFile);
 
     settings = new MapSettings();
-    engine = new JavaCpdBlockIndexer(fs, settings.asConfig(), index);
+    engine = new JavaCpdBlockIndexer(fs, settings.asConfig(), index, blocksCache);
   }
 
   @Test
   public void languageSupported() {
-    JavaCpdBlockIndexer engine = new JavaCpdBlockIndexer(mock(FileSystem.class), new MapSettings().asConfig(), index);
+    JavaCpdBlockIndexer engine = new JavaCpdBlockIndexer(mock(FileSystem.class), new MapSettings().asConfig(), index, blocksCache);
     assertThat(engine.isLanguageSupported(JAVA)).isTrue();
     assertThat(engine.isLanguageSupported("php")).isFalse();
   }
@@ -103,5 +111,22 @@ public class JavaCpdBlockIndexerTest {
     List<Block> blockList = blockCaptor.getValue();
 
     assertThat(blockList).hasSize(26);
+    verify(blocksCache).put(anyString(), eq(file), eq(blockList));
+  }
+
+  @Test
+  public void do_not_tokenize_files_whose_blocks_are_cached() {
+    List<Block> cachedBlocks = singletonList(Block.builder()
+      .setResourceId("foo:src/ManyStatements.java")
+      .setBlockHash(new ByteArray(1L))
+      .setIndexInFile(0)
+      .setLines(1, 10)
+      .build());
+    when(blocksCache.get(anyString(), eq(file))).thenReturn(cachedBlocks);
+
+    engine.index(JAVA);
+
+    verify(index).insert(file, cachedBlocks);
+    verify(blocksCache, never()).put(anyString(), eq(file), anyListOf(Block.class));
   }
 }
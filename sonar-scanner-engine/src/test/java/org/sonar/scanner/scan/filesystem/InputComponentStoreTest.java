@@ -144,4 +144,28 @@ public class InputComponentStoreTest {
     assertThat(tester.filesByModule(mod2Key)).containsExactly(mod2File);
     assertThat(tester.allFiles()).containsExactlyInAnyOrder(mod1File, mod2File);
   }
+
+  @Test
+  public void should_find_files_by_language_and_type_per_module_and_globally() throws IOException {
+    InputComponentStoreTester tester = new InputComponentStoreTester();
+
+    InputFile mod1File = tester.addFile("mod1", "src/main/java/Foo.java", "java");
+    InputFile mod2File = tester.addFile("mod2", "src/main/java/Bar.java", "java");
+
+    assertThat(tester.getFilesByLanguage("mod1", "java")).containsExactly(mod1File);
+    assertThat(tester.getFilesByLanguage("mod2", "java")).containsExactly(mod2File);
+    assertThat(tester.getFilesByLanguage("unknown", "java")).isEmpty();
+    assertThat(tester.getFilesByLanguage("java")).containsExactlyInAnyOrder(mod1File, mod2File);
+    assertThat(tester.getFilesByType("mod1", Type.MAIN)).containsExactly(mod1File);
+    assertThat(tester.getFilesByType(Type.MAIN)).containsExactlyInAnyOrder(mod1File, mod2File);
+
+    tester.remove(mod1File);
+    assertThat(tester.getFilesByLanguage("mod1", "java")).isEmpty();
+    assertThat(tester.getFilesByType("mod1", Type.MAIN)).isEmpty();
+
+    tester.removeModule("mod2");
+    assertThat(tester.getFilesByLanguage("mod2", "java")).isEmpty();
+    assertThat(tester.getFilesByLanguage("java")).isEmpty();
+    assertThat(tester.getFilesByType(Type.MAIN)).isEmpty();
+  }
 }
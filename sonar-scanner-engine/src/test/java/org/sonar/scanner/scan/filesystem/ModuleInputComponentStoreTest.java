@@ -36,6 +36,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class ModuleInputComponentStoreTest {
   @Rule
@@ -112,6 +113,29 @@ public class ModuleInputComponentStoreTest {
     assertThat(store.getFilesByExtension("nonexistent")).isEmpty();
   }
 
+  @Test
+  public void should_cache_files_by_language_and_type() throws IOException {
+    SensorStrategy strategy = new SensorStrategy();
+    InputModule module = mock(InputModule.class);
+    when(module.key()).thenReturn(moduleKey);
+    ModuleInputComponentStore store = new ModuleInputComponentStore(module, componentStore, strategy);
+
+    InputFile main = new TestInputFileBuilder(moduleKey, "src/Program.java").setLanguage("java").build();
+    InputFile test = new TestInputFileBuilder(moduleKey, "test/ProgramTest.java").setLanguage("java").setType(InputFile.Type.TEST).build();
+    InputFile otherModule = new TestInputFileBuilder("other", "src/Other.java").setLanguage("java").build();
+    store.doAdd(main);
+    store.doAdd(test);
+    componentStore.put(otherModule);
+
+    assertThat(store.getFilesByLanguage("java")).containsExactlyInAnyOrder(main, test);
+    assertThat(store.getFilesByLanguage("cobol")).isEmpty();
+    assertThat(store.getFilesByType(InputFile.Type.TEST)).containsExactly(test);
+
+    strategy.setGlobal(true);
+    assertThat(store.getFilesByLanguage("java")).containsExactlyInAnyOrder(main, test, otherModule);
+    assertThat(store.getFilesByType(InputFile.Type.MAIN)).containsExactlyInAnyOrder(main, otherModule);
+  }
+
   private ModuleInputComponentStore newModuleInputComponentStore() {
     return new ModuleInputComponentStore(mock(InputModule.class), componentStore, mock(SensorStrategy.class));
   }
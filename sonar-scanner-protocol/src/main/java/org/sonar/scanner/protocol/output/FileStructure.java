@@ -51,6 +51,10 @@ public class FileStructure {
       this.filePrefix = filePrefix;
       this.fileSuffix = fileSuffix;
     }
+
+    private boolean accept(String fileName) {
+      return fileName.startsWith(filePrefix) && fileName.endsWith(fileSuffix);
+    }
   }
 
   private final File dir;
@@ -81,6 +85,26 @@ public class FileStructure {
   public File contextProperties() {
     return new File(dir, "context-props.pb");
   }
+
+  /**
+   * Single file containing the files of all components, if they have been packed.
+   * @see ReportPackWriter
+   */
+  public File packFile() {
+    return new File(dir, "components.pack");
+  }
+
+  /**
+   * Whether the file contains data of a component, whatever the {@link Domain}
+   */
+  public static boolean isComponentFile(String fileName) {
+    for (Domain domain : Domain.values()) {
+      if (domain.accept(fileName)) {
+        return true;
+      }
+    }
+    return false;
+  }
   
   public File root() {
     return dir;
@@ -0,0 +1,223 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.core.util.ContextException;
+import org.sonar.duplications.utils.DirectBuffers;
+
+/**
+ * Random access to the entries of a file written by {@link ReportPackWriter}. The file is memory-mapped
+ * by segments of {@link #SEGMENT_SIZE} bytes, so that entries are read without system calls and without
+ * keeping file descriptors open.
+ * <p>
+ * Segments are unmapped by {@link #close()}, so that the file can be deleted, even on Windows. Streams of entries
+ * must not be read after the reader is closed.
+ * </p>
+ */
+public class ReportPackReader implements Closeable {
+
+  static final long SEGMENT_SIZE = 1L << 30;
+  private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+  private final File file;
+  private final long size;
+  private final MappedByteBuffer[] segments;
+  private final Map<String, Entry> entries;
+  private volatile boolean closed = false;
+
+  public ReportPackReader(File file) {
+    this.file = file;
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r"); FileChannel channel = randomAccessFile.getChannel()) {
+      this.size = channel.size();
+      if (size < TRAILER_SIZE + Integer.BYTES) {
+        throw new IllegalStateException("File is too small to be a pack");
+      }
+      int segmentCount = (int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+      this.segments = new MappedByteBuffer[segmentCount];
+      for (int i = 0; i < segmentCount; i++) {
+        long start = i * SEGMENT_SIZE;
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+      }
+      this.entries = readIndex();
+    } catch (Exception e) {
+      releaseSegments();
+      throw ContextException.of("Unable to open pack", e).addContext("file", file);
+    }
+  }
+
+  private Map<String, Entry> readIndex() throws IOException {
+    DataInputStream trailer = new DataInputStream(new ByteArrayInputStream(read(size - TRAILER_SIZE, TRAILER_SIZE)));
+    long indexOffset = trailer.readLong();
+    if (trailer.readInt() != ReportPackWriter.MAGIC || indexOffset < 0 || indexOffset > size - TRAILER_SIZE) {
+      throw new IllegalStateException("File is not a pack or is corrupted");
+    }
+    DataInputStream index = new DataInputStream(new ByteArrayInputStream(read(indexOffset, (int) (size - TRAILER_SIZE - indexOffset))));
+    int count = index.readInt();
+    Map<String, Entry> result = new HashMap<>(count * 4 / 3 + 1);
+    for (int i = 0; i < count; i++) {
+      String name = index.readUTF();
+      result.put(name, new Entry(index.readLong(), index.readLong()));
+    }
+    return result;
+  }
+
+  public boolean contains(String name) {
+    return entries.containsKey(name);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Stream of the bytes of the entry, or {@code null} if the pack has no entry with this name. Closing the stream
+   * is not required but is recommended.
+   */
+  @CheckForNull
+  public InputStream open(String name) {
+    checkNotClosed();
+    Entry entry = entries.get(name);
+    if (entry == null) {
+      return null;
+    }
+    int segment = (int) (entry.offset / SEGMENT_SIZE);
+    long endSegment = (entry.offset + entry.length - 1) / SEGMENT_SIZE;
+    if (entry.length == 0 || segment == endSegment) {
+      ByteBuffer buffer = segments[segment].duplicate();
+      int start = (int) (entry.offset - segment * SEGMENT_SIZE);
+      buffer.position(start);
+      buffer.limit(start + (int) entry.length);
+      return new SegmentInputStream(buffer.slice());
+    }
+    // rare case of entry overlapping two segments
+    if (entry.length > Integer.MAX_VALUE) {
+      throw ContextException.of("Entry is too big: " + entry.length + " bytes").addContext("file", file).addContext("entry", name);
+    }
+    return new ByteArrayInputStream(read(entry.offset, (int) entry.length));
+  }
+
+  private byte[] read(long position, int length) {
+    checkNotClosed();
+    byte[] bytes = new byte[length];
+    int copied = 0;
+    while (copied < length) {
+      long current = position + copied;
+      ByteBuffer buffer = segments[(int) (current / SEGMENT_SIZE)].duplicate();
+      buffer.position((int) (current % SEGMENT_SIZE));
+      int count = Math.min(length - copied, buffer.remaining());
+      buffer.get(bytes, copied, count);
+      copied += count;
+    }
+    return bytes;
+  }
+
+  /**
+   * Unmaps the segments of the file. Entries can't be read anymore.
+   */
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      releaseSegments();
+    }
+  }
+
+  private void releaseSegments() {
+    if (segments != null) {
+      for (int i = 0; i < segments.length; i++) {
+        DirectBuffers.release(segments[i]);
+        segments[i] = null;
+      }
+    }
+  }
+
+  private void checkNotClosed() {
+    if (closed) {
+      throw new IllegalStateException("Pack is closed: " + file);
+    }
+  }
+
+  private static class Entry {
+    private final long offset;
+    private final long length;
+
+    private Entry(long offset, long length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  /**
+   * Stream of an entry contained in a single segment. It fails instead of reading unmapped memory, which would
+   * crash the JVM, when the reader has been closed.
+   */
+  private class SegmentInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private SegmentInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      checkNotClosed();
+      return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) {
+      checkNotClosed();
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(len, buffer.remaining());
+      buffer.get(bytes, off, count);
+      return count;
+    }
+
+    @Override
+    public long skip(long n) {
+      int count = (int) Math.max(0L, Math.min(n, buffer.remaining()));
+      buffer.position(buffer.position() + count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
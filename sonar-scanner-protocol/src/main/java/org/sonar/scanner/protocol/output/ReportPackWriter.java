@@ -0,0 +1,119 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes a single file containing many named entries, generally the files of components (issues, measures, sources,
+ * ...). Entries are appended sequentially and an index of their offsets is written at the end of the file, so that
+ * they can be read randomly with {@link ReportPackReader}.
+ * <p>
+ * Format:
+ * <pre>
+ *   entry 1 bytes | ... | entry N bytes | index | offset of index (long) | {@link #MAGIC} (int)
+ * </pre>
+ * The index contains the number of entries (int), then for each entry its name (modified UTF-8), its offset
+ * (long) and its length (long).
+ * </p>
+ */
+public class ReportPackWriter implements Closeable {
+
+  static final int MAGIC = 0x53515250;
+
+  private final DataOutputStream output;
+  private final List<Entry> entries = new ArrayList<>();
+  private final Set<String> names = new HashSet<>();
+  private long position = 0L;
+  private boolean closed = false;
+
+  public ReportPackWriter(File file) throws IOException {
+    this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+  }
+
+  public ReportPackWriter append(String name, File file) throws IOException {
+    try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+      return append(name, input);
+    }
+  }
+
+  public ReportPackWriter append(String name, InputStream input) throws IOException {
+    if (closed) {
+      throw new IllegalStateException("Pack is closed");
+    }
+    if (!names.add(name)) {
+      throw new IllegalArgumentException("Entry " + name + " is already in pack");
+    }
+    long offset = position;
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = input.read(buffer)) != -1) {
+      output.write(buffer, 0, read);
+      position += read;
+    }
+    entries.add(new Entry(name, offset, position - offset));
+    return this;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      long indexOffset = position;
+      output.writeInt(entries.size());
+      for (Entry entry : entries) {
+        output.writeUTF(entry.name);
+        output.writeLong(entry.offset);
+        output.writeLong(entry.length);
+      }
+      output.writeLong(indexOffset);
+      output.writeInt(MAGIC);
+    } finally {
+      output.close();
+    }
+  }
+
+  private static class Entry {
+    private final String name;
+    private final long offset;
+    private final long length;
+
+    private Entry(String name, long offset, long length) {
+      this.name = name;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+}
@@ -19,19 +19,32 @@
  */
 package org.sonar.scanner.protocol.output;
 
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
 import javax.annotation.CheckForNull;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.core.util.ContextException;
 import org.sonar.core.util.Protobuf;
 
 import static org.sonar.core.util.CloseableIterator.emptyCloseableIterator;
 
-public class ScannerReportReader {
+public class ScannerReportReader implements Closeable {
 
   private final FileStructure fileStructure;
+  // null if the files of components are not packed (reports generated by older scanners)
+  @CheckForNull
+  private final ReportPackReader pack;
 
   public ScannerReportReader(File dir) {
     this.fileStructure = new FileStructure(dir);
+    File packFile = fileStructure.packFile();
+    this.pack = fileExists(packFile) ? new ReportPackReader(packFile) : null;
   }
 
   public ScannerReport.Metadata readMetadata() {
@@ -51,88 +64,63 @@ public class ScannerReportReader {
   }
 
   public CloseableIterator<ScannerReport.Measure> readComponentMeasures(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.MEASURES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Measure.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.MEASURES, componentRef, ScannerReport.Measure.parser());
   }
 
   @CheckForNull
   public ScannerReport.Changesets readChangesets(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CHANGESETS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.read(file, ScannerReport.Changesets.parser());
+    InputStream input = open(FileStructure.Domain.CHANGESETS, componentRef);
+    if (input != null) {
+      return Protobuf.read(input, ScannerReport.Changesets.parser());
     }
     return null;
   }
 
   public ScannerReport.Component readComponent(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COMPONENT, componentRef);
-    if (!fileExists(file)) {
-      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + file);
+    InputStream input = open(FileStructure.Domain.COMPONENT, componentRef);
+    if (input == null) {
+      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: "
+        + fileStructure.fileFor(FileStructure.Domain.COMPONENT, componentRef));
     }
-    return Protobuf.read(file, ScannerReport.Component.parser());
+    return Protobuf.read(input, ScannerReport.Component.parser());
   }
 
   public CloseableIterator<ScannerReport.Issue> readComponentIssues(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Issue.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.ISSUES, componentRef, ScannerReport.Issue.parser());
   }
 
   public CloseableIterator<ScannerReport.Duplication> readComponentDuplications(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.DUPLICATIONS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Duplication.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.DUPLICATIONS, componentRef, ScannerReport.Duplication.parser());
   }
 
   public CloseableIterator<ScannerReport.CpdTextBlock> readCpdTextBlocks(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.CpdTextBlock.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef, ScannerReport.CpdTextBlock.parser());
   }
 
   public CloseableIterator<ScannerReport.Symbol> readComponentSymbols(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYMBOLS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Symbol.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.SYMBOLS, componentRef, ScannerReport.Symbol.parser());
   }
 
   public boolean hasSyntaxHighlighting(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
-    return file.exists();
+    return exists(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
   }
 
   public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.SyntaxHighlightingRule.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef, ScannerReport.SyntaxHighlightingRule.parser());
   }
 
   public boolean hasCoverage(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, componentRef);
-    return file.exists();
+    return exists(FileStructure.Domain.COVERAGES, componentRef);
   }
 
   public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.LineCoverage.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.COVERAGES, fileRef, ScannerReport.LineCoverage.parser());
   }
 
+  /**
+   * @deprecated since 6.6 returns {@code null} when files of components are packed. Use {@link #openFileSource(int)}.
+   */
+  @Deprecated
   @CheckForNull
   public File readFileSource(int fileRef) {
     File file = fileStructure.fileFor(FileStructure.Domain.SOURCE, fileRef);
@@ -142,6 +130,19 @@ public class ScannerReportReader {
     return null;
   }
 
+  /**
+   * UTF-8 content of the source file, or {@code null} if the report does not contain it. Stream must be
+   * closed by caller.
+   */
+  @CheckForNull
+  public InputStream openFileSource(int fileRef) {
+    return open(FileStructure.Domain.SOURCE, fileRef);
+  }
+
+  /**
+   * @deprecated since 6.6 returns {@code null} when files of components are packed. Use {@link #openTests(int)}.
+   */
+  @Deprecated
   @CheckForNull
   public File readTests(int testFileRef) {
     File file = fileStructure.fileFor(FileStructure.Domain.TESTS, testFileRef);
@@ -152,6 +153,19 @@ public class ScannerReportReader {
     return null;
   }
 
+  /**
+   * Stream of delimited {@link ScannerReport.Test}, or {@code null} if the report does not contain tests
+   * for this file. Stream must be closed by caller.
+   */
+  @CheckForNull
+  public InputStream openTests(int testFileRef) {
+    return open(FileStructure.Domain.TESTS, testFileRef);
+  }
+
+  /**
+   * @deprecated since 6.6 returns {@code null} when files of components are packed. Use {@link #openCoverageDetails(int)}.
+   */
+  @Deprecated
   @CheckForNull
   public File readCoverageDetails(int testFileRef) {
     File file = fileStructure.fileFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
@@ -162,6 +176,15 @@ public class ScannerReportReader {
     return null;
   }
 
+  /**
+   * Stream of delimited {@link ScannerReport.CoverageDetail}, or {@code null} if the report does not contain
+   * coverage details for this file. Stream must be closed by caller.
+   */
+  @CheckForNull
+  public InputStream openCoverageDetails(int testFileRef) {
+    return open(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
+  }
+
   public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
     File file = fileStructure.contextProperties();
     if (!fileExists(file)) {
@@ -170,6 +193,41 @@ public class ScannerReportReader {
     return Protobuf.readStream(file, ScannerReport.ContextProperty.parser());
   }
 
+  private boolean exists(FileStructure.Domain domain, int componentRef) {
+    File file = fileStructure.fileFor(domain, componentRef);
+    return (pack != null && pack.contains(file.getName())) || fileExists(file);
+  }
+
+  /**
+   * Data are searched in pack first, then in the standalone file of component.
+   */
+  @CheckForNull
+  private InputStream open(FileStructure.Domain domain, int componentRef) {
+    File file = fileStructure.fileFor(domain, componentRef);
+    if (pack != null) {
+      InputStream input = pack.open(file.getName());
+      if (input != null) {
+        return input;
+      }
+    }
+    if (fileExists(file)) {
+      try {
+        return new BufferedInputStream(new FileInputStream(file));
+      } catch (FileNotFoundException e) {
+        throw ContextException.of("Unable to open file", e).addContext("file", file);
+      }
+    }
+    return null;
+  }
+
+  private <MSG extends Message> CloseableIterator<MSG> readStream(FileStructure.Domain domain, int componentRef, Parser<MSG> parser) {
+    InputStream input = open(domain, componentRef);
+    if (input == null) {
+      return emptyCloseableIterator();
+    }
+    return Protobuf.readStream(input, parser);
+  }
+
   private static boolean fileExists(File file) {
     return file.exists() && file.isFile();
   }
@@ -177,4 +235,15 @@ public class ScannerReportReader {
   public FileStructure getFileStructure() {
     return fileStructure;
   }
+
+  /**
+   * Releases the memory-mapped pack of component files, if any. Streams and iterators returned by
+   * this reader must not be used anymore.
+   */
+  @Override
+  public void close() {
+    if (pack != null) {
+      pack.close();
+    }
+  }
 }
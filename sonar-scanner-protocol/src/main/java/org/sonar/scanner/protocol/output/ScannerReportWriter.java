@@ -146,4 +146,30 @@ public class ScannerReportWriter {
     return fileStructure.fileFor(FileStructure.Domain.SOURCE, componentRef);
   }
 
+  /**
+   * Moves the files of all components into the single file {@link FileStructure#packFile()}, so that
+   * the number of files in report does not depend on the size of project. Component data must not be written
+   * afterwards.
+   */
+  public File packComponentFiles() {
+    File packFile = fileStructure.packFile();
+    File[] files = fileStructure.root().listFiles((dir, name) -> FileStructure.isComponentFile(name));
+    if (files == null) {
+      throw new IllegalStateException("Unable to list files of directory " + fileStructure.root());
+    }
+    try (ReportPackWriter pack = new ReportPackWriter(packFile)) {
+      for (File file : files) {
+        pack.append(file.getName(), file);
+      }
+    } catch (Exception e) {
+      throw ContextException.of("Unable to pack component files", e).addContext("file", packFile);
+    }
+    for (File file : files) {
+      if (!file.delete()) {
+        throw new IllegalStateException("Unable to delete file " + file);
+      }
+    }
+    return packFile;
+  }
+
 }
@@ -80,4 +80,14 @@ public class FileStructureTest {
     FileStructure structure = new FileStructure(dir);
     assertThat(structure.contextProperties()).exists().isFile().isEqualTo(file);
   }
+
+  @Test
+  public void isComponentFile() {
+    assertThat(FileStructure.isComponentFile("issues-12.pb")).isTrue();
+    assertThat(FileStructure.isComponentFile("coverage-details-3.pb")).isTrue();
+    assertThat(FileStructure.isComponentFile("source-5.txt")).isTrue();
+    assertThat(FileStructure.isComponentFile("metadata.pb")).isFalse();
+    assertThat(FileStructure.isComponentFile("context-props.pb")).isFalse();
+    assertThat(FileStructure.isComponentFile("components.pack")).isFalse();
+  }
 }
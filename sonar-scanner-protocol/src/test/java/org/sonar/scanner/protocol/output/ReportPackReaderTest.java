@@ -0,0 +1,152 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportPackReaderTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void read_entries_in_any_order() throws Exception {
+    File file = temp.newFile();
+    File source = temp.newFile();
+    FileUtils.write(source, "from file", UTF_8);
+    try (ReportPackWriter writer = new ReportPackWriter(file)) {
+      writer.append("first", new ByteArrayInputStream("foo".getBytes(UTF_8)));
+      writer.append("empty", new ByteArrayInputStream(new byte[0]));
+      writer.append("second", source);
+    }
+
+    ReportPackReader underTest = new ReportPackReader(file);
+
+    assertThat(underTest.size()).isEqualTo(3);
+    assertThat(read(underTest, "second")).isEqualTo("from file");
+    assertThat(read(underTest, "first")).isEqualTo("foo");
+    assertThat(read(underTest, "empty")).isEmpty();
+    // entries can be read multiple times
+    assertThat(read(underTest, "first")).isEqualTo("foo");
+    assertThat(underTest.contains("first")).isTrue();
+    assertThat(underTest.contains("unknown")).isFalse();
+    assertThat(underTest.open("unknown")).isNull();
+  }
+
+  @Test
+  public void read_pack_without_entries() throws Exception {
+    File file = temp.newFile();
+    new ReportPackWriter(file).close();
+
+    ReportPackReader underTest = new ReportPackReader(file);
+
+    assertThat(underTest.size()).isEqualTo(0);
+    assertThat(underTest.open("foo")).isNull();
+  }
+
+  @Test
+  public void fail_if_file_is_not_a_pack() throws Exception {
+    File file = temp.newFile();
+    FileUtils.write(file, "this is not a pack, only some text", UTF_8);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Unable to open pack");
+
+    new ReportPackReader(file);
+  }
+
+  @Test
+  public void file_can_be_deleted_after_close() throws Exception {
+    File file = temp.newFile();
+    try (ReportPackWriter writer = new ReportPackWriter(file)) {
+      writer.append("first", new ByteArrayInputStream("foo".getBytes(UTF_8)));
+    }
+    ReportPackReader underTest = new ReportPackReader(file);
+    assertThat(read(underTest, "first")).isEqualTo("foo");
+
+    underTest.close();
+
+    assertThat(file.delete()).isTrue();
+    assertThat(file).doesNotExist();
+  }
+
+  @Test
+  public void fail_to_read_stream_of_entry_after_close() throws Exception {
+    File file = temp.newFile();
+    try (ReportPackWriter writer = new ReportPackWriter(file)) {
+      writer.append("first", new ByteArrayInputStream("foo".getBytes(UTF_8)));
+    }
+    ReportPackReader underTest = new ReportPackReader(file);
+    InputStream input = underTest.open("first");
+    underTest.close();
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Pack is closed");
+
+    input.read();
+  }
+
+  @Test
+  public void fail_to_open_entry_after_close() throws Exception {
+    File file = temp.newFile();
+    new ReportPackWriter(file).close();
+    ReportPackReader underTest = new ReportPackReader(file);
+    underTest.close();
+    // closing twice is ok
+    underTest.close();
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Pack is closed");
+
+    underTest.open("foo");
+  }
+
+  @Test
+  public void fail_to_append_twice_the_same_entry() throws Exception {
+    File file = temp.newFile();
+    try (ReportPackWriter writer = new ReportPackWriter(file)) {
+      writer.append("foo", new ByteArrayInputStream(new byte[] {1}));
+
+      expectedException.expect(IllegalArgumentException.class);
+      expectedException.expectMessage("Entry foo is already in pack");
+
+      writer.append("foo", new ByteArrayInputStream(new byte[] {2}));
+    }
+  }
+
+  private static String read(ReportPackReader reader, String name) throws Exception {
+    try (InputStream input = reader.open(name)) {
+      return IOUtils.toString(input, UTF_8);
+    }
+  }
+}
@@ -376,5 +376,29 @@ public class ScannerReportReaderTest {
   @Test
   public void return_null_when_no_file_source() throws Exception {
     assertThat(underTest.readFileSource(UNKNOWN_COMPONENT_REF)).isNull();
+    assertThat(underTest.openFileSource(UNKNOWN_COMPONENT_REF)).isNull();
+  }
+
+  @Test
+  public void read_packed_component_files() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).setPath("src/Foo.java").build());
+    writer.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setRuleRepository("repo").setRuleKey("rule").build()));
+    writer.writeComponentCoverage(1, asList(ScannerReport.LineCoverage.newBuilder().setLine(1).setHits(true).build()));
+    try (FileOutputStream outputStream = new FileOutputStream(writer.getSourceFile(1))) {
+      IOUtils.write("line1\nline2", outputStream);
+    }
+    writer.packComponentFiles();
+
+    underTest = new ScannerReportReader(dir);
+
+    assertThat(underTest.readComponent(1).getPath()).isEqualTo("src/Foo.java");
+    assertThat(underTest.readComponentIssues(1)).extracting(ScannerReport.Issue::getRuleKey).containsExactly("rule");
+    assertThat(underTest.hasCoverage(1)).isTrue();
+    assertThat(underTest.hasCoverage(2)).isFalse();
+    assertThat(underTest.readComponentSymbols(1)).isEmpty();
+    try (InputStream inputStream = underTest.openFileSource(1)) {
+      assertThat(IOUtils.readLines(inputStream)).containsOnly("line1", "line2");
+    }
   }
 }
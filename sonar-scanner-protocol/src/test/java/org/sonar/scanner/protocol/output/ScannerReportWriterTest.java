@@ -299,4 +299,21 @@ public class ScannerReportWriterTest {
 
     assertThat(underTest.hasComponentData(FileStructure.Domain.COVERAGE_DETAILS, 1)).isTrue();
   }
+
+  @Test
+  public void pack_component_files() {
+    underTest.writeMetadata(ScannerReport.Metadata.newBuilder().setRootComponentRef(1).build());
+    underTest.writeComponent(ScannerReport.Component.newBuilder().setRef(1).build());
+    underTest.writeComponentMeasures(1, asList(ScannerReport.Measure.newBuilder().setMetricKey("ncloc").build()));
+
+    File pack = underTest.packComponentFiles();
+
+    assertThat(pack).isEqualTo(underTest.getFileStructure().packFile()).isFile();
+    assertThat(dir.list()).containsOnly("metadata.pb", pack.getName());
+    assertThat(underTest.hasComponentData(FileStructure.Domain.COMPONENT, 1)).isFalse();
+    try (ReportPackReader packReader = new ReportPackReader(pack)) {
+      assertThat(packReader.contains("component-1.pb")).isTrue();
+      assertThat(packReader.contains("measures-1.pb")).isTrue();
+    }
+  }
 }